@@ -0,0 +1,87 @@
+package com.example.config;
+
+import com.example.domain.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the JSON serialization of appointments with their slot, vet, pet and owner, as returned by
+ * the appointment resource, with the modules of {@link JacksonConfiguration}.
+ * <p>
+ * The {@code afterburner} parameter measures what the Afterburner module brings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JacksonSerializationBenchmark {
+
+    @Param({"true", "false"})
+    private boolean afterburner;
+
+    @Param({"20"})
+    private int pageSize;
+
+    private ObjectWriter appointmentWriter;
+
+    private ObjectWriter pageWriter;
+
+    private Appointment appointment;
+
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setup() {
+        JacksonConfiguration configuration = new JacksonConfiguration();
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (afterburner) {
+            builder.modules(configuration.javaTimeModule(), configuration.jdk8TimeModule(),
+                configuration.hibernate5Module(), configuration.afterburnerModule());
+        } else {
+            builder.modules(configuration.javaTimeModule(), configuration.jdk8TimeModule(),
+                configuration.hibernate5Module());
+        }
+        ObjectMapper objectMapper = builder.build();
+        appointmentWriter = objectMapper.writerFor(Appointment.class);
+        pageWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Appointment.class));
+
+        Slot slot = new Slot().startTime(LocalTime.of(9, 30));
+        slot.setId(1L);
+        Vet vet = new Vet().name("Dr. Benchmark").address("1 Main Street").city("Springfield")
+            .stateProvince("Oregon").phone("555-0100");
+        vet.setId(2L);
+        appointments = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Owner owner = new Owner().name("Owner " + i).email("owner" + i + "@localhost").phone("555-01" + i);
+            owner.setId(100L + i);
+            Pet pet = new Pet().name("Pet " + i).type("dog").breed("beagle").owner(owner);
+            pet.setId(200L + i);
+            Appointment booked = new Appointment().apptTime(LocalDate.of(2030, 1, 1).plusDays(i)).slot(slot).vet(vet).pet(pet);
+            booked.setId(300L + i);
+            appointments.add(booked);
+        }
+        appointment = appointments.get(0);
+    }
+
+    @Benchmark
+    public byte[] serializeAppointment() throws Exception {
+        return appointmentWriter.writeValueAsBytes(appointment);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return pageWriter.writeValueAsBytes(appointments);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.domain.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the inserts of a batch of rows with the two id strategies: identity columns, where each row is
+ * inserted on its own to read back its id, and {@link PooledTableIdGenerator}, where ids are reserved
+ * {@code allocationSize} at a time and rows are sent in JDBC batches.
+ * <p>
+ * It runs at the JDBC level, with the statements Hibernate sends for each strategy. What batching saves is the
+ * round trips to the database, which an in-memory H2 database does not have: there, the extra statements of the
+ * table generator make identity columns come out ahead. Run it against the production database with
+ * {@code -Djmh.args="-p url=jdbc:mysql://localhost:3306/benchmark?rewriteBatchedStatements=true -p user=root"}
+ * to compare the strategies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IdGenerationBenchmark {
+
+    private static final String IDENTITY_INSERT = "insert into identity_owner (id, email, name, phone) values (null, ?, ?, ?)";
+
+    private static final String INSERT = "insert into owner (email, name, phone, id) values (?, ?, ?, ?)";
+
+    @Param({"jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1"})
+    private String url;
+
+    @Param({"sa"})
+    private String user;
+
+    @Param({""})
+    private String password;
+
+    /**
+     * Rows inserted by each invocation, in one transaction, as a chunk of {@code BatchService}.
+     */
+    @Param({"100"})
+    private int rows;
+
+    /**
+     * Both the allocation size and the JDBC batch size, as configured in application.yml.
+     */
+    @Param({"50"})
+    private int allocationSize;
+
+    private Connection connection;
+
+    /**
+     * The connection of the id reservations, which the table generator takes from the pool.
+     */
+    private Connection generatorConnection;
+
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(url, user, password);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table identity_owner (id bigint auto_increment primary key, " +
+                "name varchar(255), email varchar(255), phone varchar(255))");
+            statement.execute("create table owner (id bigint primary key, " +
+                "name varchar(255), email varchar(255), phone varchar(255))");
+            statement.execute("create table id_generator (sequence_name varchar(255) primary key, next_val bigint)");
+            statement.execute("insert into id_generator (sequence_name, next_val) values ('owner', 1)");
+        }
+        connection.commit();
+        generatorConnection = DriverManager.getConnection(url, user, password);
+        generatorConnection.setAutoCommit(false);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("truncate table identity_owner");
+            statement.execute("truncate table owner");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table identity_owner");
+            statement.execute("drop table owner");
+            statement.execute("drop table id_generator");
+        }
+        generatorConnection.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public long identity() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(IDENTITY_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "owner" + i + "@localhost");
+                insert.setString(2, "Owner " + i);
+                insert.setString(3, "555-0100");
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    public long pooledTable() throws SQLException {
+        long lastId = 0;
+        long reserved = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < rows; i++) {
+                if (reserved == 0) {
+                    reserve();
+                    reserved = allocationSize;
+                }
+                lastId = nextId++;
+                reserved--;
+                insert.setString(1, "owner" + i + "@localhost");
+                insert.setString(2, "Owner " + i);
+                insert.setString(3, "555-0100");
+                insert.setLong(4, lastId);
+                insert.addBatch();
+                if ((i + 1) % allocationSize == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    /**
+     * Reserve the next ids as the pooled-lo optimizer does, in the isolated transaction of the table generator.
+     */
+    private void reserve() throws SQLException {
+        try (PreparedStatement select = generatorConnection.prepareStatement(
+            "select next_val from id_generator where sequence_name = 'owner' for update");
+             PreparedStatement update = generatorConnection.prepareStatement(
+                 "update id_generator set next_val = ? where sequence_name = 'owner'")) {
+            try (ResultSet resultSet = select.executeQuery()) {
+                resultSet.next();
+                nextId = resultSet.getLong(1);
+            }
+            update.setLong(1, nextId + allocationSize);
+            update.executeUpdate();
+        }
+        generatorConnection.commit();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.security;
+
+import com.example.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the BCrypt password hashing of {@link AdaptivePasswordEncoder}, run on each form login and password
+ * change, to choose {@code application.password-hashing.bcrypt-strength} on the production hardware: each
+ * strength doubles the time of the previous one, and a login should take no more than a few hundred
+ * milliseconds of one processor. Run it with {@code -Djmh.args="-p strength=12"} to try other strengths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "11", "12"})
+    private int strength;
+
+    private AdaptivePasswordEncoder passwordEncoder;
+
+    private String hash;
+
+    @Setup
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPasswordHashing().setBcryptStrength(strength);
+        applicationProperties.getPasswordHashing().setThreads(1);
+        passwordEncoder = new AdaptivePasswordEncoder(applicationProperties, new SimpleMeterRegistry());
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordEncoder.shutdown();
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+}
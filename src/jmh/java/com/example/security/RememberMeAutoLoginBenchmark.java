@@ -0,0 +1,154 @@
+package com.example.security;
+
+import com.example.domain.PersistentToken;
+import com.example.domain.User;
+import com.example.repository.PersistentTokenRepository;
+import com.example.repository.UserRepository;
+
+import io.github.jhipster.config.JHipsterProperties;
+import com.example.config.ApplicationProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Proxy;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark of concurrent remember-me logins of distinct users, each refreshing its persistent token.
+ * <p>
+ * The repository and the user details service wait {@code databaseLatencyMicros} per call, as a database round trip
+ * would; refreshed tokens are left pending in the {@link PersistentTokenWriteBehind}, which is not flushed. With
+ * {@code locking=global}, the whole auto-login is serialized as it was by {@code synchronized (this)}, so the
+ * throughput is bounded by one login per round trip whatever the number of threads; with {@code locking=striped},
+ * logins of distinct series proceed in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RememberMeAutoLoginBenchmark {
+
+    @Param({"striped", "global"})
+    private String locking;
+
+    @Param({"200"})
+    private long databaseLatencyMicros;
+
+    private final Map<String, PersistentToken> tokens = new ConcurrentHashMap<>();
+
+    private final AtomicInteger clients = new AtomicInteger();
+
+    private PersistentTokenRememberMeServices rememberMeServices;
+
+    @Setup
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getRememberMe().setKey("benchmark");
+        PersistentTokenRepository persistentTokenRepository = (PersistentTokenRepository) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] { PersistentTokenRepository.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findById":
+                        databaseRoundTrip();
+                        return Optional.ofNullable(tokens.get(args[0]));
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        UserDetailsService userDetailsService = login -> {
+            databaseRoundTrip();
+            return new org.springframework.security.core.userdetails.User(login, "", Collections.emptyList());
+        };
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { UserRepository.class }, (proxy, method, args) -> {
+                throw new UnsupportedOperationException(method.getName());
+            });
+        PersistentTokenWriteBehind persistentTokenWriteBehind =
+            new PersistentTokenWriteBehind(null, null, new ApplicationProperties());
+        rememberMeServices = "global".equals(locking) ?
+            new GloballyLockedRememberMeServices(jHipsterProperties, userDetailsService, persistentTokenRepository,
+                userRepository, persistentTokenWriteBehind) :
+            new PersistentTokenRememberMeServices(jHipsterProperties, userDetailsService, persistentTokenRepository,
+                userRepository, persistentTokenWriteBehind);
+    }
+
+    private void databaseRoundTrip() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(databaseLatencyMicros));
+    }
+
+    /**
+     * A browser of its own user, presenting the last cookie it was given.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+        private String[] cookieTokens;
+
+        @Setup
+        public void setup(RememberMeAutoLoginBenchmark benchmark) {
+            request.addHeader("User-Agent", "Benchmark");
+            User user = new User();
+            user.setLogin("user-" + benchmark.clients.incrementAndGet());
+            PersistentToken token = new PersistentToken();
+            token.setSeries(user.getLogin() + "-series");
+            token.setTokenValue("initial");
+            token.setTokenDate(LocalDate.now());
+            token.setUser(user);
+            benchmark.tokens.put(token.getSeries(), token);
+            cookieTokens = new String[] { token.getSeries(), token.getTokenValue() };
+        }
+    }
+
+    @Benchmark
+    public UserDetails autoLogin(Client client) throws UnsupportedEncodingException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        UserDetails userDetails = rememberMeServices.processAutoLoginCookie(client.cookieTokens, client.request, response);
+        // Present the refreshed cookie next time, as a browser would
+        String[] cookieTokens = new String(Base64.getDecoder().decode(response.getCookie("remember-me").getValue()),
+            StandardCharsets.UTF_8).split(":");
+        for (int i = 0; i < cookieTokens.length; i++) {
+            cookieTokens[i] = URLDecoder.decode(cookieTokens[i], StandardCharsets.UTF_8.name());
+        }
+        client.cookieTokens = cookieTokens;
+        return userDetails;
+    }
+
+    /**
+     * The auto-login as it was, serialized by a single monitor.
+     */
+    private static final class GloballyLockedRememberMeServices extends PersistentTokenRememberMeServices {
+
+        GloballyLockedRememberMeServices(JHipsterProperties jHipsterProperties, UserDetailsService userDetailsService,
+                                         PersistentTokenRepository persistentTokenRepository,
+                                         UserRepository userRepository,
+                                         PersistentTokenWriteBehind persistentTokenWriteBehind) {
+            super(jHipsterProperties, userDetailsService, persistentTokenRepository, userRepository,
+                persistentTokenWriteBehind);
+        }
+
+        @Override
+        protected synchronized UserDetails processAutoLoginCookie(String[] cookieTokens, HttpServletRequest request,
+                                                                  HttpServletResponse response) {
+            return super.processAutoLoginCookie(cookieTokens, request, response);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.service;
+
+import com.example.domain.Appointment;
+import com.example.domain.Owner;
+import com.example.service.dto.AppointmentCriteria;
+import com.example.service.dto.OwnerCriteria;
+
+import io.github.jhipster.service.filter.LocalDateFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the conversion of criteria to specifications by the query services, which happens on every
+ * filtered list request, twice when the page is counted.
+ * <p>
+ * Only the construction of the specifications is measured: their predicates are built by the JPA provider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class QueryServiceSpecificationBenchmark {
+
+    private OwnerQueryService ownerQueryService;
+
+    private AppointmentQueryService appointmentQueryService;
+
+    private OwnerCriteria ownerCriteria;
+
+    private AppointmentCriteria appointmentCriteria;
+
+    @Setup
+    public void setup() {
+        // The repositories are not used to build specifications
+        ownerQueryService = new OwnerQueryService(null, null, null, null);
+        appointmentQueryService = new AppointmentQueryService(null, null, null);
+
+        ownerCriteria = new OwnerCriteria();
+        StringFilter name = new StringFilter();
+        name.setContains("smith");
+        ownerCriteria.setName(name);
+        StringFilter email = new StringFilter();
+        email.setSpecified(true);
+        ownerCriteria.setEmail(email);
+
+        appointmentCriteria = new AppointmentCriteria();
+        LocalDateFilter apptTime = new LocalDateFilter();
+        apptTime.setGreaterOrEqualThan(LocalDate.of(2030, 1, 1));
+        apptTime.setLessThan(LocalDate.of(2030, 2, 1));
+        appointmentCriteria.setApptTime(apptTime);
+        LongFilter vetId = new LongFilter();
+        vetId.setIn(Arrays.asList(1L, 2L, 3L));
+        appointmentCriteria.setVetId(vetId);
+        LongFilter petId = new LongFilter();
+        petId.setEquals(4L);
+        appointmentCriteria.setPetId(petId);
+    }
+
+    @Benchmark
+    public Specification<Owner> ownerSpecification() {
+        return ownerQueryService.createSpecification(ownerCriteria);
+    }
+
+    @Benchmark
+    public Specification<Appointment> appointmentSpecification() {
+        return appointmentQueryService.createSpecification(appointmentCriteria);
+    }
+}
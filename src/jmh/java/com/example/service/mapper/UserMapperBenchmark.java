@@ -0,0 +1,90 @@
+package com.example.service.mapper;
+
+import com.example.domain.Authority;
+import com.example.domain.User;
+import com.example.security.AuthoritiesConstants;
+import com.example.service.dto.UserDTO;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the conversions of {@link UserMapper}, for a single user and for a page of users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserMapperBenchmark {
+
+    @Param({"20"})
+    private int pageSize;
+
+    private UserMapper userMapper;
+
+    private User user;
+
+    private UserDTO userDTO;
+
+    private List<User> users;
+
+    @Setup
+    public void setup() {
+        userMapper = new UserMapper();
+        users = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            users.add(createUser(i));
+        }
+        user = users.get(0);
+        userDTO = new UserDTO(user);
+    }
+
+    @Benchmark
+    public UserDTO userToUserDTO() {
+        return userMapper.userToUserDTO(user);
+    }
+
+    @Benchmark
+    public User userDTOToUser() {
+        return userMapper.userDTOToUser(userDTO);
+    }
+
+    @Benchmark
+    public List<UserDTO> usersToUserDTOs() {
+        return userMapper.usersToUserDTOs(users);
+    }
+
+    private static User createUser(int i) {
+        User user = new User();
+        user.setId((long) i);
+        user.setLogin("user" + i);
+        user.setFirstName("First" + i);
+        user.setLastName("Last" + i);
+        user.setEmail("user" + i + "@localhost");
+        user.setImageUrl("http://placehold.it/50x50");
+        user.setActivated(true);
+        user.setLangKey("en");
+        user.setCreatedBy("system");
+        user.setCreatedDate(Instant.now());
+        user.setLastModifiedBy("system");
+        user.setLastModifiedDate(Instant.now());
+        Set<Authority> authorities = new HashSet<>();
+        Authority authority = new Authority();
+        authority.setName(AuthoritiesConstants.USER);
+        authorities.add(authority);
+        if (i % 10 == 0) {
+            Authority admin = new Authority();
+            admin.setName(AuthoritiesConstants.ADMIN);
+            authorities.add(admin);
+        }
+        user.setAuthorities(authorities);
+        return user;
+    }
+}
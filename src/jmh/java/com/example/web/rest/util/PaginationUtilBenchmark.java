@@ -0,0 +1,41 @@
+package com.example.web.rest.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the Link and X-Total-Count headers of {@link PaginationUtil}, generated for every page of
+ * every list and search request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PaginationUtilBenchmark {
+
+    private Page<Object> page;
+
+    @Setup
+    public void setup() {
+        // A page in the middle, so that all four links are generated
+        page = new PageImpl<>(Collections.nCopies(20, new Object()), PageRequest.of(3, 20), 1000);
+    }
+
+    @Benchmark
+    public HttpHeaders paginationHeaders() {
+        return PaginationUtil.generatePaginationHttpHeaders(page, "/api/appointments");
+    }
+
+    @Benchmark
+    public HttpHeaders searchPaginationHeaders() {
+        return PaginationUtil.generateSearchPaginationHttpHeaders("pet:\"Rex\" AND date:2030-01-01..2030-02-01", page,
+            "/api/_search/appointments");
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.aop.logging;
+
+import com.example.config.ApplicationProperties;
+
+import io.github.jhipster.config.JHipsterConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.Repository;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aspect timing the execution of service, repository and Web REST Spring components, in every profile.
+ * <p>
+ * Each method gets a {@value #TIMER_NAME} timer tagged with its class and name, and with the simple name of the
+ * exception it threw, if any. The class of a Spring Data repository method is the repository interface of the
+ * application, even for the methods it inherits from {@code JpaRepository} or {@code ElasticsearchRepository}.
+ * Its state is resolved once and cached, so an instrumented call costs a map lookup, two clock reads and the timer
+ * update. Arguments and results are only logged, at DEBUG on the logger of the class, for the share of the calls
+ * given by {@code application.instrumentation.argument-sample-rate}.
+ * <p>
+ * Instrumentation is switched on or off by package, or by class, at runtime: the most specific switch applies,
+ * and classes without one follow {@code application.instrumentation.enabled}.
+ */
+@Aspect
+public class InstrumentationAspect {
+
+    public static final String TIMER_NAME = "method.invocation";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean development;
+
+    private final boolean enabledByDefault;
+
+    private final double argumentSampleRate;
+
+    private final ConcurrentMap<String, Boolean> switches = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Method, MethodInstrumentation> methods = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, MethodInstrumentation>> repositoryMethods =
+        new ConcurrentHashMap<>();
+
+    public InstrumentationAspect(Environment env, MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this.meterRegistry = meterRegistry;
+        this.development = env.acceptsProfiles(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT);
+        ApplicationProperties.Instrumentation properties = applicationProperties.getInstrumentation();
+        this.enabledByDefault = properties.isEnabled();
+        this.argumentSampleRate = properties.getArgumentSampleRate();
+        for (String name : properties.getDisabledPackages()) {
+            switches.put(name, false);
+        }
+    }
+
+    /**
+     * Pointcut that matches all repositories, services and Web REST endpoints.
+     */
+    @Pointcut("within(@org.springframework.stereotype.Repository *)" +
+        " || within(@org.springframework.stereotype.Service *)" +
+        " || within(@org.springframework.web.bind.annotation.RestController *)")
+    public void springBeanPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Pointcut that matches all Spring beans in the application's main packages.
+     */
+    @Pointcut("within(com.example.repository..*)"+
+        " || within(com.example.service..*)"+
+        " || within(com.example.web.rest..*)")
+    public void applicationPackagePointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Pointcut that matches all Spring Data repositories, which are JDK proxies out of the application's packages.
+     */
+    @Pointcut("this(org.springframework.data.repository.Repository)")
+    public void springDataRepositoryPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that times methods, and logs a sample of their calls.
+     *
+     * @param joinPoint join point for advice
+     * @return result
+     * @throws Throwable the exception thrown by the method
+     */
+    @Around("(applicationPackagePointcut() && springBeanPointcut()) || springDataRepositoryPointcut()")
+    public Object instrument(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodInstrumentation instrumentation = getInstrumentation(joinPoint);
+        if (!instrumentation.enabled) {
+            return joinPoint.proceed();
+        }
+        boolean sampled = isSampled(instrumentation.log);
+        if (sampled) {
+            instrumentation.log.debug("Enter: {}() with argument[s] = {}", instrumentation.methodName,
+                Arrays.toString(joinPoint.getArgs()));
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            instrumentation.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (sampled) {
+                instrumentation.log.debug("Exit: {}() with result = {}", instrumentation.methodName, result);
+            }
+            return result;
+        } catch (Throwable e) {
+            meterRegistry.timer(TIMER_NAME, "class", instrumentation.className, "method", instrumentation.methodName,
+                "exception", e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (development) {
+                logException(joinPoint, e);
+            }
+            throw e;
+        }
+    }
+
+    private MethodInstrumentation getInstrumentation(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object proxy = joinPoint.getThis();
+        if (!(proxy instanceof Repository)) {
+            return methods.computeIfAbsent(method, m -> new MethodInstrumentation(m.getDeclaringClass(), m));
+        }
+        // An inherited method is declared by a Spring Data interface, shared by all the repositories
+        return repositoryMethods.computeIfAbsent(proxy.getClass(), proxyClass -> new ConcurrentHashMap<>())
+            .computeIfAbsent(method, m -> new MethodInstrumentation(getRepositoryInterface(proxy, m), m));
+    }
+
+    private static Class<?> getRepositoryInterface(Object proxy, Method method) {
+        for (Class<?> proxiedInterface : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+            if (Repository.class.isAssignableFrom(proxiedInterface) &&
+                !proxiedInterface.getName().startsWith("org.springframework.")) {
+                return proxiedInterface;
+            }
+        }
+        return method.getDeclaringClass();
+    }
+
+    private List<MethodInstrumentation> getInstrumentations() {
+        List<MethodInstrumentation> instrumentations = new ArrayList<>(methods.values());
+        repositoryMethods.values().forEach(repository -> instrumentations.addAll(repository.values()));
+        return instrumentations;
+    }
+
+    private boolean isSampled(Logger logger) {
+        return argumentSampleRate > 0 && logger.isDebugEnabled() &&
+            (argumentSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < argumentSampleRate);
+    }
+
+    private void logException(ProceedingJoinPoint joinPoint, Throwable e) {
+        if (e instanceof IllegalArgumentException) {
+            log.error("Illegal argument: {} in {}.{}()", Arrays.toString(joinPoint.getArgs()),
+                joinPoint.getSignature().getDeclaringTypeName(), joinPoint.getSignature().getName());
+        }
+        log.error("Exception in {}.{}() with cause = \'{}\' and exception = \'{}\'", joinPoint.getSignature().getDeclaringTypeName(),
+            joinPoint.getSignature().getName(), e.getCause() != null? e.getCause() : "NULL", e.getMessage(), e);
+    }
+
+    /**
+     * @return whether each package holding instrumented classes, and each switched package or class, is instrumented
+     */
+    public SortedMap<String, Boolean> getPackages() {
+        SortedMap<String, Boolean> packages = new TreeMap<>(switches);
+        for (MethodInstrumentation instrumentation : getInstrumentations()) {
+            String packageName = instrumentation.type.getPackage().getName();
+            packages.putIfAbsent(packageName, isEnabled(packageName));
+        }
+        return packages;
+    }
+
+    /**
+     * Switch the instrumentation of a package, its sub-packages and its classes, or of a single class.
+     *
+     * @param name the name of the package or class
+     * @param enabled whether it is instrumented
+     */
+    public void setEnabled(String name, boolean enabled) {
+        log.info("Instrumentation of {} {}", name, enabled ? "enabled" : "disabled");
+        switches.put(name, enabled);
+        for (MethodInstrumentation instrumentation : getInstrumentations()) {
+            instrumentation.enabled = isEnabled(instrumentation.type.getName());
+        }
+    }
+
+    /**
+     * @param name the name of a class or package
+     * @return the most specific switch of the name and its enclosing packages, or the default
+     */
+    private boolean isEnabled(String name) {
+        for (String prefix = name; !prefix.isEmpty(); prefix = prefix.substring(0, Math.max(prefix.lastIndexOf('.'), 0))) {
+            Boolean enabled = switches.get(prefix);
+            if (enabled != null) {
+                return enabled;
+            }
+        }
+        return enabledByDefault;
+    }
+
+    private final class MethodInstrumentation {
+
+        private final Class<?> type;
+
+        private final String className;
+
+        private final String methodName;
+
+        private final Logger log;
+
+        private final Timer timer;
+
+        private volatile boolean enabled;
+
+        MethodInstrumentation(Class<?> type, Method method) {
+            this.type = type;
+            this.className = type.getSimpleName();
+            this.methodName = method.getName();
+            this.log = LoggerFactory.getLogger(type);
+            this.timer = meterRegistry.timer(TIMER_NAME, "class", className, "method", methodName, "exception", NO_EXCEPTION);
+            this.enabled = isEnabled(type.getName());
+        }
+    }
+}
@@ -2,6 +2,11 @@ package com.example.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Properties specific to Petclinic 2.
  * <p>
@@ -11,4 +16,627 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final SearchOutbox searchOutbox = new SearchOutbox();
+
+    private final SearchBulk searchBulk = new SearchBulk();
+
+    private final SearchReindex searchReindex = new SearchReindex();
+
+    private final HibernateCache hibernateCache = new HibernateCache();
+
+    private final QueryPlanner queryPlanner = new QueryPlanner();
+
+    private final Batch batch = new Batch();
+
+    private final Instrumentation instrumentation = new Instrumentation();
+
+    private final Profiler profiler = new Profiler();
+
+    private final SqlStatistics sqlStatistics = new SqlStatistics();
+
+    private final PersistentToken persistentToken = new PersistentToken();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final AuditEvents auditEvents = new AuditEvents();
+
+    private final Export export = new Export();
+
+    private final Availability availability = new Availability();
+
+    public SearchOutbox getSearchOutbox() {
+        return searchOutbox;
+    }
+
+    public SearchBulk getSearchBulk() {
+        return searchBulk;
+    }
+
+    public SearchReindex getSearchReindex() {
+        return searchReindex;
+    }
+
+    public HibernateCache getHibernateCache() {
+        return hibernateCache;
+    }
+
+    public QueryPlanner getQueryPlanner() {
+        return queryPlanner;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Instrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    public SqlStatistics getSqlStatistics() {
+        return sqlStatistics;
+    }
+
+    public PersistentToken getPersistentToken() {
+        return persistentToken;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public AuditEvents getAuditEvents() {
+        return auditEvents;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Availability getAvailability() {
+        return availability;
+    }
+
+    public static class SearchOutbox {
+
+        private int batchSize = 500;
+
+        private int maxBatchesPerRun = 20;
+
+        private long pollIntervalMs = 1000;
+
+        private long initialBackoffMs = 1000;
+
+        private long maxBackoffMs = 300000;
+
+        private long leaseMs = 60000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxBatchesPerRun() {
+            return maxBatchesPerRun;
+        }
+
+        public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+            this.maxBatchesPerRun = maxBatchesPerRun;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+
+        public long getLeaseMs() {
+            return leaseMs;
+        }
+
+        public void setLeaseMs(long leaseMs) {
+            this.leaseMs = leaseMs;
+        }
+    }
+
+    public static class SearchBulk {
+
+        private int maxActions = 1000;
+
+        private long maxBytes = 5 * 1024 * 1024;
+
+        private int concurrency = 2;
+
+        public int getMaxActions() {
+            return maxActions;
+        }
+
+        public void setMaxActions(int maxActions) {
+            this.maxActions = maxActions;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+
+    public static class SearchReindex {
+
+        private int partitions = 4;
+
+        private int pageSize = 1000;
+
+        public int getPartitions() {
+            return partitions;
+        }
+
+        public void setPartitions(int partitions) {
+            this.partitions = partitions;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+    }
+
+    public static class HibernateCache {
+
+        private Map<String, Region> regions = new HashMap<>();
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public void setRegions(Map<String, Region> regions) {
+            this.regions = regions;
+        }
+
+        /**
+         * Sizing of one cache region, unset values default to {@code jhipster.cache.ehcache}.
+         */
+        public static class Region {
+
+            private Integer timeToLiveSeconds;
+
+            private Long maxEntries;
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+    }
+
+    public static class QueryPlanner {
+
+        private boolean searchEnabled = true;
+
+        public boolean isSearchEnabled() {
+            return searchEnabled;
+        }
+
+        public void setSearchEnabled(boolean searchEnabled) {
+            this.searchEnabled = searchEnabled;
+        }
+    }
+
+    public static class Batch {
+
+        private int maxOperations = 1000;
+
+        private int chunkSize = 100;
+
+        public int getMaxOperations() {
+            return maxOperations;
+        }
+
+        public void setMaxOperations(int maxOperations) {
+            this.maxOperations = maxOperations;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Instrumentation {
+
+        private boolean enabled = true;
+
+        private double argumentSampleRate = 0;
+
+        private List<String> disabledPackages = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getArgumentSampleRate() {
+            return argumentSampleRate;
+        }
+
+        public void setArgumentSampleRate(double argumentSampleRate) {
+            this.argumentSampleRate = argumentSampleRate;
+        }
+
+        public List<String> getDisabledPackages() {
+            return disabledPackages;
+        }
+
+        public void setDisabledPackages(List<String> disabledPackages) {
+            this.disabledPackages = disabledPackages;
+        }
+    }
+
+    public static class Profiler {
+
+        private long maxDurationSeconds = 300;
+
+        private long intervalMs = 20;
+
+        private int maxStacks = 10000;
+
+        private int maxDepth = 128;
+
+        public long getMaxDurationSeconds() {
+            return maxDurationSeconds;
+        }
+
+        public void setMaxDurationSeconds(long maxDurationSeconds) {
+            this.maxDurationSeconds = maxDurationSeconds;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public int getMaxStacks() {
+            return maxStacks;
+        }
+
+        public void setMaxStacks(int maxStacks) {
+            this.maxStacks = maxStacks;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+    }
+
+    public static class SqlStatistics {
+
+        private boolean enabled = true;
+
+        private int statementsThreshold = 50;
+
+        private long rowsThreshold = 5000;
+
+        private int entitiesThreshold = 1000;
+
+        private long jdbcTimeThresholdMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getStatementsThreshold() {
+            return statementsThreshold;
+        }
+
+        public void setStatementsThreshold(int statementsThreshold) {
+            this.statementsThreshold = statementsThreshold;
+        }
+
+        public long getRowsThreshold() {
+            return rowsThreshold;
+        }
+
+        public void setRowsThreshold(long rowsThreshold) {
+            this.rowsThreshold = rowsThreshold;
+        }
+
+        public int getEntitiesThreshold() {
+            return entitiesThreshold;
+        }
+
+        public void setEntitiesThreshold(int entitiesThreshold) {
+            this.entitiesThreshold = entitiesThreshold;
+        }
+
+        public long getJdbcTimeThresholdMs() {
+            return jdbcTimeThresholdMs;
+        }
+
+        public void setJdbcTimeThresholdMs(long jdbcTimeThresholdMs) {
+            this.jdbcTimeThresholdMs = jdbcTimeThresholdMs;
+        }
+    }
+
+    public static class PersistentToken {
+
+        private long flushIntervalMs = 250;
+
+        private int batchSize = 100;
+
+        private boolean singleNode = true;
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public boolean isSingleNode() {
+            return singleNode;
+        }
+
+        public void setSingleNode(boolean singleNode) {
+            this.singleNode = singleNode;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        private String algorithm = "bcrypt";
+
+        private int bcryptStrength = 10;
+
+        private int threads = 0;
+
+        private int queueCapacity = 0;
+
+        private long timeoutMs = 2000;
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(String algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public int getBcryptStrength() {
+            return bcryptStrength;
+        }
+
+        public void setBcryptStrength(int bcryptStrength) {
+            this.bcryptStrength = bcryptStrength;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+    }
+
+    public static class AuditEvents {
+
+        private int queueCapacity = 10000;
+
+        private long flushIntervalMs = 500;
+
+        private int batchSize = 100;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+        private long blockTimeoutMs = 100;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public long getBlockTimeoutMs() {
+            return blockTimeoutMs;
+        }
+
+        public void setBlockTimeoutMs(long blockTimeoutMs) {
+            this.blockTimeoutMs = blockTimeoutMs;
+        }
+
+        /**
+         * What to do with an audit event when the queue is full.
+         */
+        public enum OverflowPolicy {
+            /** Drop the new event. */
+            DROP_NEWEST,
+            /** Drop the oldest queued event, to make room for the new one. */
+            DROP_OLDEST,
+            /** Wait for room up to {@code block-timeout-ms}, then drop the new event. */
+            BLOCK
+        }
+    }
+
+    public static class Export {
+
+        private int threads = 4;
+
+        private int queueCapacity = 16;
+
+        private long timeoutMs = 3600000;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+    }
+
+    public static class Availability {
+
+        private int bookingHorizonDays = 365;
+
+        private int maxDays = 10000;
+
+        private int maxSlots = 1000;
+
+        public int getBookingHorizonDays() {
+            return bookingHorizonDays;
+        }
+
+        public void setBookingHorizonDays(int bookingHorizonDays) {
+            this.bookingHorizonDays = bookingHorizonDays;
+        }
+
+        public int getMaxDays() {
+            return maxDays;
+        }
+
+        public void setMaxDays(int maxDays) {
+            this.maxDays = maxDays;
+        }
+
+        public int getMaxSlots() {
+            return maxSlots;
+        }
+
+        public void setMaxSlots(int maxSlots) {
+            this.maxSlots = maxSlots;
+        }
+    }
 }
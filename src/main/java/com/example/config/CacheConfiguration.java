@@ -2,11 +2,19 @@ package com.example.config;
 
 import java.time.Duration;
 
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
 import org.ehcache.config.builders.*;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.SessionFactory;
 
 import io.github.jhipster.config.JHipsterProperties;
+import io.github.jhipster.config.jcache.BeanClassLoaderAwareJCacheRegionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.*;
@@ -17,15 +25,16 @@ public class CacheConfiguration {
 
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache =
-            jHipsterProperties.getCache().getEhcache();
+    private final JHipsterProperties.Cache.Ehcache ehcache;
 
-        jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
-            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
-                ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                .build());
+    private final ApplicationProperties.HibernateCache hibernateCache;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        BeanClassLoaderAwareJCacheRegionFactory.setBeanClassLoader(this.getClass().getClassLoader());
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.hibernateCache = applicationProperties.getHibernateCache();
+
+        jcacheConfiguration = createConfiguration(ehcache.getMaxEntries(), ehcache.getTimeToLiveSeconds());
     }
 
     @Bean
@@ -33,7 +42,50 @@ public class CacheConfiguration {
         return cm -> {
             cm.createCache(com.example.repository.UserRepository.USERS_BY_LOGIN_CACHE, jcacheConfiguration);
             cm.createCache(com.example.repository.UserRepository.USERS_BY_EMAIL_CACHE, jcacheConfiguration);
+            cm.createCache(com.example.security.DomainUserDetailsService.USER_DETAILS_BY_LOGIN_CACHE, jcacheConfiguration);
+            cm.createCache(com.example.security.DomainUserDetailsService.USER_DETAILS_BY_EMAIL_CACHE, jcacheConfiguration);
+            createRegion(cm, com.example.domain.User.class.getName(), "user");
+            createRegion(cm, com.example.domain.Authority.class.getName(), "authority");
+            createRegion(cm, com.example.domain.User.class.getName() + ".authorities", "user-authorities");
+            createRegion(cm, com.example.domain.Vet.class.getName(), "vet");
+            createRegion(cm, com.example.domain.Slot.class.getName(), "slot");
             // jhipster-needle-ehcache-add-entry
         };
     }
+
+    /**
+     * Per region hit, miss and put counts of the Hibernate second-level cache, when statistics are enabled.
+     * <p>
+     * They are bound once all singletons exist, as the meter registry is created before the entity manager factory.
+     */
+    @Bean
+    public SmartInitializingSingleton hibernateCacheMetricsBinder(ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        return () -> new HibernateCacheMetrics(entityManagerFactory.getObject().unwrap(SessionFactory.class))
+            .bindTo(meterRegistry.getObject());
+    }
+
+    /**
+     * Create a Hibernate second-level cache region, sized by {@code application.hibernate-cache.regions.<key>}.
+     */
+    private void createRegion(CacheManager cm, String regionName, String key) {
+        ApplicationProperties.HibernateCache.Region region = hibernateCache.getRegions().get(key);
+        if (region == null) {
+            cm.createCache(regionName, jcacheConfiguration);
+            return;
+        }
+        long maxEntries = region.getMaxEntries() != null ? region.getMaxEntries() : ehcache.getMaxEntries();
+        int timeToLiveSeconds = region.getTimeToLiveSeconds() != null ?
+            region.getTimeToLiveSeconds() : ehcache.getTimeToLiveSeconds();
+        cm.createCache(regionName, createConfiguration(maxEntries, timeToLiveSeconds));
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> createConfiguration(long maxEntries,
+                                                                                             int timeToLiveSeconds) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds)))
+                .build());
+    }
 }
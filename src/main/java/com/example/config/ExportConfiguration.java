@@ -0,0 +1,42 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configure the asynchronous requests, which are the streamed exports.
+ * <p>
+ * They are written by a pool of {@code application.export.threads} threads, rather than a new thread each, and
+ * may last {@code application.export.timeout-ms}, rather than the 30 seconds of the servlet container, which
+ * would cut the export of a large table. When the pool and its queue are full, the export is rejected with a
+ * 503 Service Unavailable error.
+ */
+@Configuration
+public class ExportConfiguration implements WebMvcConfigurer {
+
+    private final ApplicationProperties.Export properties;
+
+    public ExportConfiguration(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getExport();
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor exportTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("export-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportTaskExecutor());
+        // A timeout of 0 disables it
+        configurer.setDefaultTimeout(properties.getTimeoutMs());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Micrometer binder for the Hibernate second-level cache, tagged by region.
+ * <p>
+ * Micrometer's own {@link io.micrometer.core.instrument.binder.jpa.HibernateMetrics} only exposes totals across
+ * all regions, which hides a region with a poor hit ratio behind the busy ones. Counts stay at zero unless
+ * {@code hibernate.generate_statistics} is enabled.
+ */
+public class HibernateCacheMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    public HibernateCacheMetrics(SessionFactory sessionFactory) {
+        this.statistics = sessionFactory.getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            FunctionCounter.builder("hibernate.cache.region.requests", statistics,
+                s -> getRegionStatistics(s, region).getHitCount())
+                .tags("region", region, "result", "hit")
+                .description("The number of lookups which found an entry in the second-level cache region")
+                .register(registry);
+            FunctionCounter.builder("hibernate.cache.region.requests", statistics,
+                s -> getRegionStatistics(s, region).getMissCount())
+                .tags("region", region, "result", "miss")
+                .description("The number of lookups which did not find an entry in the second-level cache region")
+                .register(registry);
+            FunctionCounter.builder("hibernate.cache.region.puts", statistics,
+                s -> getRegionStatistics(s, region).getPutCount())
+                .tags("region", region)
+                .description("The number of entries put in the second-level cache region")
+                .register(registry);
+            Gauge.builder("hibernate.cache.region.hit.ratio", statistics, s -> getHitRatio(getRegionStatistics(s, region)))
+                .tags("region", region)
+                .description("The ratio of lookups served by the second-level cache region, NaN before any lookup")
+                .register(registry);
+        }
+    }
+
+    private static SecondLevelCacheStatistics getRegionStatistics(Statistics statistics, String region) {
+        return statistics.getSecondLevelCacheStatistics(region);
+    }
+
+    private static double getHitRatio(SecondLevelCacheStatistics regionStatistics) {
+        long hits = regionStatistics.getHitCount();
+        long requests = hits + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+}
@@ -1,9 +1,8 @@
 package com.example.config;
 
-import com.example.aop.logging.LoggingAspect;
-
-import io.github.jhipster.config.JHipsterConstants;
+import com.example.aop.logging.InstrumentationAspect;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
 
@@ -12,8 +11,8 @@ import org.springframework.core.env.Environment;
 public class LoggingAspectConfiguration {
 
     @Bean
-    @Profile(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT)
-    public LoggingAspect loggingAspect(Environment env) {
-        return new LoggingAspect(env);
+    public InstrumentationAspect instrumentationAspect(Environment env, MeterRegistry meterRegistry,
+                                                       ApplicationProperties applicationProperties) {
+        return new InstrumentationAspect(env, meterRegistry, applicationProperties);
     }
 }
@@ -0,0 +1,29 @@
+package com.example.config;
+
+import com.example.web.profiler.ProfilerEndpoint;
+import com.example.web.profiler.RequestProfiler;
+import com.example.web.profiler.RequestProfilerFilter;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the {@link RequestProfiler}, sampling the threads serving {@code /api/**} requests.
+ */
+@Configuration
+public class ProfilerConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<RequestProfilerFilter> requestProfilerFilter(RequestProfiler requestProfiler) {
+        FilterRegistrationBean<RequestProfilerFilter> registration =
+            new FilterRegistrationBean<>(new RequestProfilerFilter(requestProfiler));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public ProfilerEndpoint profilerEndpoint(RequestProfiler requestProfiler) {
+        return new ProfilerEndpoint(requestProfiler);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.config;
+
+import com.example.repository.statistics.SqlStatisticsDataSource;
+import com.example.repository.statistics.SqlStatisticsInterceptor;
+import com.example.web.profiler.SqlStatisticsFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration of the per-request SQL statistics of the {@code /api/**} endpoints.
+ * <p>
+ * Nothing is wrapped or registered when {@code application.sql-statistics.enabled} is false, so that the data
+ * source and the Hibernate sessions are left as they are.
+ *
+ * @see SqlStatisticsFilter
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.sql-statistics", name = "enabled", matchIfMissing = true)
+public class SqlStatisticsConfiguration {
+
+    /**
+     * Wrap the data source, so that its statements and rows are counted.
+     *
+     * @return the post-processor wrapping the data source
+     */
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof SqlStatisticsDataSource)) {
+                    return new SqlStatisticsDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsInterceptorCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.INTERCEPTOR, new SqlStatisticsInterceptor());
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(MeterRegistry meterRegistry,
+                                                                           ApplicationProperties applicationProperties) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration =
+            new FilterRegistrationBean<>(new SqlStatisticsFilter(meterRegistry, applicationProperties));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.config.liquibase;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Liquibase change converting the free-form start times of the slots, such as "9:00", "09:00:00" or "2:30 pm",
+ * to a time of day in the {@code start_time_value} column.
+ * <p>
+ * The values are parsed in Java, as the databases do not agree on which texts a SQL cast accepts. Values which
+ * are not a time of day become midnight, and are logged.
+ */
+public class SlotStartTimeChange implements CustomTaskChange {
+
+    private static final List<DateTimeFormatter> FORMATS = Arrays.asList(
+        DateTimeFormatter.ofPattern("H:mm[:ss][.SSS]"),
+        new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("h[:mm][ ]a").toFormatter(Locale.ENGLISH));
+
+    private final Logger log = LoggerFactory.getLogger(SlotStartTimeChange.class);
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet slots = select.executeQuery("select id, start_time from slot");
+             PreparedStatement update = connection.prepareStatement("update slot set start_time_value = ? where id = ?")) {
+            while (slots.next()) {
+                update.setTime(1, Time.valueOf(parse(slots.getLong(1), slots.getString(2))));
+                update.setLong(2, slots.getLong(1));
+                update.addBatch();
+            }
+            update.executeBatch();
+        } catch (SQLException e) {
+            throw new CustomChangeException("Could not convert the start times of the slots", e);
+        }
+    }
+
+    static LocalTime parse(String value) {
+        String text = value == null ? "" : value.trim();
+        for (DateTimeFormatter format : FORMATS) {
+            try {
+                return LocalTime.parse(text, format);
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        return null;
+    }
+
+    private LocalTime parse(long id, String value) {
+        LocalTime startTime = parse(value);
+        if (startTime == null) {
+            log.warn("The start time '{}' of slot {} is not a time of day, it is set to midnight", value, id);
+            return LocalTime.MIDNIGHT;
+        }
+        return startTime;
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Converted the start times of the slots";
+    }
+
+    @Override
+    public void setUp() throws SetupException {
+        // Nothing to set up
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // No resources needed
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
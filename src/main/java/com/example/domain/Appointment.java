@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import javax.persistence.*;
 import javax.validation.constraints.*;
 
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.elasticsearch.annotations.Document;
 import java.io.Serializable;
 import java.time.LocalDate;
@@ -15,14 +16,16 @@ import java.util.Objects;
  * A Appointment.
  */
 @Entity
-@Table(name = "appointment")
-@Document(indexName = "appointment")
+@Table(name = "appointment", uniqueConstraints =
+    @UniqueConstraint(name = "ux_appointment_booking", columnNames = {"vet_id", "appt_time", "slot_id"}))
+@Document(indexName = "appointment", createIndex = false)
 public class Appointment implements Serializable {
 
     private static final long serialVersionUID = 1L;
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "pooledTableIdGenerator")
+    @GenericGenerator(name = "pooledTableIdGenerator", strategy = "com.example.domain.util.PooledTableIdGenerator")
     private Long id;
 
     @NotNull
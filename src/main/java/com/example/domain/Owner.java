@@ -4,6 +4,7 @@ package com.example.domain;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.elasticsearch.annotations.Document;
 import java.io.Serializable;
 import java.util.Objects;
@@ -13,13 +14,14 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "owner")
-@Document(indexName = "owner")
+@Document(indexName = "owner", createIndex = false)
 public class Owner implements Serializable {
 
     private static final long serialVersionUID = 1L;
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "pooledTableIdGenerator")
+    @GenericGenerator(name = "pooledTableIdGenerator", strategy = "com.example.domain.util.PooledTableIdGenerator")
     private Long id;
 
     @Column(name = "name")
@@ -1,5 +1,7 @@
 package com.example.domain;
 
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -20,7 +22,8 @@ public class PersistentAuditEvent implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "pooledTableIdGenerator")
+    @GenericGenerator(name = "pooledTableIdGenerator", strategy = "com.example.domain.util.PooledTableIdGenerator")
     @Column(name = "event_id")
     private Long id;
 
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.elasticsearch.annotations.Document;
 import java.io.Serializable;
 import java.util.Objects;
@@ -14,13 +15,14 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "pet")
-@Document(indexName = "pet")
+@Document(indexName = "pet", createIndex = false)
 public class Pet implements Serializable {
 
     private static final long serialVersionUID = 1L;
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "pooledTableIdGenerator")
+    @GenericGenerator(name = "pooledTableIdGenerator", strategy = "com.example.domain.util.PooledTableIdGenerator")
     private Long id;
 
     @Column(name = "name")
@@ -0,0 +1,163 @@
+package com.example.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A pending Elasticsearch index operation, written in the same transaction as the entity change.
+ *
+ * @see com.example.service.SearchOutboxService
+ */
+@Entity
+@Table(name = "search_outbox")
+public class SearchOutboxEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_ERROR_LEN = 255;
+
+    /**
+     * The operation to replay against the search index.
+     */
+    public enum Operation {
+        INDEX, DELETE
+    }
+
+    @Id
+    @GeneratedValue(generator = "pooledTableIdGenerator")
+    @GenericGenerator(name = "pooledTableIdGenerator", strategy = "com.example.domain.util.PooledTableIdGenerator")
+    private Long id;
+
+    @NotNull
+    @Size(max = 50)
+    @Column(name = "entity_type", length = 50, nullable = false)
+    private String entityType;
+
+    @NotNull
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", length = 10, nullable = false)
+    private Operation operation;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    @NotNull
+    @Column(name = "next_attempt_date", nullable = false)
+    private Instant nextAttemptDate;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(Instant nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        if (lastError != null && lastError.length() > MAX_ERROR_LEN) {
+            this.lastError = lastError.substring(0, MAX_ERROR_LEN);
+        } else {
+            this.lastError = lastError;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchOutboxEvent searchOutboxEvent = (SearchOutboxEvent) o;
+        if (searchOutboxEvent.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), searchOutboxEvent.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "SearchOutboxEvent{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId=" + getEntityId() +
+            ", operation='" + getOperation() + "'" +
+            ", attempts=" + getAttempts() +
+            "}";
+    }
+}
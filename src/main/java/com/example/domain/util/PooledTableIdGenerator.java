@@ -0,0 +1,40 @@
+package com.example.domain.util;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Id generator handing out blocks of ids from the {@code id_generator} table, with one row per entity table.
+ * <p>
+ * Unlike identity columns, the id is known before the insert, so Hibernate can send inserts in JDBC batches.
+ * Each block costs one update of the table, in a transaction of its own, and the ids of a block are then given
+ * out from memory: the row holds the first id of the next block ({@code pooled-lo}), so the block size can be
+ * changed without moving the row. Blocks are of {@value #DEFAULT_ALLOCATION_SIZE} ids, unless set by the
+ * {@value #ALLOCATION_SIZE} Hibernate property.
+ */
+public class PooledTableIdGenerator extends TableGenerator {
+
+    public static final String ALLOCATION_SIZE = "petclinic2.id.allocation_size";
+
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    public static final String TABLE_NAME = "id_generator";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE,
+            serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_ALLOCATION_SIZE);
+        params.setProperty(TABLE_PARAM, TABLE_NAME);
+        params.setProperty(CONFIG_PREFER_SEGMENT_PER_ENTITY, "true");
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -3,19 +3,76 @@ package com.example.repository;
 import com.example.domain.Appointment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 
 /**
  * Spring Data  repository for the Appointment entity.
+ * <p>
+ * Listing methods fetch the slot, vet, pet and pet owner of each appointment in the same select, instead of
+ * one select per association and row. Count queries are derived separately and do not join them.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long>, JpaSpecificationExecutor<Appointment> {
 
-    Page<Appointment> findByVetName(String name, Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = {"slot", "vet", "pet", "pet.owner"})
+    Page<Appointment> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"slot", "vet", "pet", "pet.owner"})
+    List<Appointment> findAll(Specification<Appointment> specification);
+
+    @Override
+    @EntityGraph(attributePaths = {"slot", "vet", "pet", "pet.owner"})
+    Page<Appointment> findAll(Specification<Appointment> specification, Pageable pageable);
+
+    // Sub-queries, so that the database reads the names through their index, then the appointments through their foreign key
+    @EntityGraph(attributePaths = {"slot", "vet", "pet", "pet.owner"})
+    @Query(value = "select a from Appointment a where a.vet.id in (select v.id from Vet v where v.name = :name)",
+        countQuery = "select count(a) from Appointment a where a.vet.id in (select v.id from Vet v where v.name = :name)")
+    Page<Appointment> findByVetName(@Param("name") String name, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"slot", "vet", "pet", "pet.owner"})
+    @Query(value = "select a from Appointment a where a.pet.id in (select p.id from Pet p where p.name = :name)",
+        countQuery = "select count(a) from Appointment a where a.pet.id in (select p.id from Pet p where p.name = :name)")
+    Page<Appointment> findByPetName(@Param("name") String name, Pageable pageable);
+
+    /**
+     * Read all the appointments in id order through a forward-only cursor, for exports. The stream must be consumed in
+     * a transaction, and closed.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select a from Appointment a left join fetch a.slot left join fetch a.vet " +
+        "left join fetch a.pet p left join fetch p.owner order by a.id")
+    Stream<Appointment> streamAllByOrderById();
+
+    @Query("select a.id as id, a.apptTime as apptTime, a.slot.id as slotId from Appointment a " +
+        "where a.vet.id = :vetId and a.apptTime between :from and :to and a.slot is not null")
+    List<SlotBooking> findSlotBookings(@Param("vetId") Long vetId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * The day and slot booked by an appointment.
+     */
+    interface SlotBooking {
+
+        Long getId();
+
+        LocalDate getApptTime();
 
-    Page<Appointment> findByPetName(String name, Pageable pageable);
+        Long getSlotId();
+    }
 
 }
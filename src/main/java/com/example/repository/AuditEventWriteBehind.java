@@ -0,0 +1,152 @@
+package com.example.repository;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.PersistentAuditEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind of the audit events, so that logins do not wait for their insert, nor take a second connection.
+ * <p>
+ * Events are queued in a ring buffer of {@code application.audit-events.queue-capacity} events, and written every
+ * {@code application.audit-events.flush-interval-ms}, {@code application.audit-events.batch-size} events per
+ * transaction: as they get their ids from {@link com.example.domain.util.PooledTableIdGenerator}, Hibernate
+ * inserts them, and their data, in JDBC batches. When the queue is full, the
+ * {@code application.audit-events.overflow-policy} applies.
+ * <p>
+ * Queued events are lost if the instance stops abruptly, and events which failed to be written are dropped rather
+ * than tried again: both are counted by the {@code audit.events.dropped} counter, tagged with the reason.
+ */
+@Component
+public class AuditEventWriteBehind {
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventWriteBehind.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.AuditEvents properties;
+
+    private final BlockingQueue<PersistentAuditEvent> queue;
+
+    private final Counter written;
+
+    private final Counter droppedOnOverflow;
+
+    private final Counter droppedOnFailure;
+
+    private double reportedOverflows;
+
+    public AuditEventWriteBehind(PersistenceAuditEventRepository persistenceAuditEventRepository,
+                                 PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+                                 MeterRegistry meterRegistry) {
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getAuditEvents();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.written = Counter.builder("audit.events.written")
+            .description("The number of audit events written to the database")
+            .register(meterRegistry);
+        this.droppedOnOverflow = droppedCounter(meterRegistry, "overflow");
+        this.droppedOnFailure = droppedCounter(meterRegistry, "failure");
+        meterRegistry.gauge("audit.events.queue", queue, BlockingQueue::size);
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("audit.events.dropped")
+            .description("The number of audit events dropped because the queue was full, or their write failed")
+            .tags("reason", reason)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Queue an event, applying the overflow policy if the queue is full.
+     *
+     * @param event the event to write
+     */
+    public void enqueue(PersistentAuditEvent event) {
+        switch (properties.getOverflowPolicy()) {
+            case DROP_OLDEST:
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        droppedOnOverflow.increment();
+                    }
+                }
+                break;
+            case BLOCK:
+                try {
+                    if (!queue.offer(event, properties.getBlockTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                        droppedOnOverflow.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedOnOverflow.increment();
+                }
+                break;
+            default:
+                if (!queue.offer(event)) {
+                    droppedOnOverflow.increment();
+                }
+        }
+    }
+
+    /**
+     * @return the number of events not written yet
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Write the queued events, until the queue is empty.
+     * <p>
+     * This is scheduled to run with a fixed delay, so that runs never overlap.
+     */
+    @Scheduled(initialDelayString = "${application.audit-events.flush-interval-ms:500}",
+        fixedDelayString = "${application.audit-events.flush-interval-ms:500}")
+    public void flush() {
+        double overflows = droppedOnOverflow.count();
+        if (overflows > reportedOverflows) {
+            log.warn("Audit event queue full, {} events were dropped", (long) (overflows - reportedOverflows));
+            reportedOverflows = overflows;
+        }
+        List<PersistentAuditEvent> events = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(events, properties.getBatchSize()) > 0) {
+            write(events);
+            events.clear();
+        }
+    }
+
+    private void write(List<PersistentAuditEvent> events) {
+        try {
+            transactionTemplate.execute(status -> persistenceAuditEventRepository.saveAll(events));
+            written.increment(events.size());
+            log.debug("Wrote {} audit events", events.size());
+        } catch (DataAccessException | TransactionException e) {
+            droppedOnFailure.increment(events.size());
+            log.error("Failed to write {} audit events, they are dropped", events.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of the last entity of a {@link KeysetSlice}: the sort property and direction, the value of the
+ * sort property and the id of that entity.
+ * <p>
+ * Clients handle it as an opaque token, see {@link #encode()} and {@link #decode(String)}.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final String property;
+
+    private final Sort.Direction direction;
+
+    private final String value;
+
+    private final Long id;
+
+    /**
+     * @param property the sort property
+     * @param direction the sort direction
+     * @param value the value of the sort property of the last entity, formatted by {@link KeysetRepository}
+     * @param id the id of the last entity
+     */
+    public KeysetCursor(String property, Sort.Direction direction, String value, Long id) {
+        this.property = Objects.requireNonNull(property);
+        this.direction = Objects.requireNonNull(direction);
+        this.value = value;
+        this.id = Objects.requireNonNull(id);
+    }
+
+    /**
+     * Decode a token received from a client.
+     *
+     * @param token the token, empty or null for the first slice
+     * @return the cursor, or null for the first slice
+     * @throws KeysetPaginationException if the token is malformed
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new KeysetPaginationException("Malformed cursor");
+        }
+        // property:direction:id: followed by =value, or nothing for a null value
+        String[] parts = decoded.split(SEPARATOR, 4);
+        if (parts.length != 4 || (!parts[3].isEmpty() && !parts[3].startsWith("="))) {
+            throw new KeysetPaginationException("Malformed cursor");
+        }
+        try {
+            return new KeysetCursor(parts[0], Sort.Direction.valueOf(parts[1]),
+                parts[3].isEmpty() ? null : parts[3].substring(1), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new KeysetPaginationException("Malformed cursor");
+        }
+    }
+
+    /**
+     * @return the opaque token to send to clients
+     */
+    public String encode() {
+        String decoded = property + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR +
+            (value == null ? "" : "=" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return property.equals(that.property) && direction == that.direction &&
+            Objects.equals(value, that.value) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, direction, value, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+            "property='" + property + '\'' +
+            ", direction=" + direction +
+            ", value='" + value + '\'' +
+            ", id=" + id +
+            "}";
+    }
+}
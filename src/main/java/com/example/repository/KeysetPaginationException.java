@@ -0,0 +1,14 @@
+package com.example.repository;
+
+/**
+ * Thrown when a keyset pagination request cannot be served: malformed cursor, cursor created for
+ * another sort, or sort on a property which cannot be used as a key.
+ */
+public class KeysetPaginationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public KeysetPaginationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.repository;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Subgraph;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repository reading entities with keyset (seek) pagination.
+ * <p>
+ * Instead of skipping {@code OFFSET} rows and counting all of them, each slice starts right after the
+ * sort key and id of the last entity of the previous slice, so deep slices cost the same as the first one.
+ * Entities are sorted by a single basic property, then by id to break ties. Null values of the sort
+ * property are treated as lower than any other value, which is how both H2 and MySQL sort them.
+ */
+@Repository
+public class KeysetRepository {
+
+    private static final String ID = "id";
+
+    private final EntityManager entityManager;
+
+    public KeysetRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Read the slice of entities following a cursor.
+     *
+     * @param type the entity class, which must have a {@code Long} id
+     * @param specification the filters, or null
+     * @param after the cursor of the last entity of the previous slice, or null for the first slice
+     * @param pageable the size of the slice and its sort, on at most one property besides the id
+     * @param fetchPaths the associations to fetch with the entities, as in {@link org.springframework.data.jpa.repository.EntityGraph#attributePaths()}
+     * @param <T> the type of the entities
+     * @return the slice, and the cursor of the next one
+     * @throws KeysetPaginationException if the sort cannot be used, or does not match the cursor
+     */
+    public <T> KeysetSlice<T> findSlice(Class<T> type, Specification<T> specification, KeysetCursor after,
+                                        Pageable pageable, String... fetchPaths) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(type);
+        Sort.Order order = getOrder(entityType, pageable.getSort());
+        if (after != null && (!after.getProperty().equals(order.getProperty()) || after.getDirection() != order.getDirection())) {
+            throw new KeysetPaginationException("The cursor was created for another sort");
+        }
+        Class<?> keyType = ClassUtils.resolvePrimitiveIfNecessary(
+            entityType.getSingularAttribute(order.getProperty()).getJavaType());
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (after != null) {
+            predicates.add(seek(cb, root, order, parse(after.getValue(), keyType), after.getId()));
+        }
+        query.select(root).where(predicates.toArray(new Predicate[0]));
+        List<javax.persistence.criteria.Order> orders = new ArrayList<>();
+        if (!ID.equals(order.getProperty())) {
+            orders.add(toOrder(cb, root.get(order.getProperty()), order.getDirection()));
+        }
+        orders.add(toOrder(cb, root.get(ID), order.getDirection()));
+        query.orderBy(orders);
+
+        int size = pageable.getPageSize();
+        TypedQuery<T> typedQuery = entityManager.createQuery(query).setMaxResults(size + 1);
+        if (fetchPaths.length > 0) {
+            typedQuery.setHint("javax.persistence.fetchgraph", createEntityGraph(type, fetchPaths));
+        }
+        List<T> content = typedQuery.getResultList();
+        KeysetCursor nextCursor = null;
+        if (content.size() > size) {
+            content = new ArrayList<>(content.subList(0, size));
+            BeanWrapperImpl last = new BeanWrapperImpl(content.get(size - 1));
+            nextCursor = new KeysetCursor(order.getProperty(), order.getDirection(),
+                format(last.getPropertyValue(order.getProperty())), (Long) last.getPropertyValue(ID));
+        }
+        return new KeysetSlice<>(content, PageRequest.of(0, size, Sort.by(order)), nextCursor);
+    }
+
+    /**
+     * Count the entities matching a specification.
+     *
+     * @param type the entity class
+     * @param specification the filters, or null
+     * @param <T> the type of the entities
+     * @return the number of matching entities
+     */
+    public <T> long count(Class<T> type, Specification<T> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Sort.Order getOrder(EntityType<?> entityType, Sort sort) {
+        Sort.Order order = null;
+        for (Sort.Order candidate : sort) {
+            if (order == null || ID.equals(order.getProperty())) {
+                order = candidate;
+            } else if (!ID.equals(candidate.getProperty())) {
+                throw new KeysetPaginationException("Cursors support a single sort property besides id");
+            }
+        }
+        if (order == null) {
+            return Sort.Order.asc(ID);
+        }
+        Attribute<?, ?> attribute;
+        try {
+            attribute = entityType.getAttribute(order.getProperty());
+        } catch (IllegalArgumentException e) {
+            throw new KeysetPaginationException("Unknown sort property " + order.getProperty());
+        }
+        if (!(attribute instanceof SingularAttribute) ||
+            attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC ||
+            !isSupported(ClassUtils.resolvePrimitiveIfNecessary(attribute.getJavaType()))) {
+            throw new KeysetPaginationException("Cursors cannot sort by " + order.getProperty());
+        }
+        return order;
+    }
+
+    /**
+     * The entities after the cursor, in the sort direction: a greater key, or the same key and a greater id.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate seek(CriteriaBuilder cb, Root<?> root, Sort.Order order, Object value, Long id) {
+        Path<Long> idPath = root.get(ID);
+        boolean ascending = order.isAscending();
+        Predicate afterId = ascending ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+        if (ID.equals(order.getProperty())) {
+            return afterId;
+        }
+        Path<Comparable> key = root.get(order.getProperty());
+        if (value == null) {
+            // Nulls come first in ascending order, and last in descending order
+            Predicate sameKey = cb.and(cb.isNull(key), afterId);
+            return ascending ? cb.or(sameKey, cb.isNotNull(key)) : sameKey;
+        }
+        Comparable comparable = (Comparable) value;
+        Predicate afterKey = ascending ? cb.greaterThan(key, comparable) : cb.lessThan(key, comparable);
+        Predicate sameKey = cb.and(cb.equal(key, comparable), afterId);
+        return ascending ? cb.or(afterKey, sameKey) : cb.or(afterKey, sameKey, cb.isNull(key));
+    }
+
+    private static javax.persistence.criteria.Order toOrder(CriteriaBuilder cb, Expression<?> expression,
+                                                            Sort.Direction direction) {
+        return direction.isAscending() ? cb.asc(expression) : cb.desc(expression);
+    }
+
+    private <T> EntityGraph<T> createEntityGraph(Class<T> type, String... paths) {
+        EntityGraph<T> graph = entityManager.createEntityGraph(type);
+        for (String path : paths) {
+            String[] attributes = path.split("\\.");
+            if (attributes.length == 1) {
+                graph.addAttributeNodes(attributes[0]);
+                continue;
+            }
+            Subgraph<?> subgraph = graph.addSubgraph(attributes[0]);
+            for (int i = 1; i < attributes.length - 1; i++) {
+                subgraph = subgraph.addSubgraph(attributes[i]);
+            }
+            subgraph.addAttributeNodes(attributes[attributes.length - 1]);
+        }
+        return graph;
+    }
+
+    private static boolean isSupported(Class<?> javaType) {
+        return javaType == String.class || javaType == Long.class || javaType == Integer.class ||
+            javaType == Boolean.class || javaType == BigDecimal.class || javaType == LocalDate.class ||
+            javaType == LocalTime.class || javaType == Instant.class || javaType == ZonedDateTime.class ||
+            javaType.isEnum();
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object parse(String value, Class<?> javaType) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (javaType == String.class) {
+                return value;
+            } else if (javaType == Long.class) {
+                return Long.valueOf(value);
+            } else if (javaType == Integer.class) {
+                return Integer.valueOf(value);
+            } else if (javaType == Boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (javaType == BigDecimal.class) {
+                return new BigDecimal(value);
+            } else if (javaType == LocalDate.class) {
+                return LocalDate.parse(value);
+            } else if (javaType == LocalTime.class) {
+                return LocalTime.parse(value);
+            } else if (javaType == Instant.class) {
+                return Instant.parse(value);
+            } else if (javaType == ZonedDateTime.class) {
+                return ZonedDateTime.parse(value);
+            } else {
+                return Enum.valueOf((Class<Enum>) javaType, value);
+            }
+        } catch (RuntimeException e) {
+            throw new KeysetPaginationException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A slice of entities read with keyset pagination, with the cursor to read the next one.
+ */
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final KeysetCursor nextCursor;
+
+    public KeysetSlice(List<T> content, Pageable pageable, KeysetCursor nextCursor) {
+        super(content, pageable, nextCursor != null);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return the cursor of the last entity of this slice, or null if this is the last slice
+     */
+    public KeysetCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public <U> KeysetSlice<U> map(Function<? super T, ? extends U> converter) {
+        return new KeysetSlice<>(getContent().stream().<U>map(converter).collect(Collectors.toList()), getPageable(),
+            nextCursor);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.repository;
+
+import com.example.domain.SearchOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for the SearchOutboxEvent entity.
+ */
+@Repository
+public interface SearchOutboxEventRepository extends JpaRepository<SearchOutboxEvent, Long> {
+
+    List<SearchOutboxEvent> findByNextAttemptDateLessThanEqualOrderByIdAsc(Instant now, Pageable pageable);
+
+    /**
+     * The creation date of the oldest pending event. Retried and replayed events keep or get dates out of the id
+     * order, so the lowest id is not necessarily the oldest.
+     */
+    @Query("select min(e.createdDate) from SearchOutboxEvent e")
+    Optional<Instant> findOldestCreatedDate();
+}
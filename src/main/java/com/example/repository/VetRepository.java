@@ -4,6 +4,12 @@ import com.example.domain.Vet;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 
 /**
  * Spring Data  repository for the Vet entity.
@@ -12,4 +18,11 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface VetRepository extends JpaRepository<Vet, Long>, JpaSpecificationExecutor<Vet> {
 
+    /**
+     * Read all the vets in id order through a forward-only cursor, for exports. The stream must be consumed in
+     * a transaction, and closed.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select v from Vet v order by v.id")
+    Stream<Vet> streamAllByOrderById();
 }
@@ -0,0 +1,66 @@
+package com.example.repository.search;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a {@link SearchBulkIndexer} call, with the error of every document that could not be written.
+ */
+public class BulkIndexResult {
+
+    private int requests;
+
+    private int succeeded;
+
+    private final Map<String, String> failures = new HashMap<>();
+
+    void addRequest() {
+        requests++;
+    }
+
+    void addSucceeded(int count) {
+        succeeded += count;
+    }
+
+    void addFailure(String id, String error) {
+        failures.put(id, error);
+    }
+
+    void merge(BulkIndexResult other) {
+        requests += other.requests;
+        succeeded += other.succeeded;
+        failures.putAll(other.failures);
+    }
+
+    /**
+     * @return the number of {@code _bulk} requests sent to Elasticsearch
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * @return the error message of each failed document, by document id
+     */
+    public Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkIndexResult{" +
+            "requests=" + requests +
+            ", succeeded=" + succeeded +
+            ", failed=" + failures.size() +
+            "}";
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.repository.search;
+
+import com.example.config.ApplicationProperties;
+
+import io.searchbox.action.BulkableAction;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Delete;
+import io.searchbox.core.Index;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Writes many documents to Elasticsearch with {@code _bulk} requests.
+ * <p>
+ * Documents are grouped by index into requests bounded both in number of actions and in payload size,
+ * and up to {@code application.search-bulk.concurrency} requests are sent in parallel. Unlike
+ * {@link org.springframework.data.elasticsearch.repository.ElasticsearchRepository#save(Object)}, no index
+ * refresh is forced: documents become searchable after the index refresh interval.
+ */
+@Component
+public class SearchBulkIndexer {
+
+    private final Logger log = LoggerFactory.getLogger(SearchBulkIndexer.class);
+
+    private final JestClient jestClient;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final EntityMapper entityMapper;
+
+    private final ApplicationProperties.SearchBulk properties;
+
+    private final ExecutorService executor;
+
+    public SearchBulkIndexer(JestClient jestClient, ElasticsearchOperations elasticsearchOperations, EntityMapper entityMapper,
+                             ApplicationProperties applicationProperties) {
+        this.jestClient = jestClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.entityMapper = entityMapper;
+        this.properties = applicationProperties.getSearchBulk();
+        this.executor = Executors.newFixedThreadPool(properties.getConcurrency(), new CustomizableThreadFactory("search-bulk-"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Index documents in the index of their entity.
+     *
+     * @param type the entity class, annotated with {@link org.springframework.data.elasticsearch.annotations.Document}
+     * @param documents the documents to index
+     * @param idGetter the function giving the id of a document
+     * @param <T> the type of the documents
+     * @return the result of the bulk requests
+     */
+    public <T> BulkIndexResult index(Class<T> type, Collection<T> documents, Function<T, ?> idGetter) {
+        return index(getPersistentEntity(type).getIndexName(), type, documents, idGetter);
+    }
+
+    /**
+     * Index documents in a given index, for example a new version of the index of their entity.
+     *
+     * @param indexName the name of the target index
+     * @param type the entity class, annotated with {@link org.springframework.data.elasticsearch.annotations.Document}
+     * @param documents the documents to index
+     * @param idGetter the function giving the id of a document
+     * @param <T> the type of the documents
+     * @return the result of the bulk requests
+     */
+    public <T> BulkIndexResult index(String indexName, Class<T> type, Collection<T> documents, Function<T, ?> idGetter) {
+        String indexType = getPersistentEntity(type).getIndexType();
+        BulkIndexResult result = new BulkIndexResult();
+        List<Chunk> chunks = new ArrayList<>();
+        Chunk chunk = new Chunk();
+        for (T document : documents) {
+            String id = String.valueOf(idGetter.apply(document));
+            String source;
+            try {
+                source = entityMapper.mapToString(document);
+            } catch (IOException e) {
+                result.addFailure(id, e.toString());
+                continue;
+            }
+            if (chunk.isFull(source.length())) {
+                chunks.add(chunk);
+                chunk = new Chunk();
+            }
+            chunk.add(id, new Index.Builder(source).index(indexName).type(indexType).id(id).build(), source.length());
+        }
+        chunks.add(chunk);
+        return execute(chunks, result);
+    }
+
+    /**
+     * Delete documents from the index of their entity.
+     *
+     * @param type the entity class, annotated with {@link org.springframework.data.elasticsearch.annotations.Document}
+     * @param ids the ids of the documents to delete
+     * @return the result of the bulk requests
+     */
+    public BulkIndexResult delete(Class<?> type, Collection<?> ids) {
+        return delete(getPersistentEntity(type).getIndexName(), type, ids);
+    }
+
+    /**
+     * Delete documents from a given index, for example a new version of the index of their entity.
+     *
+     * @param indexName the name of the target index
+     * @param type the entity class, annotated with {@link org.springframework.data.elasticsearch.annotations.Document}
+     * @param ids the ids of the documents to delete
+     * @return the result of the bulk requests
+     */
+    public BulkIndexResult delete(String indexName, Class<?> type, Collection<?> ids) {
+        String indexType = getPersistentEntity(type).getIndexType();
+        List<Chunk> chunks = new ArrayList<>();
+        Chunk chunk = new Chunk();
+        for (Object rawId : ids) {
+            String id = String.valueOf(rawId);
+            if (chunk.isFull(id.length())) {
+                chunks.add(chunk);
+                chunk = new Chunk();
+            }
+            chunk.add(id, new Delete.Builder(id).index(indexName).type(indexType).build(), id.length());
+        }
+        chunks.add(chunk);
+        return execute(chunks, new BulkIndexResult());
+    }
+
+    private ElasticsearchPersistentEntity<?> getPersistentEntity(Class<?> type) {
+        return elasticsearchOperations.getPersistentEntityFor(type);
+    }
+
+    private BulkIndexResult execute(List<Chunk> chunks, BulkIndexResult result) {
+        chunks.removeIf(Chunk::isEmpty);
+        if (chunks.size() == 1) {
+            result.merge(send(chunks.get(0)));
+            return result;
+        }
+        List<Future<BulkIndexResult>> futures = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            futures.add(executor.submit(() -> send(chunk)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                result.merge(futures.get(i).get());
+            } catch (ExecutionException e) {
+                chunks.get(i).failAll(result, e.getCause().toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (int j = i; j < chunks.size(); j++) {
+                    futures.get(j).cancel(true);
+                    chunks.get(j).failAll(result, "Interrupted");
+                }
+                break;
+            }
+        }
+        return result;
+    }
+
+    private BulkIndexResult send(Chunk chunk) {
+        BulkIndexResult result = new BulkIndexResult();
+        result.addRequest();
+        BulkResult bulkResult;
+        try {
+            bulkResult = jestClient.execute(new Bulk.Builder().addAction(chunk.actions).build());
+        } catch (IOException e) {
+            log.warn("Bulk request of {} actions failed: {}", chunk.ids.size(), e.getMessage());
+            chunk.failAll(result, e.toString());
+            return result;
+        }
+        if (bulkResult.getItems().isEmpty() && !bulkResult.isSucceeded()) {
+            log.warn("Bulk request of {} actions failed: {}", chunk.ids.size(), bulkResult.getErrorMessage());
+            chunk.failAll(result, bulkResult.getErrorMessage());
+            return result;
+        }
+        List<BulkResult.BulkResultItem> failedItems = bulkResult.getFailedItems();
+        for (BulkResult.BulkResultItem item : failedItems) {
+            result.addFailure(item.id, item.errorType + ": " + item.errorReason);
+        }
+        result.addSucceeded(bulkResult.getItems().size() - failedItems.size());
+        log.debug("Bulk request of {} actions done, {} failed", chunk.ids.size(), failedItems.size());
+        return result;
+    }
+
+    /**
+     * The actions of one {@code _bulk} request.
+     */
+    private class Chunk {
+
+        private final List<BulkableAction> actions = new ArrayList<>();
+
+        private final List<String> ids = new ArrayList<>();
+
+        private long bytes;
+
+        boolean isEmpty() {
+            return actions.isEmpty();
+        }
+
+        boolean isFull(long additionalBytes) {
+            return !actions.isEmpty() &&
+                (actions.size() >= properties.getMaxActions() || bytes + additionalBytes > properties.getMaxBytes());
+        }
+
+        void add(String id, BulkableAction action, long actionBytes) {
+            ids.add(id);
+            actions.add(action);
+            bytes += actionBytes;
+        }
+
+        void failAll(BulkIndexResult result, String error) {
+            ids.forEach(id -> result.addFailure(id, error));
+        }
+    }
+}
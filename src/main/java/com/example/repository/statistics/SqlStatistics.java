@@ -0,0 +1,82 @@
+package com.example.repository.statistics;
+
+/**
+ * The SQL work done by the current thread while serving a request: JDBC statements executed, rows read, entities
+ * loaded by Hibernate and time spent in JDBC calls.
+ * <p>
+ * Counting is started and stopped around each request by {@link com.example.web.profiler.SqlStatisticsFilter};
+ * outside of a request, {@link SqlStatisticsDataSource} and {@link SqlStatisticsInterceptor} find no statistics
+ * for the thread and only delegate. Work handed over to other threads, such as asynchronous exports, is not counted.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long rows;
+
+    private int entities;
+
+    private long jdbcNanos;
+
+    private SqlStatistics() {
+    }
+
+    /**
+     * Start counting the SQL work of the current thread.
+     *
+     * @return the statistics, updated until {@link #stop()} is called
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Stop counting the SQL work of the current thread.
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the statistics of the current thread, or {@code null} if it is not counted
+     */
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    void statementExecuted(long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+    }
+
+    void rowRead(boolean read, long nanos) {
+        if (read) {
+            rows++;
+        }
+        jdbcNanos += nanos;
+    }
+
+    void entityLoaded() {
+        entities++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public int getEntities() {
+        return entities;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+}
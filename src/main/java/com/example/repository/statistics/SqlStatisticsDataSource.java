@@ -0,0 +1,153 @@
+package com.example.repository.statistics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+
+/**
+ * Data source counting, in the {@link SqlStatistics} of the current thread, the statements executed through its
+ * connections, the rows read from their result sets and the time spent in both.
+ * <p>
+ * Connections, statements and result sets are wrapped in JDK proxies. A statement execution, or a move to the next
+ * row, costs two clock reads when the thread is counted, and a thread-local read otherwise; a batch counts as one
+ * statement, as it is one round trip.
+ */
+public class SqlStatisticsDataSource extends DelegatingDataSource {
+
+    public SqlStatisticsDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password));
+    }
+
+    private static <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler;
+        if (type == ResultSet.class) {
+            handler = new ResultSetHandler((ResultSet) target);
+        } else if (Statement.class.isAssignableFrom(type)) {
+            handler = new StatementHandler((Statement) target);
+        } else {
+            handler = new ConnectionHandler((Connection) target);
+        }
+        return type.cast(Proxy.newProxyInstance(SqlStatisticsDataSource.class.getClassLoader(), new Class<?>[] { type },
+            handler));
+    }
+
+    /**
+     * Handler delegating to the wrapped object, the proxy only being equal to itself.
+     */
+    private abstract static class DelegatingHandler<T> implements InvocationHandler {
+
+        protected final T target;
+
+        DelegatingHandler(T target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            return handle(method, args);
+        }
+
+        protected abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        protected Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private static final class ConnectionHandler extends DelegatingHandler<Connection> {
+
+        ConnectionHandler(Connection connection) {
+            super(connection);
+        }
+
+        @Override
+        protected Object handle(Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            if (result instanceof CallableStatement) {
+                return proxy(CallableStatement.class, (CallableStatement) result);
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, (PreparedStatement) result);
+            }
+            if (result instanceof Statement) {
+                return proxy(Statement.class, (Statement) result);
+            }
+            return result;
+        }
+    }
+
+    private static final class StatementHandler extends DelegatingHandler<Statement> {
+
+        StatementHandler(Statement statement) {
+            super(statement);
+        }
+
+        @Override
+        protected Object handle(Method method, Object[] args) throws Throwable {
+            Object result;
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null && method.getName().startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    result = delegate(method, args);
+                } finally {
+                    statistics.statementExecuted(System.nanoTime() - start);
+                }
+            } else {
+                result = delegate(method, args);
+            }
+            if (result instanceof ResultSet && !"getGeneratedKeys".equals(method.getName())) {
+                return proxy(ResultSet.class, (ResultSet) result);
+            }
+            return result;
+        }
+    }
+
+    private static final class ResultSetHandler extends DelegatingHandler<ResultSet> {
+
+        ResultSetHandler(ResultSet resultSet) {
+            super(resultSet);
+        }
+
+        @Override
+        protected Object handle(Method method, Object[] args) throws Throwable {
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics == null || !"next".equals(method.getName())) {
+                return delegate(method, args);
+            }
+            long start = System.nanoTime();
+            boolean read = false;
+            try {
+                read = target.next();
+                return read;
+            } finally {
+                statistics.rowRead(read, System.nanoTime() - start);
+            }
+        }
+    }
+}
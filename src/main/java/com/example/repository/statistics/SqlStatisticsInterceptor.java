@@ -0,0 +1,21 @@
+package com.example.repository.statistics;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate interceptor counting the entities loaded, in the {@link SqlStatistics} of the current thread.
+ */
+public class SqlStatisticsInterceptor extends EmptyInterceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.entityLoaded();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.security;
+
+import com.example.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Password encoder hashing with the configured algorithm and cost, on a bounded pool of threads.
+ * <p>
+ * Passwords are hashed with {@value #BCRYPT}, at {@code application.password-hashing.bcrypt-strength}, or with
+ * another algorithm, whose hashes are prefixed with its id, such as {@code {pbkdf2}}. BCrypt hashes are not
+ * prefixed, so that those stored before are read as they are. Hashes of another algorithm or cost are still
+ * matched, and {@link #needsUpgrade(String)} tells which ones should be hashed again, as
+ * {@link RehashingAuthenticationProvider} does on login.
+ * <p>
+ * Hashing runs on {@code application.password-hashing.threads} threads, so that a burst of logins cannot take
+ * the processors from the other requests: the calling thread waits for its hash, at most
+ * {@code application.password-hashing.timeout-ms}, and once {@code application.password-hashing.queue-capacity}
+ * hashes are waiting, further ones are rejected. Both fail with a {@link PasswordHashingRejectedException}, so
+ * that request threads are given back rather than all parked behind the hashing queue.
+ */
+@Component
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+
+    public static final String BCRYPT = "bcrypt";
+
+    public static final String PBKDF2 = "pbkdf2";
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]?\\$(\\d\\d)\\$[./A-Za-z0-9]{53}");
+
+    private static final String TIMER_NAME = "security.password.hashing";
+
+    private final String algorithm;
+
+    private final int bcryptStrength;
+
+    private final PasswordEncoder bcrypt;
+
+    private final DelegatingPasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMs;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Counter rejected;
+
+    @Autowired
+    public AdaptivePasswordEncoder(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this(applicationProperties.getPasswordHashing(), newExecutor(applicationProperties.getPasswordHashing()),
+            meterRegistry);
+    }
+
+    AdaptivePasswordEncoder(ApplicationProperties.PasswordHashing properties, ThreadPoolExecutor executor,
+                            MeterRegistry meterRegistry) {
+        this.algorithm = properties.getAlgorithm();
+        this.bcryptStrength = properties.getBcryptStrength();
+        this.bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(PBKDF2, new Pbkdf2PasswordEncoder());
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Unknown password hashing algorithm " + algorithm +
+                ", expected one of " + encoders.keySet());
+        }
+        this.delegate = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes stored before this encoder have no id
+        this.delegate.setDefaultPasswordEncoderForMatches(bcrypt);
+        this.executor = executor;
+        this.timeoutMs = properties.getTimeoutMs();
+        this.encodeTimer = hashingTimer(meterRegistry, "encode");
+        this.matchesTimer = hashingTimer(meterRegistry, "matches");
+        this.rejected = Counter.builder("security.password.hashing.rejected")
+            .description("The number of passwords not hashed because the hashing queue was full, or the wait timed out")
+            .register(meterRegistry);
+        Gauge.builder("security.password.hashing.queue", executor, e -> e.getQueue().size())
+            .description("The number of passwords waiting for a hashing thread")
+            .register(meterRegistry);
+    }
+
+    private static ThreadPoolExecutor newExecutor(ApplicationProperties.PasswordHashing properties) {
+        int threads = properties.getThreads() > 0 ? properties.getThreads() :
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int queueCapacity = properties.getQueueCapacity() > 0 ? properties.getQueueCapacity() : 2 * threads;
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("password-hashing-"));
+    }
+
+    private static Timer hashingTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder(TIMER_NAME)
+            .description("The time taken to hash a password, without the time waiting for a thread")
+            .tags("operation", operation)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> BCRYPT.equals(algorithm) ? bcrypt.encode(rawPassword) : delegate.encode(rawPassword),
+            encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    /**
+     * @param encodedPassword a stored hash, matching the password just given
+     * @return whether the hash was made with another algorithm or cost than the configured ones
+     */
+    public boolean needsUpgrade(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        if (!BCRYPT.equals(algorithm)) {
+            return !encodedPassword.startsWith("{" + algorithm + "}");
+        }
+        Matcher matcher = BCRYPT_HASH.matcher(encodedPassword);
+        return !matcher.matches() || Integer.parseInt(matcher.group(1)) != bcryptStrength;
+    }
+
+    private <T> T hash(Supplier<T> hashing, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.record(hashing));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Too many passwords are being hashed", e);
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            // Give its place in the queue back, if it did not start
+            executor.purge();
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Timed out waiting for a password to be hashed", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -1,62 +1,182 @@
 package com.example.security;
 
+import com.example.domain.Authority;
 import com.example.domain.User;
 import com.example.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.hibernate.validator.internal.constraintvalidators.hv.EmailValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * The details of the users are cached, so that form logins and remember-me auto-logins run no SQL once a user
+ * is known: {@value #USER_DETAILS_BY_LOGIN_CACHE} holds an immutable snapshot of each user, with the authority
+ * sets shared between the users having the same authorities, and {@value #USER_DETAILS_BY_EMAIL_CACHE} holds the
+ * login of each email. An email entry is only followed if the snapshot it leads to still has that email, so both
+ * caches are kept exact by evicting the login and the email of a changed user, as
+ * {@link com.example.service.UserService} does. Each call still returns a new {@link UserDetails}, whose
+ * credentials Spring Security erases after authentication.
  */
 @Component("userDetailsService")
 public class DomainUserDetailsService implements UserDetailsService {
 
+    public static final String USER_DETAILS_BY_LOGIN_CACHE = "userDetailsByLogin";
+
+    public static final String USER_DETAILS_BY_EMAIL_CACHE = "userDetailsByEmail";
+
+    private static final String CACHE_METRIC = "security.user.details.cache.requests";
+
     private final Logger log = LoggerFactory.getLogger(DomainUserDetailsService.class);
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final Cache detailsByLogin;
+
+    private final Cache detailsByEmail;
+
+    private final ConcurrentMap<Set<String>, Set<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
+    private final Counter loginHits;
+
+    private final Counter loginMisses;
+
+    private final Counter emailHits;
+
+    private final Counter emailMisses;
+
+    public DomainUserDetailsService(UserRepository userRepository, CacheManager cacheManager, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.detailsByLogin = Objects.requireNonNull(cacheManager.getCache(USER_DETAILS_BY_LOGIN_CACHE));
+        this.detailsByEmail = Objects.requireNonNull(cacheManager.getCache(USER_DETAILS_BY_EMAIL_CACHE));
+        this.loginHits = cacheCounter(meterRegistry, "login", "hit");
+        this.loginMisses = cacheCounter(meterRegistry, "login", "miss");
+        this.emailHits = cacheCounter(meterRegistry, "email", "hit");
+        this.emailMisses = cacheCounter(meterRegistry, "email", "miss");
+        Gauge.builder("security.user.details.cache.hit.ratio", this, DomainUserDetailsService::getHitRatio)
+            .description("The ratio of user details lookups served by the cache, NaN before any lookup")
+            .register(meterRegistry);
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String key, String result) {
+        return Counter.builder(CACHE_METRIC)
+            .description("The number of user details lookups which found, or did not find, the user in the cache")
+            .tags("key", key, "result", result)
+            .register(meterRegistry);
     }
 
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(final String login) {
         log.debug("Authenticating {}", login);
 
         if (new EmailValidator().isValid(login, null)) {
-            return userRepository.findOneWithAuthoritiesByEmail(login)
-                .map(user -> createSpringSecurityUser(login, user))
-                .orElseThrow(() -> new UsernameNotFoundException("User with email " + login + " was not found in the database"));
+            return createSpringSecurityUser(login, findByEmail(login)
+                .orElseThrow(() -> new UsernameNotFoundException("User with email " + login + " was not found in the database")));
         }
 
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
-        return userRepository.findOneWithAuthoritiesByLogin(lowercaseLogin)
-            .map(user -> createSpringSecurityUser(lowercaseLogin, user))
-            .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database"));
+        return createSpringSecurityUser(lowercaseLogin, findByLogin(lowercaseLogin)
+            .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database")));
+    }
+
+    private Optional<UserSnapshot> findByLogin(String login) {
+        UserSnapshot snapshot = detailsByLogin.get(login, UserSnapshot.class);
+        if (snapshot != null) {
+            loginHits.increment();
+            return Optional.of(snapshot);
+        }
+        loginMisses.increment();
+        return userRepository.findOneWithAuthoritiesByLogin(login).map(this::cache);
+    }
 
+    private Optional<UserSnapshot> findByEmail(String email) {
+        String login = detailsByEmail.get(email, String.class);
+        UserSnapshot snapshot = login == null ? null : detailsByLogin.get(login, UserSnapshot.class);
+        if (snapshot != null && email.equalsIgnoreCase(snapshot.email)) {
+            emailHits.increment();
+            return Optional.of(snapshot);
+        }
+        emailMisses.increment();
+        return userRepository.findOneWithAuthoritiesByEmail(email).map(user -> {
+            UserSnapshot loaded = cache(user);
+            detailsByEmail.put(email, loaded.login);
+            return loaded;
+        });
+    }
+
+    private UserSnapshot cache(User user) {
+        Set<String> authorityNames = user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toSet());
+        UserSnapshot snapshot = new UserSnapshot(user.getLogin(), user.getEmail(), user.getPassword(),
+            user.getActivated(), intern(authorityNames));
+        detailsByLogin.put(snapshot.login, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * @return the shared, unmodifiable, set of granted authorities with the given names
+     */
+    private Set<GrantedAuthority> intern(Set<String> authorityNames) {
+        return authoritySets.computeIfAbsent(authorityNames, names -> Collections.unmodifiableSet(names.stream()
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toSet())));
     }
 
-    private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
-        if (!user.getActivated()) {
+    private double getHitRatio() {
+        double hits = loginHits.count() + emailHits.count();
+        double lookups = hits + loginMisses.count() + emailMisses.count();
+        return lookups == 0 ? Double.NaN : hits / lookups;
+    }
+
+    private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, UserSnapshot user) {
+        if (!user.activated) {
             throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
         }
-        List<GrantedAuthority> grantedAuthorities = user.getAuthorities().stream()
-            .map(authority -> new SimpleGrantedAuthority(authority.getName()))
-            .collect(Collectors.toList());
-        return new org.springframework.security.core.userdetails.User(user.getLogin(),
-            user.getPassword(),
-            grantedAuthorities);
+        return new org.springframework.security.core.userdetails.User(user.login,
+            user.password,
+            user.authorities);
+    }
+
+    /**
+     * The cached details of a user.
+     */
+    private static final class UserSnapshot implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String login;
+
+        private final String email;
+
+        private final String password;
+
+        private final boolean activated;
+
+        private final Set<GrantedAuthority> authorities;
+
+        UserSnapshot(String login, String email, String password, boolean activated, Set<GrantedAuthority> authorities) {
+            this.login = login;
+            this.email = email;
+            this.password = password;
+            this.activated = activated;
+            this.authorities = authorities;
+        }
     }
 }
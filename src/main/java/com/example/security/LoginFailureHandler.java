@@ -0,0 +1,31 @@
+package com.example.security;
+
+import io.github.jhipster.security.AjaxAuthenticationFailureHandler;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Returns a 503 Service Unavailable error, to be retried, when a login could not be checked because the password
+ * hashing threads were saturated, and a 401 Unauthorized error for the other failures.
+ */
+public class LoginFailureHandler extends AjaxAuthenticationFailureHandler {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
+                                        AuthenticationException exception) throws IOException, ServletException {
+        if (exception instanceof PasswordHashingRejectedException) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many logins, retry later");
+            return;
+        }
+        super.onAuthenticationFailure(request, response, exception);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * This exception is thrown when a password cannot be hashed because all the hashing threads are busy and their
+ * queue is full.
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingRejectedException(String message, Throwable t) {
+        super(message, t);
+    }
+}
@@ -7,7 +7,6 @@ import com.example.service.util.RandomUtil;
 
 
 import io.github.jhipster.config.JHipsterProperties;
-import io.github.jhipster.security.PersistentTokenCache;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +22,9 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Custom implementation of Spring Security's RememberMeServices.
@@ -41,6 +43,13 @@ import java.util.*;
  * cache during that period. This is to allow concurrent requests from the same user: otherwise, two
  * requests being sent at the same time could invalidate each other's token.
  * <p>
+ * Requests presenting the same series are serialized by a lock picked by the hash of the series, see
+ * {@link PersistentTokenWriteBehind#lockFor(String)}, so that the token of a series is refreshed once, while the
+ * requests of other users authenticate in parallel. The user details are loaded outside of the lock.
+ * <p>
+ * Refreshed tokens are written behind, in batches, by {@link PersistentTokenWriteBehind}, which also serves them
+ * until they are written, when a single instance runs.
+ * <p>
  * This is inspired by:
  * <ul>
  * <li><a href="http://jaspan.com/improved_persistent_login_cookie_best_practice">Improved Persistent Login Cookie
@@ -64,29 +73,35 @@ public class PersistentTokenRememberMeServices extends
 
     private static final long UPGRADED_TOKEN_VALIDITY_MILLIS = 5000l;
 
-    private final PersistentTokenCache<UpgradedRememberMeToken> upgradedTokenCache;
+    private final ConcurrentMap<String, UpgradedRememberMeToken> upgradedTokenCache = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextUpgradedTokenPurge = new AtomicLong();
 
     private final PersistentTokenRepository persistentTokenRepository;
 
     private final UserRepository userRepository;
 
+    private final PersistentTokenWriteBehind persistentTokenWriteBehind;
+
     public PersistentTokenRememberMeServices(JHipsterProperties jHipsterProperties,
             org.springframework.security.core.userdetails.UserDetailsService userDetailsService,
-            PersistentTokenRepository persistentTokenRepository, UserRepository userRepository) {
+            PersistentTokenRepository persistentTokenRepository, UserRepository userRepository,
+            PersistentTokenWriteBehind persistentTokenWriteBehind) {
 
         super(jHipsterProperties.getSecurity().getRememberMe().getKey(), userDetailsService);
         this.persistentTokenRepository = persistentTokenRepository;
         this.userRepository = userRepository;
-        upgradedTokenCache = new PersistentTokenCache<>(UPGRADED_TOKEN_VALIDITY_MILLIS);
+        this.persistentTokenWriteBehind = persistentTokenWriteBehind;
     }
 
     @Override
     protected UserDetails processAutoLoginCookie(String[] cookieTokens, HttpServletRequest request,
         HttpServletResponse response) {
 
-        synchronized (this) { // prevent 2 authentication requests from the same user in parallel
-            String login = null;
-            UpgradedRememberMeToken upgradedToken = upgradedTokenCache.get(cookieTokens[0]);
+        String login;
+        synchronized (persistentTokenWriteBehind.lockFor(cookieTokens[0])) { // prevent 2 authentication requests from the same user in parallel
+            login = null;
+            UpgradedRememberMeToken upgradedToken = getUpgradedToken(cookieTokens[0]);
             if (upgradedToken != null) {
                 login = upgradedToken.getUserLoginIfValid(cookieTokens);
                 log.debug("Detected previously upgraded login token for user '{}'", login);
@@ -102,16 +117,32 @@ public class PersistentTokenRememberMeServices extends
                 token.setTokenValue(RandomUtil.generateTokenData());
                 token.setIpAddress(request.getRemoteAddr());
                 token.setUserAgent(request.getHeader("User-Agent"));
-                try {
-                    persistentTokenRepository.saveAndFlush(token);
-                } catch (DataAccessException e) {
-                    log.error("Failed to update token: ", e);
-                    throw new RememberMeAuthenticationException("Autologin failed due to data access problem", e);
-                }
+                persistentTokenWriteBehind.refresh(token);
                 addCookie(token, request, response);
-                upgradedTokenCache.put(cookieTokens[0], new UpgradedRememberMeToken(cookieTokens, login));
+                putUpgradedToken(cookieTokens[0], new UpgradedRememberMeToken(cookieTokens, login));
             }
-            return getUserDetailsService().loadUserByUsername(login);
+        }
+        return getUserDetailsService().loadUserByUsername(login);
+    }
+
+    private UpgradedRememberMeToken getUpgradedToken(String series) {
+        UpgradedRememberMeToken upgradedToken = upgradedTokenCache.get(series);
+        if (upgradedToken != null && upgradedToken.isExpired(System.currentTimeMillis())) {
+            upgradedTokenCache.remove(series, upgradedToken);
+            return null;
+        }
+        return upgradedToken;
+    }
+
+    /**
+     * Cache an upgraded token, purging the expired ones at most once per validity period.
+     */
+    private void putUpgradedToken(String series, UpgradedRememberMeToken upgradedToken) {
+        upgradedTokenCache.put(series, upgradedToken);
+        long now = System.currentTimeMillis();
+        long nextPurge = nextUpgradedTokenPurge.get();
+        if (now >= nextPurge && nextUpgradedTokenPurge.compareAndSet(nextPurge, now + UPGRADED_TOKEN_VALIDITY_MILLIS)) {
+            upgradedTokenCache.values().removeIf(token -> token.isExpired(now));
         }
     }
 
@@ -153,7 +184,7 @@ public class PersistentTokenRememberMeServices extends
             try {
                 String[] cookieTokens = decodeCookie(rememberMeCookie);
                 PersistentToken token = getPersistentToken(cookieTokens);
-                persistentTokenRepository.deleteById(token.getSeries());
+                deleteToken(token.getSeries());
             } catch (InvalidCookieException ice) {
                 log.info("Invalid cookie, no persistent token could be deleted", ice);
             } catch (RememberMeAuthenticationException rmae) {
@@ -173,7 +204,10 @@ public class PersistentTokenRememberMeServices extends
         }
         String presentedSeries = cookieTokens[0];
         String presentedToken = cookieTokens[1];
-        Optional<PersistentToken> optionalToken = persistentTokenRepository.findById(presentedSeries);
+        Optional<PersistentToken> optionalToken = persistentTokenWriteBehind.getPending(presentedSeries);
+        if (!optionalToken.isPresent()) {
+            optionalToken = persistentTokenRepository.findById(presentedSeries);
+        }
         if (!optionalToken.isPresent()) {
             // No series match, so we can't authenticate using this cookie
             throw new RememberMeAuthenticationException("No persistent token found for series id: " + presentedSeries);
@@ -183,17 +217,21 @@ public class PersistentTokenRememberMeServices extends
         log.info("presentedToken={} / tokenValue={}", presentedToken, token.getTokenValue());
         if (!presentedToken.equals(token.getTokenValue())) {
             // Token doesn't match series value. Delete this session and throw an exception.
-            persistentTokenRepository.deleteById(token.getSeries());
+            deleteToken(token.getSeries());
             throw new CookieTheftException("Invalid remember-me token (Series/token) mismatch. Implies previous " +
                 "cookie theft attack.");
         }
         if (token.getTokenDate().plusDays(TOKEN_VALIDITY_DAYS).isBefore(LocalDate.now())) {
-            persistentTokenRepository.deleteById(token.getSeries());
+            deleteToken(token.getSeries());
             throw new RememberMeAuthenticationException("Remember-me login has expired");
         }
         return token;
     }
 
+    private void deleteToken(String series) {
+        persistentTokenWriteBehind.delete(series);
+    }
+
     private void addCookie(PersistentToken token, HttpServletRequest request, HttpServletResponse response) {
         setCookie(
             new String[]{token.getSeries(), token.getTokenValue()},
@@ -208,9 +246,16 @@ public class PersistentTokenRememberMeServices extends
 
         private final String userLogin;
 
+        private final long expirationTime;
+
         UpgradedRememberMeToken(String[] upgradedToken, String userLogin) {
             this.upgradedToken = upgradedToken;
             this.userLogin = userLogin;
+            this.expirationTime = System.currentTimeMillis() + UPGRADED_TOKEN_VALIDITY_MILLIS;
+        }
+
+        boolean isExpired(long now) {
+            return now > expirationTime;
         }
 
         String getUserLoginIfValid(String[] currentToken) {
@@ -0,0 +1,192 @@
+package com.example.security;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.PersistentToken;
+import com.example.repository.PersistentTokenRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Write-behind of the persistent token refreshes done by remember-me auto-logins.
+ * <p>
+ * A refresh is kept in memory, replacing the pending refresh of the same series if any, and the pending refreshes
+ * are written every {@code application.persistent-token.flush-interval-ms} with JDBC batches of
+ * {@code application.persistent-token.batch-size} updates. A login storm so costs one batched write per interval,
+ * rather than one flush per request.
+ * <p>
+ * Until it is written, a refresh is served by {@link #getPending(String)}, so that the next auto-login of the
+ * series checks the new token value. It is only visible to this instance: another instance would see the previous
+ * value until the flush, take the new cookie for a stolen one and delete the series. The write-behind is hence only
+ * used when {@code application.persistent-token.single-node} is true; otherwise each refresh is written at once.
+ * The sessions listed by the account page can also lag behind by one interval.
+ * <p>
+ * The token of a series is checked, refreshed and deleted under the lock of the series, see
+ * {@link #lockFor(String)}, so that a deleted series cannot be queued again by a concurrent refresh.
+ */
+@Component
+public class PersistentTokenWriteBehind {
+
+    private static final String UPDATE_SQL = "update jhi_persistent_token" +
+        " set token_value = ?, token_date = ?, ip_address = ?, user_agent = ? where series = ?";
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Logger log = LoggerFactory.getLogger(PersistentTokenWriteBehind.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PersistentTokenRepository persistentTokenRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.PersistentToken properties;
+
+    private final ConcurrentMap<String, PersistentToken> pending = new ConcurrentHashMap<>();
+
+    private final Object[] seriesLocks = new Object[LOCK_STRIPES];
+
+    public PersistentTokenWriteBehind(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      PersistentTokenRepository persistentTokenRepository,
+                                      ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.persistentTokenRepository = persistentTokenRepository;
+        this.properties = applicationProperties.getPersistentToken();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            seriesLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * The lock of a series, picked by its hash among {@value #LOCK_STRIPES}, so that the requests of other users
+     * go on in parallel.
+     *
+     * @param series the series of a token
+     * @return the lock to hold while the token of the series is checked, refreshed or deleted
+     */
+    public Object lockFor(String series) {
+        return seriesLocks[(series.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    /**
+     * Queue the refresh of a token, replacing the pending refresh of its series, or write it at once when other
+     * instances may check the token.
+     *
+     * @param token the refreshed token, which is copied
+     */
+    public void refresh(PersistentToken token) {
+        if (!properties.isSingleNode()) {
+            transactionTemplate.execute(status -> jdbcTemplate.update(UPDATE_SQL, ps -> setValues(ps, token)));
+            return;
+        }
+        pending.put(token.getSeries(), copy(token));
+    }
+
+    /**
+     * @param series the series of a token
+     * @return a copy of the refreshed token of the series, if it was not written yet
+     */
+    public Optional<PersistentToken> getPending(String series) {
+        return Optional.ofNullable(pending.get(series)).map(PersistentTokenWriteBehind::copy);
+    }
+
+    /**
+     * Drop the pending refresh of a series, when its token is deleted.
+     *
+     * @param series the series of the token
+     */
+    public void discard(String series) {
+        synchronized (lockFor(series)) {
+            pending.remove(series);
+        }
+    }
+
+    /**
+     * Delete the token of a series, with its pending refresh.
+     *
+     * @param series the series of the token
+     */
+    public void delete(String series) {
+        synchronized (lockFor(series)) {
+            pending.remove(series);
+            persistentTokenRepository.deleteById(series);
+        }
+    }
+
+    /**
+     * @return the number of refreshes not written yet
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write the pending refreshes.
+     * <p>
+     * This is scheduled to run with a fixed delay, so that runs never overlap. A refresh replaced while it was
+     * written stays pending, for the next run; refreshes which failed to be written are tried again too.
+     */
+    @Scheduled(initialDelayString = "${application.persistent-token.flush-interval-ms:250}",
+        fixedDelayString = "${application.persistent-token.flush-interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PersistentToken> refreshes = new ArrayList<>(pending.values());
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, refreshes,
+                properties.getBatchSize(), PersistentTokenWriteBehind::setValues));
+        } catch (DataAccessException e) {
+            log.error("Failed to write {} persistent token refreshes, they will be tried again", refreshes.size(), e);
+            return;
+        }
+        for (PersistentToken token : refreshes) {
+            // Tokens are equal by series, so the written refresh is compared by identity
+            pending.computeIfPresent(token.getSeries(), (series, latest) -> latest == token ? null : latest);
+        }
+        log.debug("Wrote {} persistent token refreshes", refreshes.size());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private static void setValues(PreparedStatement ps, PersistentToken token) throws SQLException {
+        ps.setString(1, token.getTokenValue());
+        ps.setDate(2, token.getTokenDate() == null ? null : Date.valueOf(token.getTokenDate()));
+        ps.setString(3, token.getIpAddress());
+        ps.setString(4, token.getUserAgent());
+        ps.setString(5, token.getSeries());
+    }
+
+    private static PersistentToken copy(PersistentToken token) {
+        PersistentToken copy = new PersistentToken();
+        copy.setSeries(token.getSeries());
+        copy.setTokenValue(token.getTokenValue());
+        copy.setTokenDate(token.getTokenDate());
+        copy.setIpAddress(token.getIpAddress());
+        if (token.getUserAgent() != null) {
+            copy.setUserAgent(token.getUserAgent());
+        }
+        copy.setUser(token.getUser());
+        return copy;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.security;
+
+import com.example.service.UserService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authentication provider checking the passwords of the users, and hashing them again when their stored hash
+ * was made with another algorithm or cost than the configured ones.
+ * <p>
+ * The upgrade happens once per user, on the first login after a change of
+ * {@code application.password-hashing}. It is skipped, and tried again on the next login, when the hashing
+ * threads are saturated.
+ */
+@Component
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final Logger log = LoggerFactory.getLogger(RehashingAuthenticationProvider.class);
+
+    private final AdaptivePasswordEncoder passwordEncoder;
+
+    private final UserService userService;
+
+    public RehashingAuthenticationProvider(UserDetailsService userDetailsService, AdaptivePasswordEncoder passwordEncoder,
+                                           UserService userService) {
+        this.passwordEncoder = passwordEncoder;
+        this.userService = userService;
+        setUserDetailsService(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (authentication.getCredentials() != null && passwordEncoder.needsUpgrade(user.getPassword())) {
+            try {
+                String encryptedPassword = passwordEncoder.encode(authentication.getCredentials().toString());
+                userService.upgradePassword(user.getUsername(), user.getPassword(), encryptedPassword);
+            } catch (PasswordHashingRejectedException e) {
+                log.debug("Password hash of {} not upgraded: {}", user.getUsername(), e.getMessage());
+            }
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.Appointment;
+import com.example.domain.Slot;
+import com.example.repository.AppointmentRepository;
+import com.example.web.rest.errors.SlotAlreadyBookedException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of the slots booked for each vet and day, which rejects double bookings before they reach
+ * the database.
+ * <p>
+ * Each vet and day holds a bit set over the slots. It is loaded from the appointment table the first time it
+ * is used, then kept up to date by {@link #reserve(Appointment)} and {@link #release(Long)}. A booking sets
+ * its bit under the lock of its day, so of two concurrent requests for the same slot only one can pass. The bit
+ * is cleared again if the transaction rolls back. The slot of a moved or deleted appointment is only freed once
+ * its transaction commits. The index is local to each instance, so the {@code ux_appointment_booking} unique
+ * constraint remains the final guard.
+ * <p>
+ * The same bit sets answer availability queries: the free slots of a day are the known slots minus the booked ones.
+ * <p>
+ * Up to {@code application.availability.max-days} vet days are kept, the least recently used ones being dropped
+ * beyond, and loaded again on next use. Should more than {@code application.availability.max-slots} distinct slots
+ * be seen, the whole index is dropped. A reservation running while its day is dropped is then only guarded by the
+ * unique constraint, as with {@link #evict(Appointment)}.
+ */
+@Service
+public class AppointmentOccupancyIndex {
+
+    private final Logger log = LoggerFactory.getLogger(AppointmentOccupancyIndex.class);
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final ApplicationProperties.Availability properties;
+
+    private final Map<VetDay, Occupancy> occupancies = new ConcurrentHashMap<>();
+
+    /**
+     * The booking of each appointment of the loaded days, to free its slot when it moves or is deleted.
+     */
+    private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+
+    private final Map<Long, Integer> slotIndices = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextSlotIndex = new AtomicInteger();
+
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    public AppointmentOccupancyIndex(AppointmentRepository appointmentRepository,
+                                     ApplicationProperties applicationProperties) {
+        this.appointmentRepository = appointmentRepository;
+        this.properties = applicationProperties.getAvailability();
+    }
+
+    /**
+     * Book the vet, day and slot of an appointment for the current transaction.
+     * <p>
+     * Appointments without a vet, a day or a slot do not book anything, and neither do appointments keeping
+     * their current booking.
+     *
+     * @param appointment the appointment about to be saved
+     * @throws SlotAlreadyBookedException if another appointment has the same vet, day and slot
+     */
+    public void reserve(Appointment appointment) {
+        Booking booking = Booking.of(appointment);
+        if (booking == null) {
+            return;
+        }
+        Occupancy occupancy = getOccupancy(booking.vetDay);
+        if (appointment.getId() != null && booking.equals(bookings.get(appointment.getId()))) {
+            return;
+        }
+        int slotIndex = getSlotIndex(booking.slotId);
+        if (!occupancy.book(slotIndex)) {
+            throw new SlotAlreadyBookedException();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    occupancy.cancel(slotIndex);
+                    return;
+                }
+                Long appointmentId = appointment.getId();
+                occupancy.confirm(slotIndex, appointmentId);
+                Booking previous = bookings.put(appointmentId, booking);
+                if (previous != null && !previous.equals(booking)) {
+                    free(previous, appointmentId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Free the slot of an appointment once the current transaction commits.
+     *
+     * @param appointmentId the id of the appointment being deleted
+     */
+    public void release(Long appointmentId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    Booking previous = bookings.remove(appointmentId);
+                    if (previous != null) {
+                        free(previous, appointmentId);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop the day of an appointment, so that it is loaded again from the database on next use.
+     * <p>
+     * This is called when the database rejects a booking that the index accepted.
+     *
+     * @param appointment the rejected appointment
+     */
+    public void evict(Appointment appointment) {
+        Booking booking = Booking.of(appointment);
+        if (booking != null) {
+            log.warn("The occupancy of vet {} on {} was out of date", booking.vetDay.vetId, booking.vetDay.date);
+            occupancies.remove(booking.vetDay);
+        }
+    }
+
+    /**
+     * @param vetId the id of the vet
+     * @param date the day
+     * @param slotId the id of the slot
+     * @return whether the slot is booked, or being booked, for the vet on that day
+     */
+    public boolean isBooked(Long vetId, LocalDate date, Long slotId) {
+        return getOccupancy(new VetDay(vetId, date)).isBooked(getSlotIndex(slotId));
+    }
+
+    /**
+     * Drop the days before today, which can no longer be booked.
+     * <p>
+     * This is scheduled to run every day, at 2:00 am.
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        occupancies.keySet().removeIf(vetDay -> vetDay.date.isBefore(today));
+        bookings.values().removeIf(booking -> booking.vetDay.date.isBefore(today));
+    }
+
+    /**
+     * Find the free slots of a vet, day by day.
+     * <p>
+     * Days already in the index are answered from memory. The others are loaded together, with a single query.
+     *
+     * @param vetId the id of the vet
+     * @param from the first day
+     * @param to the last day, included
+     * @param slots the slots to look for, in the order of the result
+     * @return the free slots of each day, from the first to the last
+     */
+    public Map<LocalDate, List<Slot>> findFreeSlots(Long vetId, LocalDate from, LocalDate to, List<Slot> slots) {
+        Slot[] slotsByIndex = new Slot[0];
+        int[] order = new int[slots.size()];
+        BitSet all = new BitSet();
+        for (int i = 0; i < slots.size(); i++) {
+            int slotIndex = getSlotIndex(slots.get(i).getId());
+            if (slotIndex >= slotsByIndex.length) {
+                slotsByIndex = Arrays.copyOf(slotsByIndex, Math.max(slotIndex + 1, slotsByIndex.length * 2));
+            }
+            slotsByIndex[slotIndex] = slots.get(i);
+            order[i] = slotIndex;
+            all.set(slotIndex);
+        }
+
+        Map<LocalDate, Occupancy> days = new LinkedHashMap<>();
+        Map<LocalDate, List<AppointmentRepository.SlotBooking>> unloaded = null;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            VetDay vetDay = new VetDay(vetId, date);
+            Occupancy occupancy = getCachedOccupancy(vetDay);
+            if (!occupancy.isLoaded()) {
+                if (unloaded == null) {
+                    unloaded = appointmentRepository.findSlotBookings(vetId, date, to).stream()
+                        .collect(Collectors.groupingBy(AppointmentRepository.SlotBooking::getApptTime));
+                }
+                occupancy.load(vetDay, unloaded.getOrDefault(date, Collections.emptyList()));
+            }
+            days.put(date, occupancy);
+        }
+
+        Map<LocalDate, List<Slot>> freeSlots = new LinkedHashMap<>();
+        for (Map.Entry<LocalDate, Occupancy> day : days.entrySet()) {
+            BitSet free = (BitSet) all.clone();
+            free.andNot(day.getValue().getBooked());
+            List<Slot> daySlots = new ArrayList<>(free.cardinality());
+            for (int slotIndex : order) {
+                if (free.get(slotIndex)) {
+                    daySlots.add(slotsByIndex[slotIndex]);
+                }
+            }
+            freeSlots.put(day.getKey(), daySlots);
+        }
+        return freeSlots;
+    }
+
+    /**
+     * @return the number of vet days in the index
+     */
+    int getDayCount() {
+        return occupancies.size();
+    }
+
+    private Occupancy getOccupancy(VetDay vetDay) {
+        Occupancy occupancy = getCachedOccupancy(vetDay);
+        if (!occupancy.isLoaded()) {
+            occupancy.load(vetDay, appointmentRepository.findSlotBookings(vetDay.vetId, vetDay.date, vetDay.date));
+        }
+        return occupancy;
+    }
+
+    private Occupancy getCachedOccupancy(VetDay vetDay) {
+        Occupancy occupancy = occupancies.get(vetDay);
+        if (occupancy == null) {
+            occupancy = occupancies.computeIfAbsent(vetDay, key -> new Occupancy());
+            occupancy.lastUsed = System.nanoTime();
+            if (occupancies.size() > properties.getMaxDays()) {
+                trim(vetDay);
+            }
+            return occupancy;
+        }
+        occupancy.lastUsed = System.nanoTime();
+        return occupancy;
+    }
+
+    /**
+     * Drop the least recently used days, down to nine tenths of the maximum, so that trimming is not paid for by
+     * every new day.
+     *
+     * @param requested the day being requested, which is kept whatever its last use
+     */
+    private void trim(VetDay requested) {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = occupancies.size() - properties.getMaxDays() * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            long[] lastUsed = occupancies.values().stream().mapToLong(occupancy -> occupancy.lastUsed).sorted().toArray();
+            long threshold = lastUsed[Math.min(excess, lastUsed.length) - 1];
+            occupancies.forEach((vetDay, occupancy) -> {
+                if (occupancy.lastUsed <= threshold && !vetDay.equals(requested) &&
+                    occupancies.remove(vetDay, occupancy)) {
+                    for (Long appointmentId : occupancy.getAppointmentIds()) {
+                        bookings.computeIfPresent(appointmentId,
+                            (id, booking) -> booking.vetDay.equals(vetDay) ? null : booking);
+                    }
+                }
+            });
+            log.debug("Dropped the least recently used vet days, {} are left", occupancies.size());
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private int getSlotIndex(Long slotId) {
+        Integer slotIndex = slotIndices.get(slotId);
+        if (slotIndex != null) {
+            return slotIndex;
+        }
+        if (slotIndices.size() >= properties.getMaxSlots()) {
+            log.warn("More than {} slots are indexed, the occupancy index is dropped", properties.getMaxSlots());
+            occupancies.clear();
+            bookings.clear();
+            slotIndices.clear();
+            nextSlotIndex.set(0);
+        }
+        return slotIndices.computeIfAbsent(slotId, key -> nextSlotIndex.getAndIncrement());
+    }
+
+    private void free(Booking booking, Long appointmentId) {
+        Occupancy occupancy = occupancies.get(booking.vetDay);
+        if (occupancy != null) {
+            occupancy.free(getSlotIndex(booking.slotId), appointmentId);
+        }
+    }
+
+    /**
+     * The slots of a vet on a day, booked by saved appointments or reserved by running transactions.
+     */
+    private final class Occupancy {
+
+        private final BitSet booked = new BitSet();
+
+        private final Map<Integer, Long> appointmentIds = new HashMap<>();
+
+        private boolean loaded;
+
+        /**
+         * Set on creation, so that a day which was just added is never the least recently used one.
+         */
+        private volatile long lastUsed = System.nanoTime();
+
+        synchronized boolean isLoaded() {
+            return loaded;
+        }
+
+        synchronized void load(VetDay vetDay, List<AppointmentRepository.SlotBooking> slotBookings) {
+            if (loaded) {
+                return;
+            }
+            for (AppointmentRepository.SlotBooking slotBooking : slotBookings) {
+                int slotIndex = getSlotIndex(slotBooking.getSlotId());
+                booked.set(slotIndex);
+                appointmentIds.put(slotIndex, slotBooking.getId());
+                bookings.put(slotBooking.getId(), new Booking(vetDay, slotBooking.getSlotId()));
+            }
+            loaded = true;
+        }
+
+        synchronized boolean book(int slotIndex) {
+            if (booked.get(slotIndex)) {
+                return false;
+            }
+            booked.set(slotIndex);
+            return true;
+        }
+
+        synchronized void confirm(int slotIndex, Long appointmentId) {
+            if (booked.get(slotIndex)) {
+                appointmentIds.put(slotIndex, appointmentId);
+            }
+        }
+
+        synchronized void cancel(int slotIndex) {
+            if (!appointmentIds.containsKey(slotIndex)) {
+                booked.clear(slotIndex);
+            }
+        }
+
+        synchronized void free(int slotIndex, Long appointmentId) {
+            // The slot may have been booked again since, by another appointment
+            if (appointmentId.equals(appointmentIds.get(slotIndex))) {
+                appointmentIds.remove(slotIndex);
+                booked.clear(slotIndex);
+            }
+        }
+
+        synchronized boolean isBooked(int slotIndex) {
+            return booked.get(slotIndex);
+        }
+
+        synchronized BitSet getBooked() {
+            return (BitSet) booked.clone();
+        }
+
+        synchronized List<Long> getAppointmentIds() {
+            return new ArrayList<>(appointmentIds.values());
+        }
+    }
+
+    private static final class VetDay {
+
+        private final Long vetId;
+
+        private final LocalDate date;
+
+        VetDay(Long vetId, LocalDate date) {
+            this.vetId = vetId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            VetDay vetDay = (VetDay) o;
+            return vetId.equals(vetDay.vetId) && date.equals(vetDay.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vetId, date);
+        }
+    }
+
+    private static final class Booking {
+
+        private final VetDay vetDay;
+
+        private final Long slotId;
+
+        Booking(VetDay vetDay, Long slotId) {
+            this.vetDay = vetDay;
+            this.slotId = slotId;
+        }
+
+        static Booking of(Appointment appointment) {
+            if (appointment.getVet() == null || appointment.getVet().getId() == null ||
+                appointment.getSlot() == null || appointment.getSlot().getId() == null ||
+                appointment.getApptTime() == null) {
+                return null;
+            }
+            return new Booking(new VetDay(appointment.getVet().getId(), appointment.getApptTime()),
+                appointment.getSlot().getId());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Booking booking = (Booking) o;
+            return vetDay.equals(booking.vetDay) && slotId.equals(booking.slotId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vetDay, slotId);
+        }
+    }
+}
@@ -2,8 +2,6 @@ package com.example.service;
 
 import java.util.List;
 
-import javax.persistence.criteria.JoinType;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -16,6 +14,9 @@ import io.github.jhipster.service.QueryService;
 
 import com.example.domain.Appointment;
 import com.example.domain.*; // for static metamodels
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetRepository;
+import com.example.repository.KeysetSlice;
 import com.example.repository.AppointmentRepository;
 import com.example.repository.search.AppointmentSearchRepository;
 import com.example.service.dto.AppointmentCriteria;
@@ -36,9 +37,13 @@ public class AppointmentQueryService extends QueryService<Appointment> {
 
     private final AppointmentSearchRepository appointmentSearchRepository;
 
-    public AppointmentQueryService(AppointmentRepository appointmentRepository, AppointmentSearchRepository appointmentSearchRepository) {
+    private final KeysetRepository keysetRepository;
+
+    public AppointmentQueryService(AppointmentRepository appointmentRepository, AppointmentSearchRepository appointmentSearchRepository,
+            KeysetRepository keysetRepository) {
         this.appointmentRepository = appointmentRepository;
         this.appointmentSearchRepository = appointmentSearchRepository;
+        this.keysetRepository = keysetRepository;
     }
 
     /**
@@ -66,6 +71,21 @@ public class AppointmentQueryService extends QueryService<Appointment> {
         return appointmentRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link KeysetSlice} of {@link Appointment} which matches the criteria from the database, after a cursor
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or null for the first slice.
+     * @param page The size and sort of the slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Appointment> findByCriteria(AppointmentCriteria criteria, KeysetCursor after, Pageable page) {
+        log.debug("find by criteria : {}, after: {}, page: {}", criteria, after, page);
+        final Specification<Appointment> specification = createSpecification(criteria);
+        // Same fetch plan as the listing methods of AppointmentRepository
+        return keysetRepository.findSlice(Appointment.class, specification, after, page, "slot", "vet", "pet", "pet.owner");
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -80,8 +100,11 @@ public class AppointmentQueryService extends QueryService<Appointment> {
 
     /**
      * Function to convert AppointmentCriteria to a {@link Specification}
+     * <p>
+     * Filters on a related id compare the foreign key column, so neither the count query nor the page
+     * query needs a join besides the fetch joins of {@link AppointmentRepository}.
      */
-    private Specification<Appointment> createSpecification(AppointmentCriteria criteria) {
+    Specification<Appointment> createSpecification(AppointmentCriteria criteria) {
         Specification<Appointment> specification = Specification.where(null);
         if (criteria != null) {
             if (criteria.getId() != null) {
@@ -92,15 +115,15 @@ public class AppointmentQueryService extends QueryService<Appointment> {
             }
             if (criteria.getSlotId() != null) {
                 specification = specification.and(buildSpecification(criteria.getSlotId(),
-                    root -> root.join(Appointment_.slot, JoinType.LEFT).get(Slot_.id)));
+                    root -> root.get(Appointment_.slot).get(Slot_.id)));
             }
             if (criteria.getVetId() != null) {
                 specification = specification.and(buildSpecification(criteria.getVetId(),
-                    root -> root.join(Appointment_.vet, JoinType.LEFT).get(Vet_.id)));
+                    root -> root.get(Appointment_.vet).get(Vet_.id)));
             }
             if (criteria.getPetId() != null) {
                 specification = specification.and(buildSpecification(criteria.getPetId(),
-                    root -> root.join(Appointment_.pet, JoinType.LEFT).get(Pet_.id)));
+                    root -> root.get(Appointment_.pet).get(Pet_.id)));
             }
         }
         return specification;
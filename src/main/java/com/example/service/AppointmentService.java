@@ -47,8 +47,7 @@ public interface AppointmentService {
     /**
      * Search for the appointment corresponding to the query.
      *
-     * @param query the query of the search
-     * 
+     * @param query the query of the search, see {@link com.example.service.dto.AppointmentSearchQuery} for its syntax
      * @param pageable the pagination information
      * @return the list of entities
      */
@@ -0,0 +1,64 @@
+package com.example.service;
+
+import com.example.domain.Slot;
+import com.example.repository.SlotRepository;
+import com.example.repository.VetRepository;
+import com.example.service.dto.AvailabilityDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Service for finding the free slots of the vets.
+ * <p>
+ * Bookings are read from the {@link AppointmentOccupancyIndex}, so only the days not yet in the index query
+ * the appointment table.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AvailabilityService {
+
+    private final Logger log = LoggerFactory.getLogger(AvailabilityService.class);
+
+    private final AppointmentOccupancyIndex appointmentOccupancyIndex;
+
+    private final SlotRepository slotRepository;
+
+    private final VetRepository vetRepository;
+
+    public AvailabilityService(AppointmentOccupancyIndex appointmentOccupancyIndex, SlotRepository slotRepository,
+                               VetRepository vetRepository) {
+        this.appointmentOccupancyIndex = appointmentOccupancyIndex;
+        this.slotRepository = slotRepository;
+        this.vetRepository = vetRepository;
+    }
+
+    /**
+     * Find the free slots of a vet, day by day.
+     *
+     * @param vetId the id of the vet
+     * @param from the first day
+     * @param to the last day, included
+     * @return the free slots of each day, from the first to the last, in start time order, or empty if the vet
+     * does not exist, so that unknown vets do not take room in the index
+     */
+    public Optional<List<AvailabilityDTO>> findAvailability(Long vetId, LocalDate from, LocalDate to) {
+        log.debug("Request to get the availability of Vet {} from {} to {}", vetId, from, to);
+        // Read through the second-level cache of the vets
+        if (!vetRepository.findById(vetId).isPresent()) {
+            return Optional.empty();
+        }
+        List<Slot> slots = slotRepository.findAll(Sort.by("startTime", "id"));
+        return Optional.of(appointmentOccupancyIndex.findFreeSlots(vetId, from, to, slots).entrySet().stream()
+            .map(day -> new AvailabilityDTO(day.getKey(), day.getValue()))
+            .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.*;
+import com.example.service.dto.BatchOperationDTO;
+import com.example.service.dto.BatchResultDTO;
+import com.example.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Service running batches of create, update and delete operations, with a result for each operation.
+ * <p>
+ * Operations are checked first, as the single requests would be, and those which are valid are run by chunks,
+ * each in one transaction, so that Hibernate sends their statements in JDBC batches. The search outbox records
+ * of a chunk are drained together, with {@code _bulk} requests. When a chunk fails, for instance on a unique
+ * constraint, its operations are run again one transaction each, so that only the failing ones are reported
+ * as failed.
+ */
+@Service
+public class BatchService {
+
+    private final Logger log = LoggerFactory.getLogger(BatchService.class);
+
+    private final ApplicationProperties.Batch properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
+    private final Map<Class<?>, Handler<?>> handlers = new HashMap<>();
+
+    public BatchService(ApplicationProperties applicationProperties, PlatformTransactionManager transactionManager,
+                        Validator validator, OwnerService ownerService, PetService petService, VetService vetService,
+                        SlotService slotService, AppointmentService appointmentService) {
+        this.properties = applicationProperties.getBatch();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.validator = validator;
+        register(Owner.class, "owner", Owner::getId, Owner::setId, ownerService::save, ownerService::delete);
+        register(Pet.class, "pet", Pet::getId, Pet::setId, petService::save, petService::delete);
+        register(Vet.class, "vet", Vet::getId, Vet::setId, vetService::save, vetService::delete);
+        register(Slot.class, "slot", Slot::getId, Slot::setId, slotService::save, slotService::delete);
+        register(Appointment.class, "appointment", Appointment::getId, Appointment::setId, appointmentService::save,
+            appointmentService::delete);
+    }
+
+    private <T> void register(Class<T> type, String entityName, Function<T, Long> idGetter, BiConsumer<T, Long> idSetter,
+                              UnaryOperator<T> save, Consumer<Long> delete) {
+        handlers.put(type, new Handler<>(entityName, idGetter, idSetter, save, delete));
+    }
+
+    /**
+     * Run a batch of operations.
+     *
+     * @param type the entity class
+     * @param operations the operations, run in their order
+     * @param <T> the type of the entities
+     * @return the result of each operation, in the order of the operations
+     * @throws BadRequestAlertException if the batch has more operations than allowed
+     */
+    public <T> List<BatchResultDTO> execute(Class<T> type, List<BatchOperationDTO<T>> operations) {
+        @SuppressWarnings("unchecked")
+        Handler<T> handler = (Handler<T>) handlers.get(type);
+        if (handler == null) {
+            throw new IllegalArgumentException("No batch handler for " + type.getSimpleName());
+        }
+        if (operations.size() > properties.getMaxOperations()) {
+            throw new BadRequestAlertException("A batch cannot have more than " + properties.getMaxOperations() +
+                " operations", handler.entityName, "batchtoolarge");
+        }
+        log.debug("Request to run a batch of {} {} operations", operations.size(), handler.entityName);
+
+        BatchResultDTO[] results = new BatchResultDTO[operations.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchResultDTO invalid = check(i, operations.get(i), handler);
+            if (invalid == null) {
+                valid.add(i);
+            } else {
+                results[i] = invalid;
+            }
+        }
+        for (int from = 0; from < valid.size(); from += properties.getChunkSize()) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + properties.getChunkSize(), valid.size()));
+            runChunk(chunk, operations, handler, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private <T> BatchResultDTO check(int index, BatchOperationDTO<T> operation, Handler<T> handler) {
+        if (operation == null || operation.getOperation() == null) {
+            return failure(index, HttpStatus.BAD_REQUEST, null, "invalidoperation", "Missing operation");
+        }
+        if (operation.getOperation() == BatchOperationDTO.Operation.DELETE) {
+            return operation.getId() == null ?
+                failure(index, HttpStatus.BAD_REQUEST, null, "idnull", "Invalid id") : null;
+        }
+        T entity = operation.getEntity();
+        if (entity == null) {
+            return failure(index, HttpStatus.BAD_REQUEST, null, "invalidoperation", "Missing entity");
+        }
+        Long id = handler.idGetter.apply(entity);
+        if (operation.getOperation() == BatchOperationDTO.Operation.CREATE && id != null) {
+            return failure(index, HttpStatus.BAD_REQUEST, id, "idexists",
+                "A new " + handler.entityName + " cannot already have an ID");
+        }
+        if (operation.getOperation() == BatchOperationDTO.Operation.UPDATE && id == null) {
+            return failure(index, HttpStatus.BAD_REQUEST, null, "idnull", "Invalid id");
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(entity);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<T> violation = violations.iterator().next();
+            return failure(index, HttpStatus.BAD_REQUEST, id, "validation",
+                violation.getPropertyPath() + " " + violation.getMessage());
+        }
+        return null;
+    }
+
+    private <T> void runChunk(List<Integer> chunk, List<BatchOperationDTO<T>> operations, Handler<T> handler,
+                              BatchResultDTO[] results) {
+        try {
+            List<BatchResultDTO> chunkResults = transactionTemplate.execute(status -> {
+                List<BatchResultDTO> done = new ArrayList<>(chunk.size());
+                for (int index : chunk) {
+                    done.add(apply(index, operations.get(index), handler));
+                }
+                return done;
+            });
+            for (BatchResultDTO result : chunkResults) {
+                results[result.getIndex()] = result;
+            }
+        } catch (RuntimeException e) {
+            log.debug("Batch chunk of {} {} operations failed, running them one by one: {}", chunk.size(),
+                handler.entityName, e.getMessage());
+            for (int index : chunk) {
+                BatchOperationDTO<T> operation = operations.get(index);
+                if (operation.getOperation() == BatchOperationDTO.Operation.CREATE) {
+                    // Given an id by the rolled back insert
+                    handler.idSetter.accept(operation.getEntity(), null);
+                }
+                results[index] = runAlone(index, operation, handler);
+            }
+        }
+    }
+
+    private <T> BatchResultDTO runAlone(int index, BatchOperationDTO<T> operation, Handler<T> handler) {
+        Long id = operation.getOperation() == BatchOperationDTO.Operation.DELETE ?
+            operation.getId() : handler.idGetter.apply(operation.getEntity());
+        try {
+            return transactionTemplate.execute(status -> apply(index, operation, handler));
+        } catch (BadRequestAlertException e) {
+            return failure(index, HttpStatus.BAD_REQUEST, id, e.getErrorKey(), e.getTitle());
+        } catch (EmptyResultDataAccessException e) {
+            return failure(index, HttpStatus.NOT_FOUND, id, "idnotfound", "No " + handler.entityName + " with this id");
+        } catch (ConcurrencyFailureException e) {
+            return failure(index, HttpStatus.CONFLICT, id, "concurrencyFailure",
+                "The " + handler.entityName + " was changed by another request");
+        } catch (DataIntegrityViolationException e) {
+            return failure(index, HttpStatus.CONFLICT, id, "constraintviolation", "The operation breaks a constraint");
+        } catch (RuntimeException e) {
+            // The exception may expose SQL or internal details, so it is only logged
+            log.error("Batch operation {} on {} {} failed", operation.getOperation(), handler.entityName, id, e);
+            return failure(index, HttpStatus.INTERNAL_SERVER_ERROR, id, "internal", "Internal server error");
+        }
+    }
+
+    private <T> BatchResultDTO apply(int index, BatchOperationDTO<T> operation, Handler<T> handler) {
+        switch (operation.getOperation()) {
+            case CREATE:
+                return new BatchResultDTO(index, HttpStatus.CREATED.value(),
+                    handler.idGetter.apply(handler.save.apply(operation.getEntity())), null, null);
+            case UPDATE:
+                return new BatchResultDTO(index, HttpStatus.OK.value(),
+                    handler.idGetter.apply(handler.save.apply(operation.getEntity())), null, null);
+            default:
+                handler.delete.accept(operation.getId());
+                return new BatchResultDTO(index, HttpStatus.NO_CONTENT.value(), operation.getId(), null, null);
+        }
+    }
+
+    private static BatchResultDTO failure(int index, HttpStatus status, Long id, String errorKey, String message) {
+        return new BatchResultDTO(index, status.value(), id, errorKey, message);
+    }
+
+    private static final class Handler<T> {
+
+        private final String entityName;
+
+        private final Function<T, Long> idGetter;
+
+        private final BiConsumer<T, Long> idSetter;
+
+        private final UnaryOperator<T> save;
+
+        private final Consumer<Long> delete;
+
+        Handler(String entityName, Function<T, Long> idGetter, BiConsumer<T, Long> idSetter, UnaryOperator<T> save,
+                Consumer<Long> delete) {
+            this.entityName = entityName;
+            this.idGetter = idGetter;
+            this.idSetter = idSetter;
+            this.save = save;
+            this.delete = delete;
+        }
+    }
+}
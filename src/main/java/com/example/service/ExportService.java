@@ -0,0 +1,207 @@
+package com.example.service;
+
+import com.example.domain.*;
+import com.example.repository.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service exporting whole tables as NDJSON or CSV, with a memory use which does not depend on their size.
+ * <p>
+ * Rows are read through the forward-only cursors of the {@code streamAllByOrderById} repository methods, in a
+ * read-only transaction of their own, and written as they come. The persistence context is cleared after each
+ * batch of rows, so exported entities do not pile up in it.
+ */
+@Service
+public class ExportService {
+
+    /**
+     * Rows written between two clears of the persistence context, matching the fetch size of the export queries.
+     */
+    public static final int BATCH_SIZE = 500;
+
+    /**
+     * The formats of an export.
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final EntityManager em;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Class<?>, Export<?>> exports = new HashMap<>();
+
+    public ExportService(EntityManager em, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                         OwnerRepository ownerRepository, PetRepository petRepository, VetRepository vetRepository,
+                         SlotRepository slotRepository, AppointmentRepository appointmentRepository) {
+        this.em = em;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        Map<String, Function<Owner, Object>> ownerColumns = new LinkedHashMap<>();
+        ownerColumns.put("id", Owner::getId);
+        ownerColumns.put("name", Owner::getName);
+        ownerColumns.put("email", Owner::getEmail);
+        ownerColumns.put("phone", Owner::getPhone);
+        register(Owner.class, ownerRepository::streamAllByOrderById, ownerColumns);
+
+        Map<String, Function<Pet, Object>> petColumns = new LinkedHashMap<>();
+        petColumns.put("id", Pet::getId);
+        petColumns.put("name", Pet::getName);
+        petColumns.put("type", Pet::getType);
+        petColumns.put("breed", Pet::getBreed);
+        petColumns.put("ownerId", pet -> pet.getOwner() == null ? null : pet.getOwner().getId());
+        register(Pet.class, petRepository::streamAllByOrderById, petColumns);
+
+        Map<String, Function<Vet, Object>> vetColumns = new LinkedHashMap<>();
+        vetColumns.put("id", Vet::getId);
+        vetColumns.put("name", Vet::getName);
+        vetColumns.put("address", Vet::getAddress);
+        vetColumns.put("city", Vet::getCity);
+        vetColumns.put("stateProvince", Vet::getStateProvince);
+        vetColumns.put("phone", Vet::getPhone);
+        register(Vet.class, vetRepository::streamAllByOrderById, vetColumns);
+
+        Map<String, Function<Slot, Object>> slotColumns = new LinkedHashMap<>();
+        slotColumns.put("id", Slot::getId);
+        slotColumns.put("startTime", Slot::getStartTime);
+        register(Slot.class, slotRepository::streamAllByOrderById, slotColumns);
+
+        Map<String, Function<Appointment, Object>> appointmentColumns = new LinkedHashMap<>();
+        appointmentColumns.put("id", Appointment::getId);
+        appointmentColumns.put("apptTime", Appointment::getApptTime);
+        appointmentColumns.put("slotId", appointment -> appointment.getSlot() == null ? null : appointment.getSlot().getId());
+        appointmentColumns.put("vetId", appointment -> appointment.getVet() == null ? null : appointment.getVet().getId());
+        appointmentColumns.put("petId", appointment -> appointment.getPet() == null ? null : appointment.getPet().getId());
+        register(Appointment.class, appointmentRepository::streamAllByOrderById, appointmentColumns);
+    }
+
+    private <T> void register(Class<T> type, Supplier<Stream<T>> rows, Map<String, Function<T, Object>> columns) {
+        exports.put(type, new Export<>(rows, columns));
+    }
+
+    /**
+     * Write all the entities of a type, in id order.
+     * <p>
+     * NDJSON lines hold the same JSON as the REST API, while CSV rows hold the columns of the entity, with the ids
+     * of its associations.
+     *
+     * @param type the entity class
+     * @param format the format of the export
+     * @param out the stream to write to, which is left open
+     * @throws IOException if the export cannot be written
+     */
+    public void export(Class<?> type, Format format, OutputStream out) throws IOException {
+        Export<?> export = exports.get(type);
+        if (export == null) {
+            throw new IllegalArgumentException("No export for " + type.getSimpleName());
+        }
+        log.debug("Request to export {} as {}", type.getSimpleName(), format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            long rows = transactionTemplate.execute(status -> {
+                try {
+                    return export.write(format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.debug("Exported {} {} rows", rows, type.getSimpleName());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private final class Export<T> {
+
+        private final Supplier<Stream<T>> rows;
+
+        private final Map<String, Function<T, Object>> columns;
+
+        Export(Supplier<Stream<T>> rows, Map<String, Function<T, Object>> columns) {
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        long write(Format format, Writer writer) throws IOException {
+            if (format == Format.CSV) {
+                writer.write(columns.keySet().stream().map(ExportService::toCsv).collect(Collectors.joining(",")));
+                writer.write("\r\n");
+            }
+            long count = 0;
+            try (Stream<T> stream = rows.get()) {
+                Iterator<T> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    T row = iterator.next();
+                    if (format == Format.CSV) {
+                        writer.write(columns.values().stream().map(column -> toCsv(column.apply(row)))
+                            .collect(Collectors.joining(",")));
+                        writer.write("\r\n");
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                    if (++count % BATCH_SIZE == 0) {
+                        writer.flush();
+                        em.clear();
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Format a CSV value as of RFC 4180: values holding a separator, a quote or a line break are quoted.
+     */
+    private static String toCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -7,6 +7,7 @@ import javax.persistence.criteria.JoinType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -16,12 +17,16 @@ import io.github.jhipster.service.QueryService;
 
 import com.example.domain.Owner;
 import com.example.domain.*; // for static metamodels
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetRepository;
+import com.example.repository.KeysetSlice;
 import com.example.repository.OwnerRepository;
 import com.example.repository.search.OwnerSearchRepository;
 import com.example.service.dto.OwnerCriteria;
 
 /**
- * Service for executing complex queries for Owner entities in the database.
+ * Service for executing complex queries for Owner entities in the database, or in Elasticsearch when
+ * {@link QueryPlanner} finds it cheaper.
  * The main input is a {@link OwnerCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
  * It returns a {@link List} of {@link Owner} or a {@link Page} of {@link Owner} which fulfills the criteria.
@@ -30,15 +35,24 @@ import com.example.service.dto.OwnerCriteria;
 @Transactional(readOnly = true)
 public class OwnerQueryService extends QueryService<Owner> {
 
+    private static final String ENTITY_NAME = "owner";
+
     private final Logger log = LoggerFactory.getLogger(OwnerQueryService.class);
 
     private final OwnerRepository ownerRepository;
 
     private final OwnerSearchRepository ownerSearchRepository;
 
-    public OwnerQueryService(OwnerRepository ownerRepository, OwnerSearchRepository ownerSearchRepository) {
+    private final KeysetRepository keysetRepository;
+
+    private final QueryPlanner queryPlanner;
+
+    public OwnerQueryService(OwnerRepository ownerRepository, OwnerSearchRepository ownerSearchRepository,
+            KeysetRepository keysetRepository, QueryPlanner queryPlanner) {
         this.ownerRepository = ownerRepository;
         this.ownerSearchRepository = ownerSearchRepository;
+        this.keysetRepository = keysetRepository;
+        this.queryPlanner = queryPlanner;
     }
 
     /**
@@ -54,34 +68,77 @@ public class OwnerQueryService extends QueryService<Owner> {
     }
 
     /**
-     * Return a {@link Page} of {@link Owner} which matches the criteria from the database
+     * Return a {@link Page} of {@link Owner} which matches the criteria from the database, or from Elasticsearch
+     * for text filters, see {@link QueryPlanner}
      * @param criteria The object which holds all the filters, which the entities should match.
      * @param page The page, which should be returned.
      * @return the matching entities.
      */
     @Transactional(readOnly = true)
     public Page<Owner> findByCriteria(OwnerCriteria criteria, Pageable page) {
+        return findByCriteria(criteria, page, false);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Owner} which matches the criteria from the database, or from Elasticsearch
+     * for text filters unless the changes of the previous requests must be seen, see {@link QueryPlanner}
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param readYourWrites Whether the entities saved by the previous requests must be returned as they are now.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Owner> findByCriteria(OwnerCriteria criteria, Pageable page, boolean readYourWrites) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        final QueryPlanner.Plan plan = createPlan(criteria).sort(page.getSort()).readYourWrites(readYourWrites);
+        return queryPlanner.findPage(plan,
+            () -> ownerRepository.findAll(createSpecification(criteria), page),
+            query -> ownerSearchRepository.search(query, page));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Owner} which matches the criteria from the database, after a cursor
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or null for the first slice.
+     * @param page The size and sort of the slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Owner> findByCriteria(OwnerCriteria criteria, KeysetCursor after, Pageable page) {
+        log.debug("find by criteria : {}, after: {}, page: {}", criteria, after, page);
         final Specification<Owner> specification = createSpecification(criteria);
-        return ownerRepository.findAll(specification, page);
+        return keysetRepository.findSlice(Owner.class, specification, after, page);
     }
 
     /**
-     * Return the number of matching entities in the database
+     * Return the number of matching entities in the database, or in Elasticsearch for text filters
      * @param criteria The object which holds all the filters, which the entities should match.
      * @return the number of matching entities.
      */
     @Transactional(readOnly = true)
     public long countByCriteria(OwnerCriteria criteria) {
+        return countByCriteria(criteria, false);
+    }
+
+    /**
+     * Return the number of matching entities in the database, or in Elasticsearch for text filters unless the
+     * changes of the previous requests must be seen
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param readYourWrites Whether the entities saved by the previous requests must be counted as they are now.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long countByCriteria(OwnerCriteria criteria, boolean readYourWrites) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Owner> specification = createSpecification(criteria);
-        return ownerRepository.count(specification);
+        return queryPlanner.count(createPlan(criteria).readYourWrites(readYourWrites),
+            () -> ownerRepository.count(createSpecification(criteria)),
+            query -> ownerSearchRepository.search(query, PageRequest.of(0, 1)).getTotalElements());
     }
 
     /**
      * Function to convert OwnerCriteria to a {@link Specification}
      */
-    private Specification<Owner> createSpecification(OwnerCriteria criteria) {
+    Specification<Owner> createSpecification(OwnerCriteria criteria) {
         Specification<Owner> specification = Specification.where(null);
         if (criteria != null) {
             if (criteria.getId() != null) {
@@ -99,4 +156,18 @@ public class OwnerQueryService extends QueryService<Owner> {
         }
         return specification;
     }
+
+    /**
+     * Function to convert OwnerCriteria to a {@link QueryPlanner.Plan}
+     */
+    private QueryPlanner.Plan createPlan(OwnerCriteria criteria) {
+        QueryPlanner.Plan plan = queryPlanner.plan(ENTITY_NAME, "id");
+        if (criteria != null) {
+            plan.filter(criteria.getId(), "id");
+            plan.filter(criteria.getName(), "name");
+            plan.filter(criteria.getEmail(), "email");
+            plan.filter(criteria.getPhone(), "phone");
+        }
+        return plan;
+    }
 }
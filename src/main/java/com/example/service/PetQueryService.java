@@ -2,11 +2,10 @@ package com.example.service;
 
 import java.util.List;
 
-import javax.persistence.criteria.JoinType;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -16,12 +15,16 @@ import io.github.jhipster.service.QueryService;
 
 import com.example.domain.Pet;
 import com.example.domain.*; // for static metamodels
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetRepository;
+import com.example.repository.KeysetSlice;
 import com.example.repository.PetRepository;
 import com.example.repository.search.PetSearchRepository;
 import com.example.service.dto.PetCriteria;
 
 /**
- * Service for executing complex queries for Pet entities in the database.
+ * Service for executing complex queries for Pet entities in the database, or in Elasticsearch when
+ * {@link QueryPlanner} finds it cheaper.
  * The main input is a {@link PetCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
  * It returns a {@link List} of {@link Pet} or a {@link Page} of {@link Pet} which fulfills the criteria.
@@ -30,15 +33,24 @@ import com.example.service.dto.PetCriteria;
 @Transactional(readOnly = true)
 public class PetQueryService extends QueryService<Pet> {
 
+    private static final String ENTITY_NAME = "pet";
+
     private final Logger log = LoggerFactory.getLogger(PetQueryService.class);
 
     private final PetRepository petRepository;
 
     private final PetSearchRepository petSearchRepository;
 
-    public PetQueryService(PetRepository petRepository, PetSearchRepository petSearchRepository) {
+    private final KeysetRepository keysetRepository;
+
+    private final QueryPlanner queryPlanner;
+
+    public PetQueryService(PetRepository petRepository, PetSearchRepository petSearchRepository,
+            KeysetRepository keysetRepository, QueryPlanner queryPlanner) {
         this.petRepository = petRepository;
         this.petSearchRepository = petSearchRepository;
+        this.keysetRepository = keysetRepository;
+        this.queryPlanner = queryPlanner;
     }
 
     /**
@@ -54,28 +66,71 @@ public class PetQueryService extends QueryService<Pet> {
     }
 
     /**
-     * Return a {@link Page} of {@link Pet} which matches the criteria from the database
+     * Return a {@link Page} of {@link Pet} which matches the criteria from the database, or from Elasticsearch
+     * for text filters, see {@link QueryPlanner}
      * @param criteria The object which holds all the filters, which the entities should match.
      * @param page The page, which should be returned.
      * @return the matching entities.
      */
     @Transactional(readOnly = true)
     public Page<Pet> findByCriteria(PetCriteria criteria, Pageable page) {
+        return findByCriteria(criteria, page, false);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Pet} which matches the criteria from the database, or from Elasticsearch
+     * for text filters unless the changes of the previous requests must be seen, see {@link QueryPlanner}
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param readYourWrites Whether the entities saved by the previous requests must be returned as they are now.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Pet> findByCriteria(PetCriteria criteria, Pageable page, boolean readYourWrites) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        final QueryPlanner.Plan plan = createPlan(criteria).sort(page.getSort()).readYourWrites(readYourWrites);
+        return queryPlanner.findPage(plan,
+            () -> petRepository.findAll(createSpecification(criteria), page),
+            query -> petSearchRepository.search(query, page));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Pet} which matches the criteria from the database, after a cursor
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or null for the first slice.
+     * @param page The size and sort of the slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Pet> findByCriteria(PetCriteria criteria, KeysetCursor after, Pageable page) {
+        log.debug("find by criteria : {}, after: {}, page: {}", criteria, after, page);
         final Specification<Pet> specification = createSpecification(criteria);
-        return petRepository.findAll(specification, page);
+        return keysetRepository.findSlice(Pet.class, specification, after, page);
     }
 
     /**
-     * Return the number of matching entities in the database
+     * Return the number of matching entities in the database, or in Elasticsearch for text filters
      * @param criteria The object which holds all the filters, which the entities should match.
      * @return the number of matching entities.
      */
     @Transactional(readOnly = true)
     public long countByCriteria(PetCriteria criteria) {
+        return countByCriteria(criteria, false);
+    }
+
+    /**
+     * Return the number of matching entities in the database, or in Elasticsearch for text filters unless the
+     * changes of the previous requests must be seen
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param readYourWrites Whether the entities saved by the previous requests must be counted as they are now.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long countByCriteria(PetCriteria criteria, boolean readYourWrites) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Pet> specification = createSpecification(criteria);
-        return petRepository.count(specification);
+        return queryPlanner.count(createPlan(criteria).readYourWrites(readYourWrites),
+            () -> petRepository.count(createSpecification(criteria)),
+            query -> petSearchRepository.search(query, PageRequest.of(0, 1)).getTotalElements());
     }
 
     /**
@@ -98,9 +153,24 @@ public class PetQueryService extends QueryService<Pet> {
             }
             if (criteria.getOwnerId() != null) {
                 specification = specification.and(buildSpecification(criteria.getOwnerId(),
-                    root -> root.join(Pet_.owner, JoinType.LEFT).get(Owner_.id)));
+                    root -> root.get(Pet_.owner).get(Owner_.id)));
             }
         }
         return specification;
     }
+
+    /**
+     * Function to convert PetCriteria to a {@link QueryPlanner.Plan}
+     */
+    private QueryPlanner.Plan createPlan(PetCriteria criteria) {
+        QueryPlanner.Plan plan = queryPlanner.plan(ENTITY_NAME, "id");
+        if (criteria != null) {
+            plan.filter(criteria.getId(), "id");
+            plan.filter(criteria.getName(), "name");
+            plan.filter(criteria.getType(), "type");
+            plan.filter(criteria.getBreed(), "breed");
+            plan.filter(criteria.getOwnerId(), "owner.id");
+        }
+        return plan;
+    }
 }
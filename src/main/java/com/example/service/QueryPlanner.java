@@ -0,0 +1,252 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+
+import io.github.jhipster.service.filter.RangeFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Chooses, for each criteria query, between the database and Elasticsearch.
+ * <p>
+ * {@code contains} filters cannot use a database index, so they scan the table, while Elasticsearch answers them
+ * from its inverted index. A query goes to Elasticsearch when it has such a filter and all its filters and its sort
+ * can be translated. Every other query, in particular on exact ids, names and ranges, stays on the database.
+ * Values shorter than {@value #MIN_SEARCH_LENGTH} characters stay on the database too: they match most rows, and
+ * their leading wildcard would have Elasticsearch walk most of its terms.
+ * <p>
+ * Elasticsearch is only eventually consistent with the database: a change shows in its answers once the outbox
+ * has indexed it, after up to {@code application.search-outbox.poll-interval-ms}, and once the index is refreshed,
+ * after up to one more second. Queries which must see the changes of the previous requests ask for
+ * {@link Plan#readYourWrites(boolean)}, and stay on the database.
+ * <p>
+ * The latency of each entity and route is recorded by the {@code query.planner} timer.
+ */
+@Service
+public class QueryPlanner {
+
+    /**
+     * Where a query is run.
+     */
+    public enum Route {
+        DATABASE, SEARCH
+    }
+
+    /**
+     * The values of {@code contains} filters which the index holds as a single token.
+     */
+    private static final Pattern SINGLE_TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private static final int MIN_SEARCH_LENGTH = 3;
+
+    private final Logger log = LoggerFactory.getLogger(QueryPlanner.class);
+
+    private final boolean searchEnabled;
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryPlanner(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.searchEnabled = applicationProperties.getQueryPlanner().isSearchEnabled();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Start the plan of a query.
+     *
+     * @param entityName the name of the entity, used to tag the metrics
+     * @param sortableFields the fields which Elasticsearch can sort by
+     * @return the plan, to which the filters of the criteria must be added
+     */
+    public Plan plan(String entityName, String... sortableFields) {
+        return new Plan(entityName, new HashSet<>(Arrays.asList(sortableFields)));
+    }
+
+    /**
+     * Run a page query on the route of its plan.
+     *
+     * @param plan the plan of the query
+     * @param database the query on the database
+     * @param search the query on Elasticsearch, given the translated filters
+     * @param <T> the type of the entities
+     * @return the page of entities
+     */
+    public <T> Page<T> findPage(Plan plan, Supplier<Page<T>> database, Function<QueryBuilder, Page<T>> search) {
+        Route route = plan.getRoute();
+        log.debug("Query on {} routed to {}", plan.entityName, route);
+        return timer(plan, route).record(() -> route == Route.SEARCH ? search.apply(plan.query) : database.get());
+    }
+
+    /**
+     * Run a count query on the route of its plan.
+     *
+     * @param plan the plan of the query
+     * @param database the count on the database
+     * @param search the count on Elasticsearch, given the translated filters
+     * @return the number of matching entities
+     */
+    public long count(Plan plan, LongSupplier database, ToLongFunction<QueryBuilder> search) {
+        Route route = plan.getRoute();
+        log.debug("Count on {} routed to {}", plan.entityName, route);
+        return timer(plan, route).record(() -> route == Route.SEARCH ? search.applyAsLong(plan.query) : database.getAsLong());
+    }
+
+    private Timer timer(Plan plan, Route route) {
+        return meterRegistry.timer("query.planner", "entity", plan.entityName,
+            "route", route.name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * The filters of a query, translated to an Elasticsearch query as they are added.
+     */
+    public final class Plan {
+
+        private final String entityName;
+
+        private final Set<String> sortableFields;
+
+        private final BoolQueryBuilder query = boolQuery();
+
+        private boolean text;
+
+        private boolean translatable = true;
+
+        private boolean readYourWrites;
+
+        private Plan(String entityName, Set<String> sortableFields) {
+            this.entityName = entityName;
+            this.sortableFields = sortableFields;
+        }
+
+        /**
+         * Keep the query on the database, which returns the entities saved by the previous requests at once.
+         *
+         * @param readYourWrites whether the query must see the changes of the previous requests
+         * @return this plan
+         */
+        public Plan readYourWrites(boolean readYourWrites) {
+            this.readYourWrites = readYourWrites;
+            return this;
+        }
+
+        /**
+         * Add a text filter. Only {@code contains} and {@code specified} on single tokens can be translated, as the
+         * indexed text is split into words.
+         *
+         * @param filter the filter, may be null
+         * @param field the field of the document
+         * @return this plan
+         */
+        public Plan filter(StringFilter filter, String field) {
+            if (filter == null) {
+                return this;
+            }
+            if (filter.getEquals() != null || filter.getIn() != null) {
+                translatable = false;
+            }
+            if (filter.getContains() != null) {
+                if (filter.getContains().length() >= MIN_SEARCH_LENGTH &&
+                    SINGLE_TOKEN.matcher(filter.getContains()).matches()) {
+                    query.filter(wildcardQuery(field, "*" + filter.getContains().toLowerCase(Locale.ROOT) + "*"));
+                    text = true;
+                } else {
+                    translatable = false;
+                }
+            }
+            addSpecified(filter.getSpecified(), field);
+            return this;
+        }
+
+        /**
+         * Add an id, number or date filter.
+         *
+         * @param filter the filter, may be null
+         * @param field the field of the document
+         * @return this plan
+         */
+        public Plan filter(RangeFilter<?> filter, String field) {
+            if (filter == null) {
+                return this;
+            }
+            if (filter.getEquals() != null) {
+                query.filter(termQuery(field, filter.getEquals()));
+            }
+            if (filter.getIn() != null) {
+                query.filter(termsQuery(field, filter.getIn()));
+            }
+            if (filter.getGreaterThan() != null || filter.getGreaterOrEqualThan() != null ||
+                filter.getLessThan() != null || filter.getLessOrEqualThan() != null) {
+                RangeQueryBuilder range = rangeQuery(field);
+                if (filter.getGreaterThan() != null) {
+                    range.gt(filter.getGreaterThan());
+                }
+                if (filter.getGreaterOrEqualThan() != null) {
+                    range.gte(filter.getGreaterOrEqualThan());
+                }
+                if (filter.getLessThan() != null) {
+                    range.lt(filter.getLessThan());
+                }
+                if (filter.getLessOrEqualThan() != null) {
+                    range.lte(filter.getLessOrEqualThan());
+                }
+                query.filter(range);
+            }
+            addSpecified(filter.getSpecified(), field);
+            return this;
+        }
+
+        /**
+         * Keep the query on the database unless Elasticsearch can sort it.
+         *
+         * @param sort the sort of the query
+         * @return this plan
+         */
+        public Plan sort(Sort sort) {
+            for (Sort.Order order : sort) {
+                if (!sortableFields.contains(order.getProperty())) {
+                    translatable = false;
+                }
+            }
+            return this;
+        }
+
+        private void addSpecified(Boolean specified, String field) {
+            if (Boolean.TRUE.equals(specified)) {
+                query.filter(existsQuery(field));
+            } else if (Boolean.FALSE.equals(specified)) {
+                query.mustNot(existsQuery(field));
+            }
+        }
+
+        /**
+         * @return the route of the query
+         */
+        public Route getRoute() {
+            return searchEnabled && text && translatable && !readYourWrites ? Route.SEARCH : Route.DATABASE;
+        }
+
+        /**
+         * @return the filters, as an Elasticsearch query
+         */
+        public QueryBuilder getQuery() {
+            return query;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.*;
+import com.example.repository.*;
+import com.example.repository.search.*;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service keeping the Elasticsearch indices in sync with the database through a transactional outbox.
+ * <p>
+ * Entity services record an {@link SearchOutboxEvent} in their own transaction, so the write path only
+ * pays for a database insert. A scheduled job then drains the outbox in batches: several events for
+ * the same entity are coalesced into the latest state, several entities of the same type are written
+ * with {@code _bulk} requests, and failed events are retried with an exponential backoff.
+ * <p>
+ * Only one instance drains the outbox at a time, so that events are not sent twice to Elasticsearch, nor applied
+ * out of order by two instances. A run first takes the lease of the {@code search_outbox_lock} table for
+ * {@code application.search-outbox.lease-ms}, renews it before each batch and releases it at the end. The lease
+ * of an instance which stopped during a run expires, after which another instance takes over.
+ */
+@Service
+public class SearchOutboxService {
+
+    private static final String LOCK_NAME = "search-outbox";
+
+    private static final String ACQUIRE_LOCK_SQL = "update search_outbox_lock set locked_by = ?, locked_until = ?" +
+        " where name = ? and (locked_by = ? or locked_until is null or locked_until < ?)";
+
+    private static final String RELEASE_LOCK_SQL = "update search_outbox_lock set locked_until = null" +
+        " where name = ? and locked_by = ?";
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxService.class);
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final SearchOutboxEventRepository searchOutboxEventRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationProperties.SearchOutbox properties;
+
+    private final SearchBulkIndexer searchBulkIndexer;
+
+    private final SearchReindexService searchReindexService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, SearchIndex<?>> indices = new HashMap<>();
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private final Counter indexedCounter;
+
+    private final Counter deletedCounter;
+
+    private final Counter failedCounter;
+
+    private final Timer batchTimer;
+
+    public SearchOutboxService(SearchOutboxEventRepository searchOutboxEventRepository, SearchBulkIndexer searchBulkIndexer,
+                               SearchReindexService searchReindexService, ApplicationProperties applicationProperties,
+                               PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               OwnerRepository ownerRepository, OwnerSearchRepository ownerSearchRepository,
+                               PetRepository petRepository, PetSearchRepository petSearchRepository,
+                               VetRepository vetRepository, VetSearchRepository vetSearchRepository,
+                               SlotRepository slotRepository, SlotSearchRepository slotSearchRepository,
+                               AppointmentRepository appointmentRepository, AppointmentSearchRepository appointmentSearchRepository) {
+        this.searchOutboxEventRepository = searchOutboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchBulkIndexer = searchBulkIndexer;
+        this.searchReindexService = searchReindexService;
+        this.properties = applicationProperties.getSearchOutbox();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        register(Owner.class, Owner::getId, ownerRepository, ownerSearchRepository);
+        register(Pet.class, Pet::getId, petRepository, petSearchRepository);
+        register(Vet.class, Vet::getId, vetRepository, vetSearchRepository);
+        register(Slot.class, Slot::getId, slotRepository, slotSearchRepository);
+        register(Appointment.class, Appointment::getId, appointmentRepository, appointmentSearchRepository);
+
+        meterRegistry.gauge("search.outbox.pending", pending);
+        meterRegistry.gauge("search.outbox.lag.seconds", lagSeconds);
+        this.indexedCounter = meterRegistry.counter("search.outbox.processed", "operation", "index");
+        this.deletedCounter = meterRegistry.counter("search.outbox.processed", "operation", "delete");
+        this.failedCounter = meterRegistry.counter("search.outbox.failures");
+        this.batchTimer = meterRegistry.timer("search.outbox.batch");
+    }
+
+    private <T> void register(Class<T> type, Function<T, Long> idGetter, JpaRepository<T, Long> repository,
+                              ElasticsearchRepository<T, Long> searchRepository) {
+        indices.put(type.getSimpleName(), new SearchIndex<>(type, idGetter, repository, searchRepository));
+    }
+
+    /**
+     * Record that an entity must be (re)indexed once the current transaction commits.
+     *
+     * @param type the entity class
+     * @param id the id of the entity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void index(Class<?> type, Long id) {
+        enqueue(type, id, SearchOutboxEvent.Operation.INDEX);
+    }
+
+    /**
+     * Record that an entity must be removed from its index once the current transaction commits.
+     *
+     * @param type the entity class
+     * @param id the id of the entity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void delete(Class<?> type, Long id) {
+        enqueue(type, id, SearchOutboxEvent.Operation.DELETE);
+    }
+
+    private void enqueue(Class<?> type, Long id, SearchOutboxEvent.Operation operation) {
+        Instant now = Instant.now();
+        SearchOutboxEvent event = new SearchOutboxEvent();
+        event.setEntityType(type.getSimpleName());
+        event.setEntityId(id);
+        event.setOperation(operation);
+        event.setCreatedDate(now);
+        event.setNextAttemptDate(now);
+        searchOutboxEventRepository.save(event);
+    }
+
+    /**
+     * Drain the outbox.
+     * <p>
+     * This is scheduled to run with a fixed delay, so a slow Elasticsearch node never causes runs to overlap. It
+     * does nothing while another instance holds the lease of the outbox.
+     */
+    @Scheduled(initialDelayString = "${application.search-outbox.poll-interval-ms:1000}",
+        fixedDelayString = "${application.search-outbox.poll-interval-ms:1000}")
+    public void processOutbox() {
+        if (acquireLock()) {
+            try {
+                int batches = 0;
+                int processed;
+                do {
+                    processed = batchTimer.record(this::processBatch);
+                    batches++;
+                } while (processed >= properties.getBatchSize() && batches < properties.getMaxBatchesPerRun() &&
+                    acquireLock());
+            } finally {
+                releaseLock();
+            }
+        } else {
+            log.debug("The search outbox is drained by another instance");
+        }
+        updateLagMetrics();
+    }
+
+    /**
+     * Take or renew the lease of the outbox.
+     */
+    private boolean acquireLock() {
+        Instant now = Instant.now();
+        Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(ACQUIRE_LOCK_SQL, instanceId,
+            Timestamp.from(now.plusMillis(properties.getLeaseMs())), LOCK_NAME, instanceId, Timestamp.from(now)));
+        return updated != null && updated > 0;
+    }
+
+    private void releaseLock() {
+        transactionTemplate.execute(status -> jdbcTemplate.update(RELEASE_LOCK_SQL, LOCK_NAME, instanceId));
+    }
+
+    private int processBatch() {
+        List<SearchOutboxEvent> events = transactionTemplate.execute(status ->
+            searchOutboxEventRepository.findByNextAttemptDateLessThanEqualOrderByIdAsc(Instant.now(),
+                PageRequest.of(0, properties.getBatchSize())));
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        log.debug("Processing {} search outbox events", events.size());
+
+        // Only the latest event of each entity matters, earlier ones are superseded
+        Map<String, Map<Long, SearchOutboxEvent>> latestByType = new LinkedHashMap<>();
+        for (SearchOutboxEvent event : events) {
+            latestByType.computeIfAbsent(event.getEntityType(), type -> new LinkedHashMap<>())
+                .put(event.getEntityId(), event);
+        }
+
+        Map<String, String> failures = new HashMap<>();
+        latestByType.forEach((type, latest) -> {
+            SearchIndex<?> index = indices.get(type);
+            if (index == null) {
+                log.warn("Discarding search outbox events for unknown entity type {}", type);
+                return;
+            }
+            index.apply(latest.values(), failures);
+        });
+
+        transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<SearchOutboxEvent> done = new ArrayList<>();
+            List<SearchOutboxEvent> retried = new ArrayList<>();
+            for (SearchOutboxEvent event : events) {
+                String error = failures.get(key(event.getEntityType(), event.getEntityId()));
+                if (error == null) {
+                    done.add(event);
+                } else {
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setNextAttemptDate(now.plus(backoff(event.getAttempts())));
+                    event.setLastError(error);
+                    retried.add(event);
+                }
+            }
+            searchOutboxEventRepository.deleteInBatch(done);
+            searchOutboxEventRepository.saveAll(retried);
+            return null;
+        });
+        return events.size();
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = properties.getInitialBackoffMs() << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > properties.getMaxBackoffMs()) {
+            delay = properties.getMaxBackoffMs();
+        }
+        return Duration.ofMillis(delay);
+    }
+
+    private void updateLagMetrics() {
+        transactionTemplate.execute(status -> {
+            pending.set(searchOutboxEventRepository.count());
+            lagSeconds.set(searchOutboxEventRepository.findOldestCreatedDate()
+                .map(oldest -> Duration.between(oldest, Instant.now()).getSeconds())
+                .orElse(0L));
+            return null;
+        });
+    }
+
+    private static String key(String type, Object id) {
+        return type + '#' + id;
+    }
+
+    /**
+     * The database and search repositories of one indexed entity type.
+     */
+    private class SearchIndex<T> {
+
+        private final Class<T> type;
+
+        private final Function<T, Long> idGetter;
+
+        private final JpaRepository<T, Long> repository;
+
+        private final ElasticsearchRepository<T, Long> searchRepository;
+
+        SearchIndex(Class<T> type, Function<T, Long> idGetter, JpaRepository<T, Long> repository,
+                    ElasticsearchRepository<T, Long> searchRepository) {
+            this.type = type;
+            this.idGetter = idGetter;
+            this.repository = repository;
+            this.searchRepository = searchRepository;
+        }
+
+        void apply(Collection<SearchOutboxEvent> events, Map<String, String> failures) {
+            List<Long> ids = new ArrayList<>();
+            for (SearchOutboxEvent event : events) {
+                if (event.getOperation() == SearchOutboxEvent.Operation.INDEX) {
+                    ids.add(event.getEntityId());
+                }
+            }
+            Map<Long, T> entities = new HashMap<>();
+            if (!ids.isEmpty()) {
+                transactionTemplate.execute(status -> {
+                    repository.findAllById(ids).forEach(entity -> entities.put(idGetter.apply(entity), entity));
+                    return null;
+                });
+            }
+            if (events.size() > 1) {
+                applyInBulk(events, entities, failures);
+            } else {
+                applyOneByOne(events, entities, failures);
+            }
+            searchReindexService.getLoadingIndex(type)
+                .ifPresent(loadingIndex -> applyToLoadingIndex(loadingIndex, events, entities, failures));
+        }
+
+        private void applyOneByOne(Collection<SearchOutboxEvent> events, Map<Long, T> entities, Map<String, String> failures) {
+            for (SearchOutboxEvent event : events) {
+                T entity = entities.get(event.getEntityId());
+                try {
+                    if (entity != null) {
+                        searchRepository.save(entity);
+                        indexedCounter.increment();
+                    } else {
+                        // Deleted, or removed before the outbox caught up
+                        searchRepository.deleteById(event.getEntityId());
+                        deletedCounter.increment();
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not apply search outbox event {}: {}", event, e.getMessage());
+                    failedCounter.increment();
+                    failures.put(key(event.getEntityType(), event.getEntityId()), e.toString());
+                }
+            }
+        }
+
+        private void applyInBulk(Collection<SearchOutboxEvent> events, Map<Long, T> entities, Map<String, String> failures) {
+            String entityType = events.iterator().next().getEntityType();
+            List<Long> deletedIds = getDeletedIds(events, entities);
+            BulkIndexResult indexed = searchBulkIndexer.index(type, entities.values(), idGetter);
+            BulkIndexResult deleted = searchBulkIndexer.delete(type, deletedIds);
+            indexedCounter.increment(indexed.getSucceeded());
+            deletedCounter.increment(deleted.getSucceeded());
+            failedCounter.increment(indexed.getFailures().size() + deleted.getFailures().size());
+            indexed.getFailures().forEach((id, error) -> failures.put(key(entityType, id), error));
+            deleted.getFailures().forEach((id, error) -> failures.put(key(entityType, id), error));
+        }
+
+        private List<Long> getDeletedIds(Collection<SearchOutboxEvent> events, Map<Long, T> entities) {
+            List<Long> deletedIds = new ArrayList<>();
+            for (SearchOutboxEvent event : events) {
+                if (!entities.containsKey(event.getEntityId())) {
+                    deletedIds.add(event.getEntityId());
+                }
+            }
+            return deletedIds;
+        }
+
+        /**
+         * Copy the changes to the index being rebuilt, so they survive the alias swap. A failed copy
+         * is retried like any other failure, re-applying the change to the current index is harmless.
+         * The changed entities are recorded first, as a page of the reindex may still overwrite them.
+         */
+        private void applyToLoadingIndex(String loadingIndex, Collection<SearchOutboxEvent> events, Map<Long, T> entities,
+                                         Map<String, String> failures) {
+            String entityType = events.iterator().next().getEntityType();
+            List<Long> deletedIds = getDeletedIds(events, entities);
+            searchReindexService.recordChanges(type, events.stream().map(SearchOutboxEvent::getEntityId)
+                .collect(Collectors.toList()));
+            BulkIndexResult indexed = searchBulkIndexer.index(loadingIndex, type, entities.values(), idGetter);
+            BulkIndexResult deleted = searchBulkIndexer.delete(loadingIndex, type, deletedIds);
+            indexed.getFailures().forEach((id, error) -> failures.putIfAbsent(key(entityType, id), error));
+            deleted.getFailures().forEach((id, error) -> failures.putIfAbsent(key(entityType, id), error));
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.*;
+import com.example.repository.SearchOutboxEventRepository;
+import com.example.repository.search.BulkIndexResult;
+import com.example.repository.search.SearchBulkIndexer;
+import com.example.service.dto.ReindexStatusDTO;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.indices.CreateIndex;
+import io.searchbox.indices.DeleteIndex;
+import io.searchbox.indices.Refresh;
+import io.searchbox.indices.aliases.AddAliasMapping;
+import io.searchbox.indices.aliases.AliasMapping;
+import io.searchbox.indices.aliases.GetAliases;
+import io.searchbox.indices.aliases.ModifyAliases;
+import io.searchbox.indices.aliases.RemoveAliasMapping;
+import io.searchbox.indices.settings.UpdateSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service rebuilding Elasticsearch indices from the database without search downtime.
+ * <p>
+ * Each entity is searched through an alias named after its index. A reindex loads every row into a new
+ * versioned index ({@code <alias>_v<timestamp>}), with refreshes disabled, while searches keep hitting the
+ * current index. Rows are read by several partitions of the id range in parallel, each one with keyset
+ * pagination so that no page costs more than the first one. Once loaded, the alias is moved to the new
+ * index in a single atomic request and the previous index is deleted.
+ * <p>
+ * The entities are not indexed by Spring Data, which would create an index named after the alias: at startup,
+ * each missing alias is created instead, with an empty first version of its index.
+ * <p>
+ * While an index is loading, {@link SearchOutboxService} also writes its changes to the new index, so
+ * that updates made during the reindex are not lost when the alias is swapped. As a page read before such a
+ * change may be written after it, the entities changed while loading are queued again in the outbox once every
+ * page is written, and their current state overwrites what the pages wrote. Users are not indexed through the
+ * outbox: a user changed while the user index is loading may need to be saved again.
+ */
+@Service
+public class SearchReindexService {
+
+    private static final String REFRESH_DISABLED = "{\"index\":{\"refresh_interval\":\"-1\"}}";
+
+    private static final String REFRESH_ENABLED = "{\"index\":{\"refresh_interval\":\"1s\"}}";
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    private final EntityManager entityManager;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final JestClient jestClient;
+
+    private final SearchBulkIndexer searchBulkIndexer;
+
+    private final ApplicationProperties.SearchReindex properties;
+
+    private final SearchOutboxEventRepository searchOutboxEventRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ReindexedIndex<?>> indices = new LinkedHashMap<>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final ExecutorService jobExecutor;
+
+    private final ExecutorService partitionExecutor;
+
+    public SearchReindexService(EntityManager entityManager, ElasticsearchOperations elasticsearchOperations,
+                                JestClient jestClient, SearchBulkIndexer searchBulkIndexer,
+                                SearchOutboxEventRepository searchOutboxEventRepository,
+                                ApplicationProperties applicationProperties, PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.jestClient = jestClient;
+        this.searchBulkIndexer = searchBulkIndexer;
+        this.searchOutboxEventRepository = searchOutboxEventRepository;
+        this.properties = applicationProperties.getSearchReindex();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.jobExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("search-reindex-"));
+        this.partitionExecutor = Executors.newFixedThreadPool(properties.getPartitions(),
+            new CustomizableThreadFactory("search-reindex-partition-"));
+        register(Owner.class, Owner::getId);
+        register(Pet.class, Pet::getId);
+        register(Vet.class, Vet::getId);
+        register(Slot.class, Slot::getId);
+        register(Appointment.class, Appointment::getId);
+        register(User.class, User::getId);
+    }
+
+    private <T> void register(Class<T> type, Function<T, Long> idGetter) {
+        String alias = elasticsearchOperations.getPersistentEntityFor(type).getIndexName();
+        Tags tags = Tags.of("index", alias);
+        ReindexedIndex<T> index = new ReindexedIndex<>(alias, type, idGetter,
+            meterRegistry.counter("search.reindex.documents", tags));
+        meterRegistry.gauge("search.reindex.progress", tags, index, ReindexedIndex::getProgress);
+        meterRegistry.gauge("search.reindex.throughput", tags, index, ReindexedIndex::getDocumentsPerSecond);
+        indices.put(alias, index);
+    }
+
+    /**
+     * Create a first versioned index behind each alias which does not exist yet, so that changes are never
+     * written to an index named after the alias, and the first reindex only has to move the alias.
+     */
+    @PostConstruct
+    public void createMissingAliases() {
+        JsonObject aliasesByIndex;
+        try {
+            aliasesByIndex = execute(new GetAliases.Builder().build()).getJsonObject();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not check the search aliases, they are created by the first reindex: {}", e.getMessage());
+            return;
+        }
+        Set<String> existing = new HashSet<>();
+        for (Map.Entry<String, JsonElement> entry : aliasesByIndex.entrySet()) {
+            existing.add(entry.getKey());
+            JsonObject aliases = entry.getValue().getAsJsonObject().getAsJsonObject("aliases");
+            if (aliases != null) {
+                aliases.entrySet().forEach(alias -> existing.add(alias.getKey()));
+            }
+        }
+        for (ReindexedIndex<?> index : indices.values()) {
+            if (!existing.contains(index.alias)) {
+                createAlias(index);
+            }
+        }
+    }
+
+    private void createAlias(ReindexedIndex<?> index) {
+        String targetIndex = index.alias + "_v" + System.currentTimeMillis();
+        try {
+            execute(new CreateIndex.Builder(targetIndex)
+                .aliases(Collections.singletonMap(index.alias, Collections.emptyMap()))
+                .build());
+            // Through the alias, which now points to the new index
+            elasticsearchOperations.putMapping(index.type);
+            log.info("Created the {} index behind the {} alias", targetIndex, index.alias);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not create the {} alias, it is created by the first reindex: {}", index.alias, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdownNow();
+        partitionExecutor.shutdownNow();
+    }
+
+    /**
+     * Get the names of the indices which can be rebuilt.
+     *
+     * @return the index names, which are also the names of the aliases used for searching
+     */
+    public Set<String> getIndexNames() {
+        return Collections.unmodifiableSet(indices.keySet());
+    }
+
+    /**
+     * Get the progress of the last reindex of every index.
+     *
+     * @return the status of each index
+     */
+    public List<ReindexStatusDTO> getStatus() {
+        return indices.values().stream()
+            .map(ReindexedIndex::toStatus)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Whether a reindex job is in progress.
+     *
+     * @return true while a job runs
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Start rebuilding indices in the background, one index after the other.
+     *
+     * @param indexNames the indices to rebuild, or all of them if empty
+     * @return false if a reindex job is already in progress, in which case nothing is started
+     * @throws IllegalArgumentException if an index name is unknown
+     */
+    public boolean start(Collection<String> indexNames) {
+        Collection<String> requested = indexNames == null || indexNames.isEmpty() ? indices.keySet() : indexNames;
+        List<ReindexedIndex<?>> selected = new ArrayList<>();
+        for (String indexName : requested) {
+            ReindexedIndex<?> index = indices.get(indexName);
+            if (index == null) {
+                throw new IllegalArgumentException("Unknown search index: " + indexName);
+            }
+            selected.add(index);
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        selected.forEach(ReindexedIndex::schedule);
+        jobExecutor.execute(() -> {
+            try {
+                selected.forEach(this::reindex);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Get the new index being loaded for an entity type, which must receive changes as well as the alias.
+     *
+     * @param type the entity class
+     * @return the name of the index being loaded, if any
+     */
+    public Optional<String> getLoadingIndex(Class<?> type) {
+        for (ReindexedIndex<?> index : indices.values()) {
+            if (index.type.equals(type) && index.state == ReindexStatusDTO.State.LOADING) {
+                return Optional.of(index.targetIndex);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Record entities changed by the outbox while their index is loading, to be queued again once it is loaded.
+     *
+     * @param type the entity class
+     * @param ids the ids of the entities indexed or deleted
+     */
+    public void recordChanges(Class<?> type, Collection<Long> ids) {
+        for (ReindexedIndex<?> index : indices.values()) {
+            if (index.type.equals(type)) {
+                index.changedIds.addAll(ids);
+            }
+        }
+    }
+
+    /**
+     * Queue again, in the outbox, the entities changed since the load of their index started.
+     * <p>
+     * This must run once every page is written: the outbox then writes their current state after the pages,
+     * whether the alias already points to the new index or not.
+     *
+     * @param type the entity class
+     * @return the number of entities queued
+     */
+    int replayChanges(Class<?> type) {
+        List<Long> ids = new ArrayList<>();
+        for (ReindexedIndex<?> index : indices.values()) {
+            if (index.type.equals(type)) {
+                ids.addAll(index.changedIds);
+                index.changedIds.removeAll(ids);
+            }
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        List<SearchOutboxEvent> events = new ArrayList<>();
+        for (Long id : ids) {
+            SearchOutboxEvent event = new SearchOutboxEvent();
+            event.setEntityType(type.getSimpleName());
+            event.setEntityId(id);
+            // The outbox deletes the document of an entity which does not exist anymore
+            event.setOperation(SearchOutboxEvent.Operation.INDEX);
+            event.setCreatedDate(now);
+            event.setNextAttemptDate(now);
+            events.add(event);
+        }
+        transactionTemplate.execute(status -> searchOutboxEventRepository.saveAll(events));
+        return events.size();
+    }
+
+    private <T> void reindex(ReindexedIndex<T> index) {
+        String targetIndex = index.alias + "_v" + System.currentTimeMillis();
+        log.info("Reindexing {} into {}", index.alias, targetIndex);
+        try {
+            execute(new CreateIndex.Builder(targetIndex).settings(REFRESH_DISABLED).build());
+            index.start(targetIndex);
+            load(index, targetIndex);
+            if (index.failed.get() > 0) {
+                throw new IllegalStateException(index.failed.get() + " documents could not be indexed");
+            }
+            int replayed = replayChanges(index.type);
+            if (replayed > 0) {
+                log.info("Queued again {} entities of {} changed while loading", replayed, index.alias);
+            }
+            execute(new UpdateSettings.Builder(REFRESH_ENABLED).addIndex(targetIndex).build());
+            execute(new Refresh.Builder().addIndex(targetIndex).build());
+            swapAlias(index.alias, targetIndex);
+            index.finish(null);
+            log.info("Reindexed {} documents of {} in {}", index.indexed.get(), index.alias,
+                Duration.between(index.startDate, index.endDate));
+        } catch (Exception e) {
+            log.error("Reindexing {} failed, searches keep using the previous index: {}", index.alias, e.getMessage());
+            index.finish(e.toString());
+            deleteQuietly(targetIndex);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private <T> void load(ReindexedIndex<T> index, String targetIndex) throws InterruptedException, ExecutionException {
+        String entityName = entityManager.getMetamodel().entity(index.type).getName();
+        Object[] bounds = readOnlyTransactionTemplate.execute(status -> entityManager
+            .createQuery("select min(e.id), max(e.id), count(e) from " + entityName + " e", Object[].class)
+            .getSingleResult());
+        index.total.set((Long) bounds[2]);
+        if (bounds[0] == null) {
+            return;
+        }
+        long minId = (Long) bounds[0];
+        long maxId = (Long) bounds[1];
+        long span = (maxId - minId) / properties.getPartitions() + 1;
+        List<Future<?>> partitions = new ArrayList<>();
+        for (long lower = minId - 1; lower < maxId; lower += span) {
+            long after = lower;
+            long upper = Math.min(maxId, lower + span);
+            partitions.add(partitionExecutor.submit(() -> loadPartition(index, entityName, targetIndex, after, upper)));
+        }
+        try {
+            for (Future<?> partition : partitions) {
+                partition.get();
+            }
+        } finally {
+            partitions.forEach(partition -> partition.cancel(true));
+        }
+    }
+
+    /**
+     * Load the rows with an id in {@code (after, upper]}, one keyset page at a time.
+     */
+    private <T> void loadPartition(ReindexedIndex<T> index, String entityName, String targetIndex, long after, long upper) {
+        String query = "select e from " + entityName + " e where e.id > :after and e.id <= :upper order by e.id";
+        long lastId = after;
+        List<T> page;
+        do {
+            long pageAfter = lastId;
+            page = readOnlyTransactionTemplate.execute(status -> entityManager.createQuery(query, index.type)
+                .setParameter("after", pageAfter)
+                .setParameter("upper", upper)
+                .setMaxResults(properties.getPageSize())
+                .getResultList());
+            if (page.isEmpty()) {
+                return;
+            }
+            index.record(searchBulkIndexer.index(targetIndex, index.type, page, index.idGetter));
+            lastId = index.idGetter.apply(page.get(page.size() - 1));
+        } while (page.size() == properties.getPageSize() && !Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Point the alias to the new index, and delete the indices it pointed to.
+     * <p>
+     * An index holding the name of the alias, left by a version which searched indices directly, is removed by
+     * the same request, so that the alias name never stops resolving, nor can be taken by an automatically
+     * created index.
+     */
+    private void swapAlias(String alias, String targetIndex) throws IOException {
+        JsonObject aliasesByIndex = execute(new GetAliases.Builder().build()).getJsonObject();
+        List<String> previousIndices = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> entry : aliasesByIndex.entrySet()) {
+            JsonObject aliases = entry.getValue().getAsJsonObject().getAsJsonObject("aliases");
+            if (aliases != null && aliases.has(alias)) {
+                previousIndices.add(entry.getKey());
+            }
+        }
+        List<AliasMapping> mappings = new ArrayList<>();
+        mappings.add(new AddAliasMapping.Builder(targetIndex, alias).build());
+        if (!previousIndices.isEmpty()) {
+            mappings.add(new RemoveAliasMapping.Builder(previousIndices, alias).build());
+        }
+        if (aliasesByIndex.has(alias)) {
+            log.info("Replacing the {} index by an alias", alias);
+            mappings.add(new RemoveIndexMapping(alias));
+        }
+        execute(new ModifyAliases.Builder(mappings).build());
+        previousIndices.forEach(this::deleteQuietly);
+    }
+
+    private void deleteQuietly(String indexName) {
+        try {
+            execute(new DeleteIndex.Builder(indexName).build());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete index {}: {}", indexName, e.getMessage());
+        }
+    }
+
+    private <R extends JestResult> R execute(Action<R> action) throws IOException {
+        R result = jestClient.execute(action);
+        if (!result.isSucceeded()) {
+            throw new IllegalStateException(action.getRestMethodName() + " " + action.getURI() + " failed: " +
+                result.getErrorMessage());
+        }
+        return result;
+    }
+
+    /**
+     * The {@code remove_index} action of the aliases API, which Jest has no builder for.
+     */
+    private static class RemoveIndexMapping extends AliasMapping {
+
+        private final String index;
+
+        RemoveIndexMapping(String index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getType() {
+            return "remove_index";
+        }
+
+        @Override
+        public List<Map<String, Object>> getData() {
+            return Collections.singletonList(
+                Collections.singletonMap(getType(), Collections.singletonMap("index", index)));
+        }
+    }
+
+    /**
+     * The progress of the reindex of one entity type.
+     */
+    private static class ReindexedIndex<T> {
+
+        private final String alias;
+
+        private final Class<T> type;
+
+        private final Function<T, Long> idGetter;
+
+        private final Counter documentCounter;
+
+        private final AtomicLong total = new AtomicLong();
+
+        private final AtomicLong indexed = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+
+        private volatile ReindexStatusDTO.State state = ReindexStatusDTO.State.IDLE;
+
+        private volatile String targetIndex;
+
+        private volatile Instant startDate;
+
+        private volatile Instant endDate;
+
+        private volatile String error;
+
+        ReindexedIndex(String alias, Class<T> type, Function<T, Long> idGetter, Counter documentCounter) {
+            this.alias = alias;
+            this.type = type;
+            this.idGetter = idGetter;
+            this.documentCounter = documentCounter;
+        }
+
+        void schedule() {
+            state = ReindexStatusDTO.State.PENDING;
+            targetIndex = null;
+            total.set(0);
+            indexed.set(0);
+            failed.set(0);
+            startDate = null;
+            endDate = null;
+            error = null;
+        }
+
+        void start(String targetIndex) {
+            this.changedIds.clear();
+            this.targetIndex = targetIndex;
+            this.startDate = Instant.now();
+            this.state = ReindexStatusDTO.State.LOADING;
+        }
+
+        void record(BulkIndexResult result) {
+            indexed.addAndGet(result.getSucceeded());
+            failed.addAndGet(result.getFailures().size());
+            documentCounter.increment(result.getSucceeded());
+        }
+
+        void finish(String error) {
+            this.endDate = Instant.now();
+            this.error = error;
+            this.state = error == null ? ReindexStatusDTO.State.DONE : ReindexStatusDTO.State.FAILED;
+        }
+
+        double getProgress() {
+            if (total.get() == 0) {
+                return state == ReindexStatusDTO.State.DONE ? 1 : 0;
+            }
+            return (double) indexed.get() / total.get();
+        }
+
+        double getDocumentsPerSecond() {
+            Instant start = startDate;
+            if (start == null) {
+                return 0;
+            }
+            Instant end = endDate != null ? endDate : Instant.now();
+            long millis = Duration.between(start, end).toMillis();
+            return millis == 0 ? 0 : indexed.get() * 1000.0 / millis;
+        }
+
+        ReindexStatusDTO toStatus() {
+            ReindexStatusDTO status = new ReindexStatusDTO();
+            status.setIndex(alias);
+            status.setTargetIndex(targetIndex);
+            status.setState(state);
+            status.setTotal(total.get());
+            status.setIndexed(indexed.get());
+            status.setFailed(failed.get());
+            status.setProgress(getProgress());
+            status.setDocumentsPerSecond(getDocumentsPerSecond());
+            status.setStartDate(startDate);
+            status.setEndDate(endDate);
+            status.setError(error);
+            return status;
+        }
+    }
+}
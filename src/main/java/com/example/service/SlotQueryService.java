@@ -8,6 +8,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +17,9 @@ import io.github.jhipster.service.QueryService;
 
 import com.example.domain.Slot;
 import com.example.domain.*; // for static metamodels
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetRepository;
+import com.example.repository.KeysetSlice;
 import com.example.repository.SlotRepository;
 import com.example.repository.search.SlotSearchRepository;
 import com.example.service.dto.SlotCriteria;
@@ -36,13 +40,17 @@ public class SlotQueryService extends QueryService<Slot> {
 
     private final SlotSearchRepository slotSearchRepository;
 
-    public SlotQueryService(SlotRepository slotRepository, SlotSearchRepository slotSearchRepository) {
+    private final KeysetRepository keysetRepository;
+
+    public SlotQueryService(SlotRepository slotRepository, SlotSearchRepository slotSearchRepository,
+            KeysetRepository keysetRepository) {
         this.slotRepository = slotRepository;
         this.slotSearchRepository = slotSearchRepository;
+        this.keysetRepository = keysetRepository;
     }
 
     /**
-     * Return a {@link List} of {@link Slot} which matches the criteria from the database
+     * Return a {@link List} of {@link Slot} which matches the criteria from the database, by start time
      * @param criteria The object which holds all the filters, which the entities should match.
      * @return the matching entities.
      */
@@ -50,7 +58,7 @@ public class SlotQueryService extends QueryService<Slot> {
     public List<Slot> findByCriteria(SlotCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
         final Specification<Slot> specification = createSpecification(criteria);
-        return slotRepository.findAll(specification);
+        return slotRepository.findAll(specification, Sort.by("startTime", "id"));
     }
 
     /**
@@ -66,6 +74,20 @@ public class SlotQueryService extends QueryService<Slot> {
         return slotRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link KeysetSlice} of {@link Slot} which matches the criteria from the database, after a cursor
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or null for the first slice.
+     * @param page The size and sort of the slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Slot> findByCriteria(SlotCriteria criteria, KeysetCursor after, Pageable page) {
+        log.debug("find by criteria : {}, after: {}, page: {}", criteria, after, page);
+        final Specification<Slot> specification = createSpecification(criteria);
+        return keysetRepository.findSlice(Slot.class, specification, after, page);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -88,7 +110,7 @@ public class SlotQueryService extends QueryService<Slot> {
                 specification = specification.and(buildSpecification(criteria.getId(), Slot_.id));
             }
             if (criteria.getStartTime() != null) {
-                specification = specification.and(buildStringSpecification(criteria.getStartTime(), Slot_.startTime));
+                specification = specification.and(buildRangeSpecification(criteria.getStartTime(), Slot_.startTime));
             }
         }
         return specification;
@@ -3,11 +3,16 @@ package com.example.service;
 import com.example.config.Constants;
 import com.example.domain.Authority;
 import com.example.domain.User;
+import com.example.domain.User_;
 import com.example.repository.AuthorityRepository;
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetRepository;
+import com.example.repository.KeysetSlice;
 import com.example.repository.PersistentTokenRepository;
 import com.example.repository.UserRepository;
 import com.example.repository.search.UserSearchRepository;
 import com.example.security.AuthoritiesConstants;
+import com.example.security.DomainUserDetailsService;
 import com.example.security.SecurityUtils;
 import com.example.service.dto.UserDTO;
 import com.example.service.util.RandomUtil;
@@ -18,10 +23,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.Instant;
@@ -50,13 +58,16 @@ public class UserService {
 
     private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchRepository userSearchRepository, PersistentTokenRepository persistentTokenRepository, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    private final KeysetRepository keysetRepository;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchRepository userSearchRepository, PersistentTokenRepository persistentTokenRepository, AuthorityRepository authorityRepository, CacheManager cacheManager, KeysetRepository keysetRepository) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userSearchRepository = userSearchRepository;
         this.persistentTokenRepository = persistentTokenRepository;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
+        this.keysetRepository = keysetRepository;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -259,11 +270,42 @@ public class UserService {
             });
     }
 
+    /**
+     * Replace the password hash of a user, unless it was changed meanwhile.
+     *
+     * @param login the login of the user
+     * @param currentEncryptedPassword the hash which was upgraded
+     * @param encryptedPassword the new hash of the same password
+     */
+    public void upgradePassword(String login, String currentEncryptedPassword, String encryptedPassword) {
+        userRepository.findOneByLogin(login)
+            .filter(user -> user.getPassword().equals(currentEncryptedPassword))
+            .ifPresent(user -> {
+                user.setPassword(encryptedPassword);
+                this.clearUserCaches(user);
+                log.debug("Upgraded password hash for User: {}", user);
+            });
+    }
+
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllManagedUsers(Pageable pageable) {
         return userRepository.findAllByLoginNot(pageable, Constants.ANONYMOUS_USER).map(UserDTO::new);
     }
 
+    @Transactional(readOnly = true)
+    public KeysetSlice<UserDTO> getAllManagedUsers(KeysetCursor after, Pageable pageable) {
+        return keysetRepository.findSlice(User.class, managedUsers(), after, pageable).map(UserDTO::new);
+    }
+
+    @Transactional(readOnly = true)
+    public long countManagedUsers() {
+        return keysetRepository.count(User.class, managedUsers());
+    }
+
+    private static Specification<User> managedUsers() {
+        return (root, query, cb) -> cb.notEqual(root.get(User_.login), Constants.ANONYMOUS_USER);
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
         return userRepository.findOneWithAuthoritiesByLogin(login);
@@ -323,5 +365,24 @@ public class UserService {
     private void clearUserCaches(User user) {
         Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
         Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+        String login = user.getLogin();
+        String email = user.getEmail();
+        clearUserDetailsCaches(login, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A login running before the commit may have cached the previous details again
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    clearUserDetailsCaches(login, email);
+                }
+            });
+        }
+    }
+
+    private void clearUserDetailsCaches(String login, String email) {
+        Objects.requireNonNull(cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_BY_LOGIN_CACHE)).evict(login);
+        if (email != null) {
+            Objects.requireNonNull(cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_BY_EMAIL_CACHE)).evict(email);
+        }
     }
 }
@@ -7,6 +7,7 @@ import javax.persistence.criteria.JoinType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -16,12 +17,16 @@ import io.github.jhipster.service.QueryService;
 
 import com.example.domain.Vet;
 import com.example.domain.*; // for static metamodels
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetRepository;
+import com.example.repository.KeysetSlice;
 import com.example.repository.VetRepository;
 import com.example.repository.search.VetSearchRepository;
 import com.example.service.dto.VetCriteria;
 
 /**
- * Service for executing complex queries for Vet entities in the database.
+ * Service for executing complex queries for Vet entities in the database, or in Elasticsearch when
+ * {@link QueryPlanner} finds it cheaper.
  * The main input is a {@link VetCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
  * It returns a {@link List} of {@link Vet} or a {@link Page} of {@link Vet} which fulfills the criteria.
@@ -30,15 +35,24 @@ import com.example.service.dto.VetCriteria;
 @Transactional(readOnly = true)
 public class VetQueryService extends QueryService<Vet> {
 
+    private static final String ENTITY_NAME = "vet";
+
     private final Logger log = LoggerFactory.getLogger(VetQueryService.class);
 
     private final VetRepository vetRepository;
 
     private final VetSearchRepository vetSearchRepository;
 
-    public VetQueryService(VetRepository vetRepository, VetSearchRepository vetSearchRepository) {
+    private final KeysetRepository keysetRepository;
+
+    private final QueryPlanner queryPlanner;
+
+    public VetQueryService(VetRepository vetRepository, VetSearchRepository vetSearchRepository,
+            KeysetRepository keysetRepository, QueryPlanner queryPlanner) {
         this.vetRepository = vetRepository;
         this.vetSearchRepository = vetSearchRepository;
+        this.keysetRepository = keysetRepository;
+        this.queryPlanner = queryPlanner;
     }
 
     /**
@@ -54,28 +68,71 @@ public class VetQueryService extends QueryService<Vet> {
     }
 
     /**
-     * Return a {@link Page} of {@link Vet} which matches the criteria from the database
+     * Return a {@link Page} of {@link Vet} which matches the criteria from the database, or from Elasticsearch
+     * for text filters, see {@link QueryPlanner}
      * @param criteria The object which holds all the filters, which the entities should match.
      * @param page The page, which should be returned.
      * @return the matching entities.
      */
     @Transactional(readOnly = true)
     public Page<Vet> findByCriteria(VetCriteria criteria, Pageable page) {
+        return findByCriteria(criteria, page, false);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Vet} which matches the criteria from the database, or from Elasticsearch
+     * for text filters unless the changes of the previous requests must be seen, see {@link QueryPlanner}
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param readYourWrites Whether the entities saved by the previous requests must be returned as they are now.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Vet> findByCriteria(VetCriteria criteria, Pageable page, boolean readYourWrites) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        final QueryPlanner.Plan plan = createPlan(criteria).sort(page.getSort()).readYourWrites(readYourWrites);
+        return queryPlanner.findPage(plan,
+            () -> vetRepository.findAll(createSpecification(criteria), page),
+            query -> vetSearchRepository.search(query, page));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Vet} which matches the criteria from the database, after a cursor
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or null for the first slice.
+     * @param page The size and sort of the slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Vet> findByCriteria(VetCriteria criteria, KeysetCursor after, Pageable page) {
+        log.debug("find by criteria : {}, after: {}, page: {}", criteria, after, page);
         final Specification<Vet> specification = createSpecification(criteria);
-        return vetRepository.findAll(specification, page);
+        return keysetRepository.findSlice(Vet.class, specification, after, page);
     }
 
     /**
-     * Return the number of matching entities in the database
+     * Return the number of matching entities in the database, or in Elasticsearch for text filters
      * @param criteria The object which holds all the filters, which the entities should match.
      * @return the number of matching entities.
      */
     @Transactional(readOnly = true)
     public long countByCriteria(VetCriteria criteria) {
+        return countByCriteria(criteria, false);
+    }
+
+    /**
+     * Return the number of matching entities in the database, or in Elasticsearch for text filters unless the
+     * changes of the previous requests must be seen
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param readYourWrites Whether the entities saved by the previous requests must be counted as they are now.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long countByCriteria(VetCriteria criteria, boolean readYourWrites) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Vet> specification = createSpecification(criteria);
-        return vetRepository.count(specification);
+        return queryPlanner.count(createPlan(criteria).readYourWrites(readYourWrites),
+            () -> vetRepository.count(createSpecification(criteria)),
+            query -> vetSearchRepository.search(query, PageRequest.of(0, 1)).getTotalElements());
     }
 
     /**
@@ -105,4 +162,20 @@ public class VetQueryService extends QueryService<Vet> {
         }
         return specification;
     }
+
+    /**
+     * Function to convert VetCriteria to a {@link QueryPlanner.Plan}
+     */
+    private QueryPlanner.Plan createPlan(VetCriteria criteria) {
+        QueryPlanner.Plan plan = queryPlanner.plan(ENTITY_NAME, "id");
+        if (criteria != null) {
+            plan.filter(criteria.getId(), "id");
+            plan.filter(criteria.getName(), "name");
+            plan.filter(criteria.getAddress(), "address");
+            plan.filter(criteria.getCity(), "city");
+            plan.filter(criteria.getStateProvince(), "stateProvince");
+            plan.filter(criteria.getPhone(), "phone");
+        }
+        return plan;
+    }
 }
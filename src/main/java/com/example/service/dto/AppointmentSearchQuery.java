@@ -0,0 +1,202 @@
+package com.example.service.dto;
+
+import com.example.web.rest.errors.BadRequestAlertException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A parsed appointment search query.
+ * <p>
+ * The query is made of clauses combined with {@code AND}. Besides free text, which is left to Elasticsearch,
+ * a clause can be:
+ * <ul>
+ * <li>{@code vet:<name>}, {@code pet:<name>} or {@code owner:<name>}, matching the exact name, which may be quoted</li>
+ * <li>{@code date:<day>}, {@code date:<from>..<to>}, {@code date:<from>..} or {@code date:..<to>}, with ISO days
+ * and both bounds included</li>
+ * </ul>
+ * For instance {@code vet:"Jane Doe" AND date:2030-01-01..2030-01-31}.
+ */
+public final class AppointmentSearchQuery {
+
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+");
+
+    private static final Pattern CLAUSE = Pattern.compile("(?i)(vet|pet|owner|date):(.*)");
+
+    private static final String RANGE = "..";
+
+    private final String query;
+
+    private final List<String> vetNames = new ArrayList<>();
+
+    private final List<String> petNames = new ArrayList<>();
+
+    private final List<String> ownerNames = new ArrayList<>();
+
+    private final List<String> text = new ArrayList<>();
+
+    private boolean dated;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    private AppointmentSearchQuery(String query) {
+        this.query = query;
+    }
+
+    /**
+     * Parse a search query.
+     *
+     * @param query the query of the search
+     * @return the parsed query
+     * @throws BadRequestAlertException if a clause has no value, or a date which cannot be parsed
+     */
+    public static AppointmentSearchQuery parse(String query) {
+        AppointmentSearchQuery result = new AppointmentSearchQuery(query);
+        for (String clause : AND.split(query.trim())) {
+            Matcher matcher = CLAUSE.matcher(clause);
+            if (!matcher.matches()) {
+                result.text.add(clause);
+                continue;
+            }
+            String value = unquote(matcher.group(2).trim());
+            if (value.isEmpty()) {
+                throw invalid("No value in search clause " + clause);
+            }
+            switch (matcher.group(1).toLowerCase(Locale.ROOT)) {
+                case "vet":
+                    result.vetNames.add(value);
+                    break;
+                case "pet":
+                    result.petNames.add(value);
+                    break;
+                case "owner":
+                    result.ownerNames.add(value);
+                    break;
+                default:
+                    result.addDateRange(value);
+            }
+        }
+        return result;
+    }
+
+    private void addDateRange(String value) {
+        int separator = value.indexOf(RANGE);
+        LocalDate rangeFrom = separator < 0 ? parseDate(value) : parseDate(value.substring(0, separator));
+        LocalDate rangeTo = separator < 0 ? rangeFrom : parseDate(value.substring(separator + RANGE.length()));
+        if (rangeFrom != null && (from == null || rangeFrom.isAfter(from))) {
+            from = rangeFrom;
+        }
+        if (rangeTo != null && (to == null || rangeTo.isBefore(to))) {
+            to = rangeTo;
+        }
+        dated = true;
+    }
+
+    private static LocalDate parseDate(String value) {
+        String date = value.trim();
+        if (date.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw invalid("Invalid date in search query: " + date);
+        }
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+
+    private static BadRequestAlertException invalid(String message) {
+        return new BadRequestAlertException(message, "appointment", "invalidquery");
+    }
+
+    /**
+     * @return the query, as it was given
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    public List<String> getVetNames() {
+        return Collections.unmodifiableList(vetNames);
+    }
+
+    public List<String> getPetNames() {
+        return Collections.unmodifiableList(petNames);
+    }
+
+    public List<String> getOwnerNames() {
+        return Collections.unmodifiableList(ownerNames);
+    }
+
+    /**
+     * @return the clauses which are not structured, combined with {@code AND}, or null if there is none
+     */
+    public String getText() {
+        return text.isEmpty() ? null : String.join(" AND ", text);
+    }
+
+    /**
+     * @return whether the query has a date clause
+     */
+    public boolean isDated() {
+        return dated;
+    }
+
+    /**
+     * @return the first day of the appointments, or null if they have no lower bound
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the last day of the appointments, or null if they have no upper bound
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * @return whether the query has at least one clause besides free text
+     */
+    public boolean isStructured() {
+        return !vetNames.isEmpty() || !petNames.isEmpty() || !ownerNames.isEmpty() || dated;
+    }
+
+    /**
+     * A query is selective when all its clauses are structured and one of them reads few rows through an index:
+     * a name, or a date range bounded on both sides.
+     *
+     * @return whether the query is best run by the database
+     */
+    public boolean isSelective() {
+        return text.isEmpty() &&
+            (!vetNames.isEmpty() || !petNames.isEmpty() || !ownerNames.isEmpty() || (from != null && to != null));
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentSearchQuery{" +
+            "vetNames=" + vetNames +
+            ", petNames=" + petNames +
+            ", ownerNames=" + ownerNames +
+            ", from=" + from +
+            ", to=" + to +
+            ", text=" + text +
+            "}";
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.service.dto;
+
+import com.example.domain.Slot;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A DTO representing the free slots of a vet on a day.
+ */
+public class AvailabilityDTO {
+
+    private LocalDate date;
+
+    private List<Slot> slots;
+
+    public AvailabilityDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public AvailabilityDTO(LocalDate date, List<Slot> slots) {
+        this.date = date;
+        this.slots = slots;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public List<Slot> getSlots() {
+        return slots;
+    }
+
+    public void setSlots(List<Slot> slots) {
+        this.slots = slots;
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityDTO{" +
+            "date=" + date +
+            ", slots=" + slots +
+            "}";
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * One operation of a batch request: the creation or update of an entity, or the deletion of an id.
+ *
+ * @param <T> the type of the entity
+ */
+public class BatchOperationDTO<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The kinds of operations.
+     */
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    private Operation operation;
+
+    private T entity;
+
+    private Long id;
+
+    public BatchOperationDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public BatchOperationDTO(Operation operation, T entity, Long id) {
+        this.operation = operation;
+        this.entity = entity;
+        this.id = id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * @return the entity to create or update
+     */
+    public T getEntity() {
+        return entity;
+    }
+
+    public void setEntity(T entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * @return the id of the entity to delete
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchOperationDTO{" +
+            "operation=" + operation +
+            ", entity=" + entity +
+            ", id=" + id +
+            "}";
+    }
+}
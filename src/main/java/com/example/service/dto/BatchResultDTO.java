@@ -0,0 +1,68 @@
+package com.example.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * The result of one operation of a batch request, at the same index as the operation.
+ */
+public class BatchResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+
+    private final int status;
+
+    private final Long id;
+
+    private final String errorKey;
+
+    private final String message;
+
+    public BatchResultDTO(int index, int status, Long id, String errorKey, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.errorKey = errorKey;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the HTTP status the operation would have had on its own
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the id of the created, updated or deleted entity
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the key of the error, as in the alerts of single requests, if the operation failed
+     */
+    public String getErrorKey() {
+        return errorKey;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResultDTO{" +
+            "index=" + index +
+            ", status=" + status +
+            ", id=" + id +
+            ", errorKey='" + errorKey + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.service.dto;
+
+import io.github.jhipster.service.filter.RangeFilter;
+
+import java.time.LocalTime;
+
+/**
+ * Filter class for {@link LocalTime} type attributes, such as {@code startTime.greaterOrEqualThan=09:00}.
+ * Values are read in the ISO format, as configured by {@link com.example.config.DateTimeFormatConfiguration}.
+ *
+ * @see RangeFilter
+ */
+public class LocalTimeFilter extends RangeFilter<LocalTime> {
+
+    private static final long serialVersionUID = 1L;
+
+}
@@ -0,0 +1,138 @@
+package com.example.service.dto;
+
+import java.time.Instant;
+
+/**
+ * A DTO representing the progress of the full reindex of one Elasticsearch index.
+ */
+public class ReindexStatusDTO {
+
+    public enum State {
+        IDLE, PENDING, LOADING, DONE, FAILED
+    }
+
+    private String index;
+
+    private String targetIndex;
+
+    private State state;
+
+    private long total;
+
+    private long indexed;
+
+    private long failed;
+
+    private double progress;
+
+    private double documentsPerSecond;
+
+    private Instant startDate;
+
+    private Instant endDate;
+
+    private String error;
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(String index) {
+        this.index = index;
+    }
+
+    public String getTargetIndex() {
+        return targetIndex;
+    }
+
+    public void setTargetIndex(String targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getIndexed() {
+        return indexed;
+    }
+
+    public void setIndexed(long indexed) {
+        this.indexed = indexed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public double getProgress() {
+        return progress;
+    }
+
+    public void setProgress(double progress) {
+        this.progress = progress;
+    }
+
+    public double getDocumentsPerSecond() {
+        return documentsPerSecond;
+    }
+
+    public void setDocumentsPerSecond(double documentsPerSecond) {
+        this.documentsPerSecond = documentsPerSecond;
+    }
+
+    public Instant getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Instant startDate) {
+        this.startDate = startDate;
+    }
+
+    public Instant getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Instant endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "ReindexStatusDTO{" +
+            "index='" + index + '\'' +
+            ", targetIndex='" + targetIndex + '\'' +
+            ", state=" + state +
+            ", total=" + total +
+            ", indexed=" + indexed +
+            ", failed=" + failed +
+            ", startDate=" + startDate +
+            ", endDate=" + endDate +
+            ", error='" + error + '\'' +
+            "}";
+    }
+}
@@ -24,7 +24,7 @@ public class SlotCriteria implements Serializable {
 
     private LongFilter id;
 
-    private StringFilter startTime;
+    private LocalTimeFilter startTime;
 
     public LongFilter getId() {
         return id;
@@ -34,11 +34,11 @@ public class SlotCriteria implements Serializable {
         this.id = id;
     }
 
-    public StringFilter getStartTime() {
+    public LocalTimeFilter getStartTime() {
         return startTime;
     }
 
-    public void setStartTime(StringFilter startTime) {
+    public void setStartTime(LocalTimeFilter startTime) {
         this.startTime = startTime;
     }
 
@@ -1,18 +1,30 @@
 package com.example.service.impl;
 
+import com.example.service.AppointmentOccupancyIndex;
 import com.example.service.AppointmentService;
-import com.example.domain.Appointment;
+import com.example.service.SearchOutboxService;
+import com.example.domain.*; // for static metamodels
+import com.example.service.dto.AppointmentSearchQuery;
 import com.example.repository.AppointmentRepository;
 import com.example.repository.search.AppointmentSearchRepository;
+import com.example.web.rest.errors.SlotAlreadyBookedException;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.Locale;
 import java.util.Optional;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
@@ -30,22 +42,43 @@ public class AppointmentServiceImpl implements AppointmentService {
 
     private final AppointmentSearchRepository appointmentSearchRepository;
 
-    public AppointmentServiceImpl(AppointmentRepository appointmentRepository, AppointmentSearchRepository appointmentSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final AppointmentOccupancyIndex appointmentOccupancyIndex;
+
+    public AppointmentServiceImpl(AppointmentRepository appointmentRepository, AppointmentSearchRepository appointmentSearchRepository, SearchOutboxService searchOutboxService, AppointmentOccupancyIndex appointmentOccupancyIndex) {
         this.appointmentRepository = appointmentRepository;
         this.appointmentSearchRepository = appointmentSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.appointmentOccupancyIndex = appointmentOccupancyIndex;
     }
 
     /**
      * Save a appointment.
+     * <p>
+     * The appointment is flushed right away, so that a booking rejected by the unique constraint is reported
+     * here rather than at commit.
      *
      * @param appointment the entity to save
      * @return the persisted entity
+     * @throws SlotAlreadyBookedException if the vet already has an appointment for this day and slot
      */
     @Override
     public Appointment save(Appointment appointment) {
         log.debug("Request to save Appointment : {}", appointment);
-        Appointment result = appointmentRepository.save(appointment);
-        appointmentSearchRepository.save(result);
+        appointmentOccupancyIndex.reserve(appointment);
+        Appointment result;
+        try {
+            result = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            if (!isBookingConstraintViolation(e)) {
+                throw e;
+            }
+            // Booked on another instance, or by a write which did not go through this service
+            appointmentOccupancyIndex.evict(appointment);
+            throw new SlotAlreadyBookedException();
+        }
+        searchOutboxService.index(Appointment.class, result.getId());
         return result;
     }
 
@@ -85,11 +118,16 @@ public class AppointmentServiceImpl implements AppointmentService {
     public void delete(Long id) {
         log.debug("Request to delete Appointment : {}", id);
         appointmentRepository.deleteById(id);
-        appointmentSearchRepository.deleteById(id);
+        appointmentOccupancyIndex.release(id);
+        searchOutboxService.delete(Appointment.class, id);
     }
 
     /**
      * Search for the appointment corresponding to the query.
+     * <p>
+     * Queries without structured clauses go to Elasticsearch as they are. Selective queries, see
+     * {@link AppointmentSearchQuery#isSelective()}, are run by the database through its indexes, and the others
+     * by Elasticsearch as a bool query. Either way the page, sort and total follow the pagination information.
      *
      * @param query the query of the search
      * @param pageable the pagination information
@@ -99,14 +137,87 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Transactional(readOnly = true)
     public Page<Appointment> search(String query, Pageable pageable) {
         log.debug("Request to search for a page of Appointments for query {}", query);
-        Pageable firstPageWithTenElements = PageRequest.of(0, 10);
-        if(query.startsWith("vet:")) {
-            String vetName = query.replace("vet:", "").trim();
-            return appointmentRepository.findByVetName(vetName, firstPageWithTenElements);
-        } else if(query.startsWith("pet:")) {
-            String petName = query.replace("pet:", "").trim();
-            return appointmentRepository.findByPetName(petName, firstPageWithTenElements);
+        AppointmentSearchQuery searchQuery = AppointmentSearchQuery.parse(query);
+        if (!searchQuery.isStructured()) {
+            return appointmentSearchRepository.search(queryStringQuery(query), pageable);
+        }
+        if (searchQuery.isSelective()) {
+            return appointmentRepository.findAll(toSpecification(searchQuery), pageable);
+        }
+        return appointmentSearchRepository.search(toQueryBuilder(searchQuery), pageable);
+    }
+
+    /**
+     * Names are matched with sub-queries, so that the database reads them through their index, then the
+     * appointments through their foreign key.
+     */
+    private static Specification<Appointment> toSpecification(AppointmentSearchQuery searchQuery) {
+        Specification<Appointment> specification = Specification.where(null);
+        for (String vetName : searchQuery.getVetNames()) {
+            specification = specification.and((root, query, cb) -> {
+                Subquery<Long> vets = query.subquery(Long.class);
+                Root<Vet> vet = vets.from(Vet.class);
+                vets.select(vet.get(Vet_.id)).where(cb.equal(vet.get(Vet_.name), vetName));
+                return root.get(Appointment_.vet).get(Vet_.id).in(vets);
+            });
+        }
+        for (String petName : searchQuery.getPetNames()) {
+            specification = specification.and((root, query, cb) -> {
+                Subquery<Long> pets = query.subquery(Long.class);
+                Root<Pet> pet = pets.from(Pet.class);
+                pets.select(pet.get(Pet_.id)).where(cb.equal(pet.get(Pet_.name), petName));
+                return root.get(Appointment_.pet).get(Pet_.id).in(pets);
+            });
+        }
+        for (String ownerName : searchQuery.getOwnerNames()) {
+            specification = specification.and((root, query, cb) -> {
+                Subquery<Long> owners = query.subquery(Long.class);
+                Root<Owner> owner = owners.from(Owner.class);
+                owners.select(owner.get(Owner_.id)).where(cb.equal(owner.get(Owner_.name), ownerName));
+                Subquery<Long> pets = query.subquery(Long.class);
+                Root<Pet> pet = pets.from(Pet.class);
+                pets.select(pet.get(Pet_.id)).where(pet.get(Pet_.owner).get(Owner_.id).in(owners));
+                return root.get(Appointment_.pet).get(Pet_.id).in(pets);
+            });
+        }
+        if (searchQuery.getFrom() != null) {
+            specification = specification.and((root, query, cb) ->
+                cb.greaterThanOrEqualTo(root.get(Appointment_.apptTime), searchQuery.getFrom()));
+        }
+        if (searchQuery.getTo() != null) {
+            specification = specification.and((root, query, cb) ->
+                cb.lessThanOrEqualTo(root.get(Appointment_.apptTime), searchQuery.getTo()));
+        }
+        return specification;
+    }
+
+    private static QueryBuilder toQueryBuilder(AppointmentSearchQuery searchQuery) {
+        BoolQueryBuilder queryBuilder = boolQuery();
+        if (searchQuery.getText() != null) {
+            queryBuilder.must(queryStringQuery(searchQuery.getText()));
+        }
+        searchQuery.getVetNames().forEach(vetName -> queryBuilder.filter(matchPhraseQuery("vet.name", vetName)));
+        searchQuery.getPetNames().forEach(petName -> queryBuilder.filter(matchPhraseQuery("pet.name", petName)));
+        searchQuery.getOwnerNames().forEach(ownerName ->
+            queryBuilder.filter(matchPhraseQuery("pet.owner.name", ownerName)));
+        if (searchQuery.isDated()) {
+            RangeQueryBuilder apptTime = rangeQuery("apptTime");
+            if (searchQuery.getFrom() != null) {
+                apptTime.gte(searchQuery.getFrom().toString());
+            }
+            if (searchQuery.getTo() != null) {
+                apptTime.lte(searchQuery.getTo().toString());
+            }
+            queryBuilder.filter(apptTime);
+        }
+        return queryBuilder;
+    }
+
+    private static boolean isBookingConstraintViolation(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
         }
-        return appointmentSearchRepository.search(queryStringQuery(query), pageable);
+        String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        return constraintName != null && constraintName.toLowerCase(Locale.ROOT).contains("ux_appointment_booking");
     }
 }
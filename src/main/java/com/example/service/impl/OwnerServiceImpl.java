@@ -1,6 +1,7 @@
 package com.example.service.impl;
 
 import com.example.service.OwnerService;
+import com.example.service.SearchOutboxService;
 import com.example.domain.Owner;
 import com.example.repository.OwnerRepository;
 import com.example.repository.search.OwnerSearchRepository;
@@ -29,9 +30,12 @@ public class OwnerServiceImpl implements OwnerService {
 
     private final OwnerSearchRepository ownerSearchRepository;
 
-    public OwnerServiceImpl(OwnerRepository ownerRepository, OwnerSearchRepository ownerSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    public OwnerServiceImpl(OwnerRepository ownerRepository, OwnerSearchRepository ownerSearchRepository, SearchOutboxService searchOutboxService) {
         this.ownerRepository = ownerRepository;
         this.ownerSearchRepository = ownerSearchRepository;
+        this.searchOutboxService = searchOutboxService;
     }
 
     /**
@@ -44,7 +48,7 @@ public class OwnerServiceImpl implements OwnerService {
     public Owner save(Owner owner) {
         log.debug("Request to save Owner : {}", owner);
         Owner result = ownerRepository.save(owner);
-        ownerSearchRepository.save(result);
+        searchOutboxService.index(Owner.class, result.getId());
         return result;
     }
 
@@ -84,7 +88,7 @@ public class OwnerServiceImpl implements OwnerService {
     public void delete(Long id) {
         log.debug("Request to delete Owner : {}", id);
         ownerRepository.deleteById(id);
-        ownerSearchRepository.deleteById(id);
+        searchOutboxService.delete(Owner.class, id);
     }
 
     /**
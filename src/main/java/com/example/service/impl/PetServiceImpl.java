@@ -1,6 +1,7 @@
 package com.example.service.impl;
 
 import com.example.service.PetService;
+import com.example.service.SearchOutboxService;
 import com.example.domain.Pet;
 import com.example.repository.PetRepository;
 import com.example.repository.search.PetSearchRepository;
@@ -29,9 +30,12 @@ public class PetServiceImpl implements PetService {
 
     private final PetSearchRepository petSearchRepository;
 
-    public PetServiceImpl(PetRepository petRepository, PetSearchRepository petSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    public PetServiceImpl(PetRepository petRepository, PetSearchRepository petSearchRepository, SearchOutboxService searchOutboxService) {
         this.petRepository = petRepository;
         this.petSearchRepository = petSearchRepository;
+        this.searchOutboxService = searchOutboxService;
     }
 
     /**
@@ -44,7 +48,7 @@ public class PetServiceImpl implements PetService {
     public Pet save(Pet pet) {
         log.debug("Request to save Pet : {}", pet);
         Pet result = petRepository.save(pet);
-        petSearchRepository.save(result);
+        searchOutboxService.index(Pet.class, result.getId());
         return result;
     }
 
@@ -84,7 +88,7 @@ public class PetServiceImpl implements PetService {
     public void delete(Long id) {
         log.debug("Request to delete Pet : {}", id);
         petRepository.deleteById(id);
-        petSearchRepository.deleteById(id);
+        searchOutboxService.delete(Pet.class, id);
     }
 
     /**
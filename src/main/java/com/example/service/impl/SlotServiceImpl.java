@@ -1,6 +1,7 @@
 package com.example.service.impl;
 
 import com.example.service.SlotService;
+import com.example.service.SearchOutboxService;
 import com.example.domain.Slot;
 import com.example.repository.SlotRepository;
 import com.example.repository.search.SlotSearchRepository;
@@ -30,9 +31,12 @@ public class SlotServiceImpl implements SlotService {
 
     private final SlotSearchRepository slotSearchRepository;
 
-    public SlotServiceImpl(SlotRepository slotRepository, SlotSearchRepository slotSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    public SlotServiceImpl(SlotRepository slotRepository, SlotSearchRepository slotSearchRepository, SearchOutboxService searchOutboxService) {
         this.slotRepository = slotRepository;
         this.slotSearchRepository = slotSearchRepository;
+        this.searchOutboxService = searchOutboxService;
     }
 
     /**
@@ -45,7 +49,7 @@ public class SlotServiceImpl implements SlotService {
     public Slot save(Slot slot) {
         log.debug("Request to save Slot : {}", slot);
         Slot result = slotRepository.save(slot);
-        slotSearchRepository.save(result);
+        searchOutboxService.index(Slot.class, result.getId());
         return result;
     }
 
@@ -84,7 +88,7 @@ public class SlotServiceImpl implements SlotService {
     public void delete(Long id) {
         log.debug("Request to delete Slot : {}", id);
         slotRepository.deleteById(id);
-        slotSearchRepository.deleteById(id);
+        searchOutboxService.delete(Slot.class, id);
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.example.service.impl;
 
 import com.example.service.VetService;
+import com.example.service.SearchOutboxService;
 import com.example.domain.Vet;
 import com.example.repository.VetRepository;
 import com.example.repository.search.VetSearchRepository;
@@ -29,9 +30,12 @@ public class VetServiceImpl implements VetService {
 
     private final VetSearchRepository vetSearchRepository;
 
-    public VetServiceImpl(VetRepository vetRepository, VetSearchRepository vetSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    public VetServiceImpl(VetRepository vetRepository, VetSearchRepository vetSearchRepository, SearchOutboxService searchOutboxService) {
         this.vetRepository = vetRepository;
         this.vetSearchRepository = vetSearchRepository;
+        this.searchOutboxService = searchOutboxService;
     }
 
     /**
@@ -44,7 +48,7 @@ public class VetServiceImpl implements VetService {
     public Vet save(Vet vet) {
         log.debug("Request to save Vet : {}", vet);
         Vet result = vetRepository.save(vet);
-        vetSearchRepository.save(result);
+        searchOutboxService.index(Vet.class, result.getId());
         return result;
     }
 
@@ -84,7 +88,7 @@ public class VetServiceImpl implements VetService {
     public void delete(Long id) {
         log.debug("Request to delete Vet : {}", id);
         vetRepository.deleteById(id);
-        vetSearchRepository.deleteById(id);
+        searchOutboxService.delete(Vet.class, id);
     }
 
     /**
@@ -0,0 +1,87 @@
+package com.example.web.profiler;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Management endpoint driving the {@link RequestProfiler}.
+ * <ul>
+ * <li>{@code POST /management/profiler} starts a session, for {@code durationSeconds} (30 by default);</li>
+ * <li>{@code GET /management/profiler} gives the state of the running or last session;</li>
+ * <li>{@code GET /management/profiler/{event}} gives its stacks, weighted by {@code wall}, {@code cpu} or
+ * {@code alloc}, in the collapsed format of flame graph tools;</li>
+ * <li>{@code DELETE /management/profiler} stops the running session.</li>
+ * </ul>
+ */
+@WebEndpoint(id = "profiler")
+public class ProfilerEndpoint {
+
+    private static final long DEFAULT_DURATION_SECONDS = 30;
+
+    private final RequestProfiler requestProfiler;
+
+    public ProfilerEndpoint(RequestProfiler requestProfiler) {
+        this.requestProfiler = requestProfiler;
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Map<String, Object>> session() {
+        return requestProfiler.getSession()
+            .map(session -> new WebEndpointResponse<>(toMap(session)))
+            .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @ReadOperation(produces = MediaType.TEXT_PLAIN_VALUE)
+    public WebEndpointResponse<String> stacks(@Selector String event) {
+        RequestProfiler.Event weight;
+        try {
+            weight = RequestProfiler.Event.valueOf(event.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        return requestProfiler.getSession()
+            .map(session -> new WebEndpointResponse<>(session.toCollapsedStacks(weight)))
+            .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(@Nullable Long durationSeconds) {
+        Duration duration = Duration.ofSeconds(durationSeconds == null ? DEFAULT_DURATION_SECONDS : durationSeconds);
+        if (duration.isNegative() || duration.isZero()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (!requestProfiler.start(duration)) {
+            return new WebEndpointResponse<>(toMap(requestProfiler.getSession().get()), 409);
+        }
+        return new WebEndpointResponse<>(toMap(requestProfiler.getSession().get()));
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Map<String, Object>> stop() {
+        requestProfiler.stop();
+        return session();
+    }
+
+    private Map<String, Object> toMap(RequestProfiler.Session session) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("running", session.getStoppedAt() == null);
+        map.put("startedAt", session.getStartedAt().toString());
+        map.put("durationSeconds", session.getDuration().getSeconds());
+        map.put("stoppedAt", session.getStoppedAt() == null ? null : session.getStoppedAt().toString());
+        map.put("intervalMs", session.getIntervalMs());
+        map.put("samples", session.getSamples());
+        map.put("stacks", session.getStackCount());
+        map.put("allocationSupported", session.isAllocationSupported());
+        return map;
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.web.profiler;
+
+import com.example.config.ApplicationProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Samples the threads serving {@code /api/**} requests, to find the expensive endpoints of a running instance
+ * without attaching a profiler.
+ * <p>
+ * A session lasts at most {@code application.profiler.max-duration-seconds}, and only one runs at a time. While it
+ * runs, {@link RequestProfilerFilter} registers the request threads, and a sampler thread reads their stack every
+ * {@code application.profiler.interval-ms}, with the CPU time and the bytes they allocated since the previous
+ * sample, from the {@link ThreadMXBean}. Each stack is charged its sample count, CPU time and allocated bytes,
+ * under a root frame naming the endpoint. The number of distinct stacks and their depth are bounded, so a session
+ * holds a bounded amount of memory whatever the traffic.
+ * <p>
+ * Outside of a session, a request only pays a volatile read.
+ */
+@Component
+public class RequestProfiler {
+
+    /**
+     * The weight given to each sampled stack.
+     */
+    public enum Event {
+        /** Number of samples, that is wall-clock time while serving the request. */
+        WALL,
+        /** CPU time, in nanoseconds. */
+        CPU,
+        /** Allocated bytes. */
+        ALLOC
+    }
+
+    private static final String TRUNCATED_FRAME = "[truncated]";
+
+    private final Logger log = LoggerFactory.getLogger(RequestProfiler.class);
+
+    private final ApplicationProperties.Profiler properties;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final ScheduledExecutorService sampler =
+        Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("request-profiler-"));
+
+    private final ConcurrentMap<Thread, RequestThread> requestThreads = new ConcurrentHashMap<>();
+
+    private volatile Session session;
+
+    private volatile boolean running;
+
+    private ScheduledFuture<?> sampling;
+
+    public RequestProfiler(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getProfiler();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sampler.shutdownNow();
+    }
+
+    /**
+     * @return whether a session is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the running session, or the last one, if any
+     */
+    public Optional<Session> getSession() {
+        return Optional.ofNullable(session);
+    }
+
+    /**
+     * Start a session, unless one is already running.
+     *
+     * @param duration the duration of the session, capped at {@code application.profiler.max-duration-seconds}
+     * @return whether the session was started
+     */
+    public synchronized boolean start(Duration duration) {
+        if (running) {
+            return false;
+        }
+        Duration maxDuration = Duration.ofSeconds(properties.getMaxDurationSeconds());
+        Duration bounded = duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+        if (threadMXBean.isThreadCpuTimeSupported() && !threadMXBean.isThreadCpuTimeEnabled()) {
+            threadMXBean.setThreadCpuTimeEnabled(true);
+        }
+        session = new Session(Instant.now(), bounded, properties.getIntervalMs(), isAllocationSupported());
+        requestThreads.clear();
+        running = true;
+        sampling = sampler.scheduleAtFixedRate(this::sample, properties.getIntervalMs(), properties.getIntervalMs(),
+            TimeUnit.MILLISECONDS);
+        log.info("Request profiling started for {}", bounded);
+        return true;
+    }
+
+    /**
+     * Stop the running session, if any. Its samples are kept until the next session starts.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        sampling.cancel(false);
+        requestThreads.clear();
+        session.stoppedAt = Instant.now();
+        log.info("Request profiling stopped after {} samples", session.getSamples());
+    }
+
+    /**
+     * Register the current thread as serving a request, if a session is running.
+     *
+     * @param endpoint the root frame of the stacks sampled in this thread, such as {@code GET /api/owners/{id}}
+     */
+    void enter(String endpoint) {
+        requestThreads.put(Thread.currentThread(), new RequestThread(endpoint));
+    }
+
+    /**
+     * Unregister the current thread, once it has served its request.
+     */
+    void exit() {
+        requestThreads.remove(Thread.currentThread());
+    }
+
+    private boolean isAllocationSupported() {
+        return threadMXBean instanceof com.sun.management.ThreadMXBean &&
+            ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported() &&
+            ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    private void sample() {
+        try {
+            Session current = session;
+            if (Instant.now().isAfter(current.startedAt.plus(current.duration))) {
+                stop();
+                return;
+            }
+            List<Map.Entry<Thread, RequestThread>> threads = new ArrayList<>(requestThreads.entrySet());
+            long[] ids = new long[threads.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = threads.get(i).getKey().getId();
+            }
+            ThreadInfo[] infos = threadMXBean.getThreadInfo(ids, properties.getMaxDepth());
+            long[] allocatedBytes = current.allocationSupported ?
+                ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(ids) : null;
+            for (int i = 0; i < ids.length; i++) {
+                RequestThread requestThread = threads.get(i).getValue();
+                if (infos[i] == null || requestThreads.get(threads.get(i).getKey()) != requestThread) {
+                    // Ended, or moved on to another request, since the threads were listed
+                    continue;
+                }
+                long cpuTime = threadMXBean.isThreadCpuTimeEnabled() ? threadMXBean.getThreadCpuTime(ids[i]) : -1;
+                long allocated = allocatedBytes == null ? -1 : allocatedBytes[i];
+                current.record(requestThread.endpoint, infos[i].getStackTrace(),
+                    delta(cpuTime, requestThread.cpuTime), delta(allocated, requestThread.allocatedBytes),
+                    properties.getMaxStacks());
+                requestThread.cpuTime = cpuTime;
+                requestThread.allocatedBytes = allocated;
+            }
+            current.samples++;
+        } catch (RuntimeException e) {
+            log.warn("Request profiling failed, stopping it", e);
+            stop();
+        }
+    }
+
+    /**
+     * @return the increase of a per-thread counter since the previous sample, nothing being charged to the
+     * first sample of a request, whose previous reading belongs to another request
+     */
+    private static long delta(long value, long previous) {
+        return value < 0 || previous < 0 ? 0 : Math.max(value - previous, 0);
+    }
+
+    /**
+     * A request thread, with the counters read at its previous sample.
+     */
+    private static final class RequestThread {
+
+        private final String endpoint;
+
+        private long cpuTime = -1;
+
+        private long allocatedBytes = -1;
+
+        RequestThread(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    /**
+     * A profiling session, with the weights of its sampled stacks.
+     */
+    public static final class Session {
+
+        private final Instant startedAt;
+
+        private final Duration duration;
+
+        private final long intervalMs;
+
+        private final boolean allocationSupported;
+
+        private final Map<String, long[]> stacks = new HashMap<>();
+
+        private volatile long samples;
+
+        private volatile Instant stoppedAt;
+
+        Session(Instant startedAt, Duration duration, long intervalMs, boolean allocationSupported) {
+            this.startedAt = startedAt;
+            this.duration = duration;
+            this.intervalMs = intervalMs;
+            this.allocationSupported = allocationSupported;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public boolean isAllocationSupported() {
+            return allocationSupported;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return when the session stopped, or {@code null} while it runs
+         */
+        public Instant getStoppedAt() {
+            return stoppedAt;
+        }
+
+        public synchronized int getStackCount() {
+            return stacks.size();
+        }
+
+        synchronized void record(String endpoint, StackTraceElement[] stackTrace, long cpuTime, long allocatedBytes,
+                                 int maxStacks) {
+            StringBuilder stack = new StringBuilder(endpoint);
+            for (int i = stackTrace.length - 1; i >= 0; i--) {
+                stack.append(';').append(stackTrace[i].getClassName()).append('.').append(stackTrace[i].getMethodName());
+            }
+            String key = stack.toString();
+            long[] weights = stacks.get(key);
+            if (weights == null) {
+                if (stacks.size() >= maxStacks) {
+                    key = endpoint + ';' + TRUNCATED_FRAME;
+                    weights = stacks.get(key);
+                }
+                if (weights == null) {
+                    weights = new long[Event.values().length];
+                    stacks.put(key, weights);
+                }
+            }
+            weights[Event.WALL.ordinal()]++;
+            weights[Event.CPU.ordinal()] += cpuTime;
+            weights[Event.ALLOC.ordinal()] += allocatedBytes;
+        }
+
+        /**
+         * Format the stacks in the collapsed format read by flame graph tools: one line per stack, its frames
+         * from the root separated by semicolons, then a space and its weight.
+         *
+         * @param event the weight of the stacks
+         * @return the collapsed stacks, heaviest first, leaving out the stacks without weight
+         */
+        public synchronized String toCollapsedStacks(Event event) {
+            int index = event.ordinal();
+            StringBuilder collapsed = new StringBuilder();
+            stacks.entrySet().stream()
+                .filter(stack -> stack.getValue()[index] > 0)
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> stack) -> stack.getValue()[index]).reversed())
+                .forEach(stack -> collapsed.append(stack.getKey()).append(' ').append(stack.getValue()[index]).append('\n'));
+            return collapsed.toString();
+        }
+    }
+}
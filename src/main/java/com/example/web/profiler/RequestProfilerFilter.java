@@ -0,0 +1,48 @@
+package com.example.web.profiler;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Registers the threads serving requests with the {@link RequestProfiler} while it runs.
+ */
+public class RequestProfilerFilter extends OncePerRequestFilter {
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final RequestProfiler requestProfiler;
+
+    public RequestProfilerFilter(RequestProfiler requestProfiler) {
+        this.requestProfiler = requestProfiler;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if (!requestProfiler.isRunning()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        requestProfiler.enter(endpoint(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            requestProfiler.exit();
+        }
+    }
+
+    /**
+     * @return the method and path of the request, ids replaced by a placeholder so that the requests of an
+     * endpoint share their root frame
+     */
+    static String endpoint(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return request.getMethod() + ' ' + ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+}
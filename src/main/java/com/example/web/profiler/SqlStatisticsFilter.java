@@ -0,0 +1,117 @@
+package com.example.web.profiler;
+
+import com.example.config.ApplicationProperties;
+import com.example.repository.statistics.SqlStatistics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the {@link SqlStatistics} of each request, per endpoint, to spot the endpoints running one query per row.
+ * <p>
+ * Each endpoint, that is a method and a URI pattern such as {@code /api/owners/{id}}, gets distribution summaries
+ * of the JDBC statements, rows and entities of its requests, and a timer of their time in JDBC. A request going
+ * over one of the {@code application.sql-statistics} thresholds is logged.
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_METRIC = "api.requests.sql.statements";
+
+    public static final String ROWS_METRIC = "api.requests.sql.rows";
+
+    public static final String ENTITIES_METRIC = "api.requests.entities.loaded";
+
+    public static final String JDBC_TIME_METRIC = "api.requests.jdbc.time";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final Logger log = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final ApplicationProperties.SqlStatistics properties;
+
+    private final ConcurrentMap<String, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+
+    public SqlStatisticsFilter(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = applicationProperties.getSqlStatistics();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.stop();
+            record(request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String method = request.getMethod();
+        String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+        EndpointMeters meters = endpoints.computeIfAbsent(method + ' ' + uri, key -> new EndpointMeters(method, uri));
+        meters.statements.record(statistics.getStatements());
+        meters.rows.record(statistics.getRows());
+        meters.entities.record(statistics.getEntities());
+        meters.jdbcTime.record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        long jdbcMillis = TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcNanos());
+        if (statistics.getStatements() > properties.getStatementsThreshold() ||
+            statistics.getRows() > properties.getRowsThreshold() ||
+            statistics.getEntities() > properties.getEntitiesThreshold() ||
+            jdbcMillis > properties.getJdbcTimeThresholdMs()) {
+            log.warn("{} {} ran {} SQL statements reading {} rows, loaded {} entities and spent {} ms in JDBC",
+                method, request.getRequestURI(), statistics.getStatements(), statistics.getRows(),
+                statistics.getEntities(), jdbcMillis);
+        }
+    }
+
+    private final class EndpointMeters {
+
+        private final DistributionSummary statements;
+
+        private final DistributionSummary rows;
+
+        private final DistributionSummary entities;
+
+        private final Timer jdbcTime;
+
+        EndpointMeters(String method, String uri) {
+            this.statements = DistributionSummary.builder(STATEMENTS_METRIC)
+                .description("The JDBC statements executed by a request, a batch counting as one")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry);
+            this.rows = DistributionSummary.builder(ROWS_METRIC)
+                .description("The rows read by a request from its JDBC result sets")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry);
+            this.entities = DistributionSummary.builder(ENTITIES_METRIC)
+                .description("The entities loaded by Hibernate for a request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry);
+            this.jdbcTime = Timer.builder(JDBC_TIME_METRIC)
+                .description("The time spent by a request executing JDBC statements and reading their rows")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.example.domain.PersistentToken;
 import com.example.repository.PersistentTokenRepository;
 import com.example.domain.User;
 import com.example.repository.UserRepository;
+import com.example.security.PersistentTokenWriteBehind;
 import com.example.security.SecurityUtils;
 import com.example.service.MailService;
 import com.example.service.UserService;
@@ -43,12 +44,16 @@ public class AccountResource {
 
     private final PersistentTokenRepository persistentTokenRepository;
 
-    public AccountResource(UserRepository userRepository, UserService userService, MailService mailService, PersistentTokenRepository persistentTokenRepository) {
+    private final PersistentTokenWriteBehind persistentTokenWriteBehind;
+
+    public AccountResource(UserRepository userRepository, UserService userService, MailService mailService, PersistentTokenRepository persistentTokenRepository,
+                           PersistentTokenWriteBehind persistentTokenWriteBehind) {
 
         this.userRepository = userRepository;
         this.userService = userService;
         this.mailService = mailService;
         this.persistentTokenRepository = persistentTokenRepository;
+        this.persistentTokenWriteBehind = persistentTokenWriteBehind;
     }
 
     /**
@@ -183,7 +188,7 @@ public class AccountResource {
             .ifPresent(u ->
                 persistentTokenRepository.findByUser(u).stream()
                     .filter(persistentToken -> StringUtils.equals(persistentToken.getSeries(), decodedSeries))
-                    .findAny().ifPresent(t -> persistentTokenRepository.deleteById(decodedSeries)));
+                    .findAny().ifPresent(t -> persistentTokenWriteBehind.delete(decodedSeries)));
     }
 
     /**
@@ -1,11 +1,18 @@
 package com.example.web.rest;
 import com.example.domain.Appointment;
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetSlice;
 import com.example.service.AppointmentService;
 import com.example.web.rest.errors.BadRequestAlertException;
+import com.example.web.rest.util.ExportUtil;
 import com.example.web.rest.util.HeaderUtil;
 import com.example.web.rest.util.PaginationUtil;
 import com.example.service.dto.AppointmentCriteria;
 import com.example.service.AppointmentQueryService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
+import com.example.service.dto.BatchOperationDTO;
+import com.example.service.dto.BatchResultDTO;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +22,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -41,9 +49,16 @@ public class AppointmentResource {
 
     private final AppointmentQueryService appointmentQueryService;
 
-    public AppointmentResource(AppointmentService appointmentService, AppointmentQueryService appointmentQueryService) {
+    private final ExportService exportService;
+
+    private final BatchService batchService;
+
+    public AppointmentResource(AppointmentService appointmentService, AppointmentQueryService appointmentQueryService, ExportService exportService,
+            BatchService batchService) {
         this.appointmentService = appointmentService;
         this.appointmentQueryService = appointmentQueryService;
+        this.exportService = exportService;
+        this.batchService = batchService;
     }
 
     /**
@@ -86,6 +101,19 @@ public class AppointmentResource {
             .body(result);
     }
 
+    /**
+     * POST  /appointments/batch : create, update and delete appointments in JDBC batches.
+     *
+     * @param operations the operations to run, in order
+     * @return the ResponseEntity with status 200 (OK) and the result of each operation in body, each with the status
+     * the operation would have had on its own, or with status 400 (Bad Request) if there are too many operations
+     */
+    @PostMapping("/appointments/batch")
+    public ResponseEntity<List<BatchResultDTO>> batchAppointments(@RequestBody List<BatchOperationDTO<Appointment>> operations) {
+        log.debug("REST request to run a batch of {} Appointment operations", operations.size());
+        return ResponseEntity.ok().body(batchService.execute(Appointment.class, operations));
+    }
+
     /**
      * GET  /appointments : get all the appointments.
      *
@@ -101,6 +129,42 @@ public class AppointmentResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /appointments?after= : get a slice of the appointments following a cursor, without the offset scan and count
+     * of the paginated listing. Pass an empty cursor for the first slice, then follow the "next" link.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last appointment of the previous slice, empty for the first slice
+     * @param count whether to add the X-Total-Count header, which costs a count query
+     * @param pageable the size and the sort of the slice, on one property besides the id
+     * @return the ResponseEntity with status 200 (OK) and the list of appointments in body,
+     * or with status 400 (Bad Request) if the cursor is malformed or does not match the sort
+     */
+    @GetMapping(value = "/appointments", params = "after")
+    public ResponseEntity<List<Appointment>> getAllAppointmentsAfter(AppointmentCriteria criteria, @RequestParam String after,
+            @RequestParam(defaultValue = "false") boolean count, Pageable pageable) {
+        log.debug("REST request to get Appointments by criteria: {}, after: {}", criteria, after);
+        KeysetSlice<Appointment> slice = appointmentQueryService.findByCriteria(criteria, KeysetCursor.decode(after), pageable);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice,
+            count ? appointmentQueryService.countByCriteria(criteria) : null, "/api/appointments");
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /appointments/export : export all the appointments, in id order.
+     *
+     * @param format the format of the export, ndjson or csv
+     * @return the ResponseEntity with status 200 (OK) and the appointments in body, written as they are read,
+     * or with status 400 (Bad Request) if the format is unknown
+     */
+    @GetMapping("/appointments/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(@RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("REST request to export Appointments as {}", format);
+        ExportService.Format exportFormat = ExportUtil.parseFormat(format, ENTITY_NAME);
+        return ExportUtil.createExportResponse("appointments", exportFormat,
+            out -> exportService.export(Appointment.class, exportFormat, out));
+    }
+
     /**
     * GET  /appointments/count : count all the appointments.
     *
@@ -0,0 +1,75 @@
+package com.example.web.rest;
+
+import com.example.config.ApplicationProperties;
+import com.example.service.AvailabilityService;
+import com.example.service.dto.AvailabilityDTO;
+import com.example.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * REST controller for finding the free slots of the vets.
+ */
+@RestController
+@RequestMapping("/api")
+public class AvailabilityResource {
+
+    /**
+     * The longest range of days of a single request.
+     */
+    static final int MAX_DAYS = 92;
+
+    private static final String ENTITY_NAME = "availability";
+
+    private final Logger log = LoggerFactory.getLogger(AvailabilityResource.class);
+
+    private final AvailabilityService availabilityService;
+
+    private final ApplicationProperties.Availability properties;
+
+    public AvailabilityResource(AvailabilityService availabilityService, ApplicationProperties applicationProperties) {
+        this.availabilityService = availabilityService;
+        this.properties = applicationProperties.getAvailability();
+    }
+
+    /**
+     * GET  /availability : get the free slots of a vet, day by day.
+     *
+     * @param vetId the id of the vet
+     * @param from the first day
+     * @param to the last day, included
+     * @return the ResponseEntity with status 200 (OK) and the free slots of each day, with status 400 (Bad Request)
+     * if the range is empty, too long, or out of today and the booking horizon, or with status 404 (Not Found) if
+     * the vet does not exist
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<List<AvailabilityDTO>> getAvailability(@RequestParam Long vetId,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get the availability of Vet {} from {} to {}", vetId, from, to);
+        if (to.isBefore(from)) {
+            throw new BadRequestAlertException("The range ends before it starts", ENTITY_NAME, "invalidrange");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new BadRequestAlertException("The range is longer than " + MAX_DAYS + " days", ENTITY_NAME, "rangetoolong");
+        }
+        LocalDate today = LocalDate.now();
+        if (from.isBefore(today)) {
+            throw new BadRequestAlertException("The range starts before today", ENTITY_NAME, "rangeinpast");
+        }
+        if (to.isAfter(today.plusDays(properties.getBookingHorizonDays()))) {
+            throw new BadRequestAlertException("The range ends after the booking horizon of " +
+                properties.getBookingHorizonDays() + " days", ENTITY_NAME, "rangebeyondhorizon");
+        }
+        return ResponseUtil.wrapOrNotFound(availabilityService.findAvailability(vetId, from, to));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.web.rest;
+
+import com.example.aop.logging.InstrumentationAspect;
+import com.example.web.rest.vm.InstrumentationVM;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controller for viewing and switching the instrumentation of packages at runtime.
+ *
+ * @see InstrumentationAspect
+ */
+@RestController
+@RequestMapping("/management")
+public class InstrumentationResource {
+
+    private final InstrumentationAspect instrumentationAspect;
+
+    public InstrumentationResource(InstrumentationAspect instrumentationAspect) {
+        this.instrumentationAspect = instrumentationAspect;
+    }
+
+    @GetMapping("/instrumentation")
+    public List<InstrumentationVM> getList() {
+        return instrumentationAspect.getPackages().entrySet()
+            .stream()
+            .map(entry -> new InstrumentationVM(entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList());
+    }
+
+    @PutMapping("/instrumentation")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void changeInstrumentation(@Valid @RequestBody InstrumentationVM instrumentation) {
+        instrumentationAspect.setEnabled(instrumentation.getName(), instrumentation.isEnabled());
+    }
+}
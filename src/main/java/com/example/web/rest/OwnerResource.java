@@ -1,11 +1,18 @@
 package com.example.web.rest;
 import com.example.domain.Owner;
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetSlice;
 import com.example.service.OwnerService;
 import com.example.web.rest.errors.BadRequestAlertException;
+import com.example.web.rest.util.ExportUtil;
 import com.example.web.rest.util.HeaderUtil;
 import com.example.web.rest.util.PaginationUtil;
 import com.example.service.dto.OwnerCriteria;
 import com.example.service.OwnerQueryService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
+import com.example.service.dto.BatchOperationDTO;
+import com.example.service.dto.BatchResultDTO;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +22,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -40,9 +48,16 @@ public class OwnerResource {
 
     private final OwnerQueryService ownerQueryService;
 
-    public OwnerResource(OwnerService ownerService, OwnerQueryService ownerQueryService) {
+    private final ExportService exportService;
+
+    private final BatchService batchService;
+
+    public OwnerResource(OwnerService ownerService, OwnerQueryService ownerQueryService, ExportService exportService,
+            BatchService batchService) {
         this.ownerService = ownerService;
         this.ownerQueryService = ownerQueryService;
+        this.exportService = exportService;
+        this.batchService = batchService;
     }
 
     /**
@@ -85,31 +100,87 @@ public class OwnerResource {
             .body(result);
     }
 
+    /**
+     * POST  /owners/batch : create, update and delete owners in JDBC batches.
+     *
+     * @param operations the operations to run, in order
+     * @return the ResponseEntity with status 200 (OK) and the result of each operation in body, each with the status
+     * the operation would have had on its own, or with status 400 (Bad Request) if there are too many operations
+     */
+    @PostMapping("/owners/batch")
+    public ResponseEntity<List<BatchResultDTO>> batchOwners(@RequestBody List<BatchOperationDTO<Owner>> operations) {
+        log.debug("REST request to run a batch of {} Owner operations", operations.size());
+        return ResponseEntity.ok().body(batchService.execute(Owner.class, operations));
+    }
+
     /**
      * GET  /owners : get all the owners.
+     * <p>
+     * Text filters may be answered by Elasticsearch, which returns the changes of the last seconds only once they
+     * are indexed. Send the X-Read-Your-Writes header to read them from the database, as they are now.
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param readYourWrites whether the owners saved by the previous requests must be returned as they are now
      * @return the ResponseEntity with status 200 (OK) and the list of owners in body
      */
     @GetMapping("/owners")
-    public ResponseEntity<List<Owner>> getAllOwners(OwnerCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Owner>> getAllOwners(OwnerCriteria criteria, Pageable pageable,
+            @RequestHeader(value = HeaderUtil.READ_YOUR_WRITES, defaultValue = "false") boolean readYourWrites) {
         log.debug("REST request to get Owners by criteria: {}", criteria);
-        Page<Owner> page = ownerQueryService.findByCriteria(criteria, pageable);
+        Page<Owner> page = ownerQueryService.findByCriteria(criteria, pageable, readYourWrites);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/owners");
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /owners?after= : get a slice of the owners following a cursor, without the offset scan and count
+     * of the paginated listing. Pass an empty cursor for the first slice, then follow the "next" link.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last owner of the previous slice, empty for the first slice
+     * @param count whether to add the X-Total-Count header, which costs a count query
+     * @param pageable the size and the sort of the slice, on one property besides the id
+     * @return the ResponseEntity with status 200 (OK) and the list of owners in body,
+     * or with status 400 (Bad Request) if the cursor is malformed or does not match the sort
+     */
+    @GetMapping(value = "/owners", params = "after")
+    public ResponseEntity<List<Owner>> getAllOwnersAfter(OwnerCriteria criteria, @RequestParam String after,
+            @RequestParam(defaultValue = "false") boolean count, Pageable pageable) {
+        log.debug("REST request to get Owners by criteria: {}, after: {}", criteria, after);
+        KeysetSlice<Owner> slice = ownerQueryService.findByCriteria(criteria, KeysetCursor.decode(after), pageable);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice,
+            count ? ownerQueryService.countByCriteria(criteria) : null, "/api/owners");
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /owners/export : export all the owners, in id order.
+     *
+     * @param format the format of the export, ndjson or csv
+     * @return the ResponseEntity with status 200 (OK) and the owners in body, written as they are read,
+     * or with status 400 (Bad Request) if the format is unknown
+     */
+    @GetMapping("/owners/export")
+    public ResponseEntity<StreamingResponseBody> exportOwners(@RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("REST request to export Owners as {}", format);
+        ExportService.Format exportFormat = ExportUtil.parseFormat(format, ENTITY_NAME);
+        return ExportUtil.createExportResponse("owners", exportFormat,
+            out -> exportService.export(Owner.class, exportFormat, out));
+    }
+
     /**
     * GET  /owners/count : count all the owners.
     *
     * @param criteria the criterias which the requested entities should match
+    * @param readYourWrites whether the owners saved by the previous requests must be counted as they are now
     * @return the ResponseEntity with status 200 (OK) and the count in body
     */
     @GetMapping("/owners/count")
-    public ResponseEntity<Long> countOwners(OwnerCriteria criteria) {
+    public ResponseEntity<Long> countOwners(OwnerCriteria criteria,
+            @RequestHeader(value = HeaderUtil.READ_YOUR_WRITES, defaultValue = "false") boolean readYourWrites) {
         log.debug("REST request to count Owners by criteria: {}", criteria);
-        return ResponseEntity.ok().body(ownerQueryService.countByCriteria(criteria));
+        return ResponseEntity.ok().body(ownerQueryService.countByCriteria(criteria, readYourWrites));
     }
 
     /**
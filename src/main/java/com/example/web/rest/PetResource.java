@@ -1,11 +1,18 @@
 package com.example.web.rest;
 import com.example.domain.Pet;
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetSlice;
 import com.example.service.PetService;
 import com.example.web.rest.errors.BadRequestAlertException;
+import com.example.web.rest.util.ExportUtil;
 import com.example.web.rest.util.HeaderUtil;
 import com.example.web.rest.util.PaginationUtil;
 import com.example.service.dto.PetCriteria;
 import com.example.service.PetQueryService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
+import com.example.service.dto.BatchOperationDTO;
+import com.example.service.dto.BatchResultDTO;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +22,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -40,9 +48,16 @@ public class PetResource {
 
     private final PetQueryService petQueryService;
 
-    public PetResource(PetService petService, PetQueryService petQueryService) {
+    private final ExportService exportService;
+
+    private final BatchService batchService;
+
+    public PetResource(PetService petService, PetQueryService petQueryService, ExportService exportService,
+            BatchService batchService) {
         this.petService = petService;
         this.petQueryService = petQueryService;
+        this.exportService = exportService;
+        this.batchService = batchService;
     }
 
     /**
@@ -85,31 +100,87 @@ public class PetResource {
             .body(result);
     }
 
+    /**
+     * POST  /pets/batch : create, update and delete pets in JDBC batches.
+     *
+     * @param operations the operations to run, in order
+     * @return the ResponseEntity with status 200 (OK) and the result of each operation in body, each with the status
+     * the operation would have had on its own, or with status 400 (Bad Request) if there are too many operations
+     */
+    @PostMapping("/pets/batch")
+    public ResponseEntity<List<BatchResultDTO>> batchPets(@RequestBody List<BatchOperationDTO<Pet>> operations) {
+        log.debug("REST request to run a batch of {} Pet operations", operations.size());
+        return ResponseEntity.ok().body(batchService.execute(Pet.class, operations));
+    }
+
     /**
      * GET  /pets : get all the pets.
+     * <p>
+     * Text filters may be answered by Elasticsearch, which returns the changes of the last seconds only once they
+     * are indexed. Send the X-Read-Your-Writes header to read them from the database, as they are now.
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param readYourWrites whether the pets saved by the previous requests must be returned as they are now
      * @return the ResponseEntity with status 200 (OK) and the list of pets in body
      */
     @GetMapping("/pets")
-    public ResponseEntity<List<Pet>> getAllPets(PetCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Pet>> getAllPets(PetCriteria criteria, Pageable pageable,
+            @RequestHeader(value = HeaderUtil.READ_YOUR_WRITES, defaultValue = "false") boolean readYourWrites) {
         log.debug("REST request to get Pets by criteria: {}", criteria);
-        Page<Pet> page = petQueryService.findByCriteria(criteria, pageable);
+        Page<Pet> page = petQueryService.findByCriteria(criteria, pageable, readYourWrites);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/pets");
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /pets?after= : get a slice of the pets following a cursor, without the offset scan and count
+     * of the paginated listing. Pass an empty cursor for the first slice, then follow the "next" link.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last pet of the previous slice, empty for the first slice
+     * @param count whether to add the X-Total-Count header, which costs a count query
+     * @param pageable the size and the sort of the slice, on one property besides the id
+     * @return the ResponseEntity with status 200 (OK) and the list of pets in body,
+     * or with status 400 (Bad Request) if the cursor is malformed or does not match the sort
+     */
+    @GetMapping(value = "/pets", params = "after")
+    public ResponseEntity<List<Pet>> getAllPetsAfter(PetCriteria criteria, @RequestParam String after,
+            @RequestParam(defaultValue = "false") boolean count, Pageable pageable) {
+        log.debug("REST request to get Pets by criteria: {}, after: {}", criteria, after);
+        KeysetSlice<Pet> slice = petQueryService.findByCriteria(criteria, KeysetCursor.decode(after), pageable);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice,
+            count ? petQueryService.countByCriteria(criteria) : null, "/api/pets");
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /pets/export : export all the pets, in id order.
+     *
+     * @param format the format of the export, ndjson or csv
+     * @return the ResponseEntity with status 200 (OK) and the pets in body, written as they are read,
+     * or with status 400 (Bad Request) if the format is unknown
+     */
+    @GetMapping("/pets/export")
+    public ResponseEntity<StreamingResponseBody> exportPets(@RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("REST request to export Pets as {}", format);
+        ExportService.Format exportFormat = ExportUtil.parseFormat(format, ENTITY_NAME);
+        return ExportUtil.createExportResponse("pets", exportFormat,
+            out -> exportService.export(Pet.class, exportFormat, out));
+    }
+
     /**
     * GET  /pets/count : count all the pets.
     *
     * @param criteria the criterias which the requested entities should match
+    * @param readYourWrites whether the pets saved by the previous requests must be counted as they are now
     * @return the ResponseEntity with status 200 (OK) and the count in body
     */
     @GetMapping("/pets/count")
-    public ResponseEntity<Long> countPets(PetCriteria criteria) {
+    public ResponseEntity<Long> countPets(PetCriteria criteria,
+            @RequestHeader(value = HeaderUtil.READ_YOUR_WRITES, defaultValue = "false") boolean readYourWrites) {
         log.debug("REST request to count Pets by criteria: {}", criteria);
-        return ResponseEntity.ok().body(petQueryService.countByCriteria(criteria));
+        return ResponseEntity.ok().body(petQueryService.countByCriteria(criteria, readYourWrites));
     }
 
     /**
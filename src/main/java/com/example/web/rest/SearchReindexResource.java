@@ -0,0 +1,63 @@
+package com.example.web.rest;
+
+import com.example.service.SearchReindexService;
+import com.example.service.dto.ReindexStatusDTO;
+import com.example.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller for rebuilding the Elasticsearch indices at runtime.
+ */
+@RestController
+@RequestMapping("/management")
+public class SearchReindexResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexResource.class);
+
+    private final SearchReindexService searchReindexService;
+
+    public SearchReindexResource(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    /**
+     * GET  /search/reindex : get the progress of the last reindex of every index.
+     *
+     * @return the status of each index
+     */
+    @GetMapping("/search/reindex")
+    public List<ReindexStatusDTO> getReindexStatus() {
+        return searchReindexService.getStatus();
+    }
+
+    /**
+     * POST  /search/reindex : rebuild indices from the database, searches keep working meanwhile.
+     *
+     * @param indices the names of the indices to rebuild, all of them if omitted
+     * @return the ResponseEntity with status 202 (Accepted) and with body the status of each index,
+     * or with status 409 (Conflict) if a reindex is already in progress,
+     * or with status 400 (Bad Request) if an index is unknown
+     */
+    @PostMapping("/search/reindex")
+    public ResponseEntity<List<ReindexStatusDTO>> reindex(@RequestBody(required = false) List<String> indices) {
+        log.debug("REST request to reindex Elasticsearch indices : {}", indices);
+        if (indices != null) {
+            for (String index : indices) {
+                if (!searchReindexService.getIndexNames().contains(index)) {
+                    throw new BadRequestAlertException("Unknown search index " + index, "searchReindex", "unknownindex");
+                }
+            }
+        }
+        if (!searchReindexService.start(indices)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(searchReindexService.getStatus());
+        }
+        return ResponseEntity.accepted().body(searchReindexService.getStatus());
+    }
+}
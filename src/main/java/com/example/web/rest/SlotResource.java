@@ -1,15 +1,26 @@
 package com.example.web.rest;
 import com.example.domain.Slot;
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetSlice;
 import com.example.service.SlotService;
 import com.example.web.rest.errors.BadRequestAlertException;
+import com.example.web.rest.util.ExportUtil;
 import com.example.web.rest.util.HeaderUtil;
+import com.example.web.rest.util.PaginationUtil;
 import com.example.service.dto.SlotCriteria;
 import com.example.service.SlotQueryService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
+import com.example.service.dto.BatchOperationDTO;
+import com.example.service.dto.BatchResultDTO;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -36,9 +47,16 @@ public class SlotResource {
 
     private final SlotQueryService slotQueryService;
 
-    public SlotResource(SlotService slotService, SlotQueryService slotQueryService) {
+    private final ExportService exportService;
+
+    private final BatchService batchService;
+
+    public SlotResource(SlotService slotService, SlotQueryService slotQueryService, ExportService exportService,
+            BatchService batchService) {
         this.slotService = slotService;
         this.slotQueryService = slotQueryService;
+        this.exportService = exportService;
+        this.batchService = batchService;
     }
 
     /**
@@ -81,6 +99,19 @@ public class SlotResource {
             .body(result);
     }
 
+    /**
+     * POST  /slots/batch : create, update and delete slots in JDBC batches.
+     *
+     * @param operations the operations to run, in order
+     * @return the ResponseEntity with status 200 (OK) and the result of each operation in body, each with the status
+     * the operation would have had on its own, or with status 400 (Bad Request) if there are too many operations
+     */
+    @PostMapping("/slots/batch")
+    public ResponseEntity<List<BatchResultDTO>> batchSlots(@RequestBody List<BatchOperationDTO<Slot>> operations) {
+        log.debug("REST request to run a batch of {} Slot operations", operations.size());
+        return ResponseEntity.ok().body(batchService.execute(Slot.class, operations));
+    }
+
     /**
      * GET  /slots : get all the slots.
      *
@@ -94,6 +125,42 @@ public class SlotResource {
         return ResponseEntity.ok().body(entityList);
     }
 
+    /**
+     * GET  /slots?after= : get a slice of the slots following a cursor, without the offset scan and count
+     * of the paginated listing. Pass an empty cursor for the first slice, then follow the "next" link.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last slot of the previous slice, empty for the first slice
+     * @param count whether to add the X-Total-Count header, which costs a count query
+     * @param pageable the size and the sort of the slice, on one property besides the id
+     * @return the ResponseEntity with status 200 (OK) and the list of slots in body,
+     * or with status 400 (Bad Request) if the cursor is malformed or does not match the sort
+     */
+    @GetMapping(value = "/slots", params = "after")
+    public ResponseEntity<List<Slot>> getAllSlotsAfter(SlotCriteria criteria, @RequestParam String after,
+            @RequestParam(defaultValue = "false") boolean count, Pageable pageable) {
+        log.debug("REST request to get Slots by criteria: {}, after: {}", criteria, after);
+        KeysetSlice<Slot> slice = slotQueryService.findByCriteria(criteria, KeysetCursor.decode(after), pageable);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice,
+            count ? slotQueryService.countByCriteria(criteria) : null, "/api/slots");
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /slots/export : export all the slots, in id order.
+     *
+     * @param format the format of the export, ndjson or csv
+     * @return the ResponseEntity with status 200 (OK) and the slots in body, written as they are read,
+     * or with status 400 (Bad Request) if the format is unknown
+     */
+    @GetMapping("/slots/export")
+    public ResponseEntity<StreamingResponseBody> exportSlots(@RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("REST request to export Slots as {}", format);
+        ExportService.Format exportFormat = ExportUtil.parseFormat(format, ENTITY_NAME);
+        return ExportUtil.createExportResponse("slots", exportFormat,
+            out -> exportService.export(Slot.class, exportFormat, out));
+    }
+
     /**
     * GET  /slots/count : count all the slots.
     *
@@ -2,6 +2,8 @@ package com.example.web.rest;
 
 import com.example.config.Constants;
 import com.example.domain.User;
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetSlice;
 import com.example.repository.UserRepository;
 import com.example.repository.search.UserSearchRepository;
 import com.example.security.AuthoritiesConstants;
@@ -152,6 +154,23 @@ public class UserResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET /users?after= : get a slice of the users following a cursor.
+     *
+     * @param after the cursor of the last user of the previous slice, empty for the first slice
+     * @param count whether to add the X-Total-Count header
+     * @param pageable the size and the sort of the slice, on one property besides the id
+     * @return the ResponseEntity with status 200 (OK) and with body the users of the slice
+     */
+    @GetMapping(value = "/users", params = "after")
+    public ResponseEntity<List<UserDTO>> getAllUsersAfter(@RequestParam String after,
+            @RequestParam(defaultValue = "false") boolean count, Pageable pageable) {
+        final KeysetSlice<UserDTO> slice = userService.getAllManagedUsers(KeysetCursor.decode(after), pageable);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice,
+            count ? userService.countManagedUsers() : null, "/api/users");
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
     /**
      * @return a string list of the all of the roles
      */
@@ -1,11 +1,18 @@
 package com.example.web.rest;
 import com.example.domain.Vet;
+import com.example.repository.KeysetCursor;
+import com.example.repository.KeysetSlice;
 import com.example.service.VetService;
 import com.example.web.rest.errors.BadRequestAlertException;
+import com.example.web.rest.util.ExportUtil;
 import com.example.web.rest.util.HeaderUtil;
 import com.example.web.rest.util.PaginationUtil;
 import com.example.service.dto.VetCriteria;
 import com.example.service.VetQueryService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
+import com.example.service.dto.BatchOperationDTO;
+import com.example.service.dto.BatchResultDTO;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +22,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -40,9 +48,16 @@ public class VetResource {
 
     private final VetQueryService vetQueryService;
 
-    public VetResource(VetService vetService, VetQueryService vetQueryService) {
+    private final ExportService exportService;
+
+    private final BatchService batchService;
+
+    public VetResource(VetService vetService, VetQueryService vetQueryService, ExportService exportService,
+            BatchService batchService) {
         this.vetService = vetService;
         this.vetQueryService = vetQueryService;
+        this.exportService = exportService;
+        this.batchService = batchService;
     }
 
     /**
@@ -85,31 +100,87 @@ public class VetResource {
             .body(result);
     }
 
+    /**
+     * POST  /vets/batch : create, update and delete vets in JDBC batches.
+     *
+     * @param operations the operations to run, in order
+     * @return the ResponseEntity with status 200 (OK) and the result of each operation in body, each with the status
+     * the operation would have had on its own, or with status 400 (Bad Request) if there are too many operations
+     */
+    @PostMapping("/vets/batch")
+    public ResponseEntity<List<BatchResultDTO>> batchVets(@RequestBody List<BatchOperationDTO<Vet>> operations) {
+        log.debug("REST request to run a batch of {} Vet operations", operations.size());
+        return ResponseEntity.ok().body(batchService.execute(Vet.class, operations));
+    }
+
     /**
      * GET  /vets : get all the vets.
+     * <p>
+     * Text filters may be answered by Elasticsearch, which returns the changes of the last seconds only once they
+     * are indexed. Send the X-Read-Your-Writes header to read them from the database, as they are now.
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param readYourWrites whether the vets saved by the previous requests must be returned as they are now
      * @return the ResponseEntity with status 200 (OK) and the list of vets in body
      */
     @GetMapping("/vets")
-    public ResponseEntity<List<Vet>> getAllVets(VetCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Vet>> getAllVets(VetCriteria criteria, Pageable pageable,
+            @RequestHeader(value = HeaderUtil.READ_YOUR_WRITES, defaultValue = "false") boolean readYourWrites) {
         log.debug("REST request to get Vets by criteria: {}", criteria);
-        Page<Vet> page = vetQueryService.findByCriteria(criteria, pageable);
+        Page<Vet> page = vetQueryService.findByCriteria(criteria, pageable, readYourWrites);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/vets");
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /vets?after= : get a slice of the vets following a cursor, without the offset scan and count
+     * of the paginated listing. Pass an empty cursor for the first slice, then follow the "next" link.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last vet of the previous slice, empty for the first slice
+     * @param count whether to add the X-Total-Count header, which costs a count query
+     * @param pageable the size and the sort of the slice, on one property besides the id
+     * @return the ResponseEntity with status 200 (OK) and the list of vets in body,
+     * or with status 400 (Bad Request) if the cursor is malformed or does not match the sort
+     */
+    @GetMapping(value = "/vets", params = "after")
+    public ResponseEntity<List<Vet>> getAllVetsAfter(VetCriteria criteria, @RequestParam String after,
+            @RequestParam(defaultValue = "false") boolean count, Pageable pageable) {
+        log.debug("REST request to get Vets by criteria: {}, after: {}", criteria, after);
+        KeysetSlice<Vet> slice = vetQueryService.findByCriteria(criteria, KeysetCursor.decode(after), pageable);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice,
+            count ? vetQueryService.countByCriteria(criteria) : null, "/api/vets");
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /vets/export : export all the vets, in id order.
+     *
+     * @param format the format of the export, ndjson or csv
+     * @return the ResponseEntity with status 200 (OK) and the vets in body, written as they are read,
+     * or with status 400 (Bad Request) if the format is unknown
+     */
+    @GetMapping("/vets/export")
+    public ResponseEntity<StreamingResponseBody> exportVets(@RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("REST request to export Vets as {}", format);
+        ExportService.Format exportFormat = ExportUtil.parseFormat(format, ENTITY_NAME);
+        return ExportUtil.createExportResponse("vets", exportFormat,
+            out -> exportService.export(Vet.class, exportFormat, out));
+    }
+
     /**
     * GET  /vets/count : count all the vets.
     *
     * @param criteria the criterias which the requested entities should match
+    * @param readYourWrites whether the vets saved by the previous requests must be counted as they are now
     * @return the ResponseEntity with status 200 (OK) and the count in body
     */
     @GetMapping("/vets/count")
-    public ResponseEntity<Long> countVets(VetCriteria criteria) {
+    public ResponseEntity<Long> countVets(VetCriteria criteria,
+            @RequestHeader(value = HeaderUtil.READ_YOUR_WRITES, defaultValue = "false") boolean readYourWrites) {
         log.debug("REST request to count Vets by criteria: {}", criteria);
-        return ResponseEntity.ok().body(vetQueryService.countByCriteria(criteria));
+        return ResponseEntity.ok().body(vetQueryService.countByCriteria(criteria, readYourWrites));
     }
 
     /**
@@ -0,0 +1,10 @@
+package com.example.web.rest.errors;
+
+public class SlotAlreadyBookedException extends BadRequestAlertException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SlotAlreadyBookedException() {
+        super(ErrorConstants.SLOT_ALREADY_BOOKED_TYPE, "The vet is already booked for this day and slot!", "appointment", "slotbooked");
+    }
+}
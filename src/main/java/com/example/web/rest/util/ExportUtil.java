@@ -0,0 +1,51 @@
+package com.example.web.rest.util;
+
+import com.example.service.ExportService;
+import com.example.web.rest.errors.BadRequestAlertException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+
+/**
+ * Utility class for streamed exports.
+ */
+public final class ExportUtil {
+
+    private ExportUtil() {
+    }
+
+    /**
+     * @param format the name of the format, case insensitive
+     * @param entityName the name of the exported entity, for the error message
+     * @return the format
+     * @throws BadRequestAlertException if the format is unknown
+     */
+    public static ExportService.Format parseFormat(String format, String entityName) {
+        try {
+            return ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid export format " + format, entityName, "invalidformat");
+        }
+    }
+
+    /**
+     * Create the response of an export, downloaded as a file and written after the request thread is released, by
+     * the export threads of {@link com.example.config.ExportConfiguration}.
+     *
+     * @param baseName the name of the downloaded file, without extension
+     * @param format the format of the export
+     * @param body the writer of the export
+     * @return the response
+     */
+    public static ResponseEntity<StreamingResponseBody> createExportResponse(String baseName, ExportService.Format format,
+                                                                             StreamingResponseBody body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.getMediaType() + ";charset=UTF-8"));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + baseName + "." + format.getExtension() + "\"");
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+}
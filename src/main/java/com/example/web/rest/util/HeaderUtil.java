@@ -13,6 +13,11 @@ public final class HeaderUtil {
 
     private static final String APPLICATION_NAME = "petclinic2App";
 
+    /**
+     * The request header asking criteria queries for the entities saved by the previous requests.
+     */
+    public static final String READ_YOUR_WRITES = "X-Read-Your-Writes";
+
     private HeaderUtil() {
     }
 
@@ -1,7 +1,10 @@
 package com.example.web.rest.util;
 
+import com.example.repository.KeysetSlice;
+
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.UnsupportedEncodingException;
@@ -46,6 +49,39 @@ public final class PaginationUtil {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
 
+    /**
+     * Generate the headers of a slice read with keyset pagination: a {@code next} link holding the cursor of the
+     * last entity, and a {@code first} link. Both keep the query parameters of the current request, filters included.
+     *
+     * @param slice the slice
+     * @param totalCount the value of the X-Total-Count header, or null to leave it out
+     * @param baseUrl the path of the resource
+     * @param <T> the type of the entities
+     * @return the headers
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(KeysetSlice<T> slice, Long totalCount, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        if (totalCount != null) {
+            headers.add("X-Total-Count", Long.toString(totalCount));
+        }
+        String link = "";
+        if (slice.getNextCursor() != null) {
+            link = "<" + generateKeysetUri(baseUrl, slice.getNextCursor().encode()) + ">; rel=\"next\",";
+        }
+        link += "<" + generateKeysetUri(baseUrl, "") + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    private static String generateKeysetUri(String baseUrl, String after) {
+        String query = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("page")
+            .replaceQueryParam("after", after)
+            .build(true)
+            .getQuery();
+        return baseUrl + "?" + query;
+    }
+
     public static <T> HttpHeaders generateSearchPaginationHttpHeaders(String query, Page<T> page, String baseUrl) {
         String escapedQuery;
         try {
@@ -0,0 +1,47 @@
+package com.example.web.rest.vm;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * View Model object for the instrumentation switch of a package or class.
+ */
+public class InstrumentationVM {
+
+    @NotBlank
+    private String name;
+
+    private boolean enabled;
+
+    public InstrumentationVM(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+    }
+
+    public InstrumentationVM() {
+        // Empty public constructor used by Jackson.
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentationVM{" +
+            "name='" + name + '\'' +
+            ", enabled=" + enabled +
+            '}';
+    }
+}
@@ -91,7 +91,7 @@ export class SlotUpdate extends React.Component<ISlotUpdateProps, ISlotUpdateSta
                   </Label>
                   <AvField
                     id="slot-startTime"
-                    type="text"
+                    type="time"
                     name="startTime"
                     validate={{
                       required: { value: true, errorMessage: 'This field is required.' }
@@ -0,0 +1,111 @@
+package com.example.aop.logging;
+
+import com.example.Petclinic2App;
+import com.example.repository.VetRepository;
+import com.example.service.VetService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the InstrumentationAspect.
+ *
+ * @see InstrumentationAspect
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+public class InstrumentationAspectIntTest {
+
+    @Autowired
+    private InstrumentationAspect instrumentationAspect;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private VetService vetService;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @After
+    public void enableInstrumentation() {
+        instrumentationAspect.setEnabled("com.example.service.impl", true);
+        instrumentationAspect.setEnabled("com.example.service.impl.VetServiceImpl", true);
+        instrumentationAspect.setEnabled("com.example.repository", true);
+    }
+
+    @Test
+    public void assertThatMethodsAreTimed() {
+        long count = timerCount("findOne", "none");
+
+        vetService.findOne(Long.MAX_VALUE);
+
+        assertThat(timerCount("findOne", "none")).isEqualTo(count + 1);
+    }
+
+    @Test
+    public void assertThatExceptionsAreTimedApart() {
+        long count = timerCount("delete", "EmptyResultDataAccessException");
+
+        assertThatThrownBy(() -> vetService.delete(Long.MAX_VALUE)).isInstanceOf(EmptyResultDataAccessException.class);
+
+        assertThat(timerCount("delete", "EmptyResultDataAccessException")).isEqualTo(count + 1);
+    }
+
+    @Test
+    public void assertThatPackagesAndClassesCanBeSwitchedOff() {
+        vetService.findOne(Long.MAX_VALUE);
+        long count = timerCount("findOne", "none");
+
+        instrumentationAspect.setEnabled("com.example.service.impl.VetServiceImpl", false);
+        vetService.findOne(Long.MAX_VALUE);
+        assertThat(timerCount("findOne", "none")).isEqualTo(count);
+
+        // The most specific switch applies
+        instrumentationAspect.setEnabled("com.example.service.impl", false);
+        instrumentationAspect.setEnabled("com.example.service.impl.VetServiceImpl", true);
+        vetService.findOne(Long.MAX_VALUE);
+        assertThat(timerCount("findOne", "none")).isEqualTo(count + 1);
+        assertThat(instrumentationAspect.getPackages())
+            .containsEntry("com.example.service.impl", false)
+            .containsEntry("com.example.service.impl.VetServiceImpl", true);
+    }
+
+    @Test
+    public void assertThatRepositoryMethodsAreTimedByRepository() {
+        long count = timerCount("VetRepository", "findById", "none");
+
+        // Inherited from CrudRepository, and called on the Spring Data proxy
+        vetRepository.findById(Long.MAX_VALUE);
+
+        assertThat(timerCount("VetRepository", "findById", "none")).isEqualTo(count + 1);
+        assertThat(meterRegistry.find(InstrumentationAspect.TIMER_NAME).tags("class", "CrudRepository").timer())
+            .isNull();
+        assertThat(instrumentationAspect.getPackages()).containsEntry("com.example.repository", true);
+
+        instrumentationAspect.setEnabled("com.example.repository", false);
+        vetRepository.findById(Long.MAX_VALUE);
+        assertThat(timerCount("VetRepository", "findById", "none")).isEqualTo(count + 1);
+    }
+
+    private long timerCount(String method, String exception) {
+        return timerCount("VetServiceImpl", method, exception);
+    }
+
+    private long timerCount(String className, String method, String exception) {
+        Timer timer = meterRegistry.find(InstrumentationAspect.TIMER_NAME)
+            .tags("class", className, "method", method, "exception", exception).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
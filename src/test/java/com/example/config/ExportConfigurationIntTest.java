@@ -0,0 +1,41 @@
+package com.example.config;
+
+import com.example.Petclinic2App;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ExportConfiguration, streaming through the servlet container.
+ *
+ * @see ExportConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    // A context of its own, whose embedded Elasticsearch node must not lock the data of the other one
+    properties = "spring.data.elasticsearch.properties.path.home=target/elasticsearch-export")
+public class ExportConfigurationIntTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void assertThatExportsOutliveTheContainerAsyncTimeout() {
+        // Undertow completes asynchronous requests after 30 seconds by default
+        int seconds = 32;
+
+        ResponseEntity<String> response = new RestTemplate().getForEntity(
+            "http://localhost:" + port + "/test/slow-export?seconds=" + seconds, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().split("\n")).hasSize(seconds).endsWith("{\"line\":" + (seconds - 1) + "}");
+    }
+}
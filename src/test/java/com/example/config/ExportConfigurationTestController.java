@@ -0,0 +1,36 @@
+package com.example.config;
+
+import com.example.service.ExportService;
+import com.example.web.rest.util.ExportUtil;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+public class ExportConfigurationTestController {
+
+    /**
+     * An export writing one line per second, under a path left out of the security filters.
+     */
+    @GetMapping("/test/slow-export")
+    public ResponseEntity<StreamingResponseBody> slowExport(@RequestParam int seconds) {
+        return ExportUtil.createExportResponse("slow", ExportService.Format.NDJSON, out -> {
+            for (int i = 0; i < seconds; i++) {
+                out.write(("{\"line\":" + i + "}\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                try {
+                    TimeUnit.SECONDS.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+    }
+}
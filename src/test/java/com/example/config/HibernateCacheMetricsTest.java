@@ -0,0 +1,72 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link HibernateCacheMetrics} class.
+ */
+public class HibernateCacheMetricsTest {
+
+    private static final String VET_REGION = "com.example.domain.Vet";
+
+    private static final String SLOT_REGION = "com.example.domain.Slot";
+
+    private Statistics statistics;
+
+    private MeterRegistry registry;
+
+    @Before
+    public void setup() {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        statistics = mock(Statistics.class);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[]{VET_REGION, SLOT_REGION});
+        mockRegion(VET_REGION, 9, 1, 1);
+        mockRegion(SLOT_REGION, 0, 0, 0);
+
+        registry = new SimpleMeterRegistry();
+        new HibernateCacheMetrics(sessionFactory).bindTo(registry);
+    }
+
+    @Test
+    public void testRequestsAreCountedPerRegion() {
+        assertThat(getRequests(VET_REGION, "hit")).isEqualTo(9);
+        assertThat(getRequests(VET_REGION, "miss")).isEqualTo(1);
+        assertThat(registry.get("hibernate.cache.region.puts").tag("region", VET_REGION).functionCounter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void testHitRatioPerRegion() {
+        assertThat(registry.get("hibernate.cache.region.hit.ratio").tag("region", VET_REGION).gauge().value())
+            .isEqualTo(0.9);
+        assertThat(registry.get("hibernate.cache.region.hit.ratio").tag("region", SLOT_REGION).gauge().value())
+            .isNaN();
+    }
+
+    private double getRequests(String region, String result) {
+        FunctionCounter counter = registry.get("hibernate.cache.region.requests")
+            .tags("region", region, "result", result)
+            .functionCounter();
+        return counter.count();
+    }
+
+    private void mockRegion(String region, long hits, long misses, long puts) {
+        SecondLevelCacheStatistics regionStatistics = mock(SecondLevelCacheStatistics.class);
+        when(regionStatistics.getHitCount()).thenReturn(hits);
+        when(regionStatistics.getMissCount()).thenReturn(misses);
+        when(regionStatistics.getPutCount()).thenReturn(puts);
+        when(statistics.getSecondLevelCacheStatistics(region)).thenReturn(regionStatistics);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.config;
+
+import com.example.repository.statistics.SqlStatisticsDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SqlStatisticsConfiguration.
+ *
+ * @see SqlStatisticsConfiguration
+ */
+public class SqlStatisticsConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withUserConfiguration(DataSourceConfiguration.class, SqlStatisticsConfiguration.class);
+
+    @Test
+    public void testDataSourceIsWrappedByDefault() {
+        contextRunner.run(context -> {
+            assertThat(context.getBean(DataSource.class)).isInstanceOf(SqlStatisticsDataSource.class);
+            assertThat(context).hasBean("sqlStatisticsFilter");
+        });
+    }
+
+    @Test
+    public void testDataSourceIsLeftAloneWhenDisabled() {
+        contextRunner.withPropertyValues("application.sql-statistics.enabled=false").run(context -> {
+            assertThat(context.getBean(DataSource.class)).isInstanceOf(DriverManagerDataSource.class);
+            assertThat(context).doesNotHaveBean("sqlStatisticsDataSourcePostProcessor");
+            assertThat(context).doesNotHaveBean("sqlStatisticsInterceptorCustomizer");
+            assertThat(context).doesNotHaveBean("sqlStatisticsFilter");
+        });
+    }
+
+    @Configuration
+    static class DataSourceConfiguration {
+
+        @Bean
+        public DataSource dataSource() {
+            return new DriverManagerDataSource();
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public ApplicationProperties applicationProperties() {
+            return new ApplicationProperties();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.config.liquibase;
+
+import org.junit.Test;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the {@link SlotStartTimeChange} class.
+ */
+public class SlotStartTimeChangeTest {
+
+    @Test
+    public void testParseTwentyFourHourTimes() {
+        assertThat(SlotStartTimeChange.parse("9:00")).isEqualTo(LocalTime.of(9, 0));
+        assertThat(SlotStartTimeChange.parse(" 09:30 ")).isEqualTo(LocalTime.of(9, 30));
+        assertThat(SlotStartTimeChange.parse("14:30:15")).isEqualTo(LocalTime.of(14, 30, 15));
+    }
+
+    @Test
+    public void testParseTwelveHourTimes() {
+        assertThat(SlotStartTimeChange.parse("2:30 pm")).isEqualTo(LocalTime.of(14, 30));
+        assertThat(SlotStartTimeChange.parse("11AM")).isEqualTo(LocalTime.of(11, 0));
+    }
+
+    @Test
+    public void testParseOtherTexts() {
+        assertThat(SlotStartTimeChange.parse("morning")).isNull();
+        assertThat(SlotStartTimeChange.parse(null)).isNull();
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.loadtest;
+
+import com.example.Petclinic2App;
+import com.example.loadtest.LoadTestSettings.Scenario;
+import com.example.repository.AppointmentRepository;
+import com.example.repository.OwnerRepository;
+import com.example.repository.search.AppointmentSearchRepository;
+import com.example.repository.search.OwnerSearchRepository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.File;
+import java.net.HttpCookie;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load test of the REST API, run with the {@code loadtest} Maven profile rather than with the other tests.
+ * <p>
+ * The application runs on a random port, with the in-memory H2 database of the tests. Elasticsearch is stood in
+ * for by the mocked search repositories, which answer full-text searches with a page read from the database.
+ * The tables are seeded with the volumes of {@link LoadTestSettings}, then threads send a weighted mix of
+ * listings, criteria filters, searches and bookings, as an authenticated user, for a warm-up period followed by
+ * the measured period.
+ * <p>
+ * The results are written to {@code target/loadtest/report.json}, and the test fails when a scenario has too
+ * many errors, or when its latencies or throughput are worse than the baseline by more than the tolerance.
+ * Run with {@code -Dloadtest.update-baseline=true} to store the results as the new baseline.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ApiLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiLoadTest.class);
+
+    private static final LocalDate SEEDED_FROM = LocalDate.of(2030, 1, 1);
+
+    private static final LocalDate BOOKED_FROM = LocalDate.of(2040, 1, 1);
+
+    private static final String XSRF_TOKEN = "XSRF-TOKEN";
+
+    private final LoadTestSettings settings = new LoadTestSettings();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OwnerSearchRepository mockOwnerSearchRepository;
+
+    @Autowired
+    private AppointmentSearchRepository mockAppointmentSearchRepository;
+
+    private CloseableHttpClient httpClient;
+
+    private RestTemplate restTemplate;
+
+    private HttpHeaders sessionHeaders;
+
+    private long firstPetId;
+
+    private long firstVetId;
+
+    private long firstSlotId;
+
+    private final AtomicLong bookings = new AtomicLong();
+
+    @Before
+    public void init() {
+        when(mockOwnerSearchRepository.search(any(QueryBuilder.class), any(Pageable.class)))
+            .thenAnswer(invocation -> ownerRepository.findAll(invocation.<Pageable>getArgument(1)));
+        when(mockAppointmentSearchRepository.search(any(QueryBuilder.class), any(Pageable.class)))
+            .thenAnswer(invocation -> appointmentRepository.findAll(invocation.<Pageable>getArgument(1)));
+
+        httpClient = HttpClients.custom()
+            .setMaxConnTotal(settings.threads)
+            .setMaxConnPerRoute(settings.threads)
+            .disableCookieManagement()
+            .build();
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory("http://localhost:" + port);
+        uriBuilderFactory.setEncodingMode(DefaultUriBuilderFactory.EncodingMode.VALUES_ONLY);
+        restTemplate.setUriTemplateHandler(uriBuilderFactory);
+        restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                // Failed requests are counted, not thrown
+                return false;
+            }
+        });
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            seed();
+            return null;
+        });
+        sessionHeaders = login("admin", "admin");
+    }
+
+    @After
+    public void close() throws Exception {
+        httpClient.close();
+    }
+
+    @Test
+    public void assertThatTheLoadProfileDoesNotRegress() throws Exception {
+        LoadTestReport report = new LoadTestReport(settings.mix.keySet());
+        List<Scenario> draw = new ArrayList<>();
+        settings.mix.forEach((scenario, weight) -> draw.addAll(Collections.nCopies(weight, scenario)));
+
+        long measuredFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+        long until = measuredFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+        log.info("Running the load test with {} threads, {} s of warm-up and {} s of measurement, mix {}",
+            settings.threads, settings.warmupSeconds, settings.durationSeconds, settings.mix);
+        ExecutorService executor = Executors.newFixedThreadPool(settings.threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < settings.threads; i++) {
+                workers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < until) {
+                        Scenario scenario = draw.get(random.nextInt(draw.size()));
+                        long start = System.nanoTime();
+                        boolean success = send(scenario, random);
+                        if (start >= measuredFrom) {
+                            report.record(scenario, System.nanoTime() - start, success);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ObjectNode results = report.toJson(settings.durationSeconds);
+        log.info("Load test results:\n{}", results.toString());
+        LoadTestReport.write(results, new File("target/loadtest/report.json"));
+
+        File baselineFile = new File(settings.baseline);
+        JsonNode baseline = null;
+        if (settings.updateBaseline) {
+            LoadTestReport.write(results, baselineFile);
+            log.info("Stored the results as the baseline {}", baselineFile);
+        } else if (baselineFile.isFile()) {
+            baseline = LoadTestReport.read(baselineFile);
+        } else {
+            log.warn("No baseline {}, only errors are checked", baselineFile);
+        }
+        assertThat(LoadTestReport.regressions(results, baseline, settings.tolerance, settings.maxErrorRate))
+            .as("Regressions against the baseline " + baselineFile).isEmpty();
+    }
+
+    /**
+     * Send a request of a scenario.
+     *
+     * @return whether the response had the expected status
+     */
+    private boolean send(Scenario scenario, ThreadLocalRandom random) {
+        try {
+            ResponseEntity<String> response;
+            switch (scenario) {
+                case LIST:
+                    response = get("/api/appointments?page={page}&size=20&sort=id,desc", random.nextInt(10));
+                    break;
+                case FILTER:
+                    response = get("/api/appointments?vetId.equals={vetId}&page=0&size=20",
+                        firstVetId + random.nextInt(settings.vets));
+                    break;
+                case SEARCH:
+                    response = get("/api/_search/appointments?query={query}&page=0&size=20",
+                        "vet:\"Vet " + random.nextInt(settings.vets) + "\" AND date:" + SEEDED_FROM + ".." +
+                            SEEDED_FROM.plusMonths(3));
+                    break;
+                case FULLTEXT:
+                    response = get("/api/_search/owners?query={query}&page={page}&size=20", "Owner*", random.nextInt(10));
+                    break;
+                default:
+                    response = book(random);
+            }
+            return response.getStatusCode().is2xxSuccessful();
+        } catch (RuntimeException e) {
+            log.debug("Load test request of {} failed: {}", scenario, e.toString());
+            return false;
+        }
+    }
+
+    private ResponseEntity<String> get(String uri, Object... uriVariables) {
+        return restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(sessionHeaders), String.class, uriVariables);
+    }
+
+    /**
+     * Book the next free vet, slot and day after {@link #BOOKED_FROM}, so that bookings never collide.
+     */
+    private ResponseEntity<String> book(ThreadLocalRandom random) {
+        long booking = bookings.getAndIncrement();
+        Map<String, Object> appointment = new HashMap<>();
+        appointment.put("apptTime", BOOKED_FROM.plusDays(booking / ((long) settings.vets * settings.slots)).toString());
+        appointment.put("vet", Collections.singletonMap("id", firstVetId + booking % settings.vets));
+        appointment.put("slot", Collections.singletonMap("id", firstSlotId + booking / settings.vets % settings.slots));
+        appointment.put("pet", Collections.singletonMap("id",
+            firstPetId + random.nextInt(settings.owners * settings.petsPerOwner)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(sessionHeaders);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.exchange("/api/appointments", HttpMethod.POST, new HttpEntity<>(appointment, headers), String.class);
+    }
+
+    /**
+     * Seed the tables with SQL, taking the ids from the table of the id generator as it would.
+     */
+    private void seed() {
+        long start = System.currentTimeMillis();
+        int pets = settings.owners * settings.petsPerOwner;
+        long firstOwnerId = reserveIds("owner", settings.owners);
+        jdbcTemplate.update("insert into owner(id, name, email) select ? + x, 'Owner ' || x, 'owner' || x || '@localhost' " +
+            "from system_range(0, ?)", firstOwnerId, settings.owners - 1);
+        firstPetId = reserveIds("pet", pets);
+        jdbcTemplate.update("insert into pet(id, name, owner_id) select ? + x, 'Pet ' || x, ? + mod(x, ?) " +
+            "from system_range(0, ?)", firstPetId, firstOwnerId, settings.owners, pets - 1);
+        firstVetId = reserveIds("vet", settings.vets);
+        jdbcTemplate.update("insert into vet(id, name) select ? + x, 'Vet ' || x from system_range(0, ?)",
+            firstVetId, settings.vets - 1);
+        firstSlotId = reserveIds("slot", settings.slots);
+        jdbcTemplate.update("insert into slot(id, start_time) select ? + x, dateadd('MINUTE', 30 * x, time '08:00:00') " +
+            "from system_range(0, ?)", firstSlotId, settings.slots - 1);
+        // One appointment by vet, slot and day, as for the bookings
+        long firstAppointmentId = reserveIds("appointment", settings.appointments);
+        jdbcTemplate.update("insert into appointment(id, appt_time, vet_id, slot_id, pet_id) " +
+                "select ? + x, dateadd('DAY', x / ?, ?), ? + mod(x, ?), ? + mod(x / ?, ?), ? + mod(x, ?) from system_range(0, ?)",
+            firstAppointmentId, settings.vets * settings.slots, Date.valueOf(SEEDED_FROM), firstVetId, settings.vets,
+            firstSlotId, settings.vets, settings.slots, firstPetId, pets, settings.appointments - 1);
+        log.info("Seeded {} owners, {} pets, {} vets, {} slots and {} appointments in {} ms", settings.owners, pets,
+            settings.vets, settings.slots, settings.appointments, System.currentTimeMillis() - start);
+    }
+
+    private long reserveIds(String table, int count) {
+        Long first = jdbcTemplate.queryForObject(
+            "select next_val from id_generator where sequence_name = ? for update", Long.class, table);
+        jdbcTemplate.update("update id_generator set next_val = ? where sequence_name = ?", first + count, table);
+        return first;
+    }
+
+    /**
+     * Log in as the Angular client does: get a CSRF token, then post the credentials with it.
+     *
+     * @return the headers holding the session and CSRF cookies, and the CSRF header
+     */
+    private HttpHeaders login(String username, String password) {
+        ResponseEntity<String> anonymous = restTemplate.getForEntity("/api/account", String.class);
+        String xsrfToken = cookie(anonymous, XSRF_TOKEN);
+        assertThat(xsrfToken).as("CSRF token").isNotNull();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.add(HttpHeaders.COOKIE, XSRF_TOKEN + "=" + xsrfToken);
+        headers.add("X-XSRF-TOKEN", xsrfToken);
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("username", username);
+        form.add("password", password);
+        ResponseEntity<String> authentication = restTemplate.postForEntity("/api/authentication",
+            new HttpEntity<>(form, headers), String.class);
+        assertThat(authentication.getStatusCode()).as("Authentication status").isEqualTo(HttpStatus.OK);
+
+        String sessionId = cookie(authentication, "JSESSIONID");
+        // The token is renewed on authentication
+        String renewedToken = cookie(authentication, XSRF_TOKEN);
+        if (renewedToken != null) {
+            xsrfToken = renewedToken;
+        }
+        HttpHeaders session = new HttpHeaders();
+        session.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+        session.add(HttpHeaders.COOKIE, "JSESSIONID=" + sessionId + "; " + XSRF_TOKEN + "=" + xsrfToken);
+        session.add("X-XSRF-TOKEN", xsrfToken);
+        return session;
+    }
+
+    /**
+     * @return the last non-empty value the response set for the cookie, or null
+     */
+    private static String cookie(ResponseEntity<?> response, String name) {
+        String value = null;
+        for (String header : response.getHeaders().getOrDefault(HttpHeaders.SET_COOKIE, Collections.emptyList())) {
+            for (HttpCookie cookie : HttpCookie.parse(header)) {
+                if (cookie.getName().equals(name) && !cookie.getValue().isEmpty()) {
+                    value = cookie.getValue();
+                }
+            }
+        }
+        return value;
+    }
+}
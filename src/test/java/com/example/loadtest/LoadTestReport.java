@@ -0,0 +1,137 @@
+package com.example.loadtest;
+
+import com.example.loadtest.LoadTestSettings.Scenario;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of the requests of a load test, by scenario.
+ * <p>
+ * The results are written as JSON, one object per scenario holding its request and error counts, its throughput
+ * in requests per second, and its p50, p99 and max latencies in milliseconds. The same format is used for the
+ * baseline.
+ */
+final class LoadTestReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<Scenario, Histogram> latencies = new EnumMap<>(Scenario.class);
+
+    private final Map<Scenario, LongAdder> errors = new EnumMap<>(Scenario.class);
+
+    LoadTestReport(Collection<Scenario> scenarios) {
+        for (Scenario scenario : scenarios) {
+            latencies.put(scenario, new ConcurrentHistogram(MAX_LATENCY, 3));
+            errors.put(scenario, new LongAdder());
+        }
+    }
+
+    /**
+     * Record a request, from any thread.
+     *
+     * @param scenario the scenario of the request
+     * @param nanos the latency of the request
+     * @param success whether the request got the expected response
+     */
+    void record(Scenario scenario, long nanos, boolean success) {
+        latencies.get(scenario).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_LATENCY));
+        if (!success) {
+            errors.get(scenario).increment();
+        }
+    }
+
+    /**
+     * @param seconds the duration of the measurement
+     * @return the results, by scenario name
+     */
+    ObjectNode toJson(double seconds) {
+        ObjectNode results = MAPPER.createObjectNode();
+        for (Map.Entry<Scenario, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            ObjectNode result = results.putObject(entry.getKey().name().toLowerCase(Locale.ROOT));
+            result.put("requests", histogram.getTotalCount());
+            result.put("errors", errors.get(entry.getKey()).sum());
+            result.put("throughput", round(histogram.getTotalCount() / seconds));
+            result.put("p50", round(histogram.getValueAtPercentile(50) / 1000.0));
+            result.put("p99", round(histogram.getValueAtPercentile(99) / 1000.0));
+            result.put("max", round(histogram.getMaxValue() / 1000.0));
+        }
+        return results;
+    }
+
+    static void write(JsonNode results, File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        MAPPER.writeValue(file, results);
+    }
+
+    static JsonNode read(File file) throws IOException {
+        return MAPPER.readTree(file);
+    }
+
+    /**
+     * Compare results with a baseline. Scenarios which are not in the baseline are only checked for errors.
+     *
+     * @param results the results of this run
+     * @param baseline the results to compare with
+     * @param tolerance the allowed degradation, as a fraction of the baseline
+     * @param maxErrorRate the allowed share of failed requests
+     * @return a description of each regression, empty if there are none
+     */
+    static List<String> regressions(JsonNode results, JsonNode baseline, double tolerance, double maxErrorRate) {
+        List<String> regressions = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = results.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String scenario = field.getKey();
+            JsonNode result = field.getValue();
+            long requests = result.get("requests").asLong();
+            if (requests == 0) {
+                regressions.add(scenario + ": no request completed");
+                continue;
+            }
+            double errorRate = (double) result.get("errors").asLong() / requests;
+            if (errorRate > maxErrorRate) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.2f%% of the requests failed", scenario, errorRate * 100));
+            }
+            JsonNode expected = baseline == null ? null : baseline.get(scenario);
+            if (expected == null) {
+                continue;
+            }
+            for (String latency : Arrays.asList("p50", "p99")) {
+                double actual = result.get(latency).asDouble();
+                double limit = expected.get(latency).asDouble() * (1 + tolerance);
+                if (actual > limit) {
+                    regressions.add(String.format(Locale.ROOT, "%s: %s of %.2f ms, over the %.2f ms allowed by the baseline",
+                        scenario, latency, actual, limit));
+                }
+            }
+            double throughput = result.get("throughput").asDouble();
+            double floor = expected.get("throughput").asDouble() * (1 - tolerance);
+            if (throughput < floor) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.1f requests/s, under the %.1f requests/s allowed by the baseline",
+                    scenario, throughput, floor));
+            }
+        }
+        return regressions;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
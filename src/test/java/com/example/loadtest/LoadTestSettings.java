@@ -0,0 +1,90 @@
+package com.example.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings of the load test, read from system properties so that they can be given on the Maven command line,
+ * for instance {@code -Dloadtest.threads=16 -Dloadtest.mix=list:50,book:50}.
+ */
+final class LoadTestSettings {
+
+    /**
+     * The requests of the load profile, with their default share of the mix.
+     */
+    enum Scenario {
+        LIST(35), FILTER(20), SEARCH(15), FULLTEXT(15), BOOK(15);
+
+        private final int defaultWeight;
+
+        Scenario(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+        }
+    }
+
+    final int owners = Integer.getInteger("loadtest.owners", 1000);
+
+    final int petsPerOwner = Integer.getInteger("loadtest.pets-per-owner", 2);
+
+    final int vets = Integer.getInteger("loadtest.vets", 50);
+
+    final int slots = Integer.getInteger("loadtest.slots", 16);
+
+    final int appointments = Integer.getInteger("loadtest.appointments", 20000);
+
+    final int threads = Integer.getInteger("loadtest.threads", 8);
+
+    final int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+
+    final int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+
+    final Map<Scenario, Integer> mix = parseMix(System.getProperty("loadtest.mix"));
+
+    /**
+     * The file holding the results to compare with.
+     */
+    final String baseline = System.getProperty("loadtest.baseline", "src/test/resources/loadtest/baseline.json");
+
+    /**
+     * When true, the results replace the baseline instead of being compared with it.
+     */
+    final boolean updateBaseline = Boolean.getBoolean("loadtest.update-baseline");
+
+    /**
+     * The allowed degradation of latencies and throughput, as a fraction of the baseline.
+     */
+    final double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.25"));
+
+    /**
+     * The allowed share of failed requests, for each scenario.
+     */
+    final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+    /**
+     * @param mix a list of {@code scenario:weight}, such as {@code list:35,book:15}, or null for the default mix
+     */
+    static Map<Scenario, Integer> parseMix(String mix) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        if (mix == null || mix.trim().isEmpty()) {
+            for (Scenario scenario : Scenario.values()) {
+                weights.put(scenario, scenario.defaultWeight);
+            }
+            return weights;
+        }
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid load test mix entry " + entry + ", expected scenario:weight");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Scenario.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The load test mix " + mix + " has no scenario");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.repository;
+
+import com.example.Petclinic2App;
+import com.example.config.ApplicationProperties;
+import com.example.config.ApplicationProperties.AuditEvents.OverflowPolicy;
+import com.example.domain.PersistentAuditEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AuditEventWriteBehind, writing events in committed transactions.
+ *
+ * @see AuditEventWriteBehind
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+public class AuditEventWriteBehindIntTest {
+
+    private static final String PRINCIPAL = "test-write-behind";
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @After
+    public void cleanup() {
+        persistenceAuditEventRepository.deleteAll(writtenEvents());
+    }
+
+    private List<PersistentAuditEvent> writtenEvents() {
+        return persistenceAuditEventRepository.findByPrincipal(PRINCIPAL);
+    }
+
+    private AuditEventWriteBehind writeBehind(int queueCapacity, OverflowPolicy overflowPolicy) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditEvents().setQueueCapacity(queueCapacity);
+        applicationProperties.getAuditEvents().setOverflowPolicy(overflowPolicy);
+        applicationProperties.getAuditEvents().setBlockTimeoutMs(10);
+        return new AuditEventWriteBehind(persistenceAuditEventRepository, transactionManager, applicationProperties,
+            meterRegistry);
+    }
+
+    private static PersistentAuditEvent event(String type) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(PRINCIPAL);
+        event.setAuditEventType(type);
+        event.setAuditEventDate(Instant.now());
+        event.setData(Collections.singletonMap("remoteAddress", "127.0.0.1"));
+        return event;
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("audit.events.dropped").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    public void assertThatEventsAreWrittenInJdbcBatches() {
+        AuditEventWriteBehind writeBehind = writeBehind(1000, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 120; i++) {
+            writeBehind.enqueue(event("AUTHENTICATION_SUCCESS"));
+        }
+        assertThat(writeBehind.getPendingCount()).isEqualTo(120);
+        assertThat(meterRegistry.get("audit.events.queue").gauge().value()).isEqualTo(120);
+
+        JdbcBatchCounter.start();
+        int batches;
+        try {
+            writeBehind.flush();
+        } finally {
+            batches = JdbcBatchCounter.stop();
+        }
+
+        assertThat(writtenEvents()).hasSize(120);
+        assertThat(writeBehind.getPendingCount()).isZero();
+        assertThat(meterRegistry.get("audit.events.written").counter().count()).isEqualTo(120);
+        // Transactions of 100 and 20 events, each inserting its events and their data in batches of at most 50 rows
+        assertThat(batches).isEqualTo(6);
+    }
+
+    @Test
+    public void assertThatTheNewestEventsAreDropped() {
+        AuditEventWriteBehind writeBehind = writeBehind(2, OverflowPolicy.DROP_NEWEST);
+        writeBehind.enqueue(event("first"));
+        writeBehind.enqueue(event("second"));
+        writeBehind.enqueue(event("third"));
+
+        writeBehind.flush();
+
+        assertThat(writtenEvents()).extracting(PersistentAuditEvent::getAuditEventType)
+            .containsExactlyInAnyOrder("first", "second");
+        assertThat(dropped("overflow")).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatTheOldestEventsAreDropped() {
+        AuditEventWriteBehind writeBehind = writeBehind(2, OverflowPolicy.DROP_OLDEST);
+        writeBehind.enqueue(event("first"));
+        writeBehind.enqueue(event("second"));
+        writeBehind.enqueue(event("third"));
+
+        writeBehind.flush();
+
+        assertThat(writtenEvents()).extracting(PersistentAuditEvent::getAuditEventType)
+            .containsExactlyInAnyOrder("second", "third");
+        assertThat(dropped("overflow")).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatBlockedEventsAreDroppedAfterTheTimeout() {
+        AuditEventWriteBehind writeBehind = writeBehind(1, OverflowPolicy.BLOCK);
+        writeBehind.enqueue(event("first"));
+        long start = System.nanoTime();
+        writeBehind.enqueue(event("second"));
+
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(10_000_000L);
+        writeBehind.flush();
+        assertThat(writtenEvents()).extracting(PersistentAuditEvent::getAuditEventType).containsExactly("first");
+        assertThat(dropped("overflow")).isEqualTo(1);
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.repository;
 
 import com.example.Petclinic2App;
+import com.example.config.ApplicationProperties;
 import com.example.config.Constants;
 import com.example.config.audit.AuditEventConverter;
 import com.example.domain.PersistentAuditEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,6 +17,7 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.servlet.http.HttpSession;
@@ -41,6 +45,14 @@ public class CustomAuditEventRepositoryIntTest {
     @Autowired
     private AuditEventConverter auditEventConverter;
 
+    @Autowired
+    private AuditEventWriteBehind contextAuditEventWriteBehind;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private AuditEventWriteBehind auditEventWriteBehind;
+
     private CustomAuditEventRepository customAuditEventRepository;
 
     private PersistentAuditEvent testUserEvent;
@@ -51,7 +63,13 @@ public class CustomAuditEventRepositoryIntTest {
 
     @Before
     public void setup() {
-        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter);
+        // Not scheduled, so that the events are written in the transaction of the test
+        auditEventWriteBehind = new AuditEventWriteBehind(persistenceAuditEventRepository, transactionManager,
+            new ApplicationProperties(), new SimpleMeterRegistry());
+        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter,
+            auditEventWriteBehind);
+        // Events of the previous tests
+        contextAuditEventWriteBehind.flush();
         persistenceAuditEventRepository.deleteAll();
         Instant oneHourAgo = Instant.now().minusSeconds(3600);
 
@@ -80,6 +98,7 @@ public class CustomAuditEventRepositoryIntTest {
         data.put("test-key", "test-value");
         AuditEvent event = new AuditEvent("test-user", "test-type", data);
         customAuditEventRepository.add(event);
+        auditEventWriteBehind.flush();
         List<PersistentAuditEvent> persistentAuditEvents = persistenceAuditEventRepository.findAll();
         assertThat(persistentAuditEvents).hasSize(1);
         PersistentAuditEvent persistentAuditEvent = persistentAuditEvents.get(0);
@@ -100,6 +119,7 @@ public class CustomAuditEventRepositoryIntTest {
         data.put("test-key", largeData);
         AuditEvent event = new AuditEvent("test-user", "test-type", data);
         customAuditEventRepository.add(event);
+        auditEventWriteBehind.flush();
         List<PersistentAuditEvent> persistentAuditEvents = persistenceAuditEventRepository.findAll();
         assertThat(persistentAuditEvents).hasSize(1);
         PersistentAuditEvent persistentAuditEvent = persistentAuditEvents.get(0);
@@ -123,6 +143,7 @@ public class CustomAuditEventRepositoryIntTest {
         data.put("test-key", details);
         AuditEvent event = new AuditEvent("test-user", "test-type", data);
         customAuditEventRepository.add(event);
+        auditEventWriteBehind.flush();
         List<PersistentAuditEvent> persistentAuditEvents = persistenceAuditEventRepository.findAll();
         assertThat(persistentAuditEvents).hasSize(1);
         PersistentAuditEvent persistentAuditEvent = persistentAuditEvents.get(0);
@@ -136,6 +157,7 @@ public class CustomAuditEventRepositoryIntTest {
         data.put("test-key", null);
         AuditEvent event = new AuditEvent("test-user", "test-type", data);
         customAuditEventRepository.add(event);
+        auditEventWriteBehind.flush();
         List<PersistentAuditEvent> persistentAuditEvents = persistenceAuditEventRepository.findAll();
         assertThat(persistentAuditEvents).hasSize(1);
         PersistentAuditEvent persistentAuditEvent = persistentAuditEvents.get(0);
@@ -148,6 +170,7 @@ public class CustomAuditEventRepositoryIntTest {
         data.put("test-key", "test-value");
         AuditEvent event = new AuditEvent(Constants.ANONYMOUS_USER, "test-type", data);
         customAuditEventRepository.add(event);
+        auditEventWriteBehind.flush();
         List<PersistentAuditEvent> persistentAuditEvents = persistenceAuditEventRepository.findAll();
         assertThat(persistentAuditEvents).hasSize(0);
     }
@@ -158,6 +181,7 @@ public class CustomAuditEventRepositoryIntTest {
         data.put("test-key", "test-value");
         AuditEvent event = new AuditEvent("test-user", "AUTHORIZATION_FAILURE", data);
         customAuditEventRepository.add(event);
+        auditEventWriteBehind.flush();
         List<PersistentAuditEvent> persistentAuditEvents = persistenceAuditEventRepository.findAll();
         assertThat(persistentAuditEvents).hasSize(0);
     }
@@ -0,0 +1,39 @@
+package com.example.repository;
+
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the JDBC batches executed by Hibernate on the current thread, between {@link #start()} and
+ * {@link #stop()}. Statements which are not batched are not counted.
+ * <p>
+ * It is registered as the {@code hibernate.session.events.auto} listener of the test configuration.
+ */
+public class JdbcBatchCounter extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<AtomicInteger> BATCHES = new ThreadLocal<>();
+
+    public static void start() {
+        BATCHES.set(new AtomicInteger());
+    }
+
+    /**
+     * @return the number of batches executed since {@link #start()}
+     */
+    public static int stop() {
+        AtomicInteger batches = BATCHES.get();
+        BATCHES.remove();
+        return batches.get();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        AtomicInteger batches = BATCHES.get();
+        if (batches != null) {
+            batches.incrementAndGet();
+        }
+    }
+}
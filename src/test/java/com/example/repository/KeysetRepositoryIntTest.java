@@ -0,0 +1,131 @@
+package com.example.repository;
+
+import com.example.Petclinic2App;
+import com.example.domain.Owner;
+import com.example.domain.Owner_;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the KeysetRepository, paging through owners with duplicate and null sort keys.
+ *
+ * @see KeysetRepository
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+@Transactional
+public class KeysetRepositoryIntTest {
+
+    private static final String PREFIX = "KEYSET-";
+
+    private static final Specification<Owner> KEYSET_OWNERS = (root, query, cb) ->
+        cb.like(root.get(Owner_.email), PREFIX + "%");
+
+    @Autowired
+    private KeysetRepository keysetRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private List<Owner> owners;
+
+    @Before
+    public void init() {
+        owners = new ArrayList<>();
+        String[] names = {"b", "a", null, "c", "b", null, "a", "b", "d", "c", "b"};
+        for (int i = 0; i < names.length; i++) {
+            Owner owner = new Owner().name(names[i]).email(PREFIX + i);
+            em.persist(owner);
+            owners.add(owner);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void assertThatAscendingSlicesHaveNoGapNorDuplicate() {
+        Comparator<Owner> byName = Comparator.comparing(Owner::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+        assertThat(readAll(Sort.by("name"))).containsExactlyElementsOf(expectedIds(byName.thenComparing(Owner::getId)));
+    }
+
+    @Test
+    public void assertThatDescendingSlicesHaveNoGapNorDuplicate() {
+        Comparator<Owner> byName = Comparator.comparing(Owner::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+        assertThat(readAll(Sort.by(Sort.Direction.DESC, "name")))
+            .containsExactlyElementsOf(expectedIds(byName.thenComparing(Owner::getId).reversed()));
+    }
+
+    @Test
+    public void assertThatSlicesAreSortedByIdByDefault() {
+        assertThat(readAll(Sort.unsorted())).containsExactlyElementsOf(expectedIds(Comparator.comparing(Owner::getId)));
+    }
+
+    @Test
+    public void assertThatCursorSurvivesEncoding() {
+        KeysetSlice<Owner> slice = keysetRepository.findSlice(Owner.class, KEYSET_OWNERS, null,
+            PageRequest.of(0, 2, Sort.by("name")));
+
+        KeysetCursor cursor = KeysetCursor.decode(slice.getNextCursor().encode());
+
+        assertThat(cursor).isEqualTo(slice.getNextCursor());
+        assertThat(keysetRepository.count(Owner.class, KEYSET_OWNERS)).isEqualTo(owners.size());
+    }
+
+    @Test
+    public void assertThatCursorOfAnotherSortIsRejected() {
+        KeysetSlice<Owner> slice = keysetRepository.findSlice(Owner.class, KEYSET_OWNERS, null,
+            PageRequest.of(0, 2, Sort.by("name")));
+
+        assertThatThrownBy(() -> keysetRepository.findSlice(Owner.class, KEYSET_OWNERS, slice.getNextCursor(),
+            PageRequest.of(0, 2, Sort.by("email"))))
+            .isInstanceOf(KeysetPaginationException.class);
+    }
+
+    @Test
+    public void assertThatSeveralSortPropertiesAreRejected() {
+        assertThatThrownBy(() -> keysetRepository.findSlice(Owner.class, KEYSET_OWNERS, null,
+            PageRequest.of(0, 2, Sort.by("name", "email"))))
+            .isInstanceOf(KeysetPaginationException.class);
+    }
+
+    @Test
+    public void assertThatMalformedCursorIsRejected() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor"))
+            .isInstanceOf(KeysetPaginationException.class);
+    }
+
+    private List<Long> readAll(Sort sort) {
+        List<Long> ids = new ArrayList<>();
+        KeysetCursor cursor = null;
+        do {
+            KeysetSlice<Owner> slice = keysetRepository.findSlice(Owner.class, KEYSET_OWNERS, cursor,
+                PageRequest.of(0, 3, sort));
+            assertThat(slice.getContent().size()).isLessThanOrEqualTo(3);
+            slice.forEach(owner -> ids.add(owner.getId()));
+            cursor = slice.getNextCursor() == null ? null : KeysetCursor.decode(slice.getNextCursor().encode());
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<Long> expectedIds(Comparator<Owner> comparator) {
+        return owners.stream().sorted(comparator).map(Owner::getId).collect(Collectors.toList());
+    }
+}
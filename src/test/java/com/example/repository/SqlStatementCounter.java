@@ -0,0 +1,50 @@
+package com.example.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Counts the SQL statements prepared by Hibernate during a test, to catch queries which degrade into one
+ * select per row.
+ * <p>
+ * Hibernate statistics are global to the session factory, so background jobs running queries at the same
+ * time would be counted too; they are disabled again by {@link #close()}.
+ */
+public class SqlStatementCounter implements AutoCloseable {
+
+    private final Statistics statistics;
+
+    private final boolean statisticsEnabled;
+
+    public SqlStatementCounter(EntityManager em) {
+        this.statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        this.statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    /**
+     * @return the number of statements prepared since the counter was created or last reset
+     */
+    public long getStatementCount() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * @return the number of entities loaded since the counter was created or last reset
+     */
+    public long getEntityLoadCount() {
+        return statistics.getEntityLoadCount();
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    @Override
+    public void close() {
+        statistics.setStatisticsEnabled(statisticsEnabled);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.repository.search;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.Owner;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the SearchBulkIndexer.
+ *
+ * @see SearchBulkIndexer
+ */
+public class SearchBulkIndexerUnitTest {
+
+    private JestClient jestClient;
+
+    private ApplicationProperties applicationProperties;
+
+    private SearchBulkIndexer searchBulkIndexer;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        jestClient = mock(JestClient.class);
+        ElasticsearchOperations elasticsearchOperations = mock(ElasticsearchOperations.class);
+        ElasticsearchPersistentEntity persistentEntity = mock(ElasticsearchPersistentEntity.class);
+        when(persistentEntity.getIndexName()).thenReturn("owner");
+        when(persistentEntity.getIndexType()).thenReturn("owner");
+        when(elasticsearchOperations.getPersistentEntityFor(Owner.class)).thenReturn(persistentEntity);
+        EntityMapper entityMapper = mock(EntityMapper.class);
+        when(entityMapper.mapToString(any())).thenReturn("{\"name\":\"AAAAAAAAAA\"}");
+
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearchBulk().setMaxActions(2);
+        searchBulkIndexer = new SearchBulkIndexer(jestClient, elasticsearchOperations, entityMapper, applicationProperties);
+    }
+
+    @After
+    public void destroy() {
+        searchBulkIndexer.destroy();
+    }
+
+    @Test
+    public void assertThatDocumentsAreSplitByActionCount() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenAnswer(invocation -> bulkResult("{\"errors\":false,\"items\":[]}"));
+
+        BulkIndexResult result = searchBulkIndexer.index(Owner.class, owners(5), Owner::getId);
+
+        assertThat(result.getRequests()).isEqualTo(3);
+        assertThat(result.isSuccessful()).isTrue();
+        verify(jestClient, times(3)).execute(any(Bulk.class));
+    }
+
+    @Test
+    public void assertThatDocumentsAreSplitByPayloadSize() throws Exception {
+        applicationProperties.getSearchBulk().setMaxActions(1000);
+        applicationProperties.getSearchBulk().setMaxBytes(30);
+        when(jestClient.execute(any(Bulk.class))).thenAnswer(invocation -> bulkResult("{\"errors\":false,\"items\":[]}"));
+
+        BulkIndexResult result = searchBulkIndexer.index(Owner.class, owners(3), Owner::getId);
+
+        assertThat(result.getRequests()).isEqualTo(3);
+    }
+
+    @Test
+    public void assertThatFailedItemsAreReported() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenAnswer(invocation -> bulkResult("{\"errors\":true,\"items\":[" +
+            "{\"index\":{\"_index\":\"owner\",\"_type\":\"owner\",\"_id\":\"1\",\"status\":201}}," +
+            "{\"index\":{\"_index\":\"owner\",\"_type\":\"owner\",\"_id\":\"2\",\"status\":400," +
+            "\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"failed to parse\"}}}]}"));
+
+        BulkIndexResult result = searchBulkIndexer.index(Owner.class, owners(2), Owner::getId);
+
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        assertThat(result.getFailures()).containsOnlyKeys("2");
+        assertThat(result.getFailures().get("2")).contains("mapper_parsing_exception");
+    }
+
+    @Test
+    public void assertThatUnreachableClusterFailsAllDocuments() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenThrow(new java.io.IOException("Connection refused"));
+
+        BulkIndexResult result = searchBulkIndexer.delete(Owner.class, Arrays.asList(1L, 2L, 3L));
+
+        assertThat(result.getFailures()).containsOnlyKeys("1", "2", "3");
+    }
+
+    private static List<Owner> owners(int count) {
+        List<Owner> owners = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            Owner owner = new Owner().name("AAAAAAAAAA");
+            owner.setId(id);
+            owners.add(owner);
+        }
+        return owners;
+    }
+
+    private static BulkResult bulkResult(String json) {
+        BulkResult result = new BulkResult(new Gson());
+        result.setJsonString(json);
+        result.setJsonObject(new JsonParser().parse(json).getAsJsonObject());
+        result.setSucceeded(!json.contains("\"errors\":true"));
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.security;
+
+import com.example.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the AdaptivePasswordEncoder.
+ *
+ * @see AdaptivePasswordEncoder
+ */
+public class AdaptivePasswordEncoderUnitTest {
+
+    private static final String PASSWORD = "password";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(1));
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private AdaptivePasswordEncoder encoder(String algorithm, int bcryptStrength) {
+        return encoder(algorithm, bcryptStrength, 2000);
+    }
+
+    private AdaptivePasswordEncoder encoder(String algorithm, int bcryptStrength, long timeoutMs) {
+        ApplicationProperties.PasswordHashing properties = new ApplicationProperties.PasswordHashing();
+        properties.setAlgorithm(algorithm);
+        properties.setBcryptStrength(bcryptStrength);
+        properties.setTimeoutMs(timeoutMs);
+        return new AdaptivePasswordEncoder(properties, executor, meterRegistry);
+    }
+
+    /**
+     * Take the only hashing thread until the returned latch is counted down.
+     */
+    private CountDownLatch blockHashingThread() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        return release;
+    }
+
+    @Test
+    public void testBcryptHashesAreNotPrefixed() {
+        AdaptivePasswordEncoder encoder = encoder(AdaptivePasswordEncoder.BCRYPT, 5);
+
+        String hash = encoder.encode(PASSWORD);
+
+        assertThat(hash).startsWith("$2a$05$").hasSize(60);
+        assertThat(encoder.matches(PASSWORD, hash)).isTrue();
+        assertThat(encoder.matches("other", hash)).isFalse();
+        assertThat(encoder.needsUpgrade(hash)).isFalse();
+        assertThat(meterRegistry.get("security.password.hashing").tag("operation", "matches").timer().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    public void testHashesOfAnotherCostNeedAnUpgrade() {
+        AdaptivePasswordEncoder encoder = encoder(AdaptivePasswordEncoder.BCRYPT, 5);
+        String legacyHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        assertThat(encoder.matches(PASSWORD, legacyHash)).isTrue();
+        assertThat(encoder.needsUpgrade(legacyHash)).isTrue();
+        assertThat(encoder.needsUpgrade(new BCryptPasswordEncoder(6).encode(PASSWORD))).isTrue();
+    }
+
+    @Test
+    public void testHashesOfAnotherAlgorithmNeedAnUpgrade() {
+        AdaptivePasswordEncoder encoder = encoder(AdaptivePasswordEncoder.PBKDF2, 4);
+        String legacyHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        String hash = encoder.encode(PASSWORD);
+
+        assertThat(hash).startsWith("{pbkdf2}");
+        assertThat(hash.length()).isLessThanOrEqualTo(100);
+        assertThat(encoder.matches(PASSWORD, hash)).isTrue();
+        assertThat(encoder.needsUpgrade(hash)).isFalse();
+        assertThat(encoder.matches(PASSWORD, legacyHash)).isTrue();
+        assertThat(encoder.needsUpgrade(legacyHash)).isTrue();
+        // And back to BCrypt
+        assertThat(encoder(AdaptivePasswordEncoder.BCRYPT, 4).needsUpgrade(hash)).isTrue();
+    }
+
+    @Test
+    public void testUnknownAlgorithmsAreRefused() {
+        assertThatThrownBy(() -> encoder("md5", 4)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testHashingIsRejectedWhenTheQueueIsFull() throws Exception {
+        AdaptivePasswordEncoder encoder = encoder(AdaptivePasswordEncoder.BCRYPT, 4);
+        String hash = encoder.encode(PASSWORD);
+        CountDownLatch release = blockHashingThread();
+        CountDownLatch drained = new CountDownLatch(1);
+        executor.execute(drained::countDown);
+
+        try {
+            assertThatThrownBy(() -> encoder.matches(PASSWORD, hash))
+                .isInstanceOf(PasswordHashingRejectedException.class);
+            assertThat(meterRegistry.get("security.password.hashing.rejected").counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("security.password.hashing.queue").gauge().value()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+        drained.await();
+        assertThat(encoder.matches(PASSWORD, hash)).isTrue();
+    }
+
+    @Test
+    public void testHashingIsRejectedWhenTheWaitTimesOut() throws Exception {
+        AdaptivePasswordEncoder encoder = encoder(AdaptivePasswordEncoder.BCRYPT, 4, 50);
+        String hash = encoder.encode(PASSWORD);
+        CountDownLatch release = blockHashingThread();
+
+        try {
+            assertThatThrownBy(() -> encoder.matches(PASSWORD, hash))
+                .isInstanceOf(PasswordHashingRejectedException.class)
+                .hasMessageContaining("Timed out");
+            assertThat(meterRegistry.get("security.password.hashing.rejected").counter().count()).isEqualTo(1);
+            // The abandoned hash does not hold its place in the queue
+            assertThat(meterRegistry.get("security.password.hashing.queue").gauge().value()).isZero();
+        } finally {
+            release.countDown();
+        }
+        assertThat(encoder.matches(PASSWORD, hash)).isTrue();
+    }
+}
@@ -2,7 +2,12 @@ package com.example.security;
 
 import com.example.Petclinic2App;
 import com.example.domain.User;
+import com.example.repository.SqlStatementCounter;
 import com.example.repository.UserRepository;
+import com.example.service.UserService;
+import com.example.service.dto.UserDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Before;
@@ -10,15 +15,19 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.Locale;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Test class for DomainUserDetailsService.
@@ -43,12 +52,27 @@ public class DomainUserDetailsServiceIntTest {
     @Autowired
     private UserDetailsService domainUserDetailsService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager em;
+
     private User userOne;
     private User userTwo;
     private User userThree;
 
     @Before
     public void init() {
+        cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_BY_EMAIL_CACHE).clear();
+
         userOne = new User();
         userOne.setLogin(USER_ONE_LOGIN);
         userOne.setPassword(RandomStringUtils.random(60));
@@ -124,4 +148,49 @@ public class DomainUserDetailsServiceIntTest {
         domainUserDetailsService.loadUserByUsername(USER_THREE_LOGIN);
     }
 
+    @Test
+    @Transactional
+    public void assertThatUserDetailsAreCached() {
+        domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN);
+        domainUserDetailsService.loadUserByUsername(USER_TWO_EMAIL);
+        double loginHits = cacheRequests("login", "hit");
+        double emailHits = cacheRequests("email", "hit");
+
+        UserDetails byLogin;
+        UserDetails byEmail;
+        try (SqlStatementCounter sqlStatementCounter = new SqlStatementCounter(em)) {
+            byLogin = domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN.toUpperCase(Locale.ENGLISH));
+            byEmail = domainUserDetailsService.loadUserByUsername(USER_TWO_EMAIL);
+
+            assertThat(sqlStatementCounter.getStatementCount()).isZero();
+        }
+        assertThat(byLogin.getUsername()).isEqualTo(USER_ONE_LOGIN);
+        assertThat(byLogin.getPassword()).isEqualTo(userOne.getPassword());
+        assertThat(byEmail.getUsername()).isEqualTo(USER_TWO_LOGIN);
+        assertThat(cacheRequests("login", "hit")).isEqualTo(loginHits + 1);
+        assertThat(cacheRequests("email", "hit")).isEqualTo(emailHits + 1);
+    }
+
+    @Test
+    @Transactional
+    public void assertThatChangedUsersAreReloaded() {
+        domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN);
+        domainUserDetailsService.loadUserByUsername(USER_ONE_EMAIL);
+
+        UserDTO userDTO = new UserDTO(userOne);
+        userDTO.setEmail("test-user-one-changed@localhost");
+        userDTO.setAuthorities(Collections.singleton(AuthoritiesConstants.ADMIN));
+        userService.updateUser(userDTO);
+
+        assertThat(domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN).getAuthorities())
+            .extracting("authority").containsExactly(AuthoritiesConstants.ADMIN);
+        assertThat(domainUserDetailsService.loadUserByUsername("test-user-one-changed@localhost").getUsername())
+            .isEqualTo(USER_ONE_LOGIN);
+        assertThatThrownBy(() -> domainUserDetailsService.loadUserByUsername(USER_ONE_EMAIL))
+            .isInstanceOf(UsernameNotFoundException.class);
+    }
+
+    private double cacheRequests(String key, String result) {
+        return meterRegistry.get("security.user.details.cache.requests").tags("key", key, "result", result).counter().count();
+    }
 }
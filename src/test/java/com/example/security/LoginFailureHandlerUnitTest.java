@@ -0,0 +1,43 @@
+package com.example.security;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the LoginFailureHandler.
+ *
+ * @see LoginFailureHandler
+ */
+public class LoginFailureHandlerUnitTest {
+
+    private final LoginFailureHandler loginFailureHandler = new LoginFailureHandler();
+
+    @Test
+    public void testSaturatedHashingIsToBeRetried() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        loginFailureHandler.onAuthenticationFailure(new MockHttpServletRequest(), response,
+            new PasswordHashingRejectedException("Too many passwords are being hashed"));
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    public void testBadCredentialsAreUnauthorized() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        loginFailureHandler.onAuthenticationFailure(new MockHttpServletRequest(), response,
+            new BadCredentialsException("Bad credentials"));
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_UNAUTHORIZED);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isNull();
+    }
+}
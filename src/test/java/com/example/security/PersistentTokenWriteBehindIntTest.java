@@ -0,0 +1,169 @@
+package com.example.security;
+
+import com.example.Petclinic2App;
+import com.example.config.ApplicationProperties;
+import com.example.domain.PersistentToken;
+import com.example.repository.PersistentTokenRepository;
+import com.example.repository.UserRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the PersistentTokenWriteBehind, and its use by the remember-me auto-login.
+ *
+ * @see PersistentTokenWriteBehind
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+public class PersistentTokenWriteBehindIntTest {
+
+    private static final String SERIES = "write-behind-series";
+
+    @Autowired
+    private PersistentTokenWriteBehind persistentTokenWriteBehind;
+
+    @Autowired
+    private PersistentTokenRememberMeServices persistentTokenRememberMeServices;
+
+    @Autowired
+    private PersistentTokenRepository persistentTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PersistentToken token;
+
+    @Before
+    public void init() {
+        token = new PersistentToken();
+        token.setSeries(SERIES);
+        token.setTokenValue("initial");
+        token.setTokenDate(LocalDate.now().minusDays(1));
+        token.setIpAddress("127.0.0.1");
+        token.setUserAgent("Test");
+        token.setUser(userRepository.findOneByLogin("user").get());
+        persistentTokenRepository.saveAndFlush(token);
+    }
+
+    @After
+    public void cleanup() {
+        persistentTokenWriteBehind.discard(SERIES);
+        persistentTokenRepository.findById(SERIES).ifPresent(persistentTokenRepository::delete);
+    }
+
+    @Test
+    public void assertThatRefreshesAreCoalesced() {
+        token.setTokenValue("first");
+        persistentTokenWriteBehind.refresh(token);
+        token.setTokenValue("second");
+        token.setTokenDate(LocalDate.now());
+        persistentTokenWriteBehind.refresh(token);
+
+        // Refreshes are copied, and the latest one is served until it is written
+        token.setTokenValue("third");
+        assertThat(persistentTokenWriteBehind.getPending(SERIES)).hasValueSatisfying(pending ->
+            assertThat(pending.getTokenValue()).isEqualTo("second"));
+
+        persistentTokenWriteBehind.flush();
+
+        assertThat(persistentTokenWriteBehind.getPending(SERIES)).isEmpty();
+        PersistentToken written = persistentTokenRepository.findById(SERIES).get();
+        assertThat(written.getTokenValue()).isEqualTo("second");
+        assertThat(written.getTokenDate()).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    public void assertThatAutoLoginsSeeTheirPendingRefresh() {
+        UserDetails userDetails = autoLogin("initial");
+        assertThat(userDetails.getUsername()).isEqualTo("user");
+        String refreshed = persistentTokenWriteBehind.getPending(SERIES).map(PersistentToken::getTokenValue)
+            .orElseGet(() -> persistentTokenRepository.findById(SERIES).get().getTokenValue());
+        assertThat(refreshed).isNotEqualTo("initial");
+
+        // The refreshed cookie is accepted whether the refresh was written or not
+        assertThat(autoLogin(refreshed).getUsername()).isEqualTo("user");
+
+        persistentTokenWriteBehind.flush();
+        PersistentToken written = persistentTokenRepository.findById(SERIES).get();
+        assertThat(written.getTokenValue()).isNotIn("initial", refreshed);
+        assertThat(written.getTokenDate()).isEqualTo(LocalDate.now());
+        assertThat(written.getUserAgent()).isEqualTo("Browser");
+    }
+
+    @Test
+    public void assertThatDeletedSeriesAreNotServedAgain() throws Exception {
+        token.setTokenValue("refreshed");
+        persistentTokenWriteBehind.refresh(token);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> refreshing = executor.submit(() -> {
+            // As an auto-login refreshing the token of the series
+            synchronized (persistentTokenWriteBehind.lockFor(SERIES)) {
+                locked.countDown();
+                release.await();
+            }
+            return null;
+        });
+        locked.await();
+        Future<?> deleting = executor.submit(() -> persistentTokenWriteBehind.delete(SERIES));
+        assertThatThrownBy(() -> deleting.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        release.countDown();
+        refreshing.get(10, TimeUnit.SECONDS);
+        deleting.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(persistentTokenWriteBehind.getPending(SERIES)).isEmpty();
+        assertThat(persistentTokenRepository.findById(SERIES)).isEmpty();
+    }
+
+    @Test
+    public void assertThatRefreshesAreWrittenAtOnceWithSeveralNodes() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPersistentToken().setSingleNode(false);
+        PersistentTokenWriteBehind writeThrough = new PersistentTokenWriteBehind(jdbcTemplate, transactionManager,
+            persistentTokenRepository, applicationProperties);
+
+        token.setTokenValue("written");
+        writeThrough.refresh(token);
+
+        assertThat(writeThrough.getPending(SERIES)).isEmpty();
+        assertThat(persistentTokenRepository.findById(SERIES).get().getTokenValue()).isEqualTo("written");
+    }
+
+    private UserDetails autoLogin(String tokenValue) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("User-Agent", "Browser");
+        return persistentTokenRememberMeServices.processAutoLoginCookie(new String[] { SERIES, tokenValue }, request,
+            new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.security;
+
+import com.example.Petclinic2App;
+import com.example.domain.User;
+import com.example.repository.UserRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the RehashingAuthenticationProvider, with the default BCrypt strength of 10.
+ *
+ * @see RehashingAuthenticationProvider
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+@Transactional
+public class RehashingAuthenticationProviderIntTest {
+
+    private static final String LOGIN = "test-rehashing";
+
+    private static final String PASSWORD = "rehashing-password";
+
+    @Autowired
+    private RehashingAuthenticationProvider authenticationProvider;
+
+    @Autowired
+    private AdaptivePasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Before
+    public void clearCaches() {
+        Objects.requireNonNull(cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_BY_LOGIN_CACHE)).clear();
+        Objects.requireNonNull(cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_BY_EMAIL_CACHE)).clear();
+        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).clear();
+    }
+
+    private User createUser(String encryptedPassword) {
+        User user = new User();
+        user.setLogin(LOGIN);
+        user.setEmail(LOGIN + "@localhost");
+        user.setPassword(encryptedPassword);
+        user.setActivated(true);
+        return userRepository.saveAndFlush(user);
+    }
+
+    @Test
+    public void assertThatWeakerHashesAreUpgradedOnLogin() {
+        String weakHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        createUser(weakHash);
+
+        Authentication authentication = authenticationProvider.authenticate(
+            new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+
+        assertThat(authentication.isAuthenticated()).isTrue();
+        String upgradedHash = userRepository.findOneByLogin(LOGIN).get().getPassword();
+        assertThat(upgradedHash).startsWith("$2a$10$");
+        assertThat(passwordEncoder.needsUpgrade(upgradedHash)).isFalse();
+        assertThat(passwordEncoder.matches(PASSWORD, upgradedHash)).isTrue();
+        // The next login reads the new hash
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+        assertThat(userRepository.findOneByLogin(LOGIN).get().getPassword()).isEqualTo(upgradedHash);
+    }
+
+    @Test
+    public void assertThatFailedLoginsDoNotUpgradeHashes() {
+        String weakHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        createUser(weakHash);
+
+        assertThatThrownBy(() -> authenticationProvider.authenticate(
+            new UsernamePasswordAuthenticationToken(LOGIN, "wrong-password")))
+            .isInstanceOf(BadCredentialsException.class);
+
+        assertThat(userRepository.findOneByLogin(LOGIN).get().getPassword()).isEqualTo(weakHash);
+    }
+
+    @Test
+    public void assertThatCurrentHashesAreKept() {
+        String hash = passwordEncoder.encode(PASSWORD);
+        createUser(hash);
+
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+
+        assertThat(userRepository.findOneByLogin(LOGIN).get().getPassword()).isEqualTo(hash);
+    }
+}
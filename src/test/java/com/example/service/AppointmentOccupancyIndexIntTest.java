@@ -0,0 +1,212 @@
+package com.example.service;
+
+import com.example.Petclinic2App;
+import com.example.config.ApplicationProperties;
+import com.example.domain.Appointment;
+import com.example.domain.Slot;
+import com.example.domain.Vet;
+import com.example.repository.AppointmentRepository;
+import com.example.repository.SearchOutboxEventRepository;
+import com.example.repository.SlotRepository;
+import com.example.repository.SqlStatementCounter;
+import com.example.repository.VetRepository;
+import com.example.web.rest.errors.SlotAlreadyBookedException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the AppointmentOccupancyIndex, booking through the AppointmentService in committed transactions.
+ *
+ * @see AppointmentOccupancyIndex
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+public class AppointmentOccupancyIndexIntTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 15);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentOccupancyIndex appointmentOccupancyIndex;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Vet vet;
+
+    private Slot morning;
+
+    private Slot afternoon;
+
+    @Before
+    public void init() {
+        vet = vetRepository.save(new Vet().name("Occupancy"));
+        morning = slotRepository.save(new Slot().startTime(LocalTime.of(9, 0)));
+        afternoon = slotRepository.save(new Slot().startTime(LocalTime.of(14, 0)));
+    }
+
+    @After
+    public void cleanup() {
+        List<Appointment> appointments = appointmentRepository.findAll(
+            (root, query, cb) -> cb.equal(root.get("vet"), vet));
+        appointmentRepository.deleteAll(appointments);
+        slotRepository.delete(morning);
+        slotRepository.delete(afternoon);
+        vetRepository.delete(vet);
+        searchOutboxEventRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatConcurrentBookingsOfASlotAreRejected() throws Exception {
+        int attempts = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Appointment>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return appointmentService.save(book(morning));
+            }));
+        }
+        start.countDown();
+        int booked = 0;
+        int rejected = 0;
+        for (Future<Appointment> result : results) {
+            try {
+                result.get(30, TimeUnit.SECONDS);
+                booked++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(SlotAlreadyBookedException.class);
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(booked).isEqualTo(1);
+        assertThat(rejected).isEqualTo(attempts - 1);
+        assertThat(appointmentOccupancyIndex.isBooked(vet.getId(), DAY, morning.getId())).isTrue();
+        assertThat(appointmentOccupancyIndex.isBooked(vet.getId(), DAY, afternoon.getId())).isFalse();
+    }
+
+    @Test
+    public void assertThatMovedAndDeletedAppointmentsFreeTheirSlot() {
+        Appointment appointment = appointmentService.save(book(morning));
+
+        appointmentService.save(appointment.slot(afternoon));
+
+        assertThat(appointmentOccupancyIndex.isBooked(vet.getId(), DAY, morning.getId())).isFalse();
+        assertThat(appointmentOccupancyIndex.isBooked(vet.getId(), DAY, afternoon.getId())).isTrue();
+        appointmentService.save(book(morning));
+
+        appointmentService.delete(appointment.getId());
+
+        assertThat(appointmentOccupancyIndex.isBooked(vet.getId(), DAY, afternoon.getId())).isFalse();
+        appointmentService.save(book(afternoon));
+    }
+
+    @Test
+    public void assertThatSavingAnAppointmentAgainKeepsItsSlot() {
+        Appointment appointment = appointmentService.save(book(morning));
+
+        appointmentService.save(appointment);
+
+        assertThat(appointmentOccupancyIndex.isBooked(vet.getId(), DAY, morning.getId())).isTrue();
+    }
+
+    @Test
+    public void assertThatUniqueConstraintCatchesBookingsMissedByTheIndex() {
+        assertThat(appointmentOccupancyIndex.isBooked(vet.getId(), DAY, morning.getId())).isFalse();
+        // Booked without going through the service, as another instance would
+        appointmentRepository.saveAndFlush(book(morning));
+
+        assertThatThrownBy(() -> appointmentService.save(book(morning)))
+            .isInstanceOf(SlotAlreadyBookedException.class);
+        assertThat(appointmentOccupancyIndex.isBooked(vet.getId(), DAY, morning.getId())).isTrue();
+    }
+
+    private Appointment book(Slot slot) {
+        return new Appointment().apptTime(DAY).vet(vet).slot(slot);
+    }
+
+    @Test
+    public void assertThatTheLeastRecentlyUsedDaysAreDropped() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAvailability().setMaxDays(10);
+        AppointmentOccupancyIndex boundedIndex = new AppointmentOccupancyIndex(appointmentRepository, applicationProperties);
+        List<Slot> slots = Arrays.asList(morning, afternoon);
+
+        boundedIndex.findFreeSlots(vet.getId(), DAY, DAY, slots);
+        for (int i = 1; i <= 30; i++) {
+            boundedIndex.findFreeSlots(vet.getId(), DAY.plusDays(i), DAY.plusDays(i), slots);
+            // Kept in use
+            boundedIndex.isBooked(vet.getId(), DAY, morning.getId());
+        }
+
+        int dayCount = boundedIndex.getDayCount();
+        assertThat(dayCount).isLessThanOrEqualTo(10);
+        try (SqlStatementCounter sqlStatementCounter = new SqlStatementCounter(entityManager)) {
+            boundedIndex.isBooked(vet.getId(), DAY, morning.getId());
+            // The day requested last is held too
+            boundedIndex.isBooked(vet.getId(), DAY.plusDays(30), morning.getId());
+            boundedIndex.findFreeSlots(vet.getId(), DAY.plusDays(30), DAY.plusDays(30), slots);
+            assertThat(sqlStatementCounter.getStatementCount()).isZero();
+        }
+        assertThat(boundedIndex.getDayCount()).isEqualTo(dayCount);
+    }
+
+    @Test
+    public void assertThatANewDayReservedAtTheLimitIsHeld() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAvailability().setMaxDays(10);
+        AppointmentOccupancyIndex boundedIndex = new AppointmentOccupancyIndex(appointmentRepository, applicationProperties);
+        for (int i = 1; i <= 10; i++) {
+            boundedIndex.isBooked(vet.getId(), DAY.plusDays(i), morning.getId());
+        }
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            boundedIndex.reserve(book(morning).apptTime(DAY.plusDays(40)));
+            // Nothing is written, so only the index can reject the second booking
+            assertThatThrownBy(() -> boundedIndex.reserve(book(morning).apptTime(DAY.plusDays(40))))
+                .isInstanceOf(SlotAlreadyBookedException.class);
+            status.setRollbackOnly();
+            return null;
+        });
+        assertThat(boundedIndex.isBooked(vet.getId(), DAY.plusDays(40), morning.getId())).isFalse();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.service;
+
+import com.example.Petclinic2App;
+import com.example.domain.*;
+import com.example.repository.SqlStatementCounter;
+import com.example.service.dto.AppointmentCriteria;
+
+import io.github.jhipster.service.filter.LongFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AppointmentQueryService, checking that a page of appointments costs a bounded
+ * number of SQL statements whatever its size.
+ *
+ * @see AppointmentQueryService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+@Transactional
+public class AppointmentQueryServiceIntTest {
+
+    private static final int APPOINTMENT_COUNT = 30;
+
+    @Autowired
+    private AppointmentQueryService appointmentQueryService;
+
+    @Autowired
+    private EntityManager em;
+
+    private SqlStatementCounter sqlStatementCounter;
+
+    private Vet firstVet;
+
+    @Before
+    public void init() {
+        for (int i = 0; i < APPOINTMENT_COUNT; i++) {
+            Owner owner = new Owner().name("Owner " + i);
+            em.persist(owner);
+            Pet pet = new Pet().name("Pet " + i).owner(owner);
+            em.persist(pet);
+            Vet vet = new Vet().name("Vet " + i);
+            em.persist(vet);
+            Slot slot = new Slot().startTime(LocalTime.of(9, 0));
+            em.persist(slot);
+            em.persist(new Appointment().apptTime(LocalDate.ofEpochDay(i)).pet(pet).vet(vet).slot(slot));
+            if (firstVet == null) {
+                firstVet = vet;
+            }
+        }
+        em.flush();
+        em.clear();
+        sqlStatementCounter = new SqlStatementCounter(em);
+    }
+
+    @After
+    public void close() {
+        sqlStatementCounter.close();
+    }
+
+    @Test
+    public void assertThatPageIsLoadedWithASelectAndACount() {
+        Page<Appointment> page = appointmentQueryService.findByCriteria(new AppointmentCriteria(), PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(APPOINTMENT_COUNT);
+        assertThat(page.getContent()).allSatisfy(appointment ->
+            assertThat(appointment.getPet().getOwner().getName()).startsWith("Owner"));
+        assertThat(sqlStatementCounter.getStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void assertThatFilteredPageDoesNotLoadAssociationsOneByOne() {
+        AppointmentCriteria criteria = new AppointmentCriteria();
+        LongFilter vetId = new LongFilter();
+        vetId.setEquals(firstVet.getId());
+        criteria.setVetId(vetId);
+
+        Page<Appointment> page = appointmentQueryService.findByCriteria(criteria, PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getContent().get(0).getVet().getName()).isEqualTo(firstVet.getName());
+        assertThat(sqlStatementCounter.getStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void assertThatListIsLoadedWithASingleSelect() {
+        List<Appointment> appointments = appointmentQueryService.findByCriteria(new AppointmentCriteria());
+
+        assertThat(appointments).hasSize((int) appointmentQueryService.countByCriteria(new AppointmentCriteria()));
+        // One select for the list, one for the count above
+        assertThat(sqlStatementCounter.getStatementCount()).isLessThanOrEqualTo(2);
+    }
+}
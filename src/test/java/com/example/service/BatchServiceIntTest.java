@@ -0,0 +1,195 @@
+package com.example.service;
+
+import com.example.Petclinic2App;
+import com.example.config.ApplicationProperties;
+import com.example.domain.Appointment;
+import com.example.domain.Owner;
+import com.example.domain.Slot;
+import com.example.domain.Vet;
+import com.example.repository.*;
+import com.example.service.dto.BatchOperationDTO;
+import com.example.service.dto.BatchResultDTO;
+import com.example.web.rest.errors.BadRequestAlertException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.validation.Validator;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.service.dto.BatchOperationDTO.Operation.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the BatchService, running batches in committed transactions.
+ *
+ * @see BatchService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+public class BatchServiceIntTest {
+
+    private static final String PREFIX = "BATCH-";
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private VetService vetService;
+
+    @Autowired
+    private SlotService slotService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
+    private final List<Vet> vets = new ArrayList<>();
+
+    private final List<Slot> slots = new ArrayList<>();
+
+    @After
+    public void cleanup() {
+        for (Vet vet : vets) {
+            appointmentRepository.deleteAll(appointmentRepository.findAll(
+                (root, query, cb) -> cb.equal(root.get("vet"), vet)));
+            vetRepository.delete(vet);
+        }
+        slotRepository.deleteAll(slots);
+        ownerRepository.deleteAll(ownerRepository.findAll(
+            (root, query, cb) -> cb.like(root.get("name"), PREFIX + "%")));
+        searchOutboxEventRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatEachOperationHasItsResult() {
+        Owner existing = ownerRepository.save(new Owner().name(PREFIX + "existing"));
+        Owner withId = new Owner().name(PREFIX + "with id");
+        withId.setId(existing.getId());
+
+        List<BatchResultDTO> results = batchService.execute(Owner.class, Arrays.asList(
+            new BatchOperationDTO<>(CREATE, new Owner().name(PREFIX + "first"), null),
+            new BatchOperationDTO<>(CREATE, withId, null),
+            new BatchOperationDTO<>(UPDATE, new Owner().name(PREFIX + "no id"), null),
+            new BatchOperationDTO<>(UPDATE, new Owner().name(PREFIX + "updated").email("batch@localhost"), null),
+            new BatchOperationDTO<>(DELETE, null, Long.MAX_VALUE),
+            new BatchOperationDTO<>(CREATE, new Owner().name(PREFIX + "second"), null)));
+
+        assertThat(results).extracting(BatchResultDTO::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(results).extracting(BatchResultDTO::getStatus).containsExactly(201, 400, 400, 400, 404, 201);
+        assertThat(results).extracting(BatchResultDTO::getErrorKey)
+            .containsExactly(null, "idexists", "idnull", "idnull", "idnotfound", null);
+        // The chunk was rolled back by the failed deletion, then run again operation by operation
+        assertThat(ownerRepository.findAllById(Arrays.asList(results.get(0).getId(), results.get(5).getId())))
+            .extracting(Owner::getName).containsExactlyInAnyOrder(PREFIX + "first", PREFIX + "second");
+    }
+
+    @Test
+    public void assertThatADoubleBookingOnlyFailsItsOperation() {
+        Vet vet = vetRepository.save(new Vet().name(PREFIX + "vet"));
+        vets.add(vet);
+        Slot slot = slotRepository.save(new Slot().startTime(LocalTime.of(9, 0)));
+        slots.add(slot);
+        LocalDate day = LocalDate.of(2033, 3, 1);
+
+        List<BatchResultDTO> results = batchService.execute(Appointment.class, Arrays.asList(
+            new BatchOperationDTO<>(CREATE, new Appointment().apptTime(day).vet(vet).slot(slot), null),
+            new BatchOperationDTO<>(CREATE, new Appointment().apptTime(day).vet(vet).slot(slot), null),
+            new BatchOperationDTO<>(CREATE, new Appointment().apptTime(day.plusDays(1)).vet(vet).slot(slot), null),
+            new BatchOperationDTO<>(CREATE, new Appointment().vet(vet).slot(slot), null)));
+
+        assertThat(results).extracting(BatchResultDTO::getStatus).containsExactly(201, 400, 201, 400);
+        assertThat(results).extracting(BatchResultDTO::getErrorKey).containsExactly(null, "slotbooked", null, "validation");
+        List<Long> ids = results.stream().map(BatchResultDTO::getId).filter(id -> id != null).collect(Collectors.toList());
+        assertThat(appointmentRepository.findAllById(ids)).hasSize(2);
+    }
+
+    @Test
+    public void assertThatInsertsAreSentInJdbcBatches() {
+        List<BatchOperationDTO<Owner>> operations = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            operations.add(new BatchOperationDTO<>(CREATE, new Owner().name(PREFIX + i), null));
+        }
+
+        JdbcBatchCounter.start();
+        List<BatchResultDTO> results;
+        int batches;
+        try {
+            results = batchService.execute(Owner.class, operations);
+        } finally {
+            batches = JdbcBatchCounter.stop();
+        }
+
+        assertThat(results).extracting(BatchResultDTO::getStatus).containsOnly(201);
+        assertThat(results).extracting(BatchResultDTO::getId).doesNotHaveDuplicates();
+        // Chunks of 100 and 20 owners, inserted with their search outbox records in JDBC batches of at most 50 rows
+        assertThat(batches).isEqualTo(6);
+    }
+
+    @Test
+    public void assertThatUnexpectedErrorsAreNotExposed() {
+        OwnerService failingOwnerService = mock(OwnerService.class);
+        when(failingOwnerService.save(any(Owner.class)))
+            .thenThrow(new IllegalStateException("could not execute statement [insert into owner ...]"));
+        BatchService failingBatchService = new BatchService(applicationProperties, transactionManager, validator,
+            failingOwnerService, petService, vetService, slotService, appointmentService);
+
+        List<BatchResultDTO> results = failingBatchService.execute(Owner.class, Collections.singletonList(
+            new BatchOperationDTO<>(CREATE, new Owner().name(PREFIX + "failing"), null)));
+
+        assertThat(results).extracting(BatchResultDTO::getStatus).containsExactly(500);
+        assertThat(results).extracting(BatchResultDTO::getErrorKey).containsExactly("internal");
+        assertThat(results.get(0).getMessage()).isEqualTo("Internal server error");
+    }
+
+    @Test
+    public void assertThatTooLargeBatchesAreRejected() {
+        List<BatchOperationDTO<Owner>> operations = Collections.nCopies(1001,
+            new BatchOperationDTO<>(CREATE, new Owner().name(PREFIX + "too many"), null));
+
+        assertThatThrownBy(() -> batchService.execute(Owner.class, operations))
+            .isInstanceOf(BadRequestAlertException.class);
+    }
+}
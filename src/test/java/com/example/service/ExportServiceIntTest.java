@@ -0,0 +1,110 @@
+package com.example.service;
+
+import com.example.Petclinic2App;
+import com.example.domain.Appointment;
+import com.example.domain.Owner;
+import com.example.domain.Pet;
+import com.example.domain.Vet;
+import com.example.repository.SqlStatementCounter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ExportService.
+ *
+ * @see ExportService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+@Transactional
+public class ExportServiceIntTest {
+
+    private static final LocalDate DAY = LocalDate.of(2032, 5, 4);
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private Owner owner;
+
+    private List<Appointment> appointments;
+
+    @Before
+    public void init() {
+        owner = new Owner().name("Doe, \"Jr\"").email("export@localhost");
+        em.persist(owner);
+        Vet vet = new Vet().name("Export");
+        em.persist(vet);
+        appointments = new ArrayList<>();
+        for (int i = 0; i < ExportService.BATCH_SIZE + 10; i++) {
+            Pet pet = new Pet().name("Export " + i).owner(owner);
+            em.persist(pet);
+            Appointment appointment = new Appointment().apptTime(DAY.plusDays(i)).vet(vet).pet(pet);
+            em.persist(appointment);
+            appointments.add(appointment);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void assertThatCsvValuesAreQuoted() throws Exception {
+        List<String> lines = export(Owner.class, ExportService.Format.CSV);
+
+        assertThat(lines.get(0)).isEqualTo("id,name,email,phone");
+        assertThat(lines).contains(owner.getId() + ",\"Doe, \"\"Jr\"\"\",export@localhost,");
+    }
+
+    @Test
+    public void assertThatAppointmentsAreExportedWithASingleQuery() throws Exception {
+        List<String> lines;
+        try (SqlStatementCounter sqlStatementCounter = new SqlStatementCounter(em)) {
+            lines = export(Appointment.class, ExportService.Format.NDJSON);
+
+            // Associations are fetched by the same query, batch after batch
+            assertThat(sqlStatementCounter.getStatementCount()).isEqualTo(1);
+        }
+
+        List<Long> exportedIds = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode appointment = objectMapper.readTree(line);
+            exportedIds.add(appointment.get("id").asLong());
+            if (appointment.get("id").asLong() == appointments.get(0).getId()) {
+                assertThat(appointment.get("apptTime").asText()).isEqualTo(DAY.toString());
+                assertThat(appointment.get("pet").get("owner").get("id").asLong()).isEqualTo(owner.getId());
+            }
+        }
+        assertThat(exportedIds).isSorted();
+        assertThat(exportedIds).containsAll(() -> appointments.stream().map(Appointment::getId).iterator());
+    }
+
+    private List<String> export(Class<?> type, ExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(type, format, out);
+        String content = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        return Arrays.asList(content.split(format == ExportService.Format.CSV ? "\r\n" : "\n"));
+    }
+}
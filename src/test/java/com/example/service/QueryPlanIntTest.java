@@ -0,0 +1,210 @@
+package com.example.service;
+
+import com.example.Petclinic2App;
+import com.example.repository.AppointmentRepository;
+import com.example.repository.SqlStatementRecorder;
+import com.example.service.dto.*;
+
+import io.github.jhipster.service.filter.LocalDateFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class checking, with {@code EXPLAIN}, that the queries generated for the filters of the query services
+ * read their tables through an index rather than by scanning them.
+ * <p>
+ * Only filters which an index can serve are checked: {@code contains} filters and unfiltered listings scan
+ * their table whatever the indexes. The tables are filled first, as the planner prefers scans on tables which
+ * are nearly empty.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+@Transactional
+public class QueryPlanIntTest {
+
+    private static final String TABLE_SCAN = "tableScan";
+
+    @Autowired
+    private OwnerQueryService ownerQueryService;
+
+    @Autowired
+    private PetQueryService petQueryService;
+
+    @Autowired
+    private VetQueryService vetQueryService;
+
+    @Autowired
+    private SlotQueryService slotQueryService;
+
+    @Autowired
+    private AppointmentQueryService appointmentQueryService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Before
+    public void init() {
+        em.createNativeQuery("insert into owner(name) select 'Owner ' || x from system_range(1, 100)").executeUpdate();
+        em.createNativeQuery("insert into pet(name, owner_id) select 'Pet ' || x, (select min(id) from owner) + mod(x, 100) " +
+            "from system_range(1, 200)").executeUpdate();
+        em.createNativeQuery("insert into vet(name) select 'Vet ' || x from system_range(1, 50)").executeUpdate();
+        em.createNativeQuery("insert into slot(start_time) select dateadd('MINUTE', 30 * x, time '08:00:00') " +
+            "from system_range(0, 15)").executeUpdate();
+        em.createNativeQuery("insert into appointment(appt_time, vet_id, pet_id, slot_id) " +
+            "select dateadd('DAY', x / 50, date '2030-01-01'), (select min(id) from vet) + mod(x, 50), " +
+            "(select min(id) from pet) + mod(x, 200), (select min(id) from slot) + mod(x, 16) " +
+            "from system_range(0, 1999)").executeUpdate();
+    }
+
+    @Test
+    public void assertThatOwnerFiltersUseAnIndex() {
+        OwnerCriteria byId = new OwnerCriteria();
+        byId.setId(equalTo(1L));
+        OwnerCriteria byName = new OwnerCriteria();
+        byName.setName(equalTo("Owner"));
+
+        assertNoTableScan(() -> {
+            ownerQueryService.findByCriteria(byId, PageRequest.of(0, 20));
+            ownerQueryService.findByCriteria(byName, PageRequest.of(0, 20));
+        });
+    }
+
+    @Test
+    public void assertThatPetFiltersUseAnIndex() {
+        PetCriteria byOwner = new PetCriteria();
+        byOwner.setOwnerId(equalTo(1L));
+        PetCriteria byOwnerAndName = new PetCriteria();
+        byOwnerAndName.setOwnerId(equalTo(1L));
+        byOwnerAndName.setName(equalTo("Pet"));
+        PetCriteria byName = new PetCriteria();
+        byName.setName(equalTo("Pet"));
+
+        assertNoTableScan(() -> {
+            petQueryService.findByCriteria(byOwner, PageRequest.of(0, 20));
+            petQueryService.findByCriteria(byOwnerAndName, PageRequest.of(0, 20));
+            petQueryService.findByCriteria(byName, PageRequest.of(0, 20));
+        });
+    }
+
+    @Test
+    public void assertThatVetFiltersUseAnIndex() {
+        VetCriteria byName = new VetCriteria();
+        byName.setName(equalTo("Vet"));
+
+        assertNoTableScan(() -> vetQueryService.findByCriteria(byName, PageRequest.of(0, 20)));
+    }
+
+    @Test
+    public void assertThatSlotFiltersUseAnIndex() {
+        SlotCriteria byStartTime = new SlotCriteria();
+        LocalTimeFilter startTime = new LocalTimeFilter();
+        startTime.setGreaterOrEqualThan(LocalTime.of(9, 0));
+        startTime.setLessThan(LocalTime.of(12, 0));
+        byStartTime.setStartTime(startTime);
+
+        assertNoTableScan(() -> slotQueryService.findByCriteria(byStartTime));
+    }
+
+    @Test
+    public void assertThatAppointmentFiltersUseAnIndex() {
+        AppointmentCriteria byVet = new AppointmentCriteria();
+        byVet.setVetId(equalTo(1L));
+        AppointmentCriteria byVetAndDate = new AppointmentCriteria();
+        byVetAndDate.setVetId(equalTo(1L));
+        byVetAndDate.setApptTime(between(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31)));
+        AppointmentCriteria byPetAndDate = new AppointmentCriteria();
+        byPetAndDate.setPetId(equalTo(1L));
+        byPetAndDate.setApptTime(between(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31)));
+        AppointmentCriteria byDate = new AppointmentCriteria();
+        byDate.setApptTime(between(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31)));
+        AppointmentCriteria bySlot = new AppointmentCriteria();
+        bySlot.setSlotId(equalTo(1L));
+
+        assertNoTableScan(() -> {
+            appointmentQueryService.findByCriteria(byVet, PageRequest.of(0, 20));
+            appointmentQueryService.findByCriteria(byVetAndDate, PageRequest.of(0, 20));
+            appointmentQueryService.findByCriteria(byPetAndDate, PageRequest.of(0, 20));
+            appointmentQueryService.findByCriteria(byDate, PageRequest.of(0, 20));
+            appointmentQueryService.findByCriteria(bySlot, PageRequest.of(0, 20));
+        });
+    }
+
+    @Test
+    public void assertThatSearchByNameUsesAnIndex() {
+        assertNoTableScan(() -> {
+            appointmentRepository.findByVetName("Vet", PageRequest.of(0, 20));
+            appointmentRepository.findByPetName("Pet", PageRequest.of(0, 20));
+        });
+    }
+
+    private void assertNoTableScan(Runnable queries) {
+        SqlStatementRecorder.start();
+        try {
+            queries.run();
+        } finally {
+            List<String> statements = SqlStatementRecorder.stop();
+            assertThat(statements).isNotEmpty();
+            for (String statement : statements) {
+                assertThat(explain(statement)).as("Plan of %s", statement).doesNotContain(TABLE_SCAN);
+            }
+        }
+    }
+
+    private String explain(String sql) {
+        List<String> plan = new ArrayList<>();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString(1));
+                    }
+                }
+            }
+        });
+        return String.join("\n", plan);
+    }
+
+    private static LongFilter equalTo(Long value) {
+        LongFilter filter = new LongFilter();
+        filter.setEquals(value);
+        return filter;
+    }
+
+    private static StringFilter equalTo(String value) {
+        StringFilter filter = new StringFilter();
+        filter.setEquals(value);
+        return filter;
+    }
+
+    private static LocalDateFilter between(LocalDate from, LocalDate to) {
+        LocalDateFilter filter = new LocalDateFilter();
+        filter.setGreaterOrEqualThan(from);
+        filter.setLessOrEqualThan(to);
+        return filter;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Test class for the QueryPlanner routing.
+ *
+ * @see QueryPlanner
+ */
+public class QueryPlannerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private QueryPlanner queryPlanner;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        queryPlanner = new QueryPlanner(new ApplicationProperties(), meterRegistry);
+    }
+
+    @Test
+    public void testContainsFilterGoesToSearch() {
+        QueryPlanner.Plan plan = queryPlanner.plan("owner", "id")
+            .filter(contains("Smi"), "name")
+            .filter(equalTo(1L), "pet.id");
+
+        assertThat(plan.getRoute()).isEqualTo(QueryPlanner.Route.SEARCH);
+        assertThat(plan.getQuery()).isEqualTo(boolQuery()
+            .filter(wildcardQuery("name", "*smi*"))
+            .filter(termQuery("pet.id", 1L)));
+    }
+
+    @Test
+    public void testExactFiltersStayOnTheDatabase() {
+        StringFilter name = new StringFilter();
+        name.setEquals("Smith");
+
+        assertThat(queryPlanner.plan("owner", "id").filter(equalTo(1L), "id").getRoute())
+            .isEqualTo(QueryPlanner.Route.DATABASE);
+        assertThat(queryPlanner.plan("owner", "id").filter(name, "name").filter(contains("Smi"), "email").getRoute())
+            .isEqualTo(QueryPlanner.Route.DATABASE);
+    }
+
+    @Test
+    public void testUntranslatableQueriesStayOnTheDatabase() {
+        assertThat(queryPlanner.plan("owner", "id").filter(contains("de la"), "name").getRoute())
+            .isEqualTo(QueryPlanner.Route.DATABASE);
+        assertThat(queryPlanner.plan("owner", "id").filter(contains("Smi"), "name").sort(Sort.by("name")).getRoute())
+            .isEqualTo(QueryPlanner.Route.DATABASE);
+        assertThat(queryPlanner.plan("owner", "id").filter(contains("Smi"), "name").sort(Sort.by("id")).getRoute())
+            .isEqualTo(QueryPlanner.Route.SEARCH);
+    }
+
+    @Test
+    public void testShortValuesStayOnTheDatabase() {
+        assertThat(queryPlanner.plan("owner", "id").filter(contains("Sm"), "name").getRoute())
+            .isEqualTo(QueryPlanner.Route.DATABASE);
+    }
+
+    @Test
+    public void testReadYourWritesStayOnTheDatabase() {
+        assertThat(queryPlanner.plan("owner", "id").filter(contains("Smi"), "name").readYourWrites(true).getRoute())
+            .isEqualTo(QueryPlanner.Route.DATABASE);
+        assertThat(queryPlanner.plan("owner", "id").filter(contains("Smi"), "name").readYourWrites(false).getRoute())
+            .isEqualTo(QueryPlanner.Route.SEARCH);
+    }
+
+    @Test
+    public void testSearchCanBeDisabled() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getQueryPlanner().setSearchEnabled(false);
+        QueryPlanner databaseOnly = new QueryPlanner(applicationProperties, meterRegistry);
+
+        assertThat(databaseOnly.plan("owner", "id").filter(contains("Smi"), "name").getRoute())
+            .isEqualTo(QueryPlanner.Route.DATABASE);
+    }
+
+    @Test
+    public void testLatencyIsRecordedPerRoute() {
+        Page<String> database = new PageImpl<>(Collections.singletonList("database"));
+        Page<String> search = new PageImpl<>(Collections.singletonList("search"));
+
+        assertThat(queryPlanner.findPage(queryPlanner.plan("owner").filter(contains("Smi"), "name"),
+            () -> database, query -> search)).isSameAs(search);
+        assertThat(queryPlanner.findPage(queryPlanner.plan("owner"), () -> database, query -> search)).isSameAs(database);
+        assertThat(queryPlanner.count(queryPlanner.plan("owner"), () -> 3L, query -> 4L)).isEqualTo(3L);
+
+        assertThat(meterRegistry.get("query.planner").tags("entity", "owner", "route", "search").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("query.planner").tags("entity", "owner", "route", "database").timer().count())
+            .isEqualTo(2);
+    }
+
+    private static StringFilter contains(String value) {
+        StringFilter filter = new StringFilter();
+        filter.setContains(value);
+        return filter;
+    }
+
+    private static LongFilter equalTo(Long value) {
+        LongFilter filter = new LongFilter();
+        filter.setEquals(value);
+        return filter;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.service;
+
+import com.example.Petclinic2App;
+import com.example.domain.Owner;
+import com.example.domain.SearchOutboxEvent;
+import com.example.repository.OwnerRepository;
+import com.example.repository.SearchOutboxEventRepository;
+import com.example.repository.search.OwnerSearchRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the SearchOutboxService.
+ *
+ * @see SearchOutboxService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+@Transactional
+public class SearchOutboxServiceIntTest {
+
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * This repository is mocked in the com.example.repository.search test package.
+     *
+     * @see com.example.repository.search.OwnerSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private OwnerSearchRepository mockOwnerSearchRepository;
+
+    private Owner owner;
+
+    @Before
+    public void init() {
+        owner = ownerRepository.saveAndFlush(new Owner().name("AAAAAAAAAA"));
+    }
+
+    @Test
+    public void assertThatIndexEventIsDrained() {
+        searchOutboxService.index(Owner.class, owner.getId());
+
+        searchOutboxService.processOutbox();
+
+        verify(mockOwnerSearchRepository, times(1)).save(owner);
+        assertThat(searchOutboxEventRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void assertThatEventsOfTheSameEntityAreCoalesced() {
+        searchOutboxService.index(Owner.class, owner.getId());
+        searchOutboxService.index(Owner.class, owner.getId());
+        searchOutboxService.delete(Owner.class, owner.getId());
+
+        searchOutboxService.processOutbox();
+
+        verify(mockOwnerSearchRepository, never()).save(any(Owner.class));
+        verify(mockOwnerSearchRepository, times(1)).deleteById(owner.getId());
+        assertThat(searchOutboxEventRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void assertThatSeveralEntitiesAreIndexedInBulk() {
+        Owner otherOwner = ownerRepository.saveAndFlush(new Owner().name("BBBBBBBBBB"));
+        searchOutboxService.index(Owner.class, owner.getId());
+        searchOutboxService.index(Owner.class, otherOwner.getId());
+
+        searchOutboxService.processOutbox();
+
+        // The bulk request goes to the embedded Elasticsearch node, not through the repository
+        verify(mockOwnerSearchRepository, never()).save(any(Owner.class));
+        assertThat(searchOutboxEventRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void assertThatFailedEventIsRetriedWithBackoff() {
+        when(mockOwnerSearchRepository.save(owner)).thenThrow(new IllegalStateException("Elasticsearch is down"));
+        searchOutboxService.index(Owner.class, owner.getId());
+
+        searchOutboxService.processOutbox();
+
+        List<SearchOutboxEvent> events = searchOutboxEventRepository.findAll();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getAttempts()).isEqualTo(1);
+        assertThat(events.get(0).getNextAttemptDate()).isAfter(Instant.now());
+        assertThat(events.get(0).getLastError()).contains("Elasticsearch is down");
+
+        // The event is not due yet, so it must not be retried immediately
+        searchOutboxService.processOutbox();
+        verify(mockOwnerSearchRepository, times(1)).save(owner);
+    }
+
+    @Test
+    public void assertThatOnlyTheInstanceHoldingTheLeaseDrainsTheOutbox() {
+        // Rolled back with the test transaction
+        jdbcTemplate.update("update search_outbox_lock set locked_by = ?, locked_until = ? where name = ?",
+            "another-instance", Timestamp.from(Instant.now().plus(Duration.ofMinutes(1))), "search-outbox");
+        searchOutboxService.index(Owner.class, owner.getId());
+
+        searchOutboxService.processOutbox();
+
+        verify(mockOwnerSearchRepository, never()).save(any(Owner.class));
+        assertThat(searchOutboxEventRepository.findAll()).hasSize(1);
+
+        // The lease has expired, as when the other instance stopped
+        jdbcTemplate.update("update search_outbox_lock set locked_until = ? where name = ?",
+            Timestamp.from(Instant.now().minusSeconds(1)), "search-outbox");
+        searchOutboxService.processOutbox();
+
+        verify(mockOwnerSearchRepository, times(1)).save(owner);
+        assertThat(searchOutboxEventRepository.findAll()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("select locked_until from search_outbox_lock where name = ?",
+            Timestamp.class, "search-outbox")).isNull();
+    }
+
+    @Test
+    public void assertThatLagIsMeasuredFromTheOldestEvent() {
+        Instant now = Instant.now();
+        searchOutboxEventRepository.save(event(now, now.plus(Duration.ofHours(1))));
+        // A later id may carry an older date, e.g. an event written back after a failure
+        searchOutboxEventRepository.save(event(now.minus(Duration.ofHours(2)), now.plus(Duration.ofHours(1))));
+
+        searchOutboxService.processOutbox();
+
+        assertThat(meterRegistry.get("search.outbox.pending").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("search.outbox.lag.seconds").gauge().value())
+            .isGreaterThanOrEqualTo(Duration.ofHours(2).getSeconds());
+    }
+
+    private SearchOutboxEvent event(Instant createdDate, Instant nextAttemptDate) {
+        SearchOutboxEvent event = new SearchOutboxEvent();
+        event.setEntityType(Owner.class.getSimpleName());
+        event.setEntityId(owner.getId());
+        event.setOperation(SearchOutboxEvent.Operation.INDEX);
+        event.setCreatedDate(createdDate);
+        event.setNextAttemptDate(nextAttemptDate);
+        return event;
+    }
+}
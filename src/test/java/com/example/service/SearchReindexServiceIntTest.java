@@ -0,0 +1,178 @@
+package com.example.service;
+
+import com.example.Petclinic2App;
+import com.example.domain.Owner;
+import com.example.domain.SearchOutboxEvent;
+import com.example.repository.OwnerRepository;
+import com.example.repository.SearchOutboxEventRepository;
+import com.example.service.dto.ReindexStatusDTO;
+
+import com.google.gson.JsonObject;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Count;
+import io.searchbox.core.CountResult;
+import io.searchbox.indices.CreateIndex;
+import io.searchbox.indices.DeleteIndex;
+import io.searchbox.indices.IndicesExists;
+import io.searchbox.indices.aliases.GetAliases;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SearchReindexService.
+ * <p>
+ * The job reads the database from its own threads, so the test data is committed and removed afterwards.
+ *
+ * @see SearchReindexService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+public class SearchReindexServiceIntTest {
+
+    @Autowired
+    private SearchReindexService searchReindexService;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
+    @Autowired
+    private JestClient jestClient;
+
+    private List<Owner> owners;
+
+    @Before
+    public void init() {
+        owners = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            owners.add(new Owner().name("Owner " + i));
+        }
+        owners = ownerRepository.saveAll(owners);
+    }
+
+    @After
+    public void cleanup() {
+        ownerRepository.deleteAll(owners);
+        searchOutboxEventRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatIndexIsRebuiltBehindTheAlias() throws Exception {
+        ReindexStatusDTO status = reindex("owner");
+
+        assertThat(status.getState()).isEqualTo(ReindexStatusDTO.State.DONE);
+        assertThat(status.getIndexed()).isEqualTo(ownerRepository.count());
+        assertThat(status.getProgress()).isEqualTo(1);
+        assertThat(getIndicesOfAlias("owner")).containsExactly(status.getTargetIndex());
+        CountResult count = jestClient.execute(new Count.Builder().addIndex("owner").build());
+        assertThat(count.getCount()).isEqualTo((double) ownerRepository.count());
+    }
+
+    @Test
+    public void assertThatPreviousIndexIsDeletedAfterTheSwap() throws Exception {
+        String previousIndex = reindex("owner").getTargetIndex();
+
+        String newIndex = reindex("owner").getTargetIndex();
+
+        assertThat(newIndex).isNotEqualTo(previousIndex);
+        assertThat(getIndicesOfAlias("owner")).containsExactly(newIndex);
+        JestResult aliases = jestClient.execute(new GetAliases.Builder().build());
+        assertThat(aliases.getJsonObject().has(previousIndex)).isFalse();
+    }
+
+    @Test
+    public void assertThatMissingAliasesAreCreated() throws Exception {
+        for (String index : getIndicesOfAlias("pet")) {
+            jestClient.execute(new DeleteIndex.Builder(index).build());
+        }
+        jestClient.execute(new DeleteIndex.Builder("pet").build());
+
+        searchReindexService.createMissingAliases();
+
+        assertThat(getIndicesOfAlias("pet")).hasSize(1).allMatch(index -> index.startsWith("pet_v"));
+    }
+
+    @Test
+    public void assertThatAnIndexNamedAfterTheAliasIsReplaced() throws Exception {
+        for (String index : getIndicesOfAlias("vet")) {
+            jestClient.execute(new DeleteIndex.Builder(index).build());
+        }
+        assertThat(jestClient.execute(new CreateIndex.Builder("vet").build()).isSucceeded()).isTrue();
+
+        ReindexStatusDTO status = reindex("vet");
+
+        assertThat(status.getState()).isEqualTo(ReindexStatusDTO.State.DONE);
+        assertThat(getIndicesOfAlias("vet")).containsExactly(status.getTargetIndex());
+        assertThat(jestClient.execute(new IndicesExists.Builder(status.getTargetIndex()).build()).isSucceeded())
+            .isTrue();
+        JestResult aliases = jestClient.execute(new GetAliases.Builder().build());
+        assertThat(aliases.getJsonObject().has("vet")).isFalse();
+    }
+
+    @Test
+    public void assertThatEntitiesChangedWhileLoadingAreQueuedAgain() {
+        Owner deleted = owners.remove(0);
+        ownerRepository.delete(deleted);
+        Owner updated = owners.get(0);
+        searchReindexService.recordChanges(Owner.class, Arrays.asList(deleted.getId(), updated.getId()));
+
+        assertThat(searchReindexService.replayChanges(Owner.class)).isEqualTo(2);
+
+        assertThat(searchOutboxEventRepository.findAll())
+            .allMatch(event -> event.getOperation() == SearchOutboxEvent.Operation.INDEX)
+            .extracting(SearchOutboxEvent::getEntityId)
+            .containsExactlyInAnyOrder(deleted.getId(), updated.getId());
+        assertThat(searchReindexService.replayChanges(Owner.class)).isZero();
+    }
+
+    @Test
+    public void assertThatOnlyOneJobRunsAtATime() throws Exception {
+        assertThat(searchReindexService.start(Collections.singletonList("owner"))).isTrue();
+
+        assertThat(searchReindexService.start(Collections.singletonList("pet"))).isFalse();
+        awaitJob();
+    }
+
+    private ReindexStatusDTO reindex(String index) throws InterruptedException {
+        assertThat(searchReindexService.start(Collections.singletonList(index))).isTrue();
+        awaitJob();
+        return searchReindexService.getStatus().stream()
+            .filter(status -> status.getIndex().equals(index))
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+    }
+
+    private void awaitJob() throws InterruptedException {
+        for (int i = 0; i < 300 && searchReindexService.isRunning(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(searchReindexService.isRunning()).isFalse();
+    }
+
+    private List<String> getIndicesOfAlias(String alias) throws Exception {
+        JsonObject aliasesByIndex = jestClient.execute(new GetAliases.Builder().build()).getJsonObject();
+        List<String> indices = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : aliasesByIndex.entrySet()) {
+            if (aliasesByIndex.getAsJsonObject(entry.getKey()).getAsJsonObject("aliases").has(alias)) {
+                indices.add(entry.getKey());
+            }
+        }
+        return indices;
+    }
+}
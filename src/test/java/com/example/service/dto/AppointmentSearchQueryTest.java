@@ -0,0 +1,70 @@
+package com.example.service.dto;
+
+import com.example.web.rest.errors.BadRequestAlertException;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the AppointmentSearchQuery parser.
+ *
+ * @see AppointmentSearchQuery
+ */
+public class AppointmentSearchQueryTest {
+
+    @Test
+    public void testStructuredClauses() {
+        AppointmentSearchQuery query = AppointmentSearchQuery.parse(
+            "vet:\"Jane Doe\" AND Pet: Rex AND owner:Smith AND date:2030-01-01..2030-01-31");
+
+        assertThat(query.getVetNames()).containsExactly("Jane Doe");
+        assertThat(query.getPetNames()).containsExactly("Rex");
+        assertThat(query.getOwnerNames()).containsExactly("Smith");
+        assertThat(query.getFrom()).isEqualTo(LocalDate.of(2030, 1, 1));
+        assertThat(query.getTo()).isEqualTo(LocalDate.of(2030, 1, 31));
+        assertThat(query.getText()).isNull();
+        assertThat(query.isStructured()).isTrue();
+        assertThat(query.isSelective()).isTrue();
+    }
+
+    @Test
+    public void testDateRanges() {
+        AppointmentSearchQuery day = AppointmentSearchQuery.parse("date:2030-01-15");
+        assertThat(day.getFrom()).isEqualTo(LocalDate.of(2030, 1, 15));
+        assertThat(day.getTo()).isEqualTo(LocalDate.of(2030, 1, 15));
+        assertThat(day.isSelective()).isTrue();
+
+        AppointmentSearchQuery openEnded = AppointmentSearchQuery.parse("date:2030-01-15..");
+        assertThat(openEnded.getFrom()).isEqualTo(LocalDate.of(2030, 1, 15));
+        assertThat(openEnded.getTo()).isNull();
+        assertThat(openEnded.isSelective()).isFalse();
+
+        AppointmentSearchQuery intersected = AppointmentSearchQuery.parse("date:..2030-01-31 AND date:2030-01-15..2030-02-15");
+        assertThat(intersected.getFrom()).isEqualTo(LocalDate.of(2030, 1, 15));
+        assertThat(intersected.getTo()).isEqualTo(LocalDate.of(2030, 1, 31));
+    }
+
+    @Test
+    public void testFreeText() {
+        AppointmentSearchQuery text = AppointmentSearchQuery.parse("id:5");
+        assertThat(text.isStructured()).isFalse();
+        assertThat(text.getText()).isEqualTo("id:5");
+
+        AppointmentSearchQuery mixed = AppointmentSearchQuery.parse("vet:Jane AND apptTime:2030*");
+        assertThat(mixed.isStructured()).isTrue();
+        assertThat(mixed.isSelective()).isFalse();
+        assertThat(mixed.getText()).isEqualTo("apptTime:2030*");
+    }
+
+    @Test
+    public void testInvalidClauses() {
+        assertThatThrownBy(() -> AppointmentSearchQuery.parse("vet:"))
+            .isInstanceOf(BadRequestAlertException.class);
+        assertThatThrownBy(() -> AppointmentSearchQuery.parse("date:2030-13-01"))
+            .isInstanceOf(BadRequestAlertException.class);
+    }
+}
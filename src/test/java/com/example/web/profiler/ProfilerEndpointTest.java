@@ -0,0 +1,61 @@
+package com.example.web.profiler;
+
+import com.example.config.ApplicationProperties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ProfilerEndpoint.
+ *
+ * @see ProfilerEndpoint
+ */
+public class ProfilerEndpointTest {
+
+    private RequestProfiler requestProfiler;
+
+    private ProfilerEndpoint profilerEndpoint;
+
+    @Before
+    public void setup() {
+        requestProfiler = new RequestProfiler(new ApplicationProperties());
+        profilerEndpoint = new ProfilerEndpoint(requestProfiler);
+    }
+
+    @After
+    public void destroy() {
+        requestProfiler.destroy();
+    }
+
+    @Test
+    public void assertThatNoSessionIsNotFound() {
+        assertThat(profilerEndpoint.session().getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+        assertThat(profilerEndpoint.stacks("cpu").getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    public void assertThatASingleSessionRuns() {
+        WebEndpointResponse<Map<String, Object>> started = profilerEndpoint.start(null);
+        assertThat(started.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(started.getBody()).containsEntry("running", true).containsEntry("durationSeconds", 30L);
+
+        assertThat(profilerEndpoint.start(10L).getStatus()).isEqualTo(409);
+
+        WebEndpointResponse<Map<String, Object>> stopped = profilerEndpoint.stop();
+        assertThat(stopped.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(stopped.getBody()).containsEntry("running", false);
+        assertThat(profilerEndpoint.stacks("alloc").getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+    }
+
+    @Test
+    public void assertThatInvalidRequestsAreRejected() {
+        assertThat(profilerEndpoint.start(0L).getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+        assertThat(profilerEndpoint.stacks("lock").getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+    }
+}
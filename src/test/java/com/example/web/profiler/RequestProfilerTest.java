@@ -0,0 +1,141 @@
+package com.example.web.profiler;
+
+import com.example.config.ApplicationProperties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RequestProfiler.
+ *
+ * @see RequestProfiler
+ */
+public class RequestProfilerTest {
+
+    private RequestProfiler requestProfiler;
+
+    private ApplicationProperties applicationProperties;
+
+    private volatile List<byte[]> garbage;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getProfiler().setIntervalMs(5);
+        requestProfiler = new RequestProfiler(applicationProperties);
+    }
+
+    @After
+    public void destroy() {
+        requestProfiler.destroy();
+    }
+
+    @Test
+    public void assertThatRequestThreadsAreSampled() throws Exception {
+        assertThat(requestProfiler.start(Duration.ofMinutes(1))).isTrue();
+        assertThat(requestProfiler.start(Duration.ofMinutes(1))).isFalse();
+
+        CountDownLatch done = new CountDownLatch(1);
+        Thread request = new Thread(() -> {
+            requestProfiler.enter("GET /api/test");
+            try {
+                while (done.getCount() > 0) {
+                    allocate();
+                }
+            } finally {
+                requestProfiler.exit();
+            }
+        });
+        request.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (requestProfiler.getSession().get().getSamples() < 20 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        done.countDown();
+        request.join();
+        requestProfiler.stop();
+
+        RequestProfiler.Session session = requestProfiler.getSession().get();
+        assertThat(requestProfiler.isRunning()).isFalse();
+        assertThat(session.getStoppedAt()).isNotNull();
+        String wall = session.toCollapsedStacks(RequestProfiler.Event.WALL);
+        assertThat(wall).startsWith("GET /api/test;java.lang.Thread.run;");
+        assertThat(wall).contains(RequestProfilerTest.class.getName() + ".lambda$");
+        assertThat(wall).matches("(?s)(\\S[^\\n]* \\d+\\n)+");
+        if (session.isAllocationSupported()) {
+            assertThat(session.toCollapsedStacks(RequestProfiler.Event.ALLOC))
+                .contains(RequestProfilerTest.class.getName() + ".allocate");
+        }
+    }
+
+    @Test
+    public void assertThatOtherThreadsAreNotSampled() throws Exception {
+        requestProfiler.start(Duration.ofMinutes(1));
+        Thread.sleep(50);
+        requestProfiler.stop();
+
+        RequestProfiler.Session session = requestProfiler.getSession().get();
+        assertThat(session.getSamples()).isPositive();
+        assertThat(session.toCollapsedStacks(RequestProfiler.Event.WALL)).isEmpty();
+    }
+
+    @Test
+    public void assertThatSessionsAreTimeLimited() throws Exception {
+        applicationProperties.getProfiler().setMaxDurationSeconds(0);
+
+        requestProfiler.start(Duration.ofMinutes(1));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (requestProfiler.isRunning() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(requestProfiler.isRunning()).isFalse();
+        assertThat(requestProfiler.getSession().get().getDuration()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void assertThatStacksAreBounded() {
+        RequestProfiler.Session session = new RequestProfiler.Session(null, Duration.ZERO, 10, true);
+        StackTraceElement[] first = { new StackTraceElement("Foo", "first", null, 0) };
+        StackTraceElement[] second = { new StackTraceElement("Foo", "second", null, 0) };
+        StackTraceElement[] third = {
+            new StackTraceElement("Foo", "leaf", null, 0), new StackTraceElement("Foo", "third", null, 0) };
+
+        session.record("GET /api/foo", first, 10, 100, 2);
+        session.record("GET /api/foo", first, 10, 100, 2);
+        session.record("GET /api/foo", second, 5, 0, 2);
+        session.record("GET /api/foo", third, 1, 1, 2);
+
+        assertThat(session.getStackCount()).isEqualTo(3);
+        assertThat(session.toCollapsedStacks(RequestProfiler.Event.WALL))
+            .isEqualTo("GET /api/foo;Foo.first 2\nGET /api/foo;Foo.second 1\nGET /api/foo;[truncated] 1\n");
+        assertThat(session.toCollapsedStacks(RequestProfiler.Event.ALLOC))
+            .isEqualTo("GET /api/foo;Foo.first 200\nGET /api/foo;[truncated] 1\n");
+    }
+
+    @Test
+    public void assertThatEndpointsHideIds() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/app/api/owners/42/pets/7");
+        request.setContextPath("/app");
+
+        assertThat(RequestProfilerFilter.endpoint(request)).isEqualTo("PUT /api/owners/{id}/pets/{id}");
+    }
+
+    private void allocate() {
+        List<byte[]> arrays = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            arrays.add(new byte[1024]);
+        }
+        garbage = arrays;
+    }
+}
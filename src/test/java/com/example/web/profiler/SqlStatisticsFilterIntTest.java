@@ -0,0 +1,105 @@
+package com.example.web.profiler;
+
+import com.example.Petclinic2App;
+import com.example.domain.Owner;
+import com.example.domain.Pet;
+import com.example.repository.statistics.SqlStatistics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the SqlStatisticsFilter, and the counting of the SQL work done by a request.
+ *
+ * @see SqlStatisticsFilter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+@Transactional
+public class SqlStatisticsFilterIntTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc mockMvc;
+
+    private Pet pet;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+            .addFilter(sqlStatisticsFilter.getFilter(), "/api/*")
+            .build();
+        Owner owner = new Owner().name("SQL statistics");
+        em.persist(owner);
+        pet = new Pet().name("SQL statistics").owner(owner);
+        em.persist(pet);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void assertThatRequestsAreMeasuredByEndpoint() throws Exception {
+        DistributionSummary statements = summary(SqlStatisticsFilter.STATEMENTS_METRIC);
+        long count = statements == null ? 0 : statements.count();
+
+        mockMvc.perform(get("/api/pets/{id}", pet.getId())).andExpect(status().isOk());
+
+        statements = summary(SqlStatisticsFilter.STATEMENTS_METRIC);
+        assertThat(statements.count()).isEqualTo(count + 1);
+        assertThat(statements.max()).isGreaterThanOrEqualTo(1);
+        assertThat(summary(SqlStatisticsFilter.ROWS_METRIC).max()).isGreaterThanOrEqualTo(1);
+        assertThat(summary(SqlStatisticsFilter.ENTITIES_METRIC).max()).isGreaterThanOrEqualTo(1);
+        Timer jdbcTime = meterRegistry.find(SqlStatisticsFilter.JDBC_TIME_METRIC)
+            .tags("method", "GET", "uri", "/api/pets/{id}").timer();
+        assertThat(jdbcTime.count()).isEqualTo(count + 1);
+    }
+
+    @Test
+    public void assertThatOnlyRequestsAreCounted() {
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            em.find(Pet.class, pet.getId());
+        } finally {
+            SqlStatistics.stop();
+        }
+        em.clear();
+        em.find(Pet.class, pet.getId());
+
+        assertThat(statistics.getStatements()).isEqualTo(1);
+        assertThat(statistics.getRows()).isEqualTo(1);
+        assertThat(statistics.getEntities()).isGreaterThanOrEqualTo(1);
+        assertThat(statistics.getJdbcNanos()).isPositive();
+    }
+
+    private DistributionSummary summary(String name) {
+        return meterRegistry.find(name).tags("method", "GET", "uri", "/api/pets/{id}").summary();
+    }
+}
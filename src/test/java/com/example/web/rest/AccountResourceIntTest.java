@@ -9,6 +9,7 @@ import com.example.repository.AuthorityRepository;
 import com.example.repository.PersistentTokenRepository;
 import com.example.repository.UserRepository;
 import com.example.security.AuthoritiesConstants;
+import com.example.security.PersistentTokenWriteBehind;
 import com.example.service.MailService;
 import com.example.service.UserService;
 import com.example.service.dto.PasswordChangeDTO;
@@ -67,6 +68,9 @@ public class AccountResourceIntTest {
     @Autowired
     private PersistentTokenRepository persistentTokenRepository;
 
+    @Autowired
+    private PersistentTokenWriteBehind persistentTokenWriteBehind;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -91,10 +95,12 @@ public class AccountResourceIntTest {
         MockitoAnnotations.initMocks(this);
         doNothing().when(mockMailService).sendActivationEmail(any());
         AccountResource accountResource =
-            new AccountResource(userRepository, userService, mockMailService, persistentTokenRepository);
+            new AccountResource(userRepository, userService, mockMailService, persistentTokenRepository,
+                persistentTokenWriteBehind);
 
         AccountResource accountUserMockResource =
-            new AccountResource(userRepository, mockUserService, mockMailService, persistentTokenRepository);
+            new AccountResource(userRepository, mockUserService, mockMailService, persistentTokenRepository,
+                persistentTokenWriteBehind);
         this.restMvc = MockMvcBuilders.standaloneSetup(accountResource)
             .setMessageConverters(httpMessageConverters)
             .setControllerAdvice(exceptionTranslator)
@@ -6,12 +6,16 @@ import com.example.domain.Appointment;
 import com.example.domain.Slot;
 import com.example.domain.Vet;
 import com.example.domain.Pet;
+import com.example.domain.Owner;
 import com.example.repository.AppointmentRepository;
 import com.example.repository.search.AppointmentSearchRepository;
 import com.example.service.AppointmentService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
 import com.example.web.rest.errors.ExceptionTranslator;
 import com.example.service.dto.AppointmentCriteria;
 import com.example.service.AppointmentQueryService;
+import com.example.service.SearchOutboxService;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -39,8 +43,8 @@ import java.util.List;
 
 import static com.example.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
-import static org.hamcrest.Matchers.hasItem;
+import static org.elasticsearch.index.query.QueryBuilders.*;
+import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -74,12 +78,21 @@ public class AppointmentResourceIntTest {
     @Autowired
     private AppointmentQueryService appointmentQueryService;
 
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BatchService batchService;
+
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
@@ -96,7 +109,7 @@ public class AppointmentResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final AppointmentResource appointmentResource = new AppointmentResource(appointmentService, appointmentQueryService);
+        final AppointmentResource appointmentResource = new AppointmentResource(appointmentService, appointmentQueryService, exportService, batchService);
         this.restAppointmentMockMvc = MockMvcBuilders.standaloneSetup(appointmentResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -139,7 +152,8 @@ public class AppointmentResourceIntTest {
         Appointment testAppointment = appointmentList.get(appointmentList.size() - 1);
         assertThat(testAppointment.getApptTime()).isEqualTo(DEFAULT_APPT_TIME);
 
-        // Validate the Appointment in Elasticsearch
+        // Validate the Appointment in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockAppointmentSearchRepository, times(1)).save(testAppointment);
     }
 
@@ -404,7 +418,8 @@ public class AppointmentResourceIntTest {
         Appointment testAppointment = appointmentList.get(appointmentList.size() - 1);
         assertThat(testAppointment.getApptTime()).isEqualTo(UPDATED_APPT_TIME);
 
-        // Validate the Appointment in Elasticsearch
+        // Validate the Appointment in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockAppointmentSearchRepository, times(1)).save(testAppointment);
     }
 
@@ -446,7 +461,8 @@ public class AppointmentResourceIntTest {
         List<Appointment> appointmentList = appointmentRepository.findAll();
         assertThat(appointmentList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Appointment in Elasticsearch
+        // Validate the Appointment in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockAppointmentSearchRepository, times(1)).deleteById(appointment.getId());
     }
 
@@ -465,6 +481,81 @@ public class AppointmentResourceIntTest {
             .andExpect(jsonPath("$.[*].apptTime").value(hasItem(DEFAULT_APPT_TIME.toString())));
     }
 
+    @Test
+    @Transactional
+    public void searchAppointmentByVetAndOwnerHonorsPaging() throws Exception {
+        // Initialize the database
+        Pet pet = initSearchAppointments();
+        reset(mockAppointmentSearchRepository);
+
+        // Selective queries are run by the database
+        restAppointmentMockMvc.perform(get("/api/_search/appointments")
+            .param("query", "vet:\"Search Vet\" AND owner:\"Search Owner\"")
+            .param("page", "1").param("size", "2").param("sort", "apptTime,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].apptTime").value(DEFAULT_APPT_TIME.toString()))
+            .andExpect(jsonPath("$.[0].pet.id").value(pet.getId().intValue()));
+        verifyZeroInteractions(mockAppointmentSearchRepository);
+    }
+
+    @Test
+    @Transactional
+    public void searchAppointmentByPetAndDateRange() throws Exception {
+        // Initialize the database
+        initSearchAppointments();
+
+        restAppointmentMockMvc.perform(get("/api/_search/appointments")
+            .param("query", "pet:Search Pet AND date:" + DEFAULT_APPT_TIME.plusDays(1) + ".." + DEFAULT_APPT_TIME.plusDays(5)))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].apptTime").value(containsInAnyOrder(
+                DEFAULT_APPT_TIME.plusDays(1).toString(), DEFAULT_APPT_TIME.plusDays(2).toString())));
+    }
+
+    @Test
+    @Transactional
+    public void searchAppointmentWithTextAndDate() throws Exception {
+        // Initialize the database
+        appointmentService.save(appointment);
+        when(mockAppointmentSearchRepository.search(boolQuery()
+                .must(queryStringQuery("id:" + appointment.getId()))
+                .filter(rangeQuery("apptTime").gte(DEFAULT_APPT_TIME.toString())),
+            PageRequest.of(0, 20)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(appointment), PageRequest.of(0, 1), 1));
+
+        // Free text is left to Elasticsearch, along with the structured clauses
+        restAppointmentMockMvc.perform(get("/api/_search/appointments")
+            .param("query", "id:" + appointment.getId() + " AND date:" + DEFAULT_APPT_TIME + ".."))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(appointment.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void searchAppointmentWithInvalidDate() throws Exception {
+        restAppointmentMockMvc.perform(get("/api/_search/appointments").param("query", "vet:Search Vet AND date:tomorrow"))
+            .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Book three appointments, on the first three days, for the same vet, pet and owner.
+     */
+    private Pet initSearchAppointments() {
+        Vet vet = new Vet().name("Search Vet");
+        em.persist(vet);
+        Owner owner = new Owner().name("Search Owner");
+        em.persist(owner);
+        Pet pet = new Pet().name("Search Pet").owner(owner);
+        em.persist(pet);
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Appointment().apptTime(DEFAULT_APPT_TIME.plusDays(i)).vet(vet).pet(pet));
+        }
+        em.flush();
+        return pet;
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {
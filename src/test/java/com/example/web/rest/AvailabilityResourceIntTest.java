@@ -0,0 +1,151 @@
+package com.example.web.rest;
+
+import com.example.Petclinic2App;
+import com.example.config.ApplicationProperties;
+
+import com.example.domain.Appointment;
+import com.example.domain.Slot;
+import com.example.domain.Vet;
+import com.example.repository.SqlStatementCounter;
+import com.example.service.AvailabilityService;
+import com.example.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static com.example.web.rest.TestUtil.createFormattingConversionService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the AvailabilityResource REST controller.
+ *
+ * @see AvailabilityResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+@Transactional
+public class AvailabilityResourceIntTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.now().plusDays(30);
+
+    private static final LocalDate SECOND_DAY = FIRST_DAY.plusDays(1);
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restAvailabilityMockMvc;
+
+    private Vet vet;
+
+    private Slot nine;
+
+    private Slot ten;
+
+    private Slot eleven;
+
+    @Before
+    public void setup() {
+        AvailabilityResource availabilityResource = new AvailabilityResource(availabilityService, applicationProperties);
+        this.restAvailabilityMockMvc = MockMvcBuilders.standaloneSetup(availabilityResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter).build();
+
+        vet = new Vet().name("Availability");
+        em.persist(vet);
+        nine = new Slot().startTime(LocalTime.of(9, 0));
+        em.persist(nine);
+        ten = new Slot().startTime(LocalTime.of(10, 0));
+        em.persist(ten);
+        eleven = new Slot().startTime(LocalTime.of(11, 0));
+        em.persist(eleven);
+        em.persist(new Appointment().apptTime(FIRST_DAY).vet(vet).slot(ten));
+        em.flush();
+    }
+
+    @Test
+    public void getAvailability() throws Exception {
+        restAvailabilityMockMvc.perform(get("/api/availability?vetId={vetId}&from={from}&to={to}",
+            vet.getId(), FIRST_DAY, SECOND_DAY))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].date").value(FIRST_DAY.toString()))
+            .andExpect(jsonPath("$[0].slots[*].id").value(hasItems(nine.getId().intValue(), eleven.getId().intValue())))
+            .andExpect(jsonPath("$[0].slots[*].id").value(not(hasItem(ten.getId().intValue()))))
+            .andExpect(jsonPath("$[1].date").value(SECOND_DAY.toString()))
+            .andExpect(jsonPath("$[1].slots[*].id")
+                .value(hasItems(nine.getId().intValue(), ten.getId().intValue(), eleven.getId().intValue())));
+    }
+
+    @Test
+    public void getAvailabilityDoesNotQueryLoadedDaysAgain() throws Exception {
+        availabilityService.findAvailability(vet.getId(), FIRST_DAY, SECOND_DAY);
+
+        try (SqlStatementCounter sqlStatementCounter = new SqlStatementCounter(em)) {
+            restAvailabilityMockMvc.perform(get("/api/availability?vetId={vetId}&from={from}&to={to}",
+                vet.getId(), FIRST_DAY, SECOND_DAY))
+                .andExpect(status().isOk());
+
+            // The slots only
+            assertThat(sqlStatementCounter.getStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void getAvailabilityWithInvalidRange() throws Exception {
+        restAvailabilityMockMvc.perform(get("/api/availability?vetId={vetId}&from={from}&to={to}",
+            vet.getId(), SECOND_DAY, FIRST_DAY))
+            .andExpect(status().isBadRequest());
+        restAvailabilityMockMvc.perform(get("/api/availability?vetId={vetId}&from={from}&to={to}",
+            vet.getId(), FIRST_DAY, FIRST_DAY.plusDays(AvailabilityResource.MAX_DAYS)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAvailabilityOutOfTheBookingHorizon() throws Exception {
+        LocalDate today = LocalDate.now();
+        restAvailabilityMockMvc.perform(get("/api/availability?vetId={vetId}&from={from}&to={to}",
+            vet.getId(), today.minusDays(1), today))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.rangeinpast"));
+        LocalDate horizon = today.plusDays(applicationProperties.getAvailability().getBookingHorizonDays());
+        restAvailabilityMockMvc.perform(get("/api/availability?vetId={vetId}&from={from}&to={to}",
+            vet.getId(), horizon, horizon.plusDays(1)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.rangebeyondhorizon"));
+    }
+
+    @Test
+    public void getAvailabilityOfUnknownVet() throws Exception {
+        restAvailabilityMockMvc.perform(get("/api/availability?vetId={vetId}&from={from}&to={to}",
+            Long.MAX_VALUE, FIRST_DAY, SECOND_DAY))
+            .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.web.rest;
+
+import com.example.Petclinic2App;
+import com.example.aop.logging.InstrumentationAspect;
+import com.example.web.rest.vm.InstrumentationVM;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the InstrumentationResource REST controller.
+ *
+ * @see InstrumentationResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+public class InstrumentationResourceIntTest {
+
+    private static final String SWITCHED_PACKAGE = "com.example.repository";
+
+    @Autowired
+    private InstrumentationAspect instrumentationAspect;
+
+    private MockMvc restInstrumentationMockMvc;
+
+    @Before
+    public void setup() {
+        InstrumentationResource instrumentationResource = new InstrumentationResource(instrumentationAspect);
+        this.restInstrumentationMockMvc = MockMvcBuilders
+            .standaloneSetup(instrumentationResource)
+            .build();
+    }
+
+    @After
+    public void enableInstrumentation() {
+        instrumentationAspect.setEnabled(SWITCHED_PACKAGE, true);
+    }
+
+    @Test
+    public void switchInstrumentation() throws Exception {
+        restInstrumentationMockMvc.perform(put("/management/instrumentation")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(new InstrumentationVM(SWITCHED_PACKAGE, false))))
+            .andExpect(status().isNoContent());
+
+        restInstrumentationMockMvc.perform(get("/management/instrumentation"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[?(@.name == '" + SWITCHED_PACKAGE + "')].enabled").value(hasItem(false)));
+    }
+
+    @Test
+    public void switchInstrumentationWithoutName() throws Exception {
+        restInstrumentationMockMvc.perform(put("/management/instrumentation")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(new InstrumentationVM(null, false))))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -2,32 +2,46 @@ package com.example.web.rest;
 
 import com.example.Petclinic2App;
 
+import com.example.config.ApplicationProperties;
 import com.example.domain.Owner;
+import com.example.repository.KeysetRepository;
 import com.example.repository.OwnerRepository;
 import com.example.repository.search.OwnerSearchRepository;
 import com.example.service.OwnerService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
 import com.example.web.rest.errors.ExceptionTranslator;
+import com.example.service.dto.BatchOperationDTO;
 import com.example.service.dto.OwnerCriteria;
 import com.example.service.OwnerQueryService;
+import com.example.service.QueryPlanner;
+import com.example.service.SearchOutboxService;
+import com.example.web.rest.util.HeaderUtil;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -35,7 +49,7 @@ import java.util.List;
 import static com.example.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
-import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -75,12 +89,24 @@ public class OwnerResourceIntTest {
     @Autowired
     private OwnerQueryService ownerQueryService;
 
+    @Autowired
+    private KeysetRepository keysetRepository;
+
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BatchService batchService;
+
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
@@ -97,7 +123,7 @@ public class OwnerResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final OwnerResource ownerResource = new OwnerResource(ownerService, ownerQueryService);
+        final OwnerResource ownerResource = new OwnerResource(ownerService, ownerQueryService, exportService, batchService);
         this.restOwnerMockMvc = MockMvcBuilders.standaloneSetup(ownerResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -144,7 +170,8 @@ public class OwnerResourceIntTest {
         assertThat(testOwner.getEmail()).isEqualTo(DEFAULT_EMAIL);
         assertThat(testOwner.getPhone()).isEqualTo(DEFAULT_PHONE);
 
-        // Validate the Owner in Elasticsearch
+        // Validate the Owner in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockOwnerSearchRepository, times(1)).save(testOwner);
     }
 
@@ -355,6 +382,73 @@ public class OwnerResourceIntTest {
     }
 
 
+    @Test
+    @Transactional
+    public void getAllOwnersAfterCursor() throws Exception {
+        // Initialize the database
+        Owner first = ownerRepository.saveAndFlush(createEntity(em).name("KEYSET-1"));
+        Owner second = ownerRepository.saveAndFlush(createEntity(em).name("KEYSET-2"));
+
+        // Get the first slice, then follow its next link
+        String link = restOwnerMockMvc.perform(get("/api/owners?name.contains=KEYSET&sort=name,asc&size=1&after=&count=true"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue())))
+            .andReturn().getResponse().getHeader("Link");
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf(">; rel=\"next\""));
+        assertThat(next).contains("name.contains=KEYSET");
+
+        restOwnerMockMvc.perform(get(java.net.URI.create(next)))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(header().string("Link", not(containsString("rel=\"next\""))))
+            .andExpect(jsonPath("$.[*].id").value(contains(second.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllOwnersAfterMalformedCursor() throws Exception {
+        restOwnerMockMvc.perform(get("/api/owners?after=garbage!"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidCursor"));
+    }
+
+    @Test
+    public void batchOwnersReportsEachOperation() throws Exception {
+        Owner withoutId = createEntity(em);
+
+        restOwnerMockMvc.perform(post("/api/owners/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(
+                new BatchOperationDTO<>(BatchOperationDTO.Operation.UPDATE, withoutId, null),
+                new BatchOperationDTO<>(BatchOperationDTO.Operation.DELETE, null, null)))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[*].index").value(contains(0, 1)))
+            .andExpect(jsonPath("$.[*].status").value(contains(400, 400)))
+            .andExpect(jsonPath("$.[*].errorKey").value(contains("idnull", "idnull")));
+    }
+
+    @Test
+    public void exportOwners() throws Exception {
+        // The export is written by another thread, after the request returns
+        MvcResult mvcResult = restOwnerMockMvc.perform(get("/api/owners/export?format=csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restOwnerMockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"owners.csv\""))
+            .andExpect(content().string(org.hamcrest.Matchers.startsWith("id,name,email,phone\r\n")));
+    }
+
+    @Test
+    public void exportOwnersWithUnknownFormat() throws Exception {
+        restOwnerMockMvc.perform(get("/api/owners/export?format=xml"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getNonExistingOwner() throws Exception {
@@ -395,7 +489,8 @@ public class OwnerResourceIntTest {
         assertThat(testOwner.getEmail()).isEqualTo(UPDATED_EMAIL);
         assertThat(testOwner.getPhone()).isEqualTo(UPDATED_PHONE);
 
-        // Validate the Owner in Elasticsearch
+        // Validate the Owner in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockOwnerSearchRepository, times(1)).save(testOwner);
     }
 
@@ -437,7 +532,8 @@ public class OwnerResourceIntTest {
         List<Owner> ownerList = ownerRepository.findAll();
         assertThat(ownerList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Owner in Elasticsearch
+        // Validate the Owner in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockOwnerSearchRepository, times(1)).deleteById(owner.getId());
     }
 
@@ -458,6 +554,37 @@ public class OwnerResourceIntTest {
             .andExpect(jsonPath("$.[*].phone").value(hasItem(DEFAULT_PHONE)));
     }
 
+    @Test
+    @Transactional
+    public void getAllOwnersJustSavedByTextFilter() throws Exception {
+        // Text filters go to Elasticsearch, which is disabled in the test configuration
+        QueryPlanner searchingQueryPlanner = new QueryPlanner(new ApplicationProperties(), new SimpleMeterRegistry());
+        OwnerQueryService searchingQueryService = new OwnerQueryService(ownerRepository, mockOwnerSearchRepository,
+            keysetRepository, searchingQueryPlanner);
+        MockMvc searchingMockMvc = MockMvcBuilders.standaloneSetup(
+            new OwnerResource(ownerService, searchingQueryService, exportService, batchService))
+            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter).build();
+        ownerService.save(owner);
+        // The outbox has not indexed the owner yet
+        when(mockOwnerSearchRepository.search(Mockito.any(QueryBuilder.class), Mockito.any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        searchingMockMvc.perform(get("/api/owners?name.contains=" + DEFAULT_NAME))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        searchingMockMvc.perform(get("/api/owners?name.contains=" + DEFAULT_NAME)
+            .header(HeaderUtil.READ_YOUR_WRITES, "true"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(owner.getId().intValue())));
+        searchingMockMvc.perform(get("/api/owners/count?name.contains=" + DEFAULT_NAME)
+            .header(HeaderUtil.READ_YOUR_WRITES, "true"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(not("0")));
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {
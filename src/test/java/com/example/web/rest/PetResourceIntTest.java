@@ -7,9 +7,12 @@ import com.example.domain.Owner;
 import com.example.repository.PetRepository;
 import com.example.repository.search.PetSearchRepository;
 import com.example.service.PetService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
 import com.example.web.rest.errors.ExceptionTranslator;
 import com.example.service.dto.PetCriteria;
 import com.example.service.PetQueryService;
+import com.example.service.SearchOutboxService;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -76,12 +79,21 @@ public class PetResourceIntTest {
     @Autowired
     private PetQueryService petQueryService;
 
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BatchService batchService;
+
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
@@ -98,7 +110,7 @@ public class PetResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final PetResource petResource = new PetResource(petService, petQueryService);
+        final PetResource petResource = new PetResource(petService, petQueryService, exportService, batchService);
         this.restPetMockMvc = MockMvcBuilders.standaloneSetup(petResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -145,7 +157,8 @@ public class PetResourceIntTest {
         assertThat(testPet.getType()).isEqualTo(DEFAULT_TYPE);
         assertThat(testPet.getBreed()).isEqualTo(DEFAULT_BREED);
 
-        // Validate the Pet in Elasticsearch
+        // Validate the Pet in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockPetSearchRepository, times(1)).save(testPet);
     }
 
@@ -415,7 +428,8 @@ public class PetResourceIntTest {
         assertThat(testPet.getType()).isEqualTo(UPDATED_TYPE);
         assertThat(testPet.getBreed()).isEqualTo(UPDATED_BREED);
 
-        // Validate the Pet in Elasticsearch
+        // Validate the Pet in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockPetSearchRepository, times(1)).save(testPet);
     }
 
@@ -457,7 +471,8 @@ public class PetResourceIntTest {
         List<Pet> petList = petRepository.findAll();
         assertThat(petList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Pet in Elasticsearch
+        // Validate the Pet in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockPetSearchRepository, times(1)).deleteById(pet.getId());
     }
 
@@ -0,0 +1,69 @@
+package com.example.web.rest;
+
+import com.example.Petclinic2App;
+import com.example.service.SearchReindexService;
+import com.example.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.hasItems;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the SearchReindexResource REST controller.
+ *
+ * @see SearchReindexResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Petclinic2App.class)
+public class SearchReindexResourceIntTest {
+
+    @Autowired
+    private SearchReindexService searchReindexService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restSearchReindexMockMvc;
+
+    @Before
+    public void setup() {
+        SearchReindexResource searchReindexResource = new SearchReindexResource(searchReindexService);
+        this.restSearchReindexMockMvc = MockMvcBuilders.standaloneSetup(searchReindexResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter)
+            .build();
+    }
+
+    @Test
+    public void getReindexStatus() throws Exception {
+        restSearchReindexMockMvc.perform(get("/management/search/reindex"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].index").value(hasItems("owner", "pet", "vet", "slot", "appointment", "user")));
+    }
+
+    @Test
+    public void reindexUnknownIndex() throws Exception {
+        restSearchReindexMockMvc.perform(post("/management/search/reindex")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Collections.singletonList("unknown"))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.unknownindex"));
+    }
+}
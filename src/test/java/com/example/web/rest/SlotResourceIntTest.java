@@ -6,9 +6,12 @@ import com.example.domain.Slot;
 import com.example.repository.SlotRepository;
 import com.example.repository.search.SlotSearchRepository;
 import com.example.service.SlotService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
 import com.example.web.rest.errors.ExceptionTranslator;
 import com.example.service.dto.SlotCriteria;
 import com.example.service.SlotQueryService;
+import com.example.service.SearchOutboxService;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -26,6 +29,8 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.List;
 
@@ -33,6 +38,7 @@ import java.util.List;
 import static com.example.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -47,8 +53,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest(classes = Petclinic2App.class)
 public class SlotResourceIntTest {
 
-    private static final String DEFAULT_START_TIME = "AAAAAAAAAA";
-    private static final String UPDATED_START_TIME = "BBBBBBBBBB";
+    private static final LocalTime DEFAULT_START_TIME = LocalTime.of(9, 0);
+    private static final LocalTime UPDATED_START_TIME = LocalTime.of(10, 30);
 
     @Autowired
     private SlotRepository slotRepository;
@@ -67,12 +73,21 @@ public class SlotResourceIntTest {
     @Autowired
     private SlotQueryService slotQueryService;
 
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BatchService batchService;
+
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
@@ -89,7 +104,7 @@ public class SlotResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final SlotResource slotResource = new SlotResource(slotService, slotQueryService);
+        final SlotResource slotResource = new SlotResource(slotService, slotQueryService, exportService, batchService);
         this.restSlotMockMvc = MockMvcBuilders.standaloneSetup(slotResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -132,7 +147,8 @@ public class SlotResourceIntTest {
         Slot testSlot = slotList.get(slotList.size() - 1);
         assertThat(testSlot.getStartTime()).isEqualTo(DEFAULT_START_TIME);
 
-        // Validate the Slot in Elasticsearch
+        // Validate the Slot in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockSlotSearchRepository, times(1)).save(testSlot);
     }
 
@@ -187,7 +203,7 @@ public class SlotResourceIntTest {
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(slot.getId().intValue())))
-            .andExpect(jsonPath("$.[*].startTime").value(hasItem(DEFAULT_START_TIME.toString())));
+            .andExpect(jsonPath("$.[*].startTime").value(hasItem(DEFAULT_START_TIME.format(DateTimeFormatter.ISO_LOCAL_TIME))));
     }
     
     @Test
@@ -201,7 +217,7 @@ public class SlotResourceIntTest {
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
             .andExpect(jsonPath("$.id").value(slot.getId().intValue()))
-            .andExpect(jsonPath("$.startTime").value(DEFAULT_START_TIME.toString()));
+            .andExpect(jsonPath("$.startTime").value(DEFAULT_START_TIME.format(DateTimeFormatter.ISO_LOCAL_TIME)));
     }
 
     @Test
@@ -242,6 +258,44 @@ public class SlotResourceIntTest {
         // Get all the slotList where startTime is null
         defaultSlotShouldNotBeFound("startTime.specified=false");
     }
+
+    @Test
+    @Transactional
+    public void getAllSlotsByStartTimeIsGreaterThanOrEqualToSomething() throws Exception {
+        // Initialize the database
+        slotRepository.saveAndFlush(slot);
+
+        // Get all the slotList where startTime greater than or equals to DEFAULT_START_TIME
+        defaultSlotShouldBeFound("startTime.greaterOrEqualThan=" + DEFAULT_START_TIME);
+
+        // Get all the slotList where startTime greater than or equals to UPDATED_START_TIME
+        defaultSlotShouldNotBeFound("startTime.greaterOrEqualThan=" + UPDATED_START_TIME);
+    }
+
+    @Test
+    @Transactional
+    public void getAllSlotsByStartTimeIsLessThanSomething() throws Exception {
+        // Initialize the database
+        slotRepository.saveAndFlush(slot);
+
+        // Get all the slotList where startTime less than or equals to DEFAULT_START_TIME
+        defaultSlotShouldNotBeFound("startTime.lessThan=" + DEFAULT_START_TIME);
+
+        // Get all the slotList where startTime less than or equals to UPDATED_START_TIME
+        defaultSlotShouldBeFound("startTime.lessThan=" + UPDATED_START_TIME);
+    }
+
+    @Test
+    @Transactional
+    public void getAllSlotsAreSortedByStartTime() throws Exception {
+        // Initialize the database
+        Slot later = slotRepository.saveAndFlush(new Slot().startTime(UPDATED_START_TIME));
+        slotRepository.saveAndFlush(slot);
+
+        restSlotMockMvc.perform(get("/api/slots?id.in=" + later.getId() + "," + slot.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(slot.getId().intValue(), later.getId().intValue())));
+    }
     /**
      * Executes the search, and checks that the default entity is returned
      */
@@ -250,7 +304,7 @@ public class SlotResourceIntTest {
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(slot.getId().intValue())))
-            .andExpect(jsonPath("$.[*].startTime").value(hasItem(DEFAULT_START_TIME)));
+            .andExpect(jsonPath("$.[*].startTime").value(hasItem(DEFAULT_START_TIME.format(DateTimeFormatter.ISO_LOCAL_TIME))));
 
         // Check, that the count call also returns 1
         restSlotMockMvc.perform(get("/api/slots/count?sort=id,desc&" + filter))
@@ -313,7 +367,8 @@ public class SlotResourceIntTest {
         Slot testSlot = slotList.get(slotList.size() - 1);
         assertThat(testSlot.getStartTime()).isEqualTo(UPDATED_START_TIME);
 
-        // Validate the Slot in Elasticsearch
+        // Validate the Slot in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockSlotSearchRepository, times(1)).save(testSlot);
     }
 
@@ -355,7 +410,8 @@ public class SlotResourceIntTest {
         List<Slot> slotList = slotRepository.findAll();
         assertThat(slotList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Slot in Elasticsearch
+        // Validate the Slot in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockSlotSearchRepository, times(1)).deleteById(slot.getId());
     }
 
@@ -371,7 +427,7 @@ public class SlotResourceIntTest {
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(slot.getId().intValue())))
-            .andExpect(jsonPath("$.[*].startTime").value(hasItem(DEFAULT_START_TIME)));
+            .andExpect(jsonPath("$.[*].startTime").value(hasItem(DEFAULT_START_TIME.format(DateTimeFormatter.ISO_LOCAL_TIME))));
     }
 
     @Test
@@ -6,9 +6,12 @@ import com.example.domain.Vet;
 import com.example.repository.VetRepository;
 import com.example.repository.search.VetSearchRepository;
 import com.example.service.VetService;
+import com.example.service.BatchService;
+import com.example.service.ExportService;
 import com.example.web.rest.errors.ExceptionTranslator;
 import com.example.service.dto.VetCriteria;
 import com.example.service.VetQueryService;
+import com.example.service.SearchOutboxService;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -81,12 +84,21 @@ public class VetResourceIntTest {
     @Autowired
     private VetQueryService vetQueryService;
 
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BatchService batchService;
+
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
@@ -103,7 +115,7 @@ public class VetResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final VetResource vetResource = new VetResource(vetService, vetQueryService);
+        final VetResource vetResource = new VetResource(vetService, vetQueryService, exportService, batchService);
         this.restVetMockMvc = MockMvcBuilders.standaloneSetup(vetResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -154,7 +166,8 @@ public class VetResourceIntTest {
         assertThat(testVet.getStateProvince()).isEqualTo(DEFAULT_STATE_PROVINCE);
         assertThat(testVet.getPhone()).isEqualTo(DEFAULT_PHONE);
 
-        // Validate the Vet in Elasticsearch
+        // Validate the Vet in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockVetSearchRepository, times(1)).save(testVet);
     }
 
@@ -493,7 +506,8 @@ public class VetResourceIntTest {
         assertThat(testVet.getStateProvince()).isEqualTo(UPDATED_STATE_PROVINCE);
         assertThat(testVet.getPhone()).isEqualTo(UPDATED_PHONE);
 
-        // Validate the Vet in Elasticsearch
+        // Validate the Vet in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockVetSearchRepository, times(1)).save(testVet);
     }
 
@@ -535,7 +549,8 @@ public class VetResourceIntTest {
         List<Vet> vetList = vetRepository.findAll();
         assertThat(vetList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Vet in Elasticsearch
+        // Validate the Vet in Elasticsearch, once the search outbox has been drained
+        searchOutboxService.processOutbox();
         verify(mockVetSearchRepository, times(1)).deleteById(vet.getId());
     }
 